@@ -0,0 +1,177 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.freenono.serializer.data.NonogramFormatException;
+import org.freenono.serializer.data.StAXNonogramSerializer;
+
+/**
+ * Provides nonograms for benchmarks. Nonograms are either loaded from the test data directory or
+ * created randomly with a fixed seed, so that every run uses the same data.
+ *
+ * @author Christian Wichmann
+ */
+final class BenchmarkData {
+
+    /**
+     * Name of system property with the path of the test data directory.
+     */
+    static final String DATA_DIRECTORY_PROPERTY = "freenono.benchmark.data";
+
+    /**
+     * Name of the puzzle set containing nonograms from the test data directory.
+     */
+    static final String FIXTURE = "fixture";
+
+    private static final String DEFAULT_DATA_DIRECTORY = "../Test/data";
+    private static final int SYNTHETIC_NONOGRAM_COUNT = 20;
+    private static final long SEED = 42;
+
+    /**
+     * Hides constructor of utility class.
+     */
+    private BenchmarkData() {
+    }
+
+    /**
+     * Gets the test data directory.
+     *
+     * @return test data directory
+     */
+    static File getDataDirectory() {
+
+        return new File(System.getProperty(DATA_DIRECTORY_PROPERTY, DEFAULT_DATA_DIRECTORY));
+    }
+
+    /**
+     * Gets nonograms for a puzzle set. The set is either <code>FIXTURE</code> for all xml
+     * nonograms from the test data directory or the side length of synthetic square nonograms.
+     *
+     * @param puzzles
+     *            name of the puzzle set
+     * @return nonograms of puzzle set
+     * @throws IOException
+     *             if fixtures could not be read
+     * @throws NonogramFormatException
+     *             if fixtures have wrong format
+     */
+    static Nonogram[] getNonograms(final String puzzles) throws IOException, NonogramFormatException {
+
+        if (FIXTURE.equals(puzzles)) {
+            return loadFixtureNonograms();
+        }
+        return createRandomNonograms(SYNTHETIC_NONOGRAM_COUNT, Integer.parseInt(puzzles));
+    }
+
+    /**
+     * Loads all nonograms from xml files in the test data directory.
+     *
+     * @return nonograms from test data
+     * @throws IOException
+     *             if fixtures could not be read
+     * @throws NonogramFormatException
+     *             if fixtures have wrong format
+     */
+    static Nonogram[] loadFixtureNonograms() throws IOException, NonogramFormatException {
+
+        final File xmlDirectory = new File(getDataDirectory(), "nonogram" + File.separator + "xml");
+        final File[] files = xmlDirectory.listFiles();
+        if (files == null) {
+            throw new IOException("Test data not found in " + xmlDirectory.getAbsolutePath());
+        }
+        Arrays.sort(files);
+
+        final StAXNonogramSerializer serializer = new StAXNonogramSerializer();
+        final List<Nonogram> nonograms = new ArrayList<Nonogram>();
+        for (final File file : files) {
+            if (file.getName().endsWith("." + StAXNonogramSerializer.DEFAULT_FILE_EXTENSION)) {
+                nonograms.addAll(Arrays.asList(serializer.load(file)));
+            }
+        }
+        return nonograms.toArray(new Nonogram[0]);
+    }
+
+    /**
+     * Creates square nonograms with random patterns in which about half of all fields are occupied.
+     *
+     * @param count
+     *            number of nonograms
+     * @param size
+     *            side length of nonograms
+     * @return random nonograms
+     */
+    static Nonogram[] createRandomNonograms(final int count, final int size) {
+
+        final Random random = new Random(SEED + size);
+        final Nonogram[] nonograms = new Nonogram[count];
+        for (int i = 0; i < count; i++) {
+            final boolean[][] field = new boolean[size][size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    field[y][x] = random.nextBoolean();
+                }
+            }
+            nonograms[i] = new Nonogram("Random" + i, DifficultyLevel.NORMAL, field);
+            nonograms[i].setDescription("Random nonogram with " + size + "x" + size + " fields");
+            nonograms[i].setAuthor("FreeNono");
+            nonograms[i].setLevel(i + 1);
+        }
+        return nonograms;
+    }
+
+    /**
+     * Creates a temporary directory for files written by benchmarks.
+     *
+     * @return new temporary directory
+     * @throws IOException
+     *             if directory could not be created
+     */
+    static File createTempDirectory() throws IOException {
+
+        return Files.createTempDirectory("freenono-benchmark").toFile();
+    }
+
+    /**
+     * Deletes a directory including all files in it.
+     *
+     * @param file
+     *            file or directory to be deleted
+     */
+    static void deleteRecursively(final File file) {
+
+        final File[] files = file.listFiles();
+        if (files != null) {
+            for (final File f : files) {
+                deleteRecursively(f);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
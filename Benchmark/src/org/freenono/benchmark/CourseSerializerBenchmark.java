@@ -0,0 +1,173 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
+import org.freenono.serializer.data.CourseFormatException;
+import org.freenono.serializer.data.CourseSerializer;
+import org.freenono.serializer.data.NonogramFormatException;
+import org.freenono.serializer.data.XMLCourseSerializer;
+import org.freenono.serializer.data.ZipCourseSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading and saving of courses as directories and zip files. Lazily loaded zip courses
+ * only read an index of all nonograms while loading.
+ *
+ * @author Christian Wichmann
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CourseSerializerBenchmark {
+
+    private static final String FIXTURE_COURSE = "course" + File.separator + "Multi01";
+    private static final String COURSE_NAME = "Benchmark";
+
+    @Param({ "XML", "Zip", "ZipLazy", "ZipBinary" })
+    private String serializer;
+
+    @Param({ BenchmarkData.FIXTURE, "30", "100" })
+    private String puzzles;
+
+    private CourseSerializer courseSerializer;
+    private Course course;
+    private File directory;
+    private File loadFile;
+    private File saveDirectory;
+
+    /**
+     * Prepares a course and writes it to a file that is read by the load benchmark.
+     *
+     * @throws IOException
+     *             if file could not be written
+     * @throws CourseFormatException
+     *             if fixture could not be read
+     * @throws NonogramFormatException
+     *             if fixture could not be read
+     */
+    @Setup
+    public final void setUp() throws IOException, CourseFormatException, NonogramFormatException {
+
+        courseSerializer = createSerializer(serializer);
+
+        if (BenchmarkData.FIXTURE.equals(puzzles)) {
+            final Course fixture = new XMLCourseSerializer().load(new File(BenchmarkData.getDataDirectory(),
+                    FIXTURE_COURSE));
+            course = new Course(COURSE_NAME, new ArrayList<Nonogram>(Arrays.asList(fixture.getNonograms())));
+        } else {
+            final Nonogram[] nonograms = BenchmarkData.getNonograms(puzzles);
+            course = new Course(COURSE_NAME, new ArrayList<Nonogram>(Arrays.asList(nonograms)));
+        }
+
+        directory = BenchmarkData.createTempDirectory();
+        final File loadDirectory = new File(directory, "load");
+        saveDirectory = new File(directory, "save");
+        if (!loadDirectory.mkdir() || !saveDirectory.mkdir()) {
+            throw new IOException("Could not create directories in " + directory.getAbsolutePath());
+        }
+        courseSerializer.save(loadDirectory, course);
+        loadFile = loadDirectory.listFiles()[0];
+    }
+
+    /**
+     * Deletes all files written by this benchmark.
+     */
+    @TearDown
+    public final void tearDown() {
+
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    /**
+     * Loads course from file.
+     *
+     * @return loaded course
+     * @throws IOException
+     *             if file could not be read
+     * @throws CourseFormatException
+     *             if course has wrong format
+     * @throws NonogramFormatException
+     *             if nonogram in course has wrong format
+     */
+    @Benchmark
+    public final Course load() throws IOException, CourseFormatException, NonogramFormatException {
+
+        return courseSerializer.load(loadFile);
+    }
+
+    /**
+     * Saves course to file.
+     *
+     * @return directory course was saved in
+     * @throws IOException
+     *             if file could not be written
+     */
+    @Benchmark
+    public final File save() throws IOException {
+
+        courseSerializer.save(saveDirectory, course);
+        return saveDirectory;
+    }
+
+    /**
+     * Creates serializer by its name.
+     *
+     * @param name
+     *            name of serializer
+     * @return new serializer
+     */
+    private static CourseSerializer createSerializer(final String name) {
+
+        switch (name) {
+        case "XML":
+            return new XMLCourseSerializer();
+        case "Zip":
+            return new ZipCourseSerializer();
+        case "ZipLazy":
+            return new ZipCourseSerializer(true);
+        case "ZipBinary":
+            final ZipCourseSerializer zipSerializer = new ZipCourseSerializer();
+            zipSerializer.setEntryFormat(ZipCourseSerializer.EntryFormat.BINARY);
+            return zipSerializer;
+        default:
+            throw new IllegalArgumentException("Unknown serializer: " + name);
+        }
+    }
+}
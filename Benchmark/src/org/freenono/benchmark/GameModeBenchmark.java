@@ -0,0 +1,118 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.controller.Settings;
+import org.freenono.event.FieldControlEvent;
+import org.freenono.event.GameEventHelper;
+import org.freenono.event.StateChangeEvent;
+import org.freenono.model.GameBoard;
+import org.freenono.model.GameState;
+import org.freenono.model.data.Nonogram;
+import org.freenono.model.game_modes.GameMode;
+import org.freenono.model.game_modes.GameMode_CountTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures solving a whole nonogram on the game board and through a game mode. Solving through a
+ * game mode includes firing all events and checking captions after every occupied field.
+ *
+ * @author Christian Wichmann
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameModeBenchmark {
+
+    @Param({ "10", "30", "100" })
+    private int size;
+
+    private Nonogram nonogram;
+    private Settings settings;
+
+    /**
+     * Creates a random nonogram of the given size.
+     */
+    @Setup
+    public final void setUp() {
+
+        nonogram = BenchmarkData.createRandomNonograms(1, size)[0];
+        settings = new Settings();
+    }
+
+    /**
+     * Occupies all fields of the pattern on a new game board and checks whether it is solved.
+     *
+     * @return true, if board was solved
+     */
+    @Benchmark
+    public final boolean solveGameBoard() {
+
+        final GameBoard gameBoard = new GameBoard(nonogram);
+        for (int y = 0; y < nonogram.height(); y++) {
+            for (int x = 0; x < nonogram.width(); x++) {
+                if (nonogram.getFieldValue(x, y)) {
+                    gameBoard.occupy(x, y);
+                }
+            }
+        }
+        return gameBoard.isSolvedThroughOccupied();
+    }
+
+    /**
+     * Occupies all fields of the pattern by firing events to a game mode and checks whether the
+     * game is solved.
+     *
+     * @return true, if game was solved
+     */
+    @Benchmark
+    public final boolean solveGameMode() {
+
+        final GameEventHelper eventHelper = new GameEventHelper();
+        final GameMode gameMode = new GameMode_CountTime(eventHelper, nonogram, settings);
+        eventHelper.fireStateChangedEvent(new StateChangeEvent(this, GameState.NONE, GameState.RUNNING));
+
+        for (int y = 0; y < nonogram.height(); y++) {
+            for (int x = 0; x < nonogram.width(); x++) {
+                if (nonogram.getFieldValue(x, y)) {
+                    eventHelper.fireOccupyFieldEvent(new FieldControlEvent(this, x, y));
+                }
+            }
+        }
+
+        final boolean solved = gameMode.isSolved();
+        gameMode.stopGame();
+        gameMode.quitGame();
+        return solved;
+    }
+}
@@ -0,0 +1,131 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.model.data.Nonogram;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures basic operations on the bit-packed field of a nonogram. Captions are calculated lazily
+ * by the nonogram when they are accessed for the first time, so their calculation is measured on a
+ * fresh copy of the nonogram.
+ *
+ * @author Christian Wichmann
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NonogramBenchmark {
+
+    @Param({ "10", "30", "100" })
+    private int size;
+
+    private Nonogram nonogram;
+
+    /**
+     * Creates a random nonogram of the given size.
+     */
+    @Setup
+    public final void setUp() {
+
+        nonogram = BenchmarkData.createRandomNonograms(1, size)[0];
+    }
+
+    /**
+     * Copies the field of the nonogram row by row.
+     *
+     * @return copy of nonogram
+     */
+    @Benchmark
+    public final Nonogram copy() {
+
+        return copyNonogram();
+    }
+
+    /**
+     * Calculates all captions of a copy of the nonogram.
+     *
+     * @return first line caption of the copy
+     */
+    @Benchmark
+    public final int[] calculateCaptions() {
+
+        return copyNonogram().getLineNumbers(0);
+    }
+
+    /**
+     * Reads all fields of the nonogram.
+     *
+     * @return number of occupied fields
+     */
+    @Benchmark
+    public final int readFields() {
+
+        int occupied = 0;
+        for (int y = 0; y < nonogram.height(); y++) {
+            for (int x = 0; x < nonogram.width(); x++) {
+                if (nonogram.getFieldValue(x, y)) {
+                    occupied++;
+                }
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Calculates the hash of the nonogram.
+     *
+     * @return hash of nonogram
+     */
+    @Benchmark
+    public final String getHash() {
+
+        nonogram.setHash(null);
+        return nonogram.getHash();
+    }
+
+    /**
+     * Copies nonogram by setting all its rows on a new nonogram of the same size.
+     *
+     * @return copy of nonogram
+     */
+    private Nonogram copyNonogram() {
+
+        final Nonogram copy = new Nonogram(nonogram.getName(), nonogram.getDifficulty(), nonogram.width(),
+                nonogram.height());
+        for (int y = 0; y < nonogram.height(); y++) {
+            copy.setRowBits(y, nonogram.getRowBits(y));
+        }
+        return copy;
+    }
+}
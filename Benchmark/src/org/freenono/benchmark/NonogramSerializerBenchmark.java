@@ -0,0 +1,150 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.model.data.Nonogram;
+import org.freenono.serializer.data.BinaryNonogramSerializer;
+import org.freenono.serializer.data.NonogramFormatException;
+import org.freenono.serializer.data.NonogramSerializer;
+import org.freenono.serializer.data.SimpleNonogramSerializer;
+import org.freenono.serializer.data.StAXNonogramSerializer;
+import org.freenono.serializer.data.XMLNonogramSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading and saving of nonogram files for all serializers. The JCross serializer is not
+ * included because it can not save nonograms.
+ *
+ * @author Christian Wichmann
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NonogramSerializerBenchmark {
+
+    @Param({ "XML", "StAX", "Simple", "Binary" })
+    private String serializer;
+
+    @Param({ BenchmarkData.FIXTURE, "10", "30", "100" })
+    private String puzzles;
+
+    private NonogramSerializer nonogramSerializer;
+    private Nonogram[] nonograms;
+    private File directory;
+    private File loadFile;
+    private File saveFile;
+
+    /**
+     * Prepares nonograms and writes them to a file that is read by the load benchmark.
+     *
+     * @throws IOException
+     *             if file could not be written
+     * @throws NonogramFormatException
+     *             if fixtures could not be read
+     */
+    @Setup
+    public final void setUp() throws IOException, NonogramFormatException {
+
+        nonogramSerializer = createSerializer(serializer);
+        nonograms = BenchmarkData.getNonograms(puzzles);
+
+        directory = BenchmarkData.createTempDirectory();
+        loadFile = new File(directory, "load");
+        saveFile = new File(directory, "save");
+        nonogramSerializer.save(loadFile, nonograms);
+    }
+
+    /**
+     * Deletes all files written by this benchmark.
+     */
+    @TearDown
+    public final void tearDown() {
+
+        BenchmarkData.deleteRecursively(directory);
+    }
+
+    /**
+     * Loads all nonograms from file.
+     *
+     * @return loaded nonograms
+     * @throws IOException
+     *             if file could not be read
+     * @throws NonogramFormatException
+     *             if file has wrong format
+     */
+    @Benchmark
+    public final Nonogram[] load() throws IOException, NonogramFormatException {
+
+        return nonogramSerializer.load(loadFile);
+    }
+
+    /**
+     * Saves all nonograms to file.
+     *
+     * @return saved file
+     * @throws IOException
+     *             if file could not be written
+     */
+    @Benchmark
+    public final File save() throws IOException {
+
+        nonogramSerializer.save(saveFile, nonograms);
+        return saveFile;
+    }
+
+    /**
+     * Creates serializer by its name.
+     *
+     * @param name
+     *            name of serializer
+     * @return new serializer
+     */
+    private static NonogramSerializer createSerializer(final String name) {
+
+        switch (name) {
+        case "XML":
+            return new XMLNonogramSerializer();
+        case "StAX":
+            return new StAXNonogramSerializer();
+        case "Simple":
+            return new SimpleNonogramSerializer();
+        case "Binary":
+            return new BinaryNonogramSerializer();
+        default:
+            throw new IllegalArgumentException("Unknown serializer: " + name);
+        }
+    }
+}
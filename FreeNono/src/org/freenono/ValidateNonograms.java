@@ -0,0 +1,405 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
+import org.freenono.serializer.data.CourseFormatException;
+import org.freenono.serializer.data.CourseSerializer;
+import org.freenono.serializer.data.NonogramFormatException;
+import org.freenono.serializer.data.SimpleNonogramSerializer;
+import org.freenono.serializer.data.StAXNonogramSerializer;
+import org.freenono.serializer.data.XMLCourseSerializer;
+import org.freenono.serializer.data.ZipCourseSerializer;
+import org.freenono.solver.NonogramSolver;
+import org.freenono.solver.SolverResult;
+
+/**
+ * Helper tool to check whole collections of nonograms for unsolvable or ambiguous puzzles. All
+ * courses found under the given paths are loaded and every nonogram is solved and rated in a
+ * fork-join pool. The results are written as CSV file with one line per nonogram.
+ * <p>
+ * Usage: <code>ValidateNonograms [-o report.csv] [-t threads] [-g maxGuesses] path...</code>
+ * <p>
+ * A path can be a nonopack file, a course directory or a directory containing courses. The exit
+ * code is 1 if any nonogram has no unique solution or a course could not be loaded and 2 if the
+ * command line arguments are invalid.
+ *
+ * @author Christian Wichmann
+ */
+public final class ValidateNonograms {
+
+    private static Logger logger = Logger.getLogger(ValidateNonograms.class);
+
+    /**
+     * Number of nonograms that are solved by a single task without further splitting.
+     */
+    private static final int NONOGRAMS_PER_TASK = 16;
+
+    private static final int EXIT_PROBLEMS_FOUND = 1;
+    private static final int EXIT_INVALID_ARGUMENTS = 2;
+
+    private static final String REPORT_HEADER = "course;nonogram;hash;width;height;difficulty;result;"
+            + "lineSolvable;sweeps;contradictions;guesses;score;ratedDifficulty;milliseconds";
+
+    private final List<File> courseFiles = new ArrayList<File>();
+    private final List<String> failedCourses = new ArrayList<String>();
+    private int maximumGuesses = NonogramSolver.DEFAULT_MAXIMUM_GUESSES;
+
+    /**
+     * Hidden constructor for utility class.
+     */
+    private ValidateNonograms() {
+    }
+
+    /**
+     * Main method for validating nonograms.
+     *
+     * @param args
+     *            Commandline arguments.
+     */
+    public static void main(final String[] args) {
+
+        String reportFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        final ValidateNonograms validator = new ValidateNonograms();
+        final List<File> paths = new ArrayList<File>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if ("-o".equals(args[i])) {
+                    reportFile = args[++i];
+                } else if ("-t".equals(args[i])) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if ("-g".equals(args[i])) {
+                    validator.maximumGuesses = Integer.parseInt(args[++i]);
+                } else {
+                    paths.add(new File(args[i]));
+                }
+            }
+        } catch (final ArrayIndexOutOfBoundsException e) {
+            logger.error("Missing value for last option.");
+            System.exit(EXIT_INVALID_ARGUMENTS);
+        } catch (final NumberFormatException e) {
+            logger.error("Option value is not a number: " + e.getMessage());
+            System.exit(EXIT_INVALID_ARGUMENTS);
+        }
+
+        if (paths.isEmpty() || threads < 1) {
+            logger.error("Usage: ValidateNonograms [-o report.csv] [-t threads] [-g maxGuesses] path...");
+            System.exit(EXIT_INVALID_ARGUMENTS);
+        }
+
+        for (final File path : paths) {
+            validator.findCourses(path);
+        }
+
+        final long start = System.currentTimeMillis();
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        final List<Course> courses = validator.loadCourses(pool);
+        final List<Nonogram> nonograms = new ArrayList<Nonogram>();
+        final List<String> courseNames = new ArrayList<String>();
+        for (final Course course : courses) {
+            for (final Nonogram n : course.getNonograms()) {
+                nonograms.add(n);
+                courseNames.add(course.getName());
+            }
+        }
+        final SolverResult[] results = validator.solveNonograms(pool, nonograms);
+        pool.shutdown();
+
+        logger.info("Validated " + nonograms.size() + " nonograms from " + courses.size() + " courses with " + threads
+                + " threads in " + (System.currentTimeMillis() - start) + " ms.");
+
+        int problems = validator.failedCourses.size();
+        PrintWriter out = null;
+        try {
+            if (reportFile == null) {
+                out = new PrintWriter(new OutputStreamWriter(System.out, "UTF-8"));
+            } else {
+                out = new PrintWriter(new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8"));
+            }
+            out.println(REPORT_HEADER);
+            for (int i = 0; i < nonograms.size(); i++) {
+                writeReportLine(out, courseNames.get(i), nonograms.get(i), results[i]);
+                if (!results[i].isUnique()) {
+                    problems++;
+                }
+            }
+            out.flush();
+
+        } catch (final IOException e) {
+            logger.error("Could not write report: " + e.getMessage());
+            problems++;
+
+        } finally {
+            if (out != null && reportFile != null) {
+                out.close();
+            }
+        }
+
+        for (final String failed : validator.failedCourses) {
+            logger.warn("Course could not be loaded: " + failed);
+        }
+        if (problems > 0) {
+            logger.warn(problems + " problems found.");
+            System.exit(EXIT_PROBLEMS_FOUND);
+        }
+    }
+
+    /**
+     * Finds all course files and directories recursively under the given path.
+     *
+     * @param path
+     *            nonopack file, course directory or directory containing courses
+     */
+    private void findCourses(final File path) {
+
+        if (path.getName().startsWith(".") && !path.getName().equals(".")) {
+            return;
+        }
+
+        if (path.isFile()) {
+            if (path.getName().endsWith("." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION)) {
+                courseFiles.add(path);
+            }
+            return;
+        }
+
+        final File[] files = path.listFiles();
+        if (files == null) {
+            logger.warn("Path could not be read: " + path);
+            return;
+        }
+        Arrays.sort(files);
+
+        // directories containing nonogram files are courses, all others are searched for courses
+        boolean containsNonograms = false;
+        for (final File file : files) {
+            if (file.isFile() && (file.getName().endsWith("." + StAXNonogramSerializer.DEFAULT_FILE_EXTENSION)
+                    || file.getName().endsWith("." + SimpleNonogramSerializer.DEFAULT_FILE_EXTENSION))) {
+                containsNonograms = true;
+            }
+        }
+        if (containsNonograms) {
+            courseFiles.add(path);
+        }
+        for (final File file : files) {
+            if (file.isDirectory() || !containsNonograms) {
+                findCourses(file);
+            }
+        }
+    }
+
+    /**
+     * Loads all found courses in parallel.
+     *
+     * @param pool
+     *            pool to load courses in
+     * @return list of all courses that could be loaded in the order they were found
+     */
+    private List<Course> loadCourses(final ForkJoinPool pool) {
+
+        final Course[] courses = new Course[courseFiles.size()];
+
+        pool.invoke(new RecursiveAction() {
+            private static final long serialVersionUID = 4416209183925178650L;
+
+            @Override
+            protected void compute() {
+                final List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+                for (int i = 0; i < courseFiles.size(); i++) {
+                    final int index = i;
+                    tasks.add(new RecursiveAction() {
+                        private static final long serialVersionUID = -2207436281531693513L;
+
+                        @Override
+                        protected void compute() {
+                            courses[index] = loadCourse(courseFiles.get(index));
+                        }
+                    });
+                }
+                invokeAll(tasks);
+            }
+        });
+
+        final List<Course> loaded = new ArrayList<Course>();
+        for (int i = 0; i < courses.length; i++) {
+            if (courses[i] != null) {
+                loaded.add(courses[i]);
+            } else {
+                failedCourses.add(courseFiles.get(i).getPath());
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads a single course. Serializers are created for every course, because they are not
+     * thread-safe.
+     *
+     * @param file
+     *            nonopack file or course directory
+     * @return loaded course or <code>null</code> if course could not be loaded
+     */
+    private static Course loadCourse(final File file) {
+
+        final CourseSerializer serializer;
+        if (file.isDirectory()) {
+            serializer = new XMLCourseSerializer();
+        } else {
+            serializer = new ZipCourseSerializer();
+        }
+
+        try {
+            return serializer.load(file);
+
+        } catch (final IOException e) {
+            logger.warn("loading course \"" + file + "\" caused a IOException");
+        } catch (final NonogramFormatException e) {
+            logger.warn("loading course \"" + file + "\" caused a NonogramFormatException");
+        } catch (final CourseFormatException e) {
+            logger.warn("loading course \"" + file + "\" caused a CourseFormatException");
+        }
+        return null;
+    }
+
+    /**
+     * Solves all given nonograms in parallel.
+     *
+     * @param pool
+     *            pool to solve nonograms in
+     * @param nonograms
+     *            list of nonograms
+     * @return results of all nonograms in the same order
+     */
+    private SolverResult[] solveNonograms(final ForkJoinPool pool, final List<Nonogram> nonograms) {
+
+        final SolverResult[] results = new SolverResult[nonograms.size()];
+        pool.invoke(new SolveTask(nonograms, results, 0, nonograms.size()));
+        return results;
+    }
+
+    /**
+     * Solves a range of nonograms and splits the range in halves until it is small enough.
+     *
+     * @author Christian Wichmann
+     */
+    private final class SolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 6532480011573622853L;
+
+        private final List<Nonogram> nonograms;
+        private final SolverResult[] results;
+        private final int from;
+        private final int to;
+
+        /**
+         * Initializes a task for solving nonograms.
+         *
+         * @param nonograms
+         *            list of all nonograms
+         * @param results
+         *            array to store results in
+         * @param from
+         *            first nonogram to solve
+         * @param to
+         *            index after last nonogram to solve
+         */
+        SolveTask(final List<Nonogram> nonograms, final SolverResult[] results, final int from, final int to) {
+
+            this.nonograms = nonograms;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (to - from <= NONOGRAMS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    final NonogramSolver solver = new NonogramSolver(nonograms.get(i));
+                    solver.setMaximumGuesses(maximumGuesses);
+                    results[i] = solver.solve();
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new SolveTask(nonograms, results, from, middle), new SolveTask(nonograms, results, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Writes a single line of the report.
+     *
+     * @param out
+     *            writer for report
+     * @param courseName
+     *            name of course containing the nonogram
+     * @param n
+     *            nonogram
+     * @param result
+     *            result of solving the nonogram
+     */
+    private static void writeReportLine(final PrintWriter out, final String courseName, final Nonogram n,
+            final SolverResult result) {
+
+        final StringBuilder line = new StringBuilder();
+        line.append(quote(courseName)).append(';');
+        line.append(quote(n.getName())).append(';');
+        line.append(n.getHash()).append(';');
+        line.append(n.width()).append(';');
+        line.append(n.height()).append(';');
+        line.append(n.getDifficulty()).append(';');
+        line.append(result.getUniqueness()).append(';');
+        line.append(result.isLineSolvable()).append(';');
+        line.append(result.getSweeps()).append(';');
+        line.append(result.getContradictions()).append(';');
+        line.append(result.getGuesses()).append(';');
+        line.append(String.format(Locale.ROOT, "%.2f", result.getDifficultyScore())).append(';');
+        line.append(result.getDifficultyLevel()).append(';');
+        line.append(result.getDuration());
+        out.println(line.toString());
+    }
+
+    /**
+     * Quotes a text value for the CSV report.
+     *
+     * @param value
+     *            text to quote
+     * @return quoted text
+     */
+    private static String quote(final String value) {
+
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,423 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+
+import javax.swing.JComponent;
+
+import org.freenono.board.BoardTile.SelectionMarkerType;
+import org.freenono.controller.Settings;
+import org.freenono.event.GameAdapter;
+import org.freenono.event.GameEventHelper;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Base class for board components that paint all their tiles by themselves instead of using one
+ * BoardTile component for every tile. The state of all tiles is stored in an array and painted
+ * into a back buffer. When the state of a tile changes only this tile is painted again into the
+ * back buffer and only its rectangle is repainted on screen.
+ * <p>
+ * Tiles are copied from a {@link TileSpriteCache} into the back buffer. The cache and the back buffer
+ * are dropped when the tile size or the options change. State changes may be done from any thread.
+ * The back buffer itself is only accessed from the event dispatch thread while painting.
+ *
+ * @author Christian Wichmann
+ */
+abstract class BoardCanvas extends JComponent implements BoardView {
+
+    private static final long serialVersionUID = -2818706353434307716L;
+
+    private GameEventHelper eventHelper;
+    private GameAdapter gameAdapter;
+
+    private final Nonogram pattern;
+    private final Settings settings;
+
+    private Dimension tileDimension;
+    private int canvasWidth;
+    private int canvasHeight;
+
+    private int[] cells;
+    private String[] labels;
+
+    private transient TileSpriteCache spriteCache;
+    private transient BufferedImage backBuffer;
+    private final BitSet dirtyCells = new BitSet();
+    private volatile boolean invalid = true;
+
+    /**
+     * Initializes a new board canvas.
+     *
+     * @param eventHelper
+     *            game event helper
+     * @param pattern
+     *            nonogram pattern
+     * @param settings
+     *            settings
+     * @param tileDimension
+     *            tile dimension
+     */
+    BoardCanvas(final GameEventHelper eventHelper, final Nonogram pattern, final Settings settings, final Dimension tileDimension) {
+
+        super();
+
+        this.eventHelper = eventHelper;
+        this.pattern = pattern;
+        this.settings = settings;
+        this.tileDimension = tileDimension;
+
+        setOpaque(false);
+    }
+
+    /**
+     * Initializes the cell array for the given number of tiles. All cells are free.
+     *
+     * @param width
+     *            number of tiles in a row
+     * @param height
+     *            number of tiles in a column
+     */
+    protected final void initializeCells(final int width, final int height) {
+
+        canvasWidth = width;
+        canvasHeight = height;
+        cells = new int[width * height];
+        labels = new String[width * height];
+    }
+
+    /**
+     * Adds a game adapter to the event helper. It will be removed again by
+     * {@link #removeEventHelper()}.
+     *
+     * @param adapter
+     *            game adapter to be added
+     */
+    protected final void addGameAdapter(final GameAdapter adapter) {
+
+        gameAdapter = adapter;
+        eventHelper.addGameListener(adapter);
+    }
+
+    @Override
+    public final void removeEventHelper() {
+
+        if (eventHelper != null) {
+            eventHelper.removeGameListener(gameAdapter);
+            eventHelper = null;
+        }
+    }
+
+    /**
+     * Returns the kind of selection marker that should be painted on a tile. Subclasses that paint
+     * selection markers should override this method.
+     *
+     * @param column
+     *            column of tile
+     * @param row
+     *            row of tile
+     * @return kind of selection marker
+     */
+    protected SelectionMarkerType getSelectionMarker(final int column, final int row) {
+
+        return SelectionMarkerType.NO_SELECTION_MARKER;
+    }
+
+    /**
+     * Checks whether all given flags are set for a tile.
+     *
+     * @param column
+     *            column of tile
+     * @param row
+     *            row of tile
+     * @param flags
+     *            flags as defined in {@link TilePainter}
+     * @return true, if all flags are set
+     */
+    protected final boolean isSet(final int column, final int row, final int flags) {
+
+        return (cells[row * canvasWidth + column] & flags) == flags;
+    }
+
+    /**
+     * Sets or clears flags of a tile and marks it dirty when its state changed.
+     *
+     * @param column
+     *            column of tile
+     * @param row
+     *            row of tile
+     * @param flags
+     *            flags as defined in {@link TilePainter}
+     * @param set
+     *            true to set, false to clear flags
+     */
+    protected final void setFlags(final int column, final int row, final int flags, final boolean set) {
+
+        final int index = row * canvasWidth + column;
+        final int newState;
+        synchronized (dirtyCells) {
+            newState = set ? cells[index] | flags : cells[index] & ~flags;
+            if (newState == cells[index]) {
+                return;
+            }
+            cells[index] = newState;
+        }
+        markDirty(column, row);
+    }
+
+    /**
+     * Sets label of a tile.
+     *
+     * @param column
+     *            column of tile
+     * @param row
+     *            row of tile
+     * @param label
+     *            label to be painted on tile
+     */
+    protected final void setLabel(final int column, final int row, final String label) {
+
+        labels[row * canvasWidth + column] = label;
+        markDirty(column, row);
+    }
+
+    /**
+     * Marks a tile as dirty so that it will be painted into the back buffer and on screen again.
+     *
+     * @param column
+     *            column of tile
+     * @param row
+     *            row of tile
+     */
+    private void markDirty(final int column, final int row) {
+
+        synchronized (dirtyCells) {
+            dirtyCells.set(row * canvasWidth + column);
+        }
+        repaint(column * tileDimension.width, row * tileDimension.height, tileDimension.width, tileDimension.height);
+    }
+
+    /**
+     * Invalidates the whole back buffer. It will be painted again the next time this component is
+     * painted, e.g. after the color model has been changed.
+     */
+    protected final void invalidateCanvas() {
+
+        invalid = true;
+        repaint();
+    }
+
+    @Override
+    public final void handleResize(final Dimension tileDimension) {
+
+        this.tileDimension = tileDimension;
+        invalid = true;
+        revalidate();
+        repaint();
+    }
+
+    @Override
+    protected final void paintComponent(final Graphics g) {
+
+        super.paintComponent(g);
+
+        if (invalid || backBuffer == null) {
+            paintAllTiles();
+        } else {
+            paintDirtyTiles();
+        }
+        g.drawImage(backBuffer, 0, 0, null);
+    }
+
+    /**
+     * Creates a new back buffer and sprite cache and paints all tiles into it.
+     */
+    private void paintAllTiles() {
+
+        invalid = false;
+        synchronized (dirtyCells) {
+            dirtyCells.clear();
+        }
+
+        final int width = Math.max(1, canvasWidth * tileDimension.width);
+        final int height = Math.max(1, canvasHeight * tileDimension.height);
+        if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height) {
+            final GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (gc != null) {
+                backBuffer = gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            } else {
+                backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            }
+        }
+        spriteCache = new TileSpriteCache(tileDimension, settings.getColorModel(), settings.getTextColor());
+
+        final Graphics2D g = backBuffer.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            for (int row = 0; row < canvasHeight; row++) {
+                for (int column = 0; column < canvasWidth; column++) {
+                    paintTile(g, column, row);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Paints all tiles that were marked dirty since the last call into the back buffer.
+     */
+    private void paintDirtyTiles() {
+
+        final BitSet tiles;
+        synchronized (dirtyCells) {
+            if (dirtyCells.isEmpty()) {
+                return;
+            }
+            tiles = (BitSet) dirtyCells.clone();
+            dirtyCells.clear();
+        }
+
+        final Graphics2D g = backBuffer.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            for (int i = tiles.nextSetBit(0); i >= 0; i = tiles.nextSetBit(i + 1)) {
+                paintTile(g, i % canvasWidth, i / canvasWidth);
+            }
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Paints a single tile into the back buffer. The sprite replaces all pixels of the tile, so the
+     * graphics object should use the source composite.
+     *
+     * @param g
+     *            graphics object of back buffer
+     * @param column
+     *            column of tile
+     * @param row
+     *            row of tile
+     */
+    private void paintTile(final Graphics2D g, final int column, final int row) {
+
+        final int index = row * canvasWidth + column;
+        spriteCache.paintTile(g, column * tileDimension.width, row * tileDimension.height, cells[index], labels[index],
+                getSelectionMarker(column, row));
+    }
+
+    /**
+     * Gets column of tile at the given x coordinate.
+     *
+     * @param x
+     *            x coordinate in this component
+     * @return column of tile or -1 if outside of canvas
+     */
+    protected final int columnAt(final int x) {
+
+        final int column = x / tileDimension.width;
+        return x >= 0 && column < canvasWidth ? column : -1;
+    }
+
+    /**
+     * Gets row of tile at the given y coordinate.
+     *
+     * @param y
+     *            y coordinate in this component
+     * @return row of tile or -1 if outside of canvas
+     */
+    protected final int rowAt(final int y) {
+
+        final int row = y / tileDimension.height;
+        return y >= 0 && row < canvasHeight ? row : -1;
+    }
+
+    @Override
+    public final Dimension getPreferredSize() {
+
+        return new Dimension(canvasWidth * tileDimension.width, canvasHeight * tileDimension.height);
+    }
+
+    /**
+     * Gets width of canvas in tiles.
+     *
+     * @return canvas width
+     */
+    protected final int getCanvasWidth() {
+
+        return canvasWidth;
+    }
+
+    /**
+     * Gets height of canvas in tiles.
+     *
+     * @return canvas height
+     */
+    protected final int getCanvasHeight() {
+
+        return canvasHeight;
+    }
+
+    /**
+     * Gets game event helper.
+     *
+     * @return game event helper
+     */
+    protected final GameEventHelper getEventHelper() {
+
+        return eventHelper;
+    }
+
+    /**
+     * Gets nonogram pattern.
+     *
+     * @return nonogram pattern
+     */
+    public final Nonogram getPattern() {
+
+        return pattern;
+    }
+
+    /**
+     * Gets settings object.
+     *
+     * @return settings object
+     */
+    public final Settings getSettings() {
+
+        return settings;
+    }
+
+    /**
+     * Gets dimension of one tile.
+     *
+     * @return dimension of tile
+     */
+    protected final Dimension getTileDimension() {
+
+        return tileDimension;
+    }
+}
@@ -0,0 +1,197 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.Dimension;
+
+import org.freenono.board.BoardTile.SelectionMarkerType;
+import org.freenono.controller.Settings;
+import org.freenono.event.FieldControlEvent;
+import org.freenono.event.GameAdapter;
+import org.freenono.event.GameEventHelper;
+import org.freenono.event.ProgramControlEvent;
+import org.freenono.model.CaptionOrientation;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Caption for columns or rows that paints all its numbers in one component. It behaves like the
+ * {@link BoardTileSetCaption} but does not need a BoardTile component for every number.
+ *
+ * @author Christian Wichmann
+ */
+final class BoardCanvasCaption extends BoardCanvas {
+
+    private static final long serialVersionUID = -1066455218399436531L;
+
+    private static final int MIN_TILESET_HEIGHT = 5;
+    private static final int MIN_TILESET_WIDTH = 5;
+
+    private final CaptionOrientation orientation;
+    private int activeFieldColumn = 0;
+    private int activeFieldRow = 0;
+
+    private final GameAdapter gameAdapter = new GameAdapter() {
+
+        @Override
+        public void optionsChanged(final ProgramControlEvent e) {
+
+            invalidateCanvas();
+        }
+
+        @Override
+        public void changeActiveField(final FieldControlEvent e) {
+
+            setSelectionMarkerActive(false);
+            activeFieldColumn = e.getFieldColumn();
+            activeFieldRow = e.getFieldRow();
+            setSelectionMarkerActive(true);
+        }
+
+        @Override
+        public void crossOutCaption(final FieldControlEvent e) {
+
+            if (getSettings().getCrossCaptions() && e.getOrientation() == orientation) {
+
+                if (orientation == CaptionOrientation.ORIENTATION_COLUMN) {
+                    final int row = getCanvasHeight() - 2 - getPattern().getColumnNumbersCount(e.getFieldColumn()) + e.getCaption();
+                    setFlags(e.getFieldColumn(), row, TilePainter.CROSSED_SINGLE_LINE, true);
+
+                } else if (orientation == CaptionOrientation.ORIENTATION_ROW) {
+                    final int column = getCanvasWidth() - 2 - getPattern().getLineNumberCount(e.getFieldRow()) + e.getCaption();
+                    setFlags(column, e.getFieldRow(), TilePainter.CROSSED_SINGLE_LINE, true);
+                }
+            }
+        }
+    };
+
+    /**
+     * Initializes a new caption for columns or rows.
+     *
+     * @param eventHelper
+     *            game event helper
+     * @param pattern
+     *            nonogram pattern
+     * @param settings
+     *            settings object
+     * @param orientation
+     *            sets if caption should be used for columns or for rows
+     * @param tileDimension
+     *            tile dimension
+     */
+    BoardCanvasCaption(final GameEventHelper eventHelper, final Nonogram pattern, final Settings settings,
+            final CaptionOrientation orientation, final Dimension tileDimension) {
+
+        super(eventHelper, pattern, settings, tileDimension);
+
+        this.orientation = orientation;
+
+        if (orientation == CaptionOrientation.ORIENTATION_COLUMN) {
+            initializeCells(pattern.width(), Math.max(pattern.getColumnCaptionHeight() + 1, MIN_TILESET_HEIGHT));
+        } else {
+            initializeCells(Math.max(pattern.getLineCaptionWidth() + 1, MIN_TILESET_WIDTH), pattern.height());
+        }
+
+        paintBorders();
+        paintNumbers();
+        setSelectionMarkerActive(true);
+
+        addGameAdapter(gameAdapter);
+    }
+
+    /**
+     * Sets the borders of all tiles.
+     */
+    private void paintBorders() {
+
+        for (int i = 0; i < getCanvasHeight(); i++) {
+            for (int j = 0; j < getCanvasWidth(); j++) {
+                if (orientation == CaptionOrientation.ORIENTATION_COLUMN) {
+                    setFlags(j, i, TilePainter.BORDER_WEST, true);
+                    if ((j + 1) % MIN_TILESET_WIDTH == 0 || (j + 1) == getCanvasWidth()) {
+                        setFlags(j, i, TilePainter.BORDER_EAST, true);
+                    }
+                } else {
+                    setFlags(j, i, TilePainter.BORDER_NORTH, true);
+                    if ((i + 1) % MIN_TILESET_HEIGHT == 0 || (i + 1) == getCanvasHeight()) {
+                        setFlags(j, i, TilePainter.BORDER_SOUTH, true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the caption numbers as labels, aligned to the play field.
+     */
+    private void paintNumbers() {
+
+        final int columnCaptionCount = getPattern().getColumnCaptionHeight();
+        final int rowCaptionCount = getPattern().getLineCaptionWidth();
+
+        if (orientation == CaptionOrientation.ORIENTATION_COLUMN) {
+            for (int x = 0; x < getCanvasWidth(); x++) {
+                final int len = getPattern().getColumnNumbersCount(x);
+                for (int i = 0; i < columnCaptionCount; i++) {
+                    final int number = getPattern().getColumnNumber(x, i);
+                    final int y =
+                            (i + columnCaptionCount - len) % columnCaptionCount + Math.max(0, MIN_TILESET_HEIGHT - 1 - columnCaptionCount);
+                    setLabel(x, y, number >= 0 ? Integer.toString(number) : "");
+                }
+            }
+        } else {
+            for (int y = 0; y < getCanvasHeight(); y++) {
+                final int len = getPattern().getLineNumberCount(y);
+                for (int i = 0; i < rowCaptionCount; i++) {
+                    final int number = getPattern().getLineNumber(y, i);
+                    final int x = (i + rowCaptionCount - len) % rowCaptionCount + Math.max(0, MIN_TILESET_WIDTH - 1 - rowCaptionCount);
+                    setLabel(x, y, number >= 0 ? Integer.toString(number) : "");
+                }
+            }
+        }
+    }
+
+    /**
+     * Activates or deactivates the selection marker for the active field.
+     *
+     * @param active
+     *            true, if selection marker should be painted
+     */
+    private void setSelectionMarkerActive(final boolean active) {
+
+        if (orientation == CaptionOrientation.ORIENTATION_COLUMN) {
+            if (activeFieldColumn < getCanvasWidth()) {
+                setFlags(activeFieldColumn, getCanvasHeight() - 1, TilePainter.SELECTION_MARKER_ACTIVE, active);
+            }
+        } else {
+            if (activeFieldRow < getCanvasHeight()) {
+                setFlags(getCanvasWidth() - 1, activeFieldRow, TilePainter.SELECTION_MARKER_ACTIVE, active);
+            }
+        }
+    }
+
+    @Override
+    protected SelectionMarkerType getSelectionMarker(final int column, final int row) {
+
+        if (orientation == CaptionOrientation.ORIENTATION_COLUMN && row == getCanvasHeight() - 1) {
+            return SelectionMarkerType.SELECTION_MARKER_DOWN;
+        } else if (orientation == CaptionOrientation.ORIENTATION_ROW && column == getCanvasWidth() - 1) {
+            return SelectionMarkerType.SELECTION_MARKER_RIGHT;
+        }
+        return SelectionMarkerType.NO_SELECTION_MARKER;
+    }
+}
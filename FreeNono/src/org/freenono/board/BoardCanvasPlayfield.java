@@ -0,0 +1,360 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+
+import org.freenono.controller.Settings;
+import org.freenono.event.FieldControlEvent;
+import org.freenono.event.GameEventHelper;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Play field that paints the whole board in one component. It behaves like the
+ * {@link BoardTileSetPlayfield} but does not need a BoardTile component for every field, so that
+ * even large boards are built fast. Mouse events are mapped on the field under the cursor, all
+ * other game logic is done by a {@link PlayfieldController}.
+ *
+ * @author Christian Wichmann
+ */
+final class BoardCanvasPlayfield extends BoardCanvas implements Scrollable {
+
+    private static final long serialVersionUID = 5346017405947203406L;
+
+    private static final int DIVIDER_MAIN_GRID = 5;
+
+    private boolean occupyWhileDraggingMouse = false;
+    private boolean unoccupyWhileDraggingMouse = false;
+    private boolean markWhileDraggingMouse = false;
+    private boolean unmarkWhileDraggingMouse = false;
+
+    private final transient PlayfieldController controller;
+
+    /**
+     * Controller that changes the cells of this play field.
+     */
+    private final class CanvasController extends PlayfieldController {
+
+        /**
+         * Initializes the controller for this play field.
+         *
+         * @param pattern
+         *            nonogram pattern
+         * @param settings
+         *            settings
+         */
+        private CanvasController(final Nonogram pattern, final Settings settings) {
+
+            super(BoardCanvasPlayfield.this, pattern, settings);
+        }
+
+        @Override
+        protected GameEventHelper getEventHelper() {
+
+            return BoardCanvasPlayfield.this.getEventHelper();
+        }
+
+        @Override
+        protected boolean isOccupied(final int column, final int row) {
+
+            return isSet(column, row, TilePainter.MARKED);
+        }
+
+        @Override
+        protected boolean isCrossed(final int column, final int row) {
+
+            return isSet(column, row, TilePainter.CROSSED);
+        }
+
+        @Override
+        protected void setOccupied(final int column, final int row, final boolean occupied) {
+
+            setFlags(column, row, TilePainter.MARKED, occupied);
+        }
+
+        @Override
+        protected void setCrossed(final int column, final int row, final boolean crossed) {
+
+            setFlags(column, row, TilePainter.CROSSED, crossed);
+        }
+
+        @Override
+        protected void setFieldActive(final int column, final int row, final boolean active) {
+
+            setFlags(column, row, TilePainter.ACTIVE, active);
+        }
+
+        @Override
+        protected void setDormant(final int column, final int row) {
+
+            setFlags(column, row, TilePainter.DORMANT, true);
+        }
+
+        @Override
+        protected void releaseMouseButton() {
+
+            BoardCanvasPlayfield.this.releaseMouseButton();
+        }
+
+        @Override
+        protected void refreshColors() {
+
+            invalidateCanvas();
+        }
+    }
+
+    /**
+     * Initializes a new play field and paints the borders of the game board.
+     *
+     * @param eventHelper
+     *            game event helper
+     * @param pattern
+     *            nonogram pattern
+     * @param settings
+     *            settings
+     * @param tileDimension
+     *            tile dimension
+     */
+    BoardCanvasPlayfield(final GameEventHelper eventHelper, final Nonogram pattern, final Settings settings,
+            final Dimension tileDimension) {
+
+        super(eventHelper, pattern, settings, tileDimension);
+
+        initializeCells(pattern.width(), pattern.height());
+        paintBorders();
+        setFlags(0, 0, TilePainter.ACTIVE, true);
+
+        addMouseListeners();
+
+        controller = new CanvasController(pattern, settings);
+        addGameAdapter(controller.getGameAdapter());
+    }
+
+    /**
+     * Sets the borders and background for all fields of the board.
+     */
+    private void paintBorders() {
+
+        for (int i = 0; i < getCanvasHeight(); i++) {
+            for (int j = 0; j < getCanvasWidth(); j++) {
+                int flags = TilePainter.OPAQUE | TilePainter.BORDER_WEST | TilePainter.BORDER_NORTH;
+                if ((j + 1) % DIVIDER_MAIN_GRID == 0 || (j + 1) == getCanvasWidth()) {
+                    flags |= TilePainter.BORDER_EAST;
+                }
+                if ((i + 1) % DIVIDER_MAIN_GRID == 0 || (i + 1) == getCanvasHeight()) {
+                    flags |= TilePainter.BORDER_SOUTH;
+                }
+                setFlags(j, i, flags, true);
+            }
+        }
+    }
+
+    /**
+     * Adds mouse listeners that find the field under the cursor and fire the according events.
+     */
+    private void addMouseListeners() {
+
+        final MouseAdapter mouseAdapter = new MouseAdapter() {
+
+            private int lastColumn = -1;
+            private int lastRow = -1;
+
+            @Override
+            public void mousePressed(final MouseEvent e) {
+
+                final int column = columnAt(e.getX());
+                final int row = rowAt(e.getY());
+                if (column >= 0 && row >= 0) {
+                    handleMousePressed(e.getButton(), column, row);
+                }
+            }
+
+            @Override
+            public void mouseReleased(final MouseEvent e) {
+
+                releaseMouseButton();
+            }
+
+            @Override
+            public void mouseMoved(final MouseEvent e) {
+
+                handleMouseMoved(e);
+            }
+
+            @Override
+            public void mouseDragged(final MouseEvent e) {
+
+                scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+                handleMouseMoved(e);
+            }
+
+            @Override
+            public void mouseExited(final MouseEvent e) {
+
+                lastColumn = -1;
+                lastRow = -1;
+            }
+
+            /**
+             * Handles the mouse entering a new field like the BoardTile does when the mouse enters
+             * it.
+             *
+             * @param e
+             *            mouse event
+             */
+            private void handleMouseMoved(final MouseEvent e) {
+
+                final int column = columnAt(e.getX());
+                final int row = rowAt(e.getY());
+                if (column >= 0 && row >= 0 && (column != lastColumn || row != lastRow)) {
+                    lastColumn = column;
+                    lastRow = row;
+                    handleMouseEntering(column, row);
+                }
+            }
+        };
+
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
+    }
+
+    /**
+     * Handles when mouse is clicked on a field.
+     *
+     * @param buttonPressed
+     *            mouse button that was pressed
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     */
+    private void handleMousePressed(final int buttonPressed, final int column, final int row) {
+
+        if (getEventHelper() == null) {
+            return;
+        }
+
+        switch (buttonPressed) {
+        case MouseEvent.BUTTON1:
+            if (isSet(column, row, TilePainter.MARKED)) {
+                unoccupyWhileDraggingMouse = true;
+            } else {
+                occupyWhileDraggingMouse = true;
+            }
+            getEventHelper().fireOccupyFieldEvent(new FieldControlEvent(this, column, row));
+            break;
+
+        case MouseEvent.BUTTON3:
+            if (isSet(column, row, TilePainter.CROSSED)) {
+                unmarkWhileDraggingMouse = true;
+            } else {
+                markWhileDraggingMouse = true;
+            }
+            getEventHelper().fireMarkFieldEvent(new FieldControlEvent(this, column, row));
+            break;
+
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Handles when mouse enters a field.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     */
+    private void handleMouseEntering(final int column, final int row) {
+
+        if (getEventHelper() == null) {
+            return;
+        }
+
+        getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, column, row));
+
+        final boolean occupied = isSet(column, row, TilePainter.MARKED);
+        final boolean crossed = isSet(column, row, TilePainter.CROSSED);
+
+        if ((occupyWhileDraggingMouse && !occupied) || (unoccupyWhileDraggingMouse && occupied)) {
+            getEventHelper().fireOccupyFieldEvent(new FieldControlEvent(this, column, row));
+
+        } else if ((markWhileDraggingMouse && !crossed) || (unmarkWhileDraggingMouse && crossed)) {
+            getEventHelper().fireMarkFieldEvent(new FieldControlEvent(this, column, row));
+        }
+    }
+
+    /**
+     * Resets the state variables that trace mouse click-and-drag, e.g. when the user is asked a
+     * question while a mouse button is pressed.
+     */
+    private void releaseMouseButton() {
+
+        occupyWhileDraggingMouse = false;
+        unoccupyWhileDraggingMouse = false;
+        markWhileDraggingMouse = false;
+        unmarkWhileDraggingMouse = false;
+    }
+
+    /*
+     * Methods implementing Scrollable interface
+     */
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+
+        return getScrollableUnitIncrement(visibleRect, orientation, direction);
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+
+        if (orientation == SwingConstants.VERTICAL) {
+            return getTileDimension().height;
+        } else if (orientation == SwingConstants.HORIZONTAL) {
+            return getTileDimension().width;
+        } else {
+            return 0;
+        }
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+
+        return false;
+    }
+}
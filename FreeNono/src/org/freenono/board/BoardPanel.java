@@ -21,10 +21,13 @@ import java.awt.Dimension;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.JComponent;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JViewport;
@@ -60,9 +63,7 @@ public class BoardPanel extends JPanel {
     private GameEventHelper eventHelper;
 
     private JScrollPane boardScrollPane;
-    private BoardTileSetPlayfield board;
-    private BoardTileSetCaption columnView;
-    private BoardTileSetCaption rowView;
+    private final List<BoardView> boardViews = new ArrayList<BoardView>();
     private BoardPreview previewArea;
 
     private static final int MIN_CAPTION_HEIGHT = 5;
@@ -70,6 +71,12 @@ public class BoardPanel extends JPanel {
     private static final int MAX_TILE_SIZE = 60;
     private static final int MIN_TILE_SIZE = 24;
 
+    /**
+     * Number of fields from which on the play field and captions are painted by canvas components
+     * instead of one BoardTile component for every field.
+     */
+    private static final int LARGE_BOARD_FIELD_COUNT = 900;
+
     /**
      * BoardPanel constructor that sets the event helper and settings, as well
      * as the current nonogram pattern.
@@ -150,7 +157,22 @@ public class BoardPanel extends JPanel {
         boardScrollPane = new JScrollPane();
         boardScrollPane.setBorder(BorderFactory.createEmptyBorder());
         boardScrollPane.setPreferredSize(panelDimension);
-        board = new BoardTileSetPlayfield(eventHelper, pattern, settings, tileDimension);
+        final JComponent board;
+        final JComponent columnView;
+        final JComponent rowView;
+        if (pattern.width() * pattern.height() >= LARGE_BOARD_FIELD_COUNT) {
+            logger.debug("Using canvas based board for large nonogram.");
+            board = new BoardCanvasPlayfield(eventHelper, pattern, settings, tileDimension);
+            columnView = new BoardCanvasCaption(eventHelper, pattern, settings, CaptionOrientation.ORIENTATION_COLUMN, tileDimension);
+            rowView = new BoardCanvasCaption(eventHelper, pattern, settings, CaptionOrientation.ORIENTATION_ROW, tileDimension);
+        } else {
+            board = new BoardTileSetPlayfield(eventHelper, pattern, settings, tileDimension);
+            columnView = new BoardTileSetCaption(eventHelper, pattern, settings, CaptionOrientation.ORIENTATION_COLUMN, tileDimension);
+            rowView = new BoardTileSetCaption(eventHelper, pattern, settings, CaptionOrientation.ORIENTATION_ROW, tileDimension);
+        }
+        boardViews.add((BoardView) board);
+        boardViews.add((BoardView) columnView);
+        boardViews.add((BoardView) rowView);
         boardScrollPane.setViewportView(board);
 
         // enable synthetic drag events
@@ -171,9 +193,6 @@ public class BoardPanel extends JPanel {
         boardScrollPane.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
 
         // Set up the header for columns and rows
-        columnView = new BoardTileSetCaption(eventHelper, pattern, settings, CaptionOrientation.ORIENTATION_COLUMN, tileDimension);
-        rowView = new BoardTileSetCaption(eventHelper, pattern, settings, CaptionOrientation.ORIENTATION_ROW, tileDimension);
-
         boardScrollPane.setColumnHeaderView(columnView);
         boardScrollPane.setRowHeaderView(rowView);
 
@@ -291,9 +310,9 @@ public class BoardPanel extends JPanel {
         calculateSizes();
 
         boardScrollPane.setPreferredSize(panelDimension);
-        columnView.handleResize(tileDimension);
-        rowView.handleResize(tileDimension);
-        board.handleResize(tileDimension);
+        for (final BoardView view : boardViews) {
+            view.handleResize(tileDimension);
+        }
     }
 
     /**
@@ -321,9 +340,9 @@ public class BoardPanel extends JPanel {
 
         // remove eventHelper for children
         previewArea.removeEventHelper();
-        board.removeEventHelper();
-        columnView.removeEventHelper();
-        rowView.removeEventHelper();
+        for (final BoardView view : boardViews) {
+            view.removeEventHelper();
+        }
     }
 
     /**
@@ -20,10 +20,7 @@ package org.freenono.board;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.Polygon;
 import java.awt.Rectangle;
-import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 
@@ -33,12 +30,14 @@ import javax.swing.SwingUtilities;
 import org.freenono.event.FieldControlEvent;
 import org.freenono.event.GameEventHelper;
 import org.freenono.ui.colormodel.ColorModel;
-import org.freenono.ui.common.FontFactory;
 
 /**
  * Paints one tile of the board. The tile can be part of the play field or of the captions around
  * the board. Borders, label, etc. will be painted based on set options (marked, crossed, active,
  * ...).
+ * <p>
+ * All tiles share one {@link TileSpriteCache}, so that every combination of options is only
+ * rendered once for the current tile size and color model.
  *
  * @author Christian Wichmann
  */
@@ -58,28 +57,13 @@ public class BoardTile extends JComponent {
     private static final int TILE_DEFAULT_SIZE = 20;
     private static int tileWidth = TILE_DEFAULT_SIZE;
     private static int tileHeight = TILE_DEFAULT_SIZE;
-    private static int tileWidthHalf = TILE_DEFAULT_SIZE / 2;
-    private static int tileHeightHalf = TILE_DEFAULT_SIZE / 2;
-    private static int tileWidthQuarter = TILE_DEFAULT_SIZE / 4;
-    private static int tileHeightQuarter = TILE_DEFAULT_SIZE / 4;
 
     private int column = 0;
     private int row = 0;
 
-    private static final Color FOREGROUND_COLOR = new Color(100, 100, 100);
-    private static final Color BACKGROUND_COLOR = new Color(240, 240, 240);
-    private static final Color FOREGROUND_DORMANT_COLOR = new Color(110, 110, 110);
-    private static final Color BACKGROUND_DORMANT_COLOR = new Color(230, 230, 230);
-    private static final Color BORDER_COLOR = Color.BLACK;
     private static Color textColor;
-    private static Color markerColor;
-    private static Color activecolor;
-    private static Color markerBackgroundColor;
-    @SuppressWarnings("unused")
-    private static Color crossedSingleLineColor;
-
-    private static Polygon polygonSelectionMarkerRight;
-    private static Polygon polygonSelectionMarkerDown;
+    private static ColorModel colorModel;
+    private static volatile TileSpriteCache spriteCache;
 
     private boolean marked = false;
     private boolean crossed = false;
@@ -155,23 +139,14 @@ public class BoardTile extends JComponent {
      */
     private void calculateSizes(final Dimension tileDimension) {
 
-        // calculate fractions of tile size
         tileWidth = (int) tileDimension.getWidth();
         tileHeight = (int) tileDimension.getHeight();
-        tileWidthHalf = (int) (tileDimension.getWidth() / 2);
-        tileHeightHalf = (int) (tileDimension.getHeight() / 2);
-        tileWidthQuarter = (int) (tileDimension.getWidth() / 4);
-        tileHeightQuarter = (int) (tileDimension.getHeight() / 4);
 
-        // set polygon for selection markers
-        polygonSelectionMarkerRight = new Polygon();
-        polygonSelectionMarkerDown = new Polygon();
-        polygonSelectionMarkerRight.addPoint(tileWidthQuarter, tileHeightQuarter);
-        polygonSelectionMarkerRight.addPoint(3 * tileWidthQuarter, tileHeightHalf);
-        polygonSelectionMarkerRight.addPoint(tileWidthQuarter, 3 * tileHeightQuarter);
-        polygonSelectionMarkerDown.addPoint(tileWidthQuarter, tileHeightQuarter);
-        polygonSelectionMarkerDown.addPoint(3 * tileWidthQuarter, tileHeightQuarter);
-        polygonSelectionMarkerDown.addPoint(tileWidthHalf, 3 * tileHeightQuarter);
+        // drop sprites when they were rendered for another tile size
+        final TileSpriteCache cache = spriteCache;
+        if (cache != null && !cache.hasTileDimension(tileDimension)) {
+            spriteCache = null;
+        }
     }
 
     /**
@@ -280,157 +255,45 @@ public class BoardTile extends JComponent {
 
         super.paintComponent(g);
 
-        final Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-
-        paintBackground(g);
-
-        paintBorders(g);
-
-        if (label != null) {
-            paintLabel(g);
-        }
-
-        paintDecorations(g);
+        getSpriteCache().paintTile(g, 0, 0, getTileState(), label, selectionMarker);
     }
 
     /**
-     * Paints the background of the tile depending on whether it is part of the caption or play
-     * field or if it is the currently active field.
+     * Gets the sprite cache shared by all tiles. A new cache is created if the tile size or color
+     * model changed since the last tile was painted.
      *
-     * @param g
-     *            the Graphics object
+     * @return sprite cache
      */
-    private void paintBackground(final Graphics g) {
-
-        // paint background
-        if (dormant) {
-            g.setColor(BACKGROUND_DORMANT_COLOR);
-        } else {
-            g.setColor(BACKGROUND_COLOR);
-        }
-        if (!transparent) {
-            g.fillRect(0, 0, tileWidth, tileHeight);
-        }
-
-        // paint background for selection marker tiles
-        if (selectionMarker != SelectionMarkerType.NO_SELECTION_MARKER) {
-            g.setColor(markerBackgroundColor);
-            g.fillRect(0, 0, tileWidth, tileHeight);
-        }
+    private static TileSpriteCache getSpriteCache() {
 
-        // paint active tile
-        if (active) {
-            g.setColor(activecolor);
-            g.fillRect(2, 2, tileWidth - 4, tileHeight - 4);
+        TileSpriteCache cache = spriteCache;
+        if (cache == null) {
+            cache = new TileSpriteCache(new Dimension(tileWidth, tileHeight), colorModel, textColor);
+            spriteCache = cache;
         }
+        return cache;
     }
 
     /**
-     * Paints borders of tile when set.
+     * Gets all options of this tile that influence its look as bit mask for the tile painter.
      *
-     * @param g
-     *            the Graphics object
+     * @return bit mask of tile state as defined in {@link TilePainter}
      */
-    private void paintBorders(final Graphics g) {
+    private int getTileState() {
 
-        if (drawBorderNorth) {
-            g.setColor(BORDER_COLOR);
-            g.drawLine(0, 0, tileWidth, 0);
-        }
-        if (drawBorderSouth) {
-            g.setColor(BORDER_COLOR);
-            g.drawLine(0, tileHeight - 1, tileWidth, tileHeight - 1);
-        }
-        if (drawBorderWest) {
-            g.setColor(BORDER_COLOR);
-            g.drawLine(0, 0, 0, tileHeight);
-        }
-        if (drawBorderEast) {
-            g.setColor(BORDER_COLOR);
-            g.drawLine(tileWidth - 1, 0, tileWidth - 1, tileHeight);
-        }
-    }
-
-    /**
-     * Paints decorations like when a tile is marked or crossed by the player. Also the selection
-     * marker are painted when this tile belongs to the captions.
-     *
-     * @param g
-     *            the Graphics object
-     */
-    private void paintDecorations(final Graphics g) {
-
-        // paint marked tile
-        if (marked) {
-            if (dormant) {
-                g.setColor(FOREGROUND_DORMANT_COLOR);
-            } else {
-                g.setColor(FOREGROUND_COLOR);
-            }
-
-            g.fillRect(4, 4, tileWidth - 8, tileHeight - 8);
-        }
-
-        // paint tile cross
-        if (crossed) {
-            g.setColor(BORDER_COLOR);
-            g.drawLine(3, 3, tileWidth - 4, tileHeight - 4);
-            g.drawLine(tileWidth - 4, 3, 3, tileHeight - 4);
-        }
-
-        // build polygon and paint selection marker
-        if (selectionMarkerActive) {
-            g.setColor(markerColor);
-            switch (selectionMarker) {
-            case SELECTION_MARKER_RIGHT:
-                g.fillPolygon(polygonSelectionMarkerRight);
-                break;
-            case SELECTION_MARKER_DOWN:
-                g.fillPolygon(polygonSelectionMarkerDown);
-                break;
-            default:
-                assert false : selectionMarker;
-                break;
-            }
-        }
-
-        // paint a single line to cross out caption numbers
-        // if (crossedSingleLine) {
-        // g.setColor(crossedSingleLineColor);
-        // g.drawLine(7, 7, tileWidth - 8, tileHeight - 8);
-        // }
-    }
-
-    /**
-     * Paints the label on this tile if one is set.
-     *
-     * @param g
-     *            the Graphics object
-     */
-    private void paintLabel(final Graphics g) {
-
-        if (crossedSingleLine) {
-            g.setColor(markerBackgroundColor);
-        } else {
-            g.setColor(textColor);
-        }
-        g.setFont(FontFactory.createTileFont(tileWidth / 2));
-
-        switch (label.length()) {
-        case 0:
-            break;
-        case 1:
-            g.drawString(label, tileWidthHalf - 5, tileHeightHalf + 7);
-            break;
-        case 2:
-            g.drawString(label, tileWidthHalf - 10, tileHeightHalf + 7);
-            break;
-        default:
-            g.drawString(label, tileWidthHalf, tileHeightHalf);
-            break;
-        }
+        int state = 0;
+        state |= marked ? TilePainter.MARKED : 0;
+        state |= crossed ? TilePainter.CROSSED : 0;
+        state |= active ? TilePainter.ACTIVE : 0;
+        state |= dormant ? TilePainter.DORMANT : 0;
+        state |= transparent ? 0 : TilePainter.OPAQUE;
+        state |= crossedSingleLine ? TilePainter.CROSSED_SINGLE_LINE : 0;
+        state |= selectionMarkerActive ? TilePainter.SELECTION_MARKER_ACTIVE : 0;
+        state |= drawBorderNorth ? TilePainter.BORDER_NORTH : 0;
+        state |= drawBorderSouth ? TilePainter.BORDER_SOUTH : 0;
+        state |= drawBorderWest ? TilePainter.BORDER_WEST : 0;
+        state |= drawBorderEast ? TilePainter.BORDER_EAST : 0;
+        return state;
     }
 
     /**
@@ -843,10 +706,8 @@ public class BoardTile extends JComponent {
      */
     public static final void setColorModel(final ColorModel colorModel) {
 
-        markerBackgroundColor = colorModel.getUpColor();
-        activecolor = colorModel.getStrangeColor();
-        markerColor = colorModel.getStrangeColor();
-        crossedSingleLineColor = colorModel.getDownColor();
+        BoardTile.colorModel = colorModel;
+        spriteCache = null;
     }
 
     /**
@@ -858,6 +719,7 @@ public class BoardTile extends JComponent {
     public static final void setTextColor(final Color textColor) {
 
         BoardTile.textColor = textColor;
+        spriteCache = null;
     }
 
     /**
@@ -35,7 +35,7 @@ import org.freenono.model.data.Nonogram;
  *
  * @author Christian Wichmann
  */
-public class BoardTileSetCaption extends BoardTileSet {
+public class BoardTileSetCaption extends BoardTileSet implements BoardView {
 
     private static final long serialVersionUID = -3593247761289294060L;
 
@@ -19,188 +19,109 @@ package org.freenono.board;
 
 import java.awt.Dimension;
 import java.awt.Rectangle;
-import java.awt.event.ActionEvent;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-import javax.swing.AbstractAction;
-import javax.swing.JComponent;
-import javax.swing.KeyStroke;
+
 import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
 
-import org.apache.log4j.Logger;
-import org.freenono.controller.Control;
 import org.freenono.controller.Settings;
-import org.freenono.event.FieldControlEvent;
-import org.freenono.event.GameAdapter;
 import org.freenono.event.GameEventHelper;
-import org.freenono.event.ProgramControlEvent;
-import org.freenono.event.QuizEvent;
-import org.freenono.event.StateChangeEvent;
-import org.freenono.model.GameState;
-import org.freenono.model.Token;
 import org.freenono.model.data.Nonogram;
 
 /**
  * Sets up the playfield. It uses a BoardTileSet with painted borders and all previous marked or
- * occupied fields. This class fires all user events that concern marking and occupying fields on
- * the board!
+ * occupied fields. All user events that concern marking and occupying fields on the board are
+ * fired by its {@link PlayfieldController}!
  *
  * @author Christian Wichmann
  */
-public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
+public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable, BoardView {
 
     private static final long serialVersionUID = 723055953042228828L;
 
-    private boolean markFields = false;
-    private boolean unmarkFields = false;
-    private boolean occupyFields = false;
-    private boolean doHidePlayfield = false;
-
-    private final List<Integer> rowsToHint = new ArrayList<Integer>();
-    private final List<Integer> columnsToHint = new ArrayList<Integer>();
+    private final transient PlayfieldController controller;
 
-    private Token[][] oldBoard = null;
-    private GamepadAdapter gamepadAdapter = null;
-
-    private static Logger logger = Logger.getLogger(BoardTileSetPlayfield.class);
+    /**
+     * Controller that changes the board tiles of this play field.
+     */
+    private final class TileSetController extends PlayfieldController {
+
+        /**
+         * Initializes the controller for this play field.
+         *
+         * @param pattern
+         *            nonogram pattern
+         * @param settings
+         *            settings
+         */
+        private TileSetController(final Nonogram pattern, final Settings settings) {
 
-    private final GameAdapter gameAdapter = new GameAdapter() {
+            super(BoardTileSetPlayfield.this, pattern, settings);
+        }
 
         @Override
-        public void optionsChanged(final ProgramControlEvent e) {
+        protected GameEventHelper getEventHelper() {
 
-            // repaint all tiles with current color from settings
-            BoardTile.setColorModel(getSettings().getColorModel());
-            BoardTile.setTextColor(getSettings().getTextColor());
-            for (int i = 0; i < getTileSetHeight(); i++) {
-                for (int j = 0; j < getTileSetWidth(); j++) {
-                    getBoard()[i][j].repaint();
-                }
-            }
-
-            // refresh key codes for all key bindings
-            addKeyBindingsKeys();
+            return BoardTileSetPlayfield.this.getEventHelper();
         }
 
         @Override
-        public void stateChanged(final StateChangeEvent e) {
-
-            switch (e.getNewState()) {
-            case GAME_OVER:
-                getBoard()[getActiveFieldRow()][getActiveFieldColumn()].releaseMouseButton();
-                getBoard()[getActiveFieldRow()][getActiveFieldColumn()].setActive(false);
-                if (gamepadAdapter != null) {
-                    gamepadAdapter.stopPolling();
-                    gamepadAdapter = null;
-                }
-                break;
-
-            case SOLVED:
-                getBoard()[getActiveFieldRow()][getActiveFieldColumn()].releaseMouseButton();
-                getBoard()[getActiveFieldRow()][getActiveFieldColumn()].setActive(false);
-                if (gamepadAdapter != null) {
-                    gamepadAdapter.stopPolling();
-                    gamepadAdapter = null;
-                }
-                clearBoard();
-                break;
-
-            case USER_STOP:
-                if (gamepadAdapter != null) {
-                    gamepadAdapter.stopPolling();
-                    gamepadAdapter = null;
-                }
-                break;
-
-            case PAUSED:
-                // clear board during pause
-                if (doHidePlayfield) {
-                    clearBoard();
-                }
-                break;
-
-            case RUNNING:
-                if (e.getOldState() == GameState.PAUSED) {
-                    // restore board after pause
-                    if (doHidePlayfield) {
-                        restoreBoard();
-                    }
-                }
-                break;
-            case NONE:
-                break;
-            default:
-                assert false : e.getNewState();
-                break;
-            }
+        protected boolean isOccupied(final int column, final int row) {
 
+            return getBoard()[row][column].isMarked();
         }
 
         @Override
-        public void fieldOccupied(final FieldControlEvent e) {
-            getBoard()[e.getFieldRow()][e.getFieldColumn()].setMarked(true);
+        protected boolean isCrossed(final int column, final int row) {
 
-            if (getSettings().getMarkCompleteRowsColumns()) {
-                checkIfRowIsComplete(e.getFieldRow());
-                checkIfColumnIsComplete(e.getFieldColumn());
-            }
+            return getBoard()[row][column].isCrossed();
         }
 
         @Override
-        public void fieldUnoccupied(final FieldControlEvent e) {
-            getBoard()[e.getFieldRow()][e.getFieldColumn()].setMarked(false);
+        protected void setOccupied(final int column, final int row, final boolean occupied) {
 
-            if (getSettings().getMarkCompleteRowsColumns()) {
-                checkIfRowIsComplete(e.getFieldRow());
-                checkIfColumnIsComplete(e.getFieldColumn());
-            }
+            getBoard()[row][column].setMarked(occupied);
         }
 
         @Override
-        public void fieldMarked(final FieldControlEvent e) {
-            getBoard()[e.getFieldRow()][e.getFieldColumn()].setCrossed(true);
+        protected void setCrossed(final int column, final int row, final boolean crossed) {
 
-            if (getSettings().getMarkCompleteRowsColumns()) {
-                checkIfRowIsComplete(e.getFieldRow());
-                checkIfColumnIsComplete(e.getFieldColumn());
-            }
+            getBoard()[row][column].setCrossed(crossed);
         }
 
         @Override
-        public void fieldUnmarked(final FieldControlEvent e) {
-            getBoard()[e.getFieldRow()][e.getFieldColumn()].setCrossed(false);
+        protected void setFieldActive(final int column, final int row, final boolean active) {
 
-            if (getSettings().getMarkCompleteRowsColumns()) {
-                checkIfRowIsComplete(e.getFieldRow());
-                checkIfColumnIsComplete(e.getFieldColumn());
+            getBoard()[row][column].setActive(active);
+            if (active) {
+                setActiveFieldColumn(column);
+                setActiveFieldRow(row);
             }
         }
 
         @Override
-        public void changeActiveField(final FieldControlEvent e) {
+        protected void setDormant(final int column, final int row) {
 
-            getBoard()[getActiveFieldRow()][getActiveFieldColumn()].setActive(false);
-            setActiveFieldColumn(e.getFieldColumn());
-            setActiveFieldRow(e.getFieldRow());
-            getBoard()[getActiveFieldRow()][getActiveFieldColumn()].setActive(true);
+            getBoard()[row][column].setDormant(true);
+        }
 
-            checkKeyStillPressed();
+        @Override
+        protected void releaseMouseButton() {
 
+            getBoard()[getActiveFieldRow()][getActiveFieldColumn()].releaseMouseButton();
         }
 
         @Override
-        public void askQuestion(final QuizEvent e) {
+        protected void refreshColors() {
 
-            /*
-             * Resets internal variables of currently active board tile to prevent bug where mouse
-             * button stays 'active' after user is asked a question (in GameModeQuestions).
-             */
-            getBoard()[getActiveFieldRow()][getActiveFieldColumn()].releaseMouseButton();
+            BoardTile.setColorModel(getSettings().getColorModel());
+            BoardTile.setTextColor(getSettings().getTextColor());
+            for (int i = 0; i < getTileSetHeight(); i++) {
+                for (int j = 0; j < getTileSetWidth(); j++) {
+                    getBoard()[i][j].repaint();
+                }
+            }
         }
-    };
+    }
 
     /**
      * Constructor that initializes internal data structures and paint borders of game board.
@@ -219,28 +140,13 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
 
         super(eventHelper, pattern, settings, tileDimension);
 
-        doHidePlayfield = getSettings().getHidePlayfield();
-
-        eventHelper.addGameListener(gameAdapter);
-
         setTileSetWidth(pattern.width());
         setTileSetHeight(pattern.height());
-        oldBoard = new Token[getTileSetHeight()][getTileSetWidth()];
 
         buildBoardGrid();
 
         paintBorders();
 
-        addKeyBindingsActionsMove();
-        addKeyBindingsActionsChange();
-        addKeyBindingsKeys();
-        try {
-            Class.forName("net.java.games.input.Controller");
-            gamepadAdapter = new GamepadAdapter(this);
-        } catch (final ClassNotFoundException e) {
-            logger.warn("No JInput libs can be found.");
-        }
-
         // set all board tiles interactive to activate their mouse listener
         for (int i = 0; i < getTileSetHeight(); i++) {
             for (int j = 0; j < getTileSetWidth(); j++) {
@@ -256,13 +162,8 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
          */
         setOpaque(false);
 
-        // initialize lists with all rows and columns for giving player hints
-        for (int i = 0; i < getPattern().height(); i++) {
-            rowsToHint.add(i);
-        }
-        for (int i = 0; i < getPattern().width(); i++) {
-            columnsToHint.add(i);
-        }
+        controller = new TileSetController(pattern, settings);
+        eventHelper.addGameListener(controller.getGameAdapter());
     }
 
     /**
@@ -272,237 +173,11 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
 
         if (getEventHelper() != null) {
 
-            getEventHelper().removeGameListener(gameAdapter);
+            getEventHelper().removeGameListener(controller.getGameAdapter());
             setEventHelper(null);
         }
     }
 
-    /**
-     * Add actual key codes for all key bindings for the controls of the game. This method can be
-     * called multiple times and resets the key code every time from settings object.
-     */
-    private void addKeyBindingsKeys() {
-
-        logger.debug("Resetting key bindings for play field.");
-
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.MOVE_LEFT), 0), "Left");
-
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.MOVE_RIGHT), 0), "Right");
-
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.MOVE_UP), 0),
-                "Up");
-
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.MOVE_DOWN), 0), "Down");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("HOME"), "GoToHome");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("END"), "GoToEnd");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("PAGE_UP"), "GoToTop");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("PAGE_DOWN"), "GoToBottom");
-
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.MARK_FIELD), 0, false), "Mark");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.MARK_FIELD), 0, true), "MarkReleased");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.OCCUPY_FIELD), 0, false), "Occupy");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(
-                KeyStroke.getKeyStroke(getSettings().getKeyCodeForControl(Control.OCCUPY_FIELD), 0, true), "OccupyReleased");
-
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("H"), "Hint");
-        getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("G"), "HintCurrentRowColumn");
-    }
-
-    /**
-     * Add actions for key bindings for all controls to move on the field.
-     */
-    private void addKeyBindingsActionsMove() {
-
-        getActionMap().put("Left", new AbstractAction() {
-            private static final long serialVersionUID = 3526487415521380900L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                moveActiveLeft();
-                final Rectangle view = getVisibleRect();
-                int dx = 0;
-                if (getActiveFieldColumn() * getTileDimension().width < view.width / 2) {
-                    dx = -getScrollableBlockIncrement(view, SwingConstants.HORIZONTAL, -1);
-                } else {
-                    dx = 0;
-                }
-                view.translate(dx, 0);
-                scrollRectToVisible(view);
-            }
-        });
-
-        getActionMap().put("Right", new AbstractAction() {
-            private static final long serialVersionUID = 3526487416521380900L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                moveActiveRight();
-                final Rectangle view = getVisibleRect();
-                int dx = 0;
-                if (getActiveFieldColumn() * getTileDimension().width > view.width / 2) {
-                    dx = getScrollableBlockIncrement(view, SwingConstants.HORIZONTAL, 1);
-                } else {
-                    dx = 0;
-                }
-                view.translate(dx, 0);
-                scrollRectToVisible(view);
-            }
-        });
-
-        getActionMap().put("Up", new AbstractAction() {
-            private static final long serialVersionUID = 3526481415521380900L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                moveActiveUp();
-                final Rectangle view = getVisibleRect();
-                int dy = 0;
-                if (getActiveFieldRow() * getTileDimension().height < view.height / 2) {
-                    dy = -getScrollableBlockIncrement(view, SwingConstants.VERTICAL, -1);
-                } else {
-                    dy = 0;
-                }
-                view.translate(0, dy);
-                scrollRectToVisible(view);
-            }
-        });
-
-        getActionMap().put("Down", new AbstractAction() {
-            private static final long serialVersionUID = -8632221802324267954L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                moveActiveDown();
-                final Rectangle view = getVisibleRect();
-                int dy = 0;
-                if (getActiveFieldRow() * getTileDimension().height > view.height / 2) {
-                    dy = getScrollableBlockIncrement(view, SwingConstants.VERTICAL, 1);
-                } else {
-                    dy = 0;
-                }
-                view.translate(0, dy);
-                scrollRectToVisible(view);
-            }
-        });
-
-        getActionMap().put("GoToHome", new AbstractAction() {
-            private static final long serialVersionUID = 7128510030273601411L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                // TODO scroll to left
-                getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, 0, getActiveFieldRow()));
-            }
-        });
-
-        getActionMap().put("GoToEnd", new AbstractAction() {
-            private static final long serialVersionUID = 7132502544255656098L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                // TODO scroll to right
-                getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getPattern().width() - 1, getActiveFieldRow()));
-            }
-        });
-
-        getActionMap().put("GoToTop", new AbstractAction() {
-            private static final long serialVersionUID = 7128510030273601411L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                // TODO scroll to top
-                getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getActiveFieldColumn(), 0));
-            }
-        });
-
-        getActionMap().put("GoToBottom", new AbstractAction() {
-            private static final long serialVersionUID = 7132502544255656098L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                // TODO scroll to bottom
-                getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getActiveFieldColumn(), getPattern().height() - 1));
-            }
-        });
-    }
-
-    /**
-     * Add actions for key bindings for all controls to change fields on the board.
-     */
-    private void addKeyBindingsActionsChange() {
-
-        getActionMap().put("Mark", new AbstractAction() {
-            private static final long serialVersionUID = 1268229779077582261L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                // save what should be done, when key is not released but
-                // active field changed
-                if (getBoard()[getActiveFieldRow()][getActiveFieldColumn()].isCrossed()) {
-                    unmarkFields = true;
-                    markFields = false;
-                } else {
-                    markFields = true;
-                    unmarkFields = false;
-                }
-                markActiveField();
-            }
-        });
-
-        getActionMap().put("MarkReleased", new AbstractAction() {
-            private static final long serialVersionUID = 6743457677218700547L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                markFields = false;
-                unmarkFields = false;
-            }
-        });
-
-        getActionMap().put("Occupy", new AbstractAction() {
-            private static final long serialVersionUID = 8228569120230316012L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                occupyFields = true;
-                occupyActiveField();
-            }
-        });
-
-        getActionMap().put("OccupyReleased", new AbstractAction() {
-            private static final long serialVersionUID = -4733029188707402453L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                occupyFields = false;
-            }
-        });
-
-        getActionMap().put("Hint", new AbstractAction() {
-            private static final long serialVersionUID = -4486665509995510699L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                giveHint();
-            }
-        });
-
-        getActionMap().put("HintCurrentRowColumn", new AbstractAction() {
-            private static final long serialVersionUID = -4486665509995510699L;
-
-            @Override
-            public void actionPerformed(final ActionEvent e) {
-                giveHintForCurrentRowColumn();
-            }
-        });
-    }
-
     /**
      * Paint the borders.
      */
@@ -529,34 +204,12 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
         }
     }
 
-    /**
-     * Checks if keys for occupying or marking of fields are still pressed. If so the active field
-     * will be marked or occupied accordingly.
-     */
-    private void checkKeyStillPressed() {
-
-        if (markFields && !(getBoard()[getActiveFieldRow()][getActiveFieldColumn()].isCrossed())) {
-
-            markActiveField();
-
-        } else if (unmarkFields && getBoard()[getActiveFieldRow()][getActiveFieldColumn()].isCrossed()) {
-
-            markActiveField();
-        }
-
-        if (occupyFields) {
-
-            occupyActiveField();
-        }
-    }
-
     /**
      * Fire OccupyFieldEvent.
      */
     public final void occupyActiveField() {
 
-        getEventHelper().fireOccupyFieldEvent(new FieldControlEvent(this, getActiveFieldColumn(), getActiveFieldRow()));
-
+        controller.occupyActiveField();
     }
 
     /**
@@ -564,8 +217,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void markActiveField() {
 
-        getEventHelper().fireMarkFieldEvent(new FieldControlEvent(this, getActiveFieldColumn(), getActiveFieldRow()));
-
+        controller.markActiveField();
     }
 
     /**
@@ -576,13 +228,8 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      *            Row of active field.
      */
     public final void setActive(final int column, final int row) {
-        if (column >= 0 && column < getTileSetWidth() && row >= 0 && row < getTileSetHeight()) {
 
-            getBoard()[getActiveFieldRow()][getActiveFieldColumn()].setActive(false);
-            setActiveFieldColumn(column);
-            setActiveFieldRow(row);
-            getBoard()[getActiveFieldRow()][getActiveFieldColumn()].setActive(true);
-        }
+        controller.setActive(column, row);
     }
 
     /**
@@ -590,10 +237,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void moveActiveLeft() {
 
-        if (getActiveFieldColumn() > 0) {
-
-            getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getActiveFieldColumn() - 1, getActiveFieldRow()));
-        }
+        controller.moveActiveLeft();
     }
 
     /**
@@ -601,10 +245,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void moveActiveRight() {
 
-        if (getActiveFieldColumn() < getTileSetWidth() - 1) {
-
-            getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getActiveFieldColumn() + 1, getActiveFieldRow()));
-        }
+        controller.moveActiveRight();
     }
 
     /**
@@ -612,10 +253,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void moveActiveUp() {
 
-        if (getActiveFieldRow() > 0) {
-
-            getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getActiveFieldColumn(), getActiveFieldRow() - 1));
-        }
+        controller.moveActiveUp();
     }
 
     /**
@@ -623,10 +261,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void moveActiveDown() {
 
-        if (getActiveFieldRow() < getTileSetHeight() - 1) {
-
-            getEventHelper().fireChangeActiveFieldEvent(new FieldControlEvent(this, getActiveFieldColumn(), getActiveFieldRow() + 1));
-        }
+        controller.moveActiveDown();
     }
 
     /**
@@ -634,24 +269,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void clearBoard() {
 
-        for (int i = 0; i < getTileSetHeight(); i++) {
-
-            for (int j = 0; j < getTileSetWidth(); j++) {
-
-                oldBoard[i][j] = Token.FREE;
-
-                if (getBoard()[i][j].isMarked()) {
-                    oldBoard[i][j] = Token.OCCUPIED;
-                }
-
-                if (getBoard()[i][j].isCrossed()) {
-                    oldBoard[i][j] = Token.MARKED;
-                }
-
-                getBoard()[i][j].setMarked(false);
-                getBoard()[i][j].setCrossed(false);
-            }
-        }
+        controller.clearBoard();
     }
 
     /**
@@ -659,19 +277,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void restoreBoard() {
 
-        for (int i = 0; i < getTileSetHeight(); i++) {
-
-            for (int j = 0; j < getTileSetWidth(); j++) {
-
-                if (oldBoard[i][j] == Token.MARKED) {
-                    getBoard()[i][j].setCrossed(true);
-                }
-
-                if (oldBoard[i][j] == Token.OCCUPIED) {
-                    getBoard()[i][j].setMarked(true);
-                }
-            }
-        }
+        controller.restoreBoard();
     }
 
     /**
@@ -679,147 +285,7 @@ public class BoardTileSetPlayfield extends BoardTileSet implements Scrollable {
      */
     public final void solveBoard() {
 
-        for (int i = 0; i < getTileSetHeight(); i++) {
-            for (int j = 0; j < getTileSetWidth(); j++) {
-                getBoard()[i][j].setCrossed(false);
-                if (getPattern().getFieldValue(j, i)) {
-                    getBoard()[i][j].setMarked(true);
-                } else {
-                    getBoard()[i][j].setMarked(false);
-                }
-            }
-        }
-    }
-
-    /**
-     * Give player a hint by solving a whole row and a whole column on the board.
-     */
-    private void giveHint() {
-
-        logger.info("Giving user a hint :-)");
-
-        // give hint only when some rows and columns are not yet hinted (fixes
-        // an possible IndexOutOfBoundsException)
-        if (!columnsToHint.isEmpty() && !rowsToHint.isEmpty()) {
-
-            Collections.shuffle(columnsToHint);
-            Collections.shuffle(rowsToHint);
-            final int x = columnsToHint.get(0);
-            final int y = rowsToHint.get(0);
-            columnsToHint.remove(0);
-            rowsToHint.remove(0);
-
-            for (int i = 0; i < getTileSetHeight(); i++) {
-                setActive(x, i);
-                if (getPattern().getFieldValue(x, i)) {
-                    occupyActiveField();
-                } else {
-                    if (!(getBoard()[i][x].isCrossed())) {
-                        markActiveField();
-                    }
-                }
-            }
-
-            for (int i = 0; i < getTileSetWidth(); i++) {
-                setActive(i, y);
-                if (getPattern().getFieldValue(i, y)) {
-                    occupyActiveField();
-                } else {
-                    if (!(getBoard()[y][i].isCrossed())) {
-                        markActiveField();
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Give player a hint by solving the row/column of the currently active field.
-     */
-    private void giveHintForCurrentRowColumn() {
-
-        logger.info("Giving user a hint :-)");
-
-        final int x = getActiveFieldColumn();
-        final int y = getActiveFieldRow();
-
-        for (int i = 0; i < getTileSetHeight(); i++) {
-            setActive(x, i);
-            if (getPattern().getFieldValue(x, i)) {
-                occupyActiveField();
-            } else {
-                if (!(getBoard()[i][x].isCrossed())) {
-                    markActiveField();
-                }
-            }
-        }
-
-        for (int i = 0; i < getTileSetWidth(); i++) {
-            setActive(i, y);
-            if (getPattern().getFieldValue(i, y)) {
-                occupyActiveField();
-            } else {
-                if (!(getBoard()[y][i].isCrossed())) {
-                    markActiveField();
-                }
-            }
-        }
-
-        setActive(x, y);
-    }
-
-    /**
-     * Checks whether row is completely finished i.e. all fields are either occupied or marked by
-     * the player. If true this row is colored.
-     *
-     * @param row
-     *            row to check
-     */
-    private void checkIfRowIsComplete(final int row) {
-
-        boolean isComplete = true;
-
-        for (int i = 0; i < getTileSetWidth(); i++) {
-
-            if (!(getBoard()[row][i].isCrossed() || getBoard()[row][i].isMarked())) {
-                isComplete = false;
-                break;
-            }
-        }
-
-        for (int i = 0; i < getTileSetWidth(); i++) {
-            if (isComplete) {
-                getBoard()[row][i].setDormant(true);
-            }
-            // TODO Implement good dedormantizing!
-        }
-    }
-
-    /**
-     * Checks whether row is completely finished i.e. all fields are either occupied or marked by
-     * the player. If true this column is colored.
-     *
-     * @param column
-     *            column to check
-     */
-    private void checkIfColumnIsComplete(final int column) {
-
-        boolean isComplete = true;
-
-        for (int i = 0; i < getTileSetHeight(); i++) {
-
-            if (!(getBoard()[i][column].isCrossed() || getBoard()[i][column].isMarked())) {
-                isComplete = false;
-                break;
-            }
-        }
-
-        for (int i = 0; i < getTileSetHeight(); i++) {
-            if (isComplete) {
-                getBoard()[i][column].setDormant(true);
-            }
-            // TODO Implement good dedormantizing!
-        }
+        controller.solveBoard();
     }
 
     /*
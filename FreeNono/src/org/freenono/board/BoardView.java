@@ -0,0 +1,43 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.Dimension;
+
+/**
+ * Common interface of all components that the BoardPanel puts into its scroll pane as play field or
+ * caption. It is implemented by the tile set based components as well as by the canvas based
+ * components that paint the whole board at once.
+ *
+ * @author Christian Wichmann
+ */
+interface BoardView {
+
+    /**
+     * Handles resizing of the window.
+     *
+     * @param tileDimension
+     *            new tile dimension
+     */
+    void handleResize(Dimension tileDimension);
+
+    /**
+     * Removes event helper, so that this component does not react to game events anymore.
+     */
+    void removeEventHelper();
+}
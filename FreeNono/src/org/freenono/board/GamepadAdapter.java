@@ -35,7 +35,7 @@ import net.java.games.input.ControllerEnvironment;
 import org.apache.log4j.Logger;
 
 /**
- * Polls game pad regularly and calls methods of BoardSetPlayfield accordingly.
+ * Polls game pad regularly and calls methods of the play field controls accordingly.
  *
  * @author Christian Wichmann
  */
@@ -58,7 +58,7 @@ public final class GamepadAdapter {
      */
     private final int pollInterval = 150;
 
-    private final BoardTileSetPlayfield field;
+    private final PlayfieldControls field;
 
     /**
      * Enum defining possible conditions under which actions are executed by GamepadActionHandler.
@@ -200,7 +200,7 @@ public final class GamepadAdapter {
      * @param field
      *            play field which will be affected by gamepad actions
      */
-    public GamepadAdapter(final BoardTileSetPlayfield field) {
+    public GamepadAdapter(final PlayfieldControls field) {
 
         this.field = field;
 
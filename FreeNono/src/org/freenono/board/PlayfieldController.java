@@ -0,0 +1,771 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
+
+import org.apache.log4j.Logger;
+import org.freenono.controller.Control;
+import org.freenono.controller.Settings;
+import org.freenono.event.FieldControlEvent;
+import org.freenono.event.GameAdapter;
+import org.freenono.event.GameEventHelper;
+import org.freenono.event.ProgramControlEvent;
+import org.freenono.event.QuizEvent;
+import org.freenono.event.StateChangeEvent;
+import org.freenono.model.GameState;
+import org.freenono.model.Token;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Game and controller logic of a play field. It sets up the key bindings and the game pad, reacts
+ * on game events, gives hints and hides the board while the game is paused. All play fields use
+ * this class and only provide access to the state of their fields, so that they just have to paint
+ * them.
+ *
+ * @author Christian Wichmann
+ */
+abstract class PlayfieldController implements PlayfieldControls {
+
+    private static Logger logger = Logger.getLogger(PlayfieldController.class);
+
+    private final JComponent component;
+    private final Nonogram pattern;
+    private final Settings settings;
+    private final int width;
+    private final int height;
+
+    private boolean markFields = false;
+    private boolean unmarkFields = false;
+    private boolean occupyFields = false;
+    private final boolean doHidePlayfield;
+
+    private int activeFieldColumn = 0;
+    private int activeFieldRow = 0;
+
+    private final List<Integer> rowsToHint = new ArrayList<Integer>();
+    private final List<Integer> columnsToHint = new ArrayList<Integer>();
+
+    private final Token[][] oldBoard;
+    private GamepadAdapter gamepadAdapter = null;
+
+    private final GameAdapter gameAdapter = new GameAdapter() {
+
+        @Override
+        public void optionsChanged(final ProgramControlEvent e) {
+
+            // repaint all fields with current color from settings
+            refreshColors();
+
+            // refresh key codes for all key bindings
+            addKeyBindingsKeys();
+        }
+
+        @Override
+        public void stateChanged(final StateChangeEvent e) {
+
+            switch (e.getNewState()) {
+            case GAME_OVER:
+                releaseMouseButton();
+                setFieldActive(activeFieldColumn, activeFieldRow, false);
+                stopGamepad();
+                break;
+
+            case SOLVED:
+                releaseMouseButton();
+                setFieldActive(activeFieldColumn, activeFieldRow, false);
+                stopGamepad();
+                clearBoard();
+                break;
+
+            case USER_STOP:
+                stopGamepad();
+                break;
+
+            case PAUSED:
+                // clear board during pause
+                if (doHidePlayfield) {
+                    clearBoard();
+                }
+                break;
+
+            case RUNNING:
+                // restore board after pause
+                if (e.getOldState() == GameState.PAUSED && doHidePlayfield) {
+                    restoreBoard();
+                }
+                break;
+
+            case NONE:
+                break;
+            default:
+                assert false : e.getNewState();
+                break;
+            }
+        }
+
+        @Override
+        public void fieldOccupied(final FieldControlEvent e) {
+
+            setOccupied(e.getFieldColumn(), e.getFieldRow(), true);
+            checkIfComplete(e);
+        }
+
+        @Override
+        public void fieldUnoccupied(final FieldControlEvent e) {
+
+            setOccupied(e.getFieldColumn(), e.getFieldRow(), false);
+            checkIfComplete(e);
+        }
+
+        @Override
+        public void fieldMarked(final FieldControlEvent e) {
+
+            setCrossed(e.getFieldColumn(), e.getFieldRow(), true);
+            checkIfComplete(e);
+        }
+
+        @Override
+        public void fieldUnmarked(final FieldControlEvent e) {
+
+            setCrossed(e.getFieldColumn(), e.getFieldRow(), false);
+            checkIfComplete(e);
+        }
+
+        @Override
+        public void changeActiveField(final FieldControlEvent e) {
+
+            setActive(e.getFieldColumn(), e.getFieldRow());
+            checkKeyStillPressed();
+        }
+
+        @Override
+        public void askQuestion(final QuizEvent e) {
+
+            /*
+             * Resets internal variables of currently active field to prevent bug where mouse button
+             * stays 'active' after user is asked a question (in GameModeQuestions).
+             */
+            releaseMouseButton();
+        }
+    };
+
+    /**
+     * Initializes the controller of a play field and adds key bindings to its component. The game
+     * adapter returned by {@link #getGameAdapter()} has to be added to the event helper by the play
+     * field.
+     *
+     * @param component
+     *            component of play field that gets the key bindings
+     * @param pattern
+     *            nonogram pattern
+     * @param settings
+     *            settings
+     */
+    PlayfieldController(final JComponent component, final Nonogram pattern, final Settings settings) {
+
+        this.component = component;
+        this.pattern = pattern;
+        this.settings = settings;
+        this.width = pattern.width();
+        this.height = pattern.height();
+
+        doHidePlayfield = settings.getHidePlayfield();
+        oldBoard = new Token[height][width];
+
+        addKeyBindingsActionsMove();
+        addKeyBindingsActionsChange();
+        addKeyBindingsKeys();
+        try {
+            Class.forName("net.java.games.input.Controller");
+            gamepadAdapter = new GamepadAdapter(this);
+        } catch (final ClassNotFoundException e) {
+            logger.warn("No JInput libs can be found.");
+        }
+
+        // initialize lists with all rows and columns for giving player hints
+        for (int i = 0; i < height; i++) {
+            rowsToHint.add(i);
+        }
+        for (int i = 0; i < width; i++) {
+            columnsToHint.add(i);
+        }
+    }
+
+    /**
+     * Gets the game event helper of the play field.
+     *
+     * @return game event helper or null if it has been removed
+     */
+    protected abstract GameEventHelper getEventHelper();
+
+    /**
+     * Checks whether a field is occupied.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     * @return true, if field is occupied
+     */
+    protected abstract boolean isOccupied(int column, int row);
+
+    /**
+     * Checks whether a field is marked with a cross.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     * @return true, if field is crossed
+     */
+    protected abstract boolean isCrossed(int column, int row);
+
+    /**
+     * Sets whether a field is occupied.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     * @param occupied
+     *            true, if field is occupied
+     */
+    protected abstract void setOccupied(int column, int row, boolean occupied);
+
+    /**
+     * Sets whether a field is marked with a cross.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     * @param crossed
+     *            true, if field is crossed
+     */
+    protected abstract void setCrossed(int column, int row, boolean crossed);
+
+    /**
+     * Sets whether a field is painted as active field.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     * @param active
+     *            true, if field is active
+     */
+    protected abstract void setFieldActive(int column, int row, boolean active);
+
+    /**
+     * Paints a field as part of a completed row or column.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     */
+    protected abstract void setDormant(int column, int row);
+
+    /**
+     * Resets all state variables that trace mouse click-and-drag, e.g. when the user is asked a
+     * question while a mouse button is pressed.
+     */
+    protected abstract void releaseMouseButton();
+
+    /**
+     * Repaints all fields with the current colors from settings.
+     */
+    protected abstract void refreshColors();
+
+    /**
+     * Gets the game adapter that has to be added to the event helper of the play field.
+     *
+     * @return game adapter
+     */
+    final GameAdapter getGameAdapter() {
+
+        return gameAdapter;
+    }
+
+    /**
+     * Gets column of the active field.
+     *
+     * @return column of active field
+     */
+    final int getActiveFieldColumn() {
+
+        return activeFieldColumn;
+    }
+
+    /**
+     * Gets row of the active field.
+     *
+     * @return row of active field
+     */
+    final int getActiveFieldRow() {
+
+        return activeFieldRow;
+    }
+
+    /**
+     * Add actual key codes for all key bindings for the controls of the game. This method can be
+     * called multiple times and resets the key code every time from settings object.
+     */
+    private void addKeyBindingsKeys() {
+
+        logger.debug("Resetting key bindings for play field.");
+
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.MOVE_LEFT), 0), "Left");
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.MOVE_RIGHT), 0), "Right");
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.MOVE_UP), 0), "Up");
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.MOVE_DOWN), 0), "Down");
+        putKey(KeyStroke.getKeyStroke("HOME"), "GoToHome");
+        putKey(KeyStroke.getKeyStroke("END"), "GoToEnd");
+        putKey(KeyStroke.getKeyStroke("PAGE_UP"), "GoToTop");
+        putKey(KeyStroke.getKeyStroke("PAGE_DOWN"), "GoToBottom");
+
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.MARK_FIELD), 0, false), "Mark");
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.MARK_FIELD), 0, true), "MarkReleased");
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.OCCUPY_FIELD), 0, false), "Occupy");
+        putKey(KeyStroke.getKeyStroke(settings.getKeyCodeForControl(Control.OCCUPY_FIELD), 0, true), "OccupyReleased");
+
+        putKey(KeyStroke.getKeyStroke("H"), "Hint");
+        putKey(KeyStroke.getKeyStroke("G"), "HintCurrentRowColumn");
+    }
+
+    /**
+     * Puts a key stroke into the input map of the play field.
+     *
+     * @param keyStroke
+     *            key stroke
+     * @param actionMapKey
+     *            key of action in action map
+     */
+    private void putKey(final KeyStroke keyStroke, final String actionMapKey) {
+
+        component.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(keyStroke, actionMapKey);
+    }
+
+    /**
+     * Add actions for key bindings for all controls to move on the field. The play field is
+     * scrolled so that the active field stays visible.
+     */
+    private void addKeyBindingsActionsMove() {
+
+        putMoveAction("Left", -1, 0, false);
+        putMoveAction("Right", 1, 0, false);
+        putMoveAction("Up", 0, -1, false);
+        putMoveAction("Down", 0, 1, false);
+        putMoveAction("GoToHome", -1, 0, true);
+        putMoveAction("GoToEnd", 1, 0, true);
+        putMoveAction("GoToTop", 0, -1, true);
+        putMoveAction("GoToBottom", 0, 1, true);
+    }
+
+    /**
+     * Puts an action into the action map that moves the active field.
+     *
+     * @param actionMapKey
+     *            key of action in action map
+     * @param dx
+     *            horizontal direction
+     * @param dy
+     *            vertical direction
+     * @param toBorder
+     *            true, if the active field should be moved to the border of the board
+     */
+    private void putMoveAction(final String actionMapKey, final int dx, final int dy, final boolean toBorder) {
+
+        component.getActionMap().put(actionMapKey, new AbstractAction() {
+            private static final long serialVersionUID = -6408437262315640284L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+
+                int column = activeFieldColumn + dx;
+                int row = activeFieldRow + dy;
+                if (toBorder) {
+                    column = dx < 0 ? 0 : dx > 0 ? width - 1 : activeFieldColumn;
+                    row = dy < 0 ? 0 : dy > 0 ? height - 1 : activeFieldRow;
+                }
+                if (moveActive(column, row)) {
+                    final Dimension size = component.getPreferredSize();
+                    final int tileWidth = size.width / width;
+                    final int tileHeight = size.height / height;
+                    component.scrollRectToVisible(new Rectangle(column * tileWidth, row * tileHeight, tileWidth, tileHeight));
+                }
+            }
+        });
+    }
+
+    /**
+     * Add actions for key bindings for all controls to change fields on the board.
+     */
+    private void addKeyBindingsActionsChange() {
+
+        component.getActionMap().put("Mark", new AbstractAction() {
+            private static final long serialVersionUID = -3166617306468961425L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                // save what should be done, when key is not released but active field changed
+                unmarkFields = isCrossed(activeFieldColumn, activeFieldRow);
+                markFields = !unmarkFields;
+                markActiveField();
+            }
+        });
+
+        component.getActionMap().put("MarkReleased", new AbstractAction() {
+            private static final long serialVersionUID = 4617958924744318950L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                markFields = false;
+                unmarkFields = false;
+            }
+        });
+
+        component.getActionMap().put("Occupy", new AbstractAction() {
+            private static final long serialVersionUID = -1937436911587186225L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                occupyFields = true;
+                occupyActiveField();
+            }
+        });
+
+        component.getActionMap().put("OccupyReleased", new AbstractAction() {
+            private static final long serialVersionUID = 2469540306372622418L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                occupyFields = false;
+            }
+        });
+
+        component.getActionMap().put("Hint", new AbstractAction() {
+            private static final long serialVersionUID = 6170936287930489312L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                giveHint();
+            }
+        });
+
+        component.getActionMap().put("HintCurrentRowColumn", new AbstractAction() {
+            private static final long serialVersionUID = -7542071622896330624L;
+
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                giveHintForCurrentRowColumn();
+            }
+        });
+    }
+
+    /**
+     * Stops polling the game pad.
+     */
+    private void stopGamepad() {
+
+        if (gamepadAdapter != null) {
+            gamepadAdapter.stopPolling();
+            gamepadAdapter = null;
+        }
+    }
+
+    /**
+     * Checks if keys for occupying or marking of fields are still pressed. If so the active field
+     * will be marked or occupied accordingly.
+     */
+    private void checkKeyStillPressed() {
+
+        final boolean crossed = isCrossed(activeFieldColumn, activeFieldRow);
+        if ((markFields && !crossed) || (unmarkFields && crossed)) {
+            markActiveField();
+        }
+
+        if (occupyFields) {
+            occupyActiveField();
+        }
+    }
+
+    @Override
+    public final void occupyActiveField() {
+
+        final GameEventHelper eventHelper = getEventHelper();
+        if (eventHelper != null) {
+            eventHelper.fireOccupyFieldEvent(new FieldControlEvent(component, activeFieldColumn, activeFieldRow));
+        }
+    }
+
+    @Override
+    public final void markActiveField() {
+
+        final GameEventHelper eventHelper = getEventHelper();
+        if (eventHelper != null) {
+            eventHelper.fireMarkFieldEvent(new FieldControlEvent(component, activeFieldColumn, activeFieldRow));
+        }
+    }
+
+    @Override
+    public final void moveActiveLeft() {
+
+        moveActive(activeFieldColumn - 1, activeFieldRow);
+    }
+
+    @Override
+    public final void moveActiveRight() {
+
+        moveActive(activeFieldColumn + 1, activeFieldRow);
+    }
+
+    @Override
+    public final void moveActiveUp() {
+
+        moveActive(activeFieldColumn, activeFieldRow - 1);
+    }
+
+    @Override
+    public final void moveActiveDown() {
+
+        moveActive(activeFieldColumn, activeFieldRow + 1);
+    }
+
+    /**
+     * Fires ChangeActiveFieldEvent if the given field lies on the board.
+     *
+     * @param column
+     *            column of new active field
+     * @param row
+     *            row of new active field
+     * @return true, if event was fired
+     */
+    private boolean moveActive(final int column, final int row) {
+
+        final GameEventHelper eventHelper = getEventHelper();
+        if (column >= 0 && column < width && row >= 0 && row < height && eventHelper != null) {
+            eventHelper.fireChangeActiveFieldEvent(new FieldControlEvent(component, column, row));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Set the active field to 'column', 'row'.
+     *
+     * @param column
+     *            column of active field
+     * @param row
+     *            row of active field
+     */
+    final void setActive(final int column, final int row) {
+
+        if (column >= 0 && column < width && row >= 0 && row < height) {
+            setFieldActive(activeFieldColumn, activeFieldRow, false);
+            activeFieldColumn = column;
+            activeFieldRow = row;
+            setFieldActive(activeFieldColumn, activeFieldRow, true);
+        }
+    }
+
+    /**
+     * Clear the board and store state for later use.
+     */
+    final void clearBoard() {
+
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                oldBoard[i][j] = Token.FREE;
+                if (isOccupied(j, i)) {
+                    oldBoard[i][j] = Token.OCCUPIED;
+                }
+                if (isCrossed(j, i)) {
+                    oldBoard[i][j] = Token.MARKED;
+                }
+                setOccupied(j, i, false);
+                setCrossed(j, i, false);
+            }
+        }
+    }
+
+    /**
+     * Restore board after {@link #clearBoard()} has been called.
+     */
+    final void restoreBoard() {
+
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                if (oldBoard[i][j] == Token.MARKED) {
+                    setCrossed(j, i, true);
+                }
+                if (oldBoard[i][j] == Token.OCCUPIED) {
+                    setOccupied(j, i, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Automatically solve the whole board.
+     */
+    final void solveBoard() {
+
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                setCrossed(j, i, false);
+                setOccupied(j, i, pattern.getFieldValue(j, i));
+            }
+        }
+    }
+
+    /**
+     * Give player a hint by solving a whole row and a whole column on the board.
+     */
+    private void giveHint() {
+
+        logger.info("Giving user a hint :-)");
+
+        // give hint only when some rows and columns are not yet hinted (fixes
+        // an possible IndexOutOfBoundsException)
+        if (!columnsToHint.isEmpty() && !rowsToHint.isEmpty()) {
+
+            Collections.shuffle(columnsToHint);
+            Collections.shuffle(rowsToHint);
+            final int x = columnsToHint.remove(0);
+            final int y = rowsToHint.remove(0);
+
+            solveColumnAndRow(x, y);
+        }
+    }
+
+    /**
+     * Give player a hint by solving the row/column of the currently active field.
+     */
+    private void giveHintForCurrentRowColumn() {
+
+        logger.info("Giving user a hint :-)");
+
+        final int x = activeFieldColumn;
+        final int y = activeFieldRow;
+
+        solveColumnAndRow(x, y);
+        setActive(x, y);
+    }
+
+    /**
+     * Occupies or marks all fields of a column and a row according to the pattern.
+     *
+     * @param x
+     *            column to solve
+     * @param y
+     *            row to solve
+     */
+    private void solveColumnAndRow(final int x, final int y) {
+
+        for (int i = 0; i < height; i++) {
+            solveField(x, i);
+        }
+        for (int i = 0; i < width; i++) {
+            solveField(i, y);
+        }
+    }
+
+    /**
+     * Occupies or marks a single field according to the pattern.
+     *
+     * @param column
+     *            column of field
+     * @param row
+     *            row of field
+     */
+    private void solveField(final int column, final int row) {
+
+        setActive(column, row);
+        if (pattern.getFieldValue(column, row)) {
+            occupyActiveField();
+        } else if (!isCrossed(column, row)) {
+            markActiveField();
+        }
+    }
+
+    /**
+     * Checks whether row and column of the field given by an event are complete, if this option is
+     * set.
+     *
+     * @param e
+     *            field control event
+     */
+    private void checkIfComplete(final FieldControlEvent e) {
+
+        if (settings.getMarkCompleteRowsColumns()) {
+            checkIfRowIsComplete(e.getFieldRow());
+            checkIfColumnIsComplete(e.getFieldColumn());
+        }
+    }
+
+    /**
+     * Checks whether row is completely finished i.e. all fields are either occupied or marked by
+     * the player. If true this row is colored.
+     *
+     * @param row
+     *            row to check
+     */
+    private void checkIfRowIsComplete(final int row) {
+
+        for (int i = 0; i < width; i++) {
+            if (!isCrossed(i, row) && !isOccupied(i, row)) {
+                return;
+            }
+        }
+        // TODO Implement good dedormantizing!
+        for (int i = 0; i < width; i++) {
+            setDormant(i, row);
+        }
+    }
+
+    /**
+     * Checks whether column is completely finished i.e. all fields are either occupied or marked by
+     * the player. If true this column is colored.
+     *
+     * @param column
+     *            column to check
+     */
+    private void checkIfColumnIsComplete(final int column) {
+
+        for (int i = 0; i < height; i++) {
+            if (!isCrossed(column, i) && !isOccupied(column, i)) {
+                return;
+            }
+        }
+        // TODO Implement good dedormantizing!
+        for (int i = 0; i < height; i++) {
+            setDormant(column, i);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+/**
+ * Controls of a play field that can be used by other input devices than mouse and keyboard, e.g.
+ * by the {@link GamepadAdapter}.
+ *
+ * @author Christian Wichmann
+ */
+public interface PlayfieldControls {
+
+    /**
+     * Fires OccupyFieldEvent for the active field.
+     */
+    void occupyActiveField();
+
+    /**
+     * Fires MarkFieldEvent for the active field.
+     */
+    void markActiveField();
+
+    /**
+     * Fires ChangeActiveFieldEvent to move active field to the left.
+     */
+    void moveActiveLeft();
+
+    /**
+     * Fires ChangeActiveFieldEvent to move active field to the right.
+     */
+    void moveActiveRight();
+
+    /**
+     * Fires ChangeActiveFieldEvent to move active field up.
+     */
+    void moveActiveUp();
+
+    /**
+     * Fires ChangeActiveFieldEvent to move active field down.
+     */
+    void moveActiveDown();
+}
@@ -0,0 +1,265 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+
+import org.freenono.board.BoardTile.SelectionMarkerType;
+import org.freenono.ui.colormodel.ColorModel;
+import org.freenono.ui.common.FontFactory;
+
+/**
+ * Paints single tiles for the canvas based board components. The look of every tile is the same
+ * as that of a {@link BoardTile} but its state is given as bit mask so that a whole board can be
+ * stored in one array of integers.
+ * <p>
+ * A tile painter is bound to a tile dimension and a color model. When one of them changes a new
+ * painter has to be created.
+ *
+ * @author Christian Wichmann
+ */
+final class TilePainter {
+
+    static final int MARKED = 1;
+    static final int CROSSED = 1 << 1;
+    static final int ACTIVE = 1 << 2;
+    static final int DORMANT = 1 << 3;
+    static final int OPAQUE = 1 << 4;
+    static final int CROSSED_SINGLE_LINE = 1 << 5;
+    static final int SELECTION_MARKER_ACTIVE = 1 << 6;
+    static final int BORDER_NORTH = 1 << 7;
+    static final int BORDER_SOUTH = 1 << 8;
+    static final int BORDER_WEST = 1 << 9;
+    static final int BORDER_EAST = 1 << 10;
+
+    private static final Color FOREGROUND_COLOR = new Color(100, 100, 100);
+    private static final Color BACKGROUND_COLOR = new Color(240, 240, 240);
+    private static final Color FOREGROUND_DORMANT_COLOR = new Color(110, 110, 110);
+    private static final Color BACKGROUND_DORMANT_COLOR = new Color(230, 230, 230);
+    private static final Color BORDER_COLOR = Color.BLACK;
+
+    private final int tileWidth;
+    private final int tileHeight;
+    private final int tileWidthHalf;
+    private final int tileHeightHalf;
+
+    private final Color textColor;
+    private final Color markerColor;
+    private final Color activeColor;
+    private final Color markerBackgroundColor;
+
+    private final Polygon polygonSelectionMarkerRight = new Polygon();
+    private final Polygon polygonSelectionMarkerDown = new Polygon();
+    private final Font labelFont;
+
+    /**
+     * Initializes a tile painter for a given tile size and color model.
+     *
+     * @param tileDimension
+     *            dimension of one tile
+     * @param colorModel
+     *            color model to get the colors from
+     * @param textColor
+     *            color to be used for all text labels
+     */
+    TilePainter(final Dimension tileDimension, final ColorModel colorModel, final Color textColor) {
+
+        tileWidth = tileDimension.width;
+        tileHeight = tileDimension.height;
+        tileWidthHalf = tileWidth / 2;
+        tileHeightHalf = tileHeight / 2;
+        final int tileWidthQuarter = tileWidth / 4;
+        final int tileHeightQuarter = tileHeight / 4;
+
+        this.textColor = textColor;
+        markerBackgroundColor = colorModel.getUpColor();
+        activeColor = colorModel.getStrangeColor();
+        markerColor = colorModel.getStrangeColor();
+
+        polygonSelectionMarkerRight.addPoint(tileWidthQuarter, tileHeightQuarter);
+        polygonSelectionMarkerRight.addPoint(3 * tileWidthQuarter, tileHeightHalf);
+        polygonSelectionMarkerRight.addPoint(tileWidthQuarter, 3 * tileHeightQuarter);
+        polygonSelectionMarkerDown.addPoint(tileWidthQuarter, tileHeightQuarter);
+        polygonSelectionMarkerDown.addPoint(3 * tileWidthQuarter, tileHeightQuarter);
+        polygonSelectionMarkerDown.addPoint(tileWidthHalf, 3 * tileHeightQuarter);
+
+        labelFont = FontFactory.createTileFont(tileWidth / 2);
+    }
+
+    /**
+     * Paints one tile at the given position.
+     *
+     * @param g
+     *            graphics object to paint on
+     * @param x
+     *            x coordinate of the upper left corner of the tile
+     * @param y
+     *            y coordinate of the upper left corner of the tile
+     * @param state
+     *            bit mask of tile state as defined by the constants in this class
+     * @param label
+     *            label to be painted on tile or null
+     * @param selectionMarker
+     *            kind of selection marker of this tile
+     */
+    void paintTile(final Graphics2D g, final int x, final int y, final int state, final String label,
+            final SelectionMarkerType selectionMarker) {
+
+        final Graphics2D g2d = (Graphics2D) g.create(x, y, tileWidth, tileHeight);
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+
+            paintBackground(g2d, state, selectionMarker);
+            paintBorders(g2d, state);
+            if (label != null) {
+                paintLabel(g2d, state, label);
+            }
+            paintDecorations(g2d, state, selectionMarker);
+
+        } finally {
+            g2d.dispose();
+        }
+    }
+
+    /**
+     * Paints the background of a tile.
+     *
+     * @param g
+     *            graphics object translated to the tile
+     * @param state
+     *            state of tile
+     * @param selectionMarker
+     *            kind of selection marker of tile
+     */
+    private void paintBackground(final Graphics2D g, final int state, final SelectionMarkerType selectionMarker) {
+
+        if ((state & OPAQUE) != 0) {
+            g.setColor((state & DORMANT) != 0 ? BACKGROUND_DORMANT_COLOR : BACKGROUND_COLOR);
+            g.fillRect(0, 0, tileWidth, tileHeight);
+        }
+
+        if (selectionMarker != SelectionMarkerType.NO_SELECTION_MARKER) {
+            g.setColor(markerBackgroundColor);
+            g.fillRect(0, 0, tileWidth, tileHeight);
+        }
+
+        if ((state & ACTIVE) != 0) {
+            g.setColor(activeColor);
+            g.fillRect(2, 2, tileWidth - 4, tileHeight - 4);
+        }
+    }
+
+    /**
+     * Paints all borders of a tile that are set in its state.
+     *
+     * @param g
+     *            graphics object translated to the tile
+     * @param state
+     *            state of tile
+     */
+    private void paintBorders(final Graphics2D g, final int state) {
+
+        g.setColor(BORDER_COLOR);
+        if ((state & BORDER_NORTH) != 0) {
+            g.drawLine(0, 0, tileWidth, 0);
+        }
+        if ((state & BORDER_SOUTH) != 0) {
+            g.drawLine(0, tileHeight - 1, tileWidth, tileHeight - 1);
+        }
+        if ((state & BORDER_WEST) != 0) {
+            g.drawLine(0, 0, 0, tileHeight);
+        }
+        if ((state & BORDER_EAST) != 0) {
+            g.drawLine(tileWidth - 1, 0, tileWidth - 1, tileHeight);
+        }
+    }
+
+    /**
+     * Paints marked and crossed fields and the selection marker of a tile.
+     *
+     * @param g
+     *            graphics object translated to the tile
+     * @param state
+     *            state of tile
+     * @param selectionMarker
+     *            kind of selection marker of tile
+     */
+    private void paintDecorations(final Graphics2D g, final int state, final SelectionMarkerType selectionMarker) {
+
+        if ((state & MARKED) != 0) {
+            g.setColor((state & DORMANT) != 0 ? FOREGROUND_DORMANT_COLOR : FOREGROUND_COLOR);
+            g.fillRect(4, 4, tileWidth - 8, tileHeight - 8);
+        }
+
+        if ((state & CROSSED) != 0) {
+            g.setColor(BORDER_COLOR);
+            g.drawLine(3, 3, tileWidth - 4, tileHeight - 4);
+            g.drawLine(tileWidth - 4, 3, 3, tileHeight - 4);
+        }
+
+        if ((state & SELECTION_MARKER_ACTIVE) != 0) {
+            g.setColor(markerColor);
+            switch (selectionMarker) {
+            case SELECTION_MARKER_RIGHT:
+                g.fillPolygon(polygonSelectionMarkerRight);
+                break;
+            case SELECTION_MARKER_DOWN:
+                g.fillPolygon(polygonSelectionMarkerDown);
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * Paints the label of a tile.
+     *
+     * @param g
+     *            graphics object translated to the tile
+     * @param state
+     *            state of tile
+     * @param label
+     *            label to be painted
+     */
+    private void paintLabel(final Graphics2D g, final int state, final String label) {
+
+        g.setColor((state & CROSSED_SINGLE_LINE) != 0 ? markerBackgroundColor : textColor);
+        g.setFont(labelFont);
+
+        switch (label.length()) {
+        case 0:
+            break;
+        case 1:
+            g.drawString(label, tileWidthHalf - 5, tileHeightHalf + 7);
+            break;
+        case 2:
+            g.drawString(label, tileWidthHalf - 10, tileHeightHalf + 7);
+            break;
+        default:
+            g.drawString(label, tileWidthHalf, tileHeightHalf);
+            break;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.board;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.freenono.board.BoardTile.SelectionMarkerType;
+import org.freenono.ui.colormodel.ColorModel;
+
+/**
+ * Caches pre-rendered images of tiles for every combination of tile state, selection marker and
+ * label that was painted so far. Painting a tile then only copies its sprite instead of drawing all
+ * fills, lines, polygons and labels with antialiasing again.
+ * <p>
+ * A sprite cache is bound to a tile dimension and a color model like the {@link TilePainter} it
+ * uses. When the tile size or the colors change, the cache has to be dropped and a new one has to
+ * be created. Sprite caches are not thread-safe and should only be used while painting on the
+ * event dispatch thread.
+ *
+ * @author Christian Wichmann
+ */
+final class TileSpriteCache {
+
+    private final TilePainter painter;
+    private final int tileWidth;
+    private final int tileHeight;
+
+    private final Map<Integer, BufferedImage> sprites = new HashMap<Integer, BufferedImage>();
+    private final Map<String, Map<Integer, BufferedImage>> labelSprites = new HashMap<String, Map<Integer, BufferedImage>>();
+
+    /**
+     * Initializes an empty sprite cache for a given tile size and color model.
+     *
+     * @param tileDimension
+     *            dimension of one tile
+     * @param colorModel
+     *            color model to get the colors from
+     * @param textColor
+     *            color to be used for all text labels
+     */
+    TileSpriteCache(final Dimension tileDimension, final ColorModel colorModel, final Color textColor) {
+
+        tileWidth = tileDimension.width;
+        tileHeight = tileDimension.height;
+        painter = new TilePainter(tileDimension, colorModel, textColor);
+    }
+
+    /**
+     * Checks whether sprites of this cache have the given size.
+     *
+     * @param tileDimension
+     *            dimension of one tile
+     * @return true, if sprites have the given size
+     */
+    boolean hasTileDimension(final Dimension tileDimension) {
+
+        return tileDimension.width == tileWidth && tileDimension.height == tileHeight;
+    }
+
+    /**
+     * Paints one tile at the given position by copying its sprite. If no sprite exists for the
+     * given tile state yet, it is rendered first.
+     *
+     * @param g
+     *            graphics object to paint on
+     * @param x
+     *            x coordinate of the upper left corner of the tile
+     * @param y
+     *            y coordinate of the upper left corner of the tile
+     * @param state
+     *            bit mask of tile state as defined in {@link TilePainter}
+     * @param label
+     *            label to be painted on tile or null
+     * @param selectionMarker
+     *            kind of selection marker of this tile
+     */
+    void paintTile(final Graphics g, final int x, final int y, final int state, final String label,
+            final SelectionMarkerType selectionMarker) {
+
+        g.drawImage(getSprite(state, label, selectionMarker), x, y, null);
+    }
+
+    /**
+     * Gets sprite for a tile state from cache or renders it.
+     *
+     * @param state
+     *            bit mask of tile state
+     * @param label
+     *            label to be painted on tile or null
+     * @param selectionMarker
+     *            kind of selection marker of this tile
+     * @return sprite of tile
+     */
+    private BufferedImage getSprite(final int state, final String label, final SelectionMarkerType selectionMarker) {
+
+        final Integer key = state << 3 | selectionMarker.ordinal();
+
+        Map<Integer, BufferedImage> map = sprites;
+        if (label != null) {
+            map = labelSprites.get(label);
+            if (map == null) {
+                map = new HashMap<Integer, BufferedImage>();
+                labelSprites.put(label, map);
+            }
+        }
+
+        BufferedImage sprite = map.get(key);
+        if (sprite == null) {
+            sprite = new BufferedImage(Math.max(1, tileWidth), Math.max(1, tileHeight), BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D g = sprite.createGraphics();
+            try {
+                painter.paintTile(g, 0, 0, state, label, selectionMarker);
+            } finally {
+                g.dispose();
+            }
+            map.put(key, sprite);
+        }
+        return sprite;
+    }
+}
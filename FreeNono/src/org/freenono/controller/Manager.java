@@ -48,6 +48,7 @@ import org.freenono.provider.CollectionFromJar;
 import org.freenono.provider.CollectionFromSeed;
 import org.freenono.provider.CollectionListener;
 import org.freenono.provider.CollectionProvider;
+import org.freenono.provider.CourseCache;
 import org.freenono.serializer.SettingsFormatException;
 import org.freenono.serializer.SettingsSerializer;
 import org.freenono.serializer.XMLSettingsSerializer;
@@ -78,6 +79,9 @@ public final class Manager {
     private static final String DEFAULT_SETTINGS_FILE = System.getProperty("user.home") + Tools.FILE_SEPARATOR + ".FreeNono"
             + Tools.FILE_SEPARATOR + "freenono.xml";
 
+    private static final String DEFAULT_COURSE_CACHE_PATH = System.getProperty("user.home") + Tools.FILE_SEPARATOR + ".FreeNono"
+            + Tools.FILE_SEPARATOR + "cache";
+
     @SuppressWarnings("unused")
     private static final String DEFAULT_NONO_SERVER = "http://127.0.0.1";
 
@@ -409,11 +413,15 @@ public final class Manager {
             nonogramProvider.add(new CollectionFromSeed(Messages.getString("Manager.SeedNonogramProvider")));
 
         } else {
+            final CourseCache courseCache = new CourseCache(DEFAULT_COURSE_CACHE_PATH);
+            courseCache.prune();
+
             /*
              * Get nonograms from distribution.
              */
             final CollectionFromFilesystem collection1 =
                     new CollectionFromFilesystem(getNonogramPath(), Messages.getString("Manager.LocalNonogramsProvider"), false);
+            collection1.setCourseCache(courseCache);
 
             collection1.startLoading(new CollectionListener() {
                 @Override
@@ -436,6 +444,7 @@ public final class Manager {
             alreadyLoadedCourses = 0;
             final CollectionFromFilesystem collection2 =
                     new CollectionFromFilesystem(USER_NONOGRAM_PATH, Messages.getString("Manager.UserNonogramsProvider"), false);
+            collection2.setCourseCache(courseCache);
 
             collection2.startLoading(new CollectionListener() {
                 @Override
@@ -558,6 +567,9 @@ public final class Manager {
         audioProvider.closeAudio();
         audioProvider.removeEventHelper();
 
+        // compact journaled statistics into file, because other listeners may not get the event
+        StatisticsDataStore.getInstance().saveStatisticsToFile();
+
         // TODO Is this call necessary?
         System.exit(0);
     }
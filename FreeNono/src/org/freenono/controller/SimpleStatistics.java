@@ -308,7 +308,6 @@ public final class SimpleStatistics implements Statistics {
         } else {
             dataStore.incrementTimesLostForNonogram(hash);
         }
-        dataStore.saveStatisticsToFile();
     }
 
     /*
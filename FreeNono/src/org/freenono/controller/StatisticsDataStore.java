@@ -21,10 +21,19 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -56,6 +65,11 @@ import org.xml.sax.SAXException;
 /**
  * Stores all overall statistical data using a XML file. Access to values is restricted so that
  * values can be read but can only be incremented by one. Arbitrary write access is not allowed.
+ * <p>
+ * Changes to the default statistics file are written behind: they are collected for a short time
+ * and then appended to a {@link StatisticsJournal}. The journal is compacted into the XML file
+ * periodically in the background and when {@link #saveStatisticsToFile()} is called, e.g. when the
+ * program exits.
  *
  * @author Christian Wichmann
  */
@@ -66,13 +80,46 @@ public final class StatisticsDataStore {
     public static final String USER_STATISTICS_PATH = System.getProperty("user.home") + Tools.FILE_SEPARATOR + ".FreeNono"
             + Tools.FILE_SEPARATOR + "statistics.xml";
 
+    /**
+     * Delay in milliseconds after the first change before all pending changes are appended to the
+     * journal. This is the maximum time span of changes that may be lost in a crash.
+     */
+    public static final long JOURNAL_FLUSH_DELAY = 1000;
+
+    /**
+     * Delay in milliseconds after the first journaled change before the journal is compacted into
+     * the statistics file.
+     */
+    public static final long JOURNAL_COMPACTION_DELAY = 60000;
+
+    private static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+
+            final Thread t = new Thread(r, "Statistics journal writer");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
     private static StatisticsDataStore instance;
     private String currentStatisticsFile = "";
 
+    private final Object journalLock = new Object();
+    private StatisticsJournal journal = null;
+    private int compactedGeneration = 0;
+    private boolean flushScheduled = false;
+    private boolean compactionScheduled = false;
+    private boolean changedSinceCompaction = false;
+
+    private final Map<String, int[]> pendingNonograms = new LinkedHashMap<String, int[]>();
+    private final int[] pendingFields = new int[3];
+    private final Map<Achievement, Boolean> pendingAchievements = new EnumMap<Achievement, Boolean>(Achievement.class);
+
     /**
      * Holds statistical data for a single nonogram pattern identified by its hash value. For each
      * nonogram is stored, how many times it was played (started by the user), lost and won. Values
-     * can only ones be set by the default constructor and incremented by one.
+     * can only ones be set by the default constructor and incremented.
      *
      * @author Christian Wichmann
      */
@@ -146,6 +193,22 @@ public final class StatisticsDataStore {
         public final void incrementLost() {
             lost++;
         }
+
+        /**
+         * Increments all values by the given amounts, e.g. when replaying a journal.
+         *
+         * @param playedDelta
+         *            additional number of times the nonogram was played
+         * @param wonDelta
+         *            additional number of times the nonogram was won
+         * @param lostDelta
+         *            additional number of times the nonogram was lost
+         */
+        public final void increment(final int playedDelta, final int wonDelta, final int lostDelta) {
+            played += playedDelta;
+            won += wonDelta;
+            lost += lostDelta;
+        }
     }
 
     private int overallFieldsCorrectlyOccupied = 0;
@@ -173,7 +236,7 @@ public final class StatisticsDataStore {
      *            path to file with statistical data
      * @return instance of <code>StatisticsDataStore</code>
      */
-    public static StatisticsDataStore getInstance(final String path) {
+    public static synchronized StatisticsDataStore getInstance(final String path) {
 
         if (instance == null) {
 
@@ -182,6 +245,7 @@ public final class StatisticsDataStore {
 
         if (!instance.currentStatisticsFile.equals(path)) {
 
+            instance.closeJournal();
             instance.currentStatisticsFile = path;
             instance.loadStatisticsFromFile(new File(path));
         }
@@ -191,22 +255,88 @@ public final class StatisticsDataStore {
 
     /**
      * Returns an instance of the {@link StatisticsDataStore} to access the default file with
-     * statistical information in XML format.
+     * statistical information in XML format. All changes are written behind through a journal.
      *
      * @return instance of <code>StatisticsDataStore</code>
      */
-    public static StatisticsDataStore getInstance() {
+    public static synchronized StatisticsDataStore getInstance() {
 
         if (instance == null) {
-            final StatisticsDataStore store = new StatisticsDataStore();
-            store.currentStatisticsFile = USER_STATISTICS_PATH;
-            store.loadStatisticsFromFile(new File(USER_STATISTICS_PATH));
-            instance = store;
+            instance = openJournaled(USER_STATISTICS_PATH);
         }
 
         return instance;
     }
 
+    /**
+     * Creates a new data store for the given file whose changes are written behind through a
+     * journal. All journaled changes that were not yet compacted into the file are replayed.
+     *
+     * @param path
+     *            path to file with statistical data
+     * @return new instance of <code>StatisticsDataStore</code>
+     */
+    static StatisticsDataStore openJournaled(final String path) {
+
+        final StatisticsDataStore store = new StatisticsDataStore();
+        store.currentStatisticsFile = path;
+        store.loadStatisticsFromFile(new File(path));
+        store.openJournal();
+        return store;
+    }
+
+    /**
+     * Opens the journal for the current statistics file and replays all changes not yet contained
+     * in it.
+     */
+    private void openJournal() {
+
+        final StatisticsJournal newJournal = new StatisticsJournal(new File(currentStatisticsFile));
+
+        final int replayed = newJournal.replay(compactedGeneration, new StatisticsJournal.RecordHandler() {
+            @Override
+            public void nonogramChanged(final String hash, final int played, final int won, final int lost) {
+                addNonogramStatistics(hash, played, won, lost);
+            }
+
+            @Override
+            public void fieldsChanged(final int correctlyOccupied, final int wronglyOccupied, final int marked) {
+                overallFieldsCorrectlyOccupied += correctlyOccupied;
+                overallFieldsWronglyOccupied += wronglyOccupied;
+                overallFieldsMarked += marked;
+            }
+
+            @Override
+            public void achievementChanged(final Achievement achievement, final boolean accomplished) {
+                achievementAccomplishment.put(achievement, accomplished);
+            }
+        });
+
+        synchronized (journalLock) {
+            synchronized (this) {
+                journal = newJournal;
+                if (replayed > 0) {
+                    changedSinceCompaction = true;
+                    scheduleCompaction();
+                }
+            }
+        }
+    }
+
+    /**
+     * Compacts the journal into the statistics file and stops journaling changes. Afterwards
+     * changes are only saved by calling {@link #saveStatisticsToFile()}.
+     */
+    void closeJournal() {
+
+        synchronized (journalLock) {
+            compactJournal();
+            synchronized (this) {
+                journal = null;
+            }
+        }
+    }
+
     /**
      * Loads statistical data from a given file.
      *
@@ -235,6 +365,10 @@ public final class StatisticsDataStore {
 
                 final Element root = doc.getDocumentElement();
 
+                if (root.hasAttribute("journal")) {
+                    compactedGeneration = Integer.valueOf(root.getAttribute("journal"));
+                }
+
                 /*
                  * Get statistical data.
                  */
@@ -302,11 +436,18 @@ public final class StatisticsDataStore {
     }
 
     /**
-     * Saves statistical data to the last loaded statistics file.
+     * Saves statistical data to the last loaded statistics file. If changes are journaled, the
+     * journal is compacted into the statistics file.
      */
     public void saveStatisticsToFile() {
 
-        saveStatisticsToFile(new File(currentStatisticsFile));
+        synchronized (journalLock) {
+            if (journal != null) {
+                compactJournal();
+            } else {
+                saveStatisticsToFile(new File(currentStatisticsFile));
+            }
+        }
     }
 
     /**
@@ -324,7 +465,99 @@ public final class StatisticsDataStore {
             throw new IllegalArgumentException("File argument should not be a directory.");
         }
 
-        logger.debug("Saving statistical data to file...");
+        final Document doc;
+        synchronized (this) {
+            doc = createDocument();
+        }
+
+        if (doc != null) {
+            writeDocument(doc, statisticsFile);
+        }
+    }
+
+    /**
+     * Appends all pending changes to the journal. Normally this is done automatically shortly
+     * after a change.
+     */
+    public void flush() {
+
+        synchronized (journalLock) {
+            if (journal == null) {
+                return;
+            }
+
+            final String records;
+            synchronized (this) {
+                flushScheduled = false;
+                records = drainPendingRecords();
+            }
+
+            try {
+                journal.append(records);
+            } catch (final IOException e) {
+                logger.warn("Statistics journal could not be written: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Compacts the journal into the statistics file. The document is created while holding the
+     * lock of the data store, but it is written without blocking further changes. Journal files
+     * are only deleted after the statistics file was replaced completely.
+     */
+    private void compactJournal() {
+
+        synchronized (journalLock) {
+            if (journal == null) {
+                return;
+            }
+
+            final String records;
+            final Document doc;
+            synchronized (this) {
+                compactionScheduled = false;
+                if (!changedSinceCompaction) {
+                    return;
+                }
+                changedSinceCompaction = false;
+                flushScheduled = false;
+                records = drainPendingRecords();
+                doc = createDocument();
+            }
+
+            // pending records are journaled as well in case the statistics file can not be written
+            try {
+                journal.append(records);
+            } catch (final IOException e) {
+                logger.warn("Statistics journal could not be written: " + e.getMessage());
+            }
+
+            final int generation = journal.rotate();
+            if (doc != null) {
+                doc.getDocumentElement().setAttribute("journal", String.valueOf(generation));
+            }
+
+            if (doc != null && writeDocument(doc, new File(currentStatisticsFile))) {
+                compactedGeneration = generation;
+                journal.deleteUpTo(generation);
+                logger.debug("Compacted statistics journal up to generation " + generation + ".");
+
+            } else {
+                synchronized (this) {
+                    changedSinceCompaction = true;
+                    scheduleCompaction();
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a XML document containing all statistical data. This method has to be called while
+     * holding the lock of the data store.
+     *
+     * @return XML document or null if it could not be created
+     */
+    private Document createDocument() {
 
         try {
             final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
@@ -386,15 +619,49 @@ public final class StatisticsDataStore {
                 achievements.appendChild(nextAchievement);
             }
 
+            return doc;
+
+        } catch (final ParserConfigurationException e) {
+            logger.warn("Statistics file could not be parsed correctly: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a XML document to a given file. The document is written to a temporary file first,
+     * that replaces the given file only after it was written completely.
+     *
+     * @param doc
+     *            XML document to be written
+     * @param statisticsFile
+     *            file to save statistical data to
+     * @return true, if file was written successfully
+     */
+    private boolean writeDocument(final Document doc, final File statisticsFile) {
+
+        logger.debug("Saving statistical data to file...");
+
+        Path tempFile = null;
+        try {
+            final File directory = statisticsFile.getAbsoluteFile().getParentFile();
+            tempFile = Files.createTempFile(directory.toPath(), statisticsFile.getName(), ".tmp");
+
             final Source source = new DOMSource(doc);
-            final Result result = new StreamResult(statisticsFile);
+            final Result result = new StreamResult(tempFile.toFile());
 
             final Transformer tf = TransformerFactory.newInstance().newTransformer();
             tf.setOutputProperty(OutputKeys.INDENT, "yes");
             tf.transform(source, result);
 
-        } catch (final ParserConfigurationException e) {
-            logger.warn("Statistics file could not be parsed correctly: " + e.getMessage());
+            // replace old statistics file only after new one was written completely
+            Files.move(tempFile, statisticsFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            tempFile = null;
+
+            logger.debug("Saved statistical data to file.");
+            return true;
+
+        } catch (final IOException e) {
+            logger.warn("Statistics file could not be saved correctly: " + e.getMessage());
 
         } catch (final TransformerConfigurationException e) {
             logger.warn("Statistics file could not be saved correctly.");
@@ -404,9 +671,18 @@ public final class StatisticsDataStore {
 
         } catch (final TransformerException e) {
             logger.warn("Statistics file could not be saved correctly.");
+
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (final IOException e) {
+                    logger.warn("Unable to delete temporary statistics file.");
+                }
+            }
         }
 
-        logger.debug("Saved statistical data to file.");
+        return false;
     }
 
     /**
@@ -433,7 +709,7 @@ public final class StatisticsDataStore {
      *            hash of nonogram for which to get number of times played
      * @return number of times played
      */
-    public int getTimesPlayedForNonogram(final String hash) {
+    public synchronized int getTimesPlayedForNonogram(final String hash) {
 
         final NonogramStatistics temp = listOfStatistics.get(hash);
         if (temp != null) {
@@ -451,7 +727,7 @@ public final class StatisticsDataStore {
      *            hash of nonogram for which to get number of times won
      * @return number of times won
      */
-    public int getTimesWonForNonogram(final String hash) {
+    public synchronized int getTimesWonForNonogram(final String hash) {
 
         final NonogramStatistics temp = listOfStatistics.get(hash);
         if (temp != null) {
@@ -469,7 +745,7 @@ public final class StatisticsDataStore {
      *            hash of nonogram for which to get number of times lost
      * @return number of times lost
      */
-    public int getTimesLostForNonogram(final String hash) {
+    public synchronized int getTimesLostForNonogram(final String hash) {
 
         final NonogramStatistics temp = listOfStatistics.get(hash);
         if (temp != null) {
@@ -485,7 +761,7 @@ public final class StatisticsDataStore {
      * @param hash
      *            hash of nonogram for which to get number of times played
      */
-    public void incrementTimesPlayedForNonogram(final String hash) {
+    public synchronized void incrementTimesPlayedForNonogram(final String hash) {
 
         final NonogramStatistics temp = listOfStatistics.get(hash);
         if (temp != null) {
@@ -493,6 +769,7 @@ public final class StatisticsDataStore {
         } else {
             listOfStatistics.put(hash, new NonogramStatistics(1, 0, 0));
         }
+        journalNonogram(hash, 1, 0, 0);
     }
 
     /**
@@ -501,7 +778,7 @@ public final class StatisticsDataStore {
      * @param hash
      *            hash of nonogram for which to get number of times won
      */
-    public void incrementTimesWonForNonogram(final String hash) {
+    public synchronized void incrementTimesWonForNonogram(final String hash) {
 
         final NonogramStatistics temp = listOfStatistics.get(hash);
         if (temp != null) {
@@ -509,6 +786,7 @@ public final class StatisticsDataStore {
         } else {
             listOfStatistics.put(hash, new NonogramStatistics(0, 1, 0));
         }
+        journalNonogram(hash, 0, 1, 0);
     }
 
     /**
@@ -517,7 +795,7 @@ public final class StatisticsDataStore {
      * @param hash
      *            hash of nonogram for which to get number of times lost
      */
-    public void incrementTimesLostForNonogram(final String hash) {
+    public synchronized void incrementTimesLostForNonogram(final String hash) {
 
         final NonogramStatistics temp = listOfStatistics.get(hash);
         if (temp != null) {
@@ -525,6 +803,7 @@ public final class StatisticsDataStore {
         } else {
             listOfStatistics.put(hash, new NonogramStatistics(0, 0, 1));
         }
+        journalNonogram(hash, 0, 0, 1);
     }
 
     /**
@@ -532,7 +811,7 @@ public final class StatisticsDataStore {
      *
      * @return number of fields that have been correctly occupied
      */
-    public int getFieldsCorrectlyOccupied() {
+    public synchronized int getFieldsCorrectlyOccupied() {
 
         return overallFieldsCorrectlyOccupied;
     }
@@ -542,7 +821,7 @@ public final class StatisticsDataStore {
      *
      * @return number of fields that have been wrongly occupied
      */
-    public int getFieldsWronglyOccupied() {
+    public synchronized int getFieldsWronglyOccupied() {
 
         return overallFieldsWronglyOccupied;
     }
@@ -552,7 +831,7 @@ public final class StatisticsDataStore {
      *
      * @return number of fields that have been marked
      */
-    public int getFieldsMarked() {
+    public synchronized int getFieldsMarked() {
 
         return overallFieldsMarked;
     }
@@ -560,25 +839,28 @@ public final class StatisticsDataStore {
     /**
      * Increments the number of fields that were correctly occupied.
      */
-    public void incrementFieldsCorrectlyOccupied() {
+    public synchronized void incrementFieldsCorrectlyOccupied() {
 
         overallFieldsCorrectlyOccupied++;
+        journalFields(1, 0, 0);
     }
 
     /**
      * Increments the number of fields that were wrongly occupied.
      */
-    public void incrementFieldsWronglyOccupied() {
+    public synchronized void incrementFieldsWronglyOccupied() {
 
         overallFieldsWronglyOccupied++;
+        journalFields(0, 1, 0);
     }
 
     /**
      * Increments the number of fields that were marked.
      */
-    public void incrementFieldsMarked() {
+    public synchronized void incrementFieldsMarked() {
 
         overallFieldsMarked++;
+        journalFields(0, 0, 1);
     }
 
     /**
@@ -587,7 +869,7 @@ public final class StatisticsDataStore {
      *
      * @return map with all achievements
      */
-    public Map<Achievement, Boolean> getAchievementAccomplishment() {
+    public synchronized Map<Achievement, Boolean> getAchievementAccomplishment() {
 
         return Collections.unmodifiableMap(achievementAccomplishment);
     }
@@ -599,8 +881,174 @@ public final class StatisticsDataStore {
      * @param achievementAccomplishment
      *            accomplishment status to be set
      */
-    public void setAchievementAccomplishment(final Map<Achievement, Boolean> achievementAccomplishment) {
+    public synchronized void setAchievementAccomplishment(final Map<Achievement, Boolean> achievementAccomplishment) {
+
+        for (final Entry<Achievement, Boolean> entry : achievementAccomplishment.entrySet()) {
+            final Boolean oldValue = this.achievementAccomplishment.put(entry.getKey(), entry.getValue());
+            if (!entry.getValue().equals(oldValue)) {
+                journalAchievement(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Adds values to the statistics of a single nonogram without journaling them.
+     *
+     * @param hash
+     *            hash of nonogram
+     * @param played
+     *            additional number of times the nonogram was played
+     * @param won
+     *            additional number of times the nonogram was won
+     * @param lost
+     *            additional number of times the nonogram was lost
+     */
+    private void addNonogramStatistics(final String hash, final int played, final int won, final int lost) {
+
+        final NonogramStatistics temp = listOfStatistics.get(hash);
+        if (temp != null) {
+            temp.increment(played, won, lost);
+        } else {
+            listOfStatistics.put(hash, new NonogramStatistics(played, won, lost));
+        }
+    }
+
+    /**
+     * Adds a change of the statistics of a single nonogram to the pending journal records.
+     *
+     * @param hash
+     *            hash of nonogram
+     * @param played
+     *            additional number of times the nonogram was played
+     * @param won
+     *            additional number of times the nonogram was won
+     * @param lost
+     *            additional number of times the nonogram was lost
+     */
+    private void journalNonogram(final String hash, final int played, final int won, final int lost) {
+
+        if (journal == null) {
+            return;
+        }
+
+        int[] pending = pendingNonograms.get(hash);
+        if (pending == null) {
+            pending = new int[3];
+            pendingNonograms.put(hash, pending);
+        }
+        pending[0] += played;
+        pending[1] += won;
+        pending[2] += lost;
 
-        this.achievementAccomplishment.putAll(achievementAccomplishment);
+        scheduleFlush();
+    }
+
+    /**
+     * Adds a change of the overall field statistics to the pending journal records.
+     *
+     * @param correctlyOccupied
+     *            number of fields additionally occupied correctly
+     * @param wronglyOccupied
+     *            number of fields additionally occupied wrongly
+     * @param marked
+     *            number of fields additionally marked
+     */
+    private void journalFields(final int correctlyOccupied, final int wronglyOccupied, final int marked) {
+
+        if (journal == null) {
+            return;
+        }
+
+        pendingFields[0] += correctlyOccupied;
+        pendingFields[1] += wronglyOccupied;
+        pendingFields[2] += marked;
+
+        scheduleFlush();
+    }
+
+    /**
+     * Adds a change of the accomplishment status of an achievement to the pending journal records.
+     *
+     * @param achievement
+     *            changed achievement
+     * @param accomplished
+     *            new accomplishment status
+     */
+    private void journalAchievement(final Achievement achievement, final boolean accomplished) {
+
+        if (journal == null) {
+            return;
+        }
+
+        pendingAchievements.put(achievement, accomplished);
+
+        scheduleFlush();
+    }
+
+    /**
+     * Converts all pending changes into journal records and clears them. Changes of the same value
+     * are combined into a single record.
+     *
+     * @return journal records
+     */
+    private String drainPendingRecords() {
+
+        final StringBuilder records = new StringBuilder();
+
+        for (final Entry<String, int[]> entry : pendingNonograms.entrySet()) {
+            final int[] pending = entry.getValue();
+            records.append(StatisticsJournal.nonogramRecord(entry.getKey(), pending[0], pending[1], pending[2]));
+        }
+        if (pendingFields[0] != 0 || pendingFields[1] != 0 || pendingFields[2] != 0) {
+            records.append(StatisticsJournal.fieldsRecord(pendingFields[0], pendingFields[1], pendingFields[2]));
+        }
+        for (final Entry<Achievement, Boolean> entry : pendingAchievements.entrySet()) {
+            records.append(StatisticsJournal.achievementRecord(entry.getKey(), entry.getValue()));
+        }
+
+        pendingNonograms.clear();
+        pendingFields[0] = 0;
+        pendingFields[1] = 0;
+        pendingFields[2] = 0;
+        pendingAchievements.clear();
+
+        return records.toString();
+    }
+
+    /**
+     * Schedules appending of pending changes to the journal, if it is not already scheduled.
+     */
+    private void scheduleFlush() {
+
+        changedSinceCompaction = true;
+
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, JOURNAL_FLUSH_DELAY, TimeUnit.MILLISECONDS);
+        }
+
+        scheduleCompaction();
+    }
+
+    /**
+     * Schedules compaction of the journal into the statistics file, if it is not already
+     * scheduled.
+     */
+    private void scheduleCompaction() {
+
+        if (!compactionScheduled) {
+            compactionScheduled = true;
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    compactJournal();
+                }
+            }, JOURNAL_COMPACTION_DELAY, TimeUnit.MILLISECONDS);
+        }
     }
 }
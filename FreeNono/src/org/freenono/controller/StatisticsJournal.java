@@ -0,0 +1,386 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.controller;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.apache.log4j.Logger;
+import org.freenono.controller.achievements.Achievement;
+
+/**
+ * Append-only journal for changes of statistical data. Every change is stored as a small text
+ * record, so that saving a change does not depend on the size of the statistics file.
+ * <p>
+ * Journal files are numbered by generations and lie next to the statistics file (e.g.
+ * <code>statistics.xml.3.journal</code>). When the data store compacts the journal into the
+ * statistics file, it writes the number of the last included generation into that file and starts
+ * a new generation. Therefore a journal whose generation is already contained in the statistics
+ * file is never replayed twice, even if the program stopped during compaction.
+ *
+ * @author Christian Wichmann
+ */
+class StatisticsJournal {
+
+    private static Logger logger = Logger.getLogger(StatisticsJournal.class);
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final String NONOGRAM_RECORD = "N";
+    private static final String FIELDS_RECORD = "F";
+    private static final String ACHIEVEMENT_RECORD = "A";
+
+    /**
+     * Handles records read from journal files.
+     *
+     * @author Christian Wichmann
+     */
+    interface RecordHandler {
+
+        /**
+         * Handles a change of the statistics of a single nonogram.
+         *
+         * @param hash
+         *            hash of nonogram
+         * @param played
+         *            number of times the nonogram was additionally played
+         * @param won
+         *            number of times the nonogram was additionally won
+         * @param lost
+         *            number of times the nonogram was additionally lost
+         */
+        void nonogramChanged(String hash, int played, int won, int lost);
+
+        /**
+         * Handles a change of the overall field statistics.
+         *
+         * @param correctlyOccupied
+         *            number of fields additionally occupied correctly
+         * @param wronglyOccupied
+         *            number of fields additionally occupied wrongly
+         * @param marked
+         *            number of fields additionally marked
+         */
+        void fieldsChanged(int correctlyOccupied, int wronglyOccupied, int marked);
+
+        /**
+         * Handles a change of the accomplishment status of an achievement.
+         *
+         * @param achievement
+         *            changed achievement
+         * @param accomplished
+         *            new accomplishment status
+         */
+        void achievementChanged(Achievement achievement, boolean accomplished);
+    }
+
+    private final File directory;
+    private final String prefix;
+    private int generation = 1;
+
+    /**
+     * Initializes a journal for the given statistics file.
+     *
+     * @param statisticsFile
+     *            statistics file the journal belongs to
+     */
+    public StatisticsJournal(final File statisticsFile) {
+
+        if (statisticsFile == null) {
+            throw new IllegalArgumentException("Argument statisticsFile should not be null.");
+        }
+
+        this.directory = statisticsFile.getAbsoluteFile().getParentFile();
+        this.prefix = statisticsFile.getName() + ".";
+    }
+
+    /**
+     * Replays all journal files whose generation is newer than the given one and deletes all older
+     * journal files. After that all further records are appended to a new generation.
+     *
+     * @param compactedGeneration
+     *            last generation already contained in the statistics file
+     * @param handler
+     *            handler for replayed records
+     * @return number of replayed records
+     */
+    public final int replay(final int compactedGeneration, final RecordHandler handler) {
+
+        int newestGeneration = compactedGeneration;
+        final File[] journalFiles = listJournalFiles();
+        for (final File journalFile : journalFiles) {
+            newestGeneration = Math.max(newestGeneration, getGeneration(journalFile));
+        }
+
+        int replayed = 0;
+        for (int g = compactedGeneration + 1; g <= newestGeneration; g++) {
+            final File journalFile = getJournalFile(g);
+            if (journalFile.exists()) {
+                replayed += replayFile(journalFile, handler);
+            }
+        }
+        deleteUpTo(compactedGeneration);
+
+        generation = newestGeneration + 1;
+        logger.debug("Replayed " + replayed + " records from statistics journal.");
+
+        return replayed;
+    }
+
+    /**
+     * Replays all records of a single journal file. Only records terminated by a line break are
+     * complete, so the last record is skipped if the program stopped while writing it. A record
+     * cut off after a digit would otherwise be replayed with a wrong value. Because every session
+     * appends to a new generation, incomplete records can only occur at the end of a file.
+     *
+     * @param journalFile
+     *            journal file to be read
+     * @param handler
+     *            handler for replayed records
+     * @return number of replayed records
+     */
+    private int replayFile(final File journalFile, final RecordHandler handler) {
+
+        final byte[] data;
+        try {
+            data = Files.readAllBytes(journalFile.toPath());
+        } catch (final IOException e) {
+            logger.warn("Statistics journal " + journalFile.getName() + " could not be read.");
+            return 0;
+        }
+
+        int replayed = 0;
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '\n') {
+                final String line = new String(data, start, i - start, CHARSET);
+                if (replayRecord(line, handler)) {
+                    replayed++;
+                } else {
+                    logger.warn("Skipped invalid record in statistics journal: " + line);
+                }
+                start = i + 1;
+            }
+        }
+
+        if (start < data.length) {
+            logger.warn("Skipped incomplete last record in statistics journal " + journalFile.getName() + ".");
+        }
+
+        return replayed;
+    }
+
+    /**
+     * Parses a single record and passes it to the handler.
+     *
+     * @param line
+     *            record to be parsed
+     * @param handler
+     *            handler for replayed records
+     * @return true, if record was valid
+     */
+    private boolean replayRecord(final String line, final RecordHandler handler) {
+
+        final String[] parts = line.split(" ");
+
+        try {
+            if (NONOGRAM_RECORD.equals(parts[0]) && parts.length == 5) {
+                handler.nonogramChanged(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+                        Integer.parseInt(parts[4]));
+                return true;
+
+            } else if (FIELDS_RECORD.equals(parts[0]) && parts.length == 4) {
+                handler.fieldsChanged(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+                return true;
+
+            } else if (ACHIEVEMENT_RECORD.equals(parts[0]) && parts.length == 3
+                    && ("true".equals(parts[2]) || "false".equals(parts[2]))) {
+                handler.achievementChanged(Achievement.valueOf(parts[1]), Boolean.parseBoolean(parts[2]));
+                return true;
+            }
+
+        } catch (final IllegalArgumentException e) {
+            // NumberFormatException or unknown achievement
+            return false;
+        }
+
+        return false;
+    }
+
+    /**
+     * Appends records to the journal file of the current generation and forces them onto the disk.
+     *
+     * @param records
+     *            records to be appended, each terminated by a line break
+     * @throws IOException
+     *             if records could not be written
+     */
+    public final void append(final String records) throws IOException {
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Directory for statistics journal could not be created.");
+        }
+
+        final FileOutputStream out = new FileOutputStream(getJournalFile(generation), true);
+        try {
+            out.write(records.getBytes(CHARSET));
+            out.getChannel().force(false);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Closes the current generation, so that all further records are appended to a new journal
+     * file.
+     *
+     * @return generation that was closed
+     */
+    public final int rotate() {
+
+        return generation++;
+    }
+
+    /**
+     * Deletes all journal files up to and including the given generation.
+     *
+     * @param lastGeneration
+     *            last generation to be deleted
+     */
+    public final void deleteUpTo(final int lastGeneration) {
+
+        for (final File journalFile : listJournalFiles()) {
+            if (getGeneration(journalFile) <= lastGeneration && !journalFile.delete()) {
+                logger.warn("Statistics journal " + journalFile.getName() + " could not be deleted.");
+            }
+        }
+    }
+
+    /**
+     * Lists all journal files belonging to the statistics file.
+     *
+     * @return journal files
+     */
+    private File[] listJournalFiles() {
+
+        final File[] files = directory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+
+        int count = 0;
+        for (int i = 0; i < files.length; i++) {
+            if (getGeneration(files[i]) > 0) {
+                files[count++] = files[i];
+            }
+        }
+
+        final File[] journalFiles = new File[count];
+        System.arraycopy(files, 0, journalFiles, 0, count);
+        return journalFiles;
+    }
+
+    /**
+     * Gets the generation of a journal file from its name.
+     *
+     * @param file
+     *            file to be checked
+     * @return generation of journal file or zero if file is no journal file of this statistics file
+     */
+    private int getGeneration(final File file) {
+
+        final String name = file.getName();
+        if (!name.startsWith(prefix) || !name.endsWith(JOURNAL_SUFFIX)) {
+            return 0;
+        }
+
+        try {
+            return Integer.parseInt(name.substring(prefix.length(), name.length() - JOURNAL_SUFFIX.length()));
+        } catch (final NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the journal file for a given generation.
+     *
+     * @param g
+     *            generation of journal file
+     * @return journal file
+     */
+    private File getJournalFile(final int g) {
+
+        return new File(directory, prefix + g + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Creates a record for a change of the statistics of a single nonogram.
+     *
+     * @param hash
+     *            hash of nonogram
+     * @param played
+     *            number of times the nonogram was additionally played
+     * @param won
+     *            number of times the nonogram was additionally won
+     * @param lost
+     *            number of times the nonogram was additionally lost
+     * @return record including line break
+     */
+    public static String nonogramRecord(final String hash, final int played, final int won, final int lost) {
+
+        return NONOGRAM_RECORD + " " + hash + " " + played + " " + won + " " + lost + "\n";
+    }
+
+    /**
+     * Creates a record for a change of the overall field statistics.
+     *
+     * @param correctlyOccupied
+     *            number of fields additionally occupied correctly
+     * @param wronglyOccupied
+     *            number of fields additionally occupied wrongly
+     * @param marked
+     *            number of fields additionally marked
+     * @return record including line break
+     */
+    public static String fieldsRecord(final int correctlyOccupied, final int wronglyOccupied, final int marked) {
+
+        return FIELDS_RECORD + " " + correctlyOccupied + " " + wronglyOccupied + " " + marked + "\n";
+    }
+
+    /**
+     * Creates a record for a change of the accomplishment status of an achievement.
+     *
+     * @param achievement
+     *            changed achievement
+     * @param accomplished
+     *            new accomplishment status
+     * @return record including line break
+     */
+    public static String achievementRecord(final Achievement achievement, final boolean accomplished) {
+
+        return ACHIEVEMENT_RECORD + " " + achievement.name() + " " + accomplished + "\n";
+    }
+}
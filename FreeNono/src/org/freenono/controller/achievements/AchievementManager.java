@@ -258,13 +258,12 @@ public final class AchievementManager {
     }
 
     /**
-     * Saves the achievements from AchievementManager to the data store and then to file.
+     * Saves the achievements from AchievementManager to the data store, which writes them to file
+     * through its journal.
      */
     private void saveAchievementsToStore() {
 
-        final StatisticsDataStore stats = StatisticsDataStore.getInstance();
-        stats.setAchievementAccomplishment(achievementMap);
-        stats.saveStatisticsToFile();
+        StatisticsDataStore.getInstance().setAchievementAccomplishment(achievementMap);
     }
 
     /*
@@ -0,0 +1,329 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.event;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.freenono.event.FieldControlEvent.FieldControlType;
+import org.freenono.event.ProgramControlEvent.ProgramControlType;
+import org.freenono.event.StateChangeEvent.StateChangeType;
+import org.freenono.model.CaptionOrientation;
+import org.freenono.model.GameState;
+import org.freenono.model.data.Nonogram;
+import org.freenono.model.game_modes.GameTime;
+import org.freenono.quiz.Question;
+
+/**
+ * Encodes game events in a compact binary format for transfer over the network. Every event starts
+ * with one byte containing its class and type. Field control events need only a few more bytes for
+ * coordinates, orientation and caption, because all numbers are written as variable length
+ * integers.
+ * <p>
+ * The source of an event is not transferred. Decoded events get a source given by the receiver.
+ * Nonogram patterns of program control events and questions of quiz events are rare and written
+ * with Java serialization.
+ *
+ * @author Christian Wichmann
+ */
+public final class GameEventCodec {
+
+    private static final int FIELD_CONTROL = 0;
+    private static final int STATE_CHANGE = 1;
+    private static final int PROGRAM_CONTROL = 2;
+    private static final int QUIZ = 3;
+
+    private static final int TYPE_BITS = 5;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private static final int VARINT_DATA_BITS = 7;
+    private static final int VARINT_DATA_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION = 0x80;
+
+    /**
+     * Hidden constructor of utility class.
+     */
+    private GameEventCodec() {
+    }
+
+    /**
+     * Writes a game event.
+     *
+     * @param out
+     *            output to write to
+     * @param event
+     *            game event to be written
+     * @throws IOException
+     *             if event could not be written
+     */
+    public static void write(final DataOutput out, final GameEvent event) throws IOException {
+
+        if (event instanceof FieldControlEvent) {
+            final FieldControlEvent e = (FieldControlEvent) event;
+            writeHeader(out, FIELD_CONTROL, e.getFieldControlType());
+            out.writeByte(ordinal(e.getOrientation()));
+            writeVarInt(out, e.getFieldColumn());
+            writeVarInt(out, e.getFieldRow());
+            if (e.getOrientation() != null) {
+                writeVarInt(out, e.getCaption());
+            }
+
+        } else if (event instanceof StateChangeEvent) {
+            final StateChangeEvent e = (StateChangeEvent) event;
+            writeHeader(out, STATE_CHANGE, e.getStateChangeType());
+            out.writeByte(ordinal(e.getOldState()));
+            out.writeByte(ordinal(e.getNewState()));
+            final GameTime gameTime = e.getGameTime();
+            out.writeBoolean(gameTime != null);
+            if (gameTime != null) {
+                writeVarInt(out, gameTime.getHours());
+                writeVarInt(out, gameTime.getMinutes());
+                writeVarInt(out, gameTime.getSeconds());
+            }
+            writeVarInt(out, e.getGameScore());
+            writeVarInt(out, e.getFailCount());
+
+        } else if (event instanceof ProgramControlEvent) {
+            final ProgramControlEvent e = (ProgramControlEvent) event;
+            writeHeader(out, PROGRAM_CONTROL, e.getPct());
+            writeSerialized(out, e.getPattern());
+
+        } else if (event instanceof QuizEvent) {
+            final QuizEvent e = (QuizEvent) event;
+            writeHeader(out, QUIZ, null);
+            writeSerialized(out, e.getQuestion());
+
+        } else {
+            throw new IllegalArgumentException("Unknown type of game event: " + event.getClass());
+        }
+    }
+
+    /**
+     * Reads a game event that was written by {@link #write(DataOutput, GameEvent)}.
+     *
+     * @param in
+     *            input to read from
+     * @param source
+     *            source to be set for decoded event
+     * @return decoded game event
+     * @throws IOException
+     *             if event could not be read or is invalid
+     */
+    public static GameEvent read(final DataInput in, final Object source) throws IOException {
+
+        final int header = in.readUnsignedByte();
+        final int type = header & TYPE_MASK;
+
+        try {
+            switch (header >>> TYPE_BITS) {
+            case FIELD_CONTROL:
+                final CaptionOrientation orientation = value(CaptionOrientation.values(), in.readUnsignedByte());
+                final int column = readVarInt(in);
+                final int row = readVarInt(in);
+                FieldControlEvent fieldControlEvent;
+                if (orientation != null) {
+                    fieldControlEvent = new FieldControlEvent(source, orientation, column, row, readVarInt(in));
+                } else {
+                    fieldControlEvent = new FieldControlEvent(source, column, row);
+                }
+                fieldControlEvent.setFieldControlType(value(FieldControlType.values(), type));
+                return fieldControlEvent;
+
+            case STATE_CHANGE:
+                final GameState oldState = value(GameState.values(), in.readUnsignedByte());
+                final GameState newState = value(GameState.values(), in.readUnsignedByte());
+                GameTime gameTime = null;
+                if (in.readBoolean()) {
+                    gameTime = new GameTime(readVarInt(in), readVarInt(in), readVarInt(in));
+                }
+                final int gameScore = readVarInt(in);
+                final int failCount = readVarInt(in);
+                return new StateChangeEvent(source, value(StateChangeType.values(), type), oldState, newState, gameTime, gameScore,
+                        failCount);
+
+            case PROGRAM_CONTROL:
+                final ProgramControlType pct = value(ProgramControlType.values(), type);
+                final Nonogram pattern = (Nonogram) readSerialized(in);
+                return pattern == null ? new ProgramControlEvent(source, pct) : new ProgramControlEvent(source, pct, pattern);
+
+            case QUIZ:
+                return new QuizEvent(source, (Question) readSerialized(in));
+
+            default:
+                throw new InvalidObjectException("Unknown type of game event: " + header);
+            }
+
+        } catch (final IllegalArgumentException | ClassCastException e) {
+            throw new InvalidObjectException("Invalid game event: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the header byte of an event.
+     *
+     * @param out
+     *            output to write to
+     * @param eventClass
+     *            class of event
+     * @param type
+     *            type of event inside its class or <code>null</code>
+     * @throws IOException
+     *             if header could not be written
+     */
+    private static void writeHeader(final DataOutput out, final int eventClass, final Enum<?> type) throws IOException {
+
+        out.writeByte(eventClass << TYPE_BITS | ordinal(type));
+    }
+
+    /**
+     * Gets the encoded value of an enum constant. Zero is reserved for <code>null</code>.
+     *
+     * @param value
+     *            enum constant or <code>null</code>
+     * @return encoded value
+     */
+    private static int ordinal(final Enum<?> value) {
+
+        return value == null ? 0 : value.ordinal() + 1;
+    }
+
+    /**
+     * Gets the enum constant for an encoded value.
+     *
+     * @param values
+     *            all constants of enum
+     * @param ordinal
+     *            encoded value
+     * @param <T>
+     *            type of enum
+     * @return enum constant or <code>null</code>
+     */
+    private static <T extends Enum<T>> T value(final T[] values, final int ordinal) {
+
+        if (ordinal > values.length) {
+            throw new IllegalArgumentException("Invalid value " + ordinal + " for " + values.getClass().getComponentType());
+        }
+        return ordinal == 0 ? null : values[ordinal - 1];
+    }
+
+    /**
+     * Writes an integer with as few bytes as possible. Small negative numbers are mapped to small
+     * positive numbers first, so that they need few bytes, too.
+     *
+     * @param out
+     *            output to write to
+     * @param value
+     *            value to be written
+     * @throws IOException
+     *             if value could not be written
+     */
+    static void writeVarInt(final DataOutput out, final int value) throws IOException {
+
+        int zigZag = (value << 1) ^ (value >> (Integer.SIZE - 1));
+        while ((zigZag & ~VARINT_DATA_MASK) != 0) {
+            out.writeByte(zigZag & VARINT_DATA_MASK | VARINT_CONTINUATION);
+            zigZag >>>= VARINT_DATA_BITS;
+        }
+        out.writeByte(zigZag);
+    }
+
+    /**
+     * Reads an integer written by {@link #writeVarInt(DataOutput, int)}.
+     *
+     * @param in
+     *            input to read from
+     * @return value read
+     * @throws IOException
+     *             if value could not be read
+     */
+    static int readVarInt(final DataInput in) throws IOException {
+
+        int zigZag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift >= Integer.SIZE) {
+                throw new InvalidObjectException("Variable length integer is too long.");
+            }
+            b = in.readUnsignedByte();
+            zigZag |= (b & VARINT_DATA_MASK) << shift;
+            shift += VARINT_DATA_BITS;
+        } while ((b & VARINT_CONTINUATION) != 0);
+
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    /**
+     * Writes an object with Java serialization preceded by its length.
+     *
+     * @param out
+     *            output to write to
+     * @param object
+     *            object to be written or <code>null</code>
+     * @throws IOException
+     *             if object could not be serialized
+     */
+    private static void writeSerialized(final DataOutput out, final Object object) throws IOException {
+
+        if (object == null) {
+            writeVarInt(out, 0);
+            return;
+        }
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(object);
+        }
+        writeVarInt(out, bytes.size());
+        out.write(bytes.toByteArray());
+    }
+
+    /**
+     * Reads an object written by {@link #writeSerialized(DataOutput, Object)}.
+     *
+     * @param in
+     *            input to read from
+     * @return object read or <code>null</code>
+     * @throws IOException
+     *             if object could not be deserialized
+     */
+    private static Object readSerialized(final DataInput in) throws IOException {
+
+        final int length = readVarInt(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length < 0) {
+            throw new InvalidObjectException("Invalid length of serialized object.");
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ois.readObject();
+        } catch (final ClassNotFoundException e) {
+            throw new InvalidObjectException("Unknown class of serialized object: " + e.getMessage());
+        }
+    }
+}
@@ -128,6 +128,38 @@ public final class StateChangeEvent extends GameEvent {
         setGameScore(0);
     }
 
+    /**
+     * Initializes a game event with all of its values. This is used to restore events that have
+     * been transferred over the network.
+     *
+     * @param source
+     *            Source where event was fired.
+     * @param stateChangeType
+     *            Type of state change event.
+     * @param oldState
+     *            Old state of game.
+     * @param newState
+     *            New state of game.
+     * @param gameTime
+     *            Current game time for this event.
+     * @param gameScore
+     *            current game score
+     * @param failCount
+     *            Current fail count for this event.
+     */
+    StateChangeEvent(final Object source, final StateChangeType stateChangeType, final GameState oldState, final GameState newState,
+            final GameTime gameTime, final int gameScore, final int failCount) {
+
+        super(source, GameEventType.STATE_CHANGE_EVENT);
+
+        setStateChangeType(stateChangeType);
+        setOldState(oldState);
+        setNewState(newState);
+        setGameTime(gameTime);
+        setGameScore(gameScore);
+        setFailCount(failCount);
+    }
+
     /**
      * Gets the old state from which is changed.
      *
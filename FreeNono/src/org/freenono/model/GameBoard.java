@@ -24,6 +24,12 @@ import org.freenono.model.data.Nonogram;
 
 /**
  * Stores a representation of the game board as user plays the game.
+ * <p>
+ * For every row and column the board keeps count of missing and wrong fields. Missing fields are
+ * fields of the pattern that are not yet occupied. Wrong fields are fields of the pattern that are
+ * marked and fields not belonging to the pattern that are still free. All counters are updated when
+ * fields are occupied or marked, so that checking whether the nonogram is solved does not need to
+ * look at the whole board.
  *
  * @author Christian Wichmann, Markus Wichmann
  */
@@ -34,6 +40,13 @@ public class GameBoard {
     private Nonogram pattern = null;
     private Token[][] field = null;
 
+    private int[] missingInRow;
+    private int[] missingInColumn;
+    private int[] wrongInRow;
+    private int[] wrongInColumn;
+    private int missingTotal;
+    private int wrongTotal;
+
     /**
      * Default constructor initializing a GameBoard with free fields and storing the pattern of the
      * current nonogram for future references.
@@ -51,6 +64,81 @@ public class GameBoard {
         for (final Token[] row : field) {
             Arrays.fill(row, Token.FREE);
         }
+
+        missingInRow = new int[pattern.height()];
+        missingInColumn = new int[pattern.width()];
+        wrongInRow = new int[pattern.height()];
+        wrongInColumn = new int[pattern.width()];
+        initializeCounters();
+    }
+
+    /**
+     * Initializes all counters for a board with only free fields. Every field of the pattern is
+     * missing and every other field is wrong until it gets marked.
+     */
+    private void initializeCounters() {
+
+        missingTotal = 0;
+        for (int y = 0; y < height(); y++) {
+            missingInRow[y] = countBits(pattern.getRowBits(y));
+            wrongInRow[y] = width() - missingInRow[y];
+            missingTotal += missingInRow[y];
+        }
+        for (int x = 0; x < width(); x++) {
+            missingInColumn[x] = countBits(pattern.getColumnBits(x));
+            wrongInColumn[x] = height() - missingInColumn[x];
+        }
+        wrongTotal = width() * height() - missingTotal;
+    }
+
+    /**
+     * Counts all set bits in the given words.
+     *
+     * @param words
+     *            bit-packed row or column of the pattern
+     * @return number of set bits
+     */
+    private static int countBits(final long[] words) {
+
+        int count = 0;
+        for (final long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Changes the missing counters for a given field.
+     *
+     * @param x
+     *            column of changed field
+     * @param y
+     *            row of changed field
+     * @param delta
+     *            value to add to counters
+     */
+    private void updateMissing(final int x, final int y, final int delta) {
+
+        missingInRow[y] += delta;
+        missingInColumn[x] += delta;
+        missingTotal += delta;
+    }
+
+    /**
+     * Changes the wrong counters for a given field.
+     *
+     * @param x
+     *            column of changed field
+     * @param y
+     *            row of changed field
+     * @param delta
+     *            value to add to counters
+     */
+    private void updateWrong(final int x, final int y, final int delta) {
+
+        wrongInRow[y] += delta;
+        wrongInColumn[x] += delta;
+        wrongTotal += delta;
     }
 
     /**
@@ -132,9 +220,11 @@ public class GameBoard {
         switch (getFieldValue(x, y)) {
         case FREE:
             field[y][x] = Token.MARKED;
+            updateWrong(x, y, pattern.getFieldValue(x, y) ? 1 : -1);
             return true;
         case MARKED:
             field[y][x] = Token.FREE;
+            updateWrong(x, y, pattern.getFieldValue(x, y) ? -1 : 1);
             return false;
         case OCCUPIED:
             break;
@@ -191,6 +281,17 @@ public class GameBoard {
     public final boolean occupy(final int x, final int y) {
 
         if (pattern.getFieldValue(x, y)) {
+            switch (field[y][x]) {
+            case FREE:
+                updateMissing(x, y, -1);
+                break;
+            case MARKED:
+                updateMissing(x, y, -1);
+                updateWrong(x, y, -1);
+                break;
+            default:
+                break;
+            }
             field[y][x] = Token.OCCUPIED;
             return true;
         } else {
@@ -221,5 +322,96 @@ public class GameBoard {
                 }
             }
         }
+
+        // fields of the pattern are occupied now, all others are free and therefore still wrong
+        initializeCounters();
+        Arrays.fill(missingInRow, 0);
+        Arrays.fill(missingInColumn, 0);
+        missingTotal = 0;
+    }
+
+    /**
+     * Checks if all fields belonging to the nonogram are occupied.
+     *
+     * @return true, if no field of the pattern is missing
+     */
+    public final boolean isSolvedThroughOccupied() {
+
+        return missingTotal == 0;
+    }
+
+    /**
+     * Checks whether all fields not part of the nonogram are marked and no field of the nonogram is
+     * marked.
+     *
+     * @return true, if no field is wrong
+     */
+    public final boolean isSolvedThroughMarked() {
+
+        return wrongTotal == 0;
+    }
+
+    /**
+     * Checks whether all fields of the nonogram in a given row are occupied.
+     *
+     * @param y
+     *            row to check
+     * @return true, if row is finished
+     */
+    public final boolean isRowFinished(final int y) {
+
+        if (y < 0 || y >= height()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return missingInRow[y] == 0;
+    }
+
+    /**
+     * Checks whether all fields of the nonogram in a given column are occupied.
+     *
+     * @param x
+     *            column to check
+     * @return true, if column is finished
+     */
+    public final boolean isColumnFinished(final int x) {
+
+        if (x < 0 || x >= width()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return missingInColumn[x] == 0;
+    }
+
+    /**
+     * Gets number of fields belonging to the nonogram in a given row that are not yet occupied.
+     *
+     * @param y
+     *            row to check
+     * @return number of missing fields in row
+     */
+    public final int getMissingFieldsInRow(final int y) {
+
+        if (y < 0 || y >= height()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return missingInRow[y];
+    }
+
+    /**
+     * Gets number of fields belonging to the nonogram in a given column that are not yet occupied.
+     *
+     * @param x
+     *            column to check
+     * @return number of missing fields in column
+     */
+    public final int getMissingFieldsInColumn(final int x) {
+
+        if (x < 0 || x >= width()) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return missingInColumn[x];
     }
 }
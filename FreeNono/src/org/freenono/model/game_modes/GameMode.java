@@ -135,63 +135,25 @@ public abstract class GameMode {
 
     /**
      * Checks whether all fields not part of the nonogram are marked, so that the nonogram is
-     * essentially solved.
+     * essentially solved. The game board keeps count of wrong fields, so this check takes constant
+     * time.
      *
      * @return True, if nonogram is solved by marking all necessary fields.
      */
     protected final boolean isSolvedThroughMarked() {
 
-        int y, x;
-        boolean patternValue;
-        Token fieldValue;
-
-        for (y = 0; y < nonogram.height(); y++) {
-
-            for (x = 0; x < nonogram.width(); x++) {
-
-                patternValue = nonogram.getFieldValue(x, y);
-                fieldValue = gameBoard.getFieldValue(x, y);
-
-                if (patternValue && fieldValue == Token.MARKED) {
-
-                    return false;
-
-                } else if (!patternValue && fieldValue == Token.FREE) {
-
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return gameBoard.isSolvedThroughMarked();
     }
 
     /**
-     * Checks if all fields belonging to the nonogram are occupied by the user.
+     * Checks if all fields belonging to the nonogram are occupied by the user. The game board keeps
+     * count of missing fields, so this check takes constant time.
      *
      * @return True, if nonogram is solved by occupying all necessary fields.
      */
     protected final boolean isSolvedThroughOccupied() {
 
-        int y, x;
-        boolean patternValue;
-        Token fieldValue;
-
-        for (y = 0; y < nonogram.height(); y++) {
-
-            for (x = 0; x < nonogram.width(); x++) {
-
-                patternValue = nonogram.getFieldValue(x, y);
-                fieldValue = gameBoard.getFieldValue(x, y);
-
-                if (patternValue && fieldValue != Token.OCCUPIED) {
-
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return gameBoard.isSolvedThroughOccupied();
     }
 
     /**
@@ -297,13 +259,34 @@ public abstract class GameMode {
      */
     private void checkCaptionsAgainstPattern(final int row, final int column) {
 
+        checkRowCaptionsAgainstPattern(row, column);
+        checkColumnCaptionsAgainstPattern(row, column);
+    }
+
+    /**
+     * Checks and updates captions for a given row of the board. If the game board reports the row
+     * as finished, all its blocks are crossed out without looking at single fields. Otherwise every
+     * block of the row is compared with the nonogram pattern.
+     *
+     * @param row
+     *            row to check
+     * @param column
+     *            column of changed field
+     */
+    private void checkRowCaptionsAgainstPattern(final int row, final int column) {
+
+        if (gameBoard.isRowFinished(row)) {
+            for (int blockNumber = 1; blockNumber <= nonogram.getLineNumberCount(row); blockNumber++) {
+                eventHelper.fireCrossOutCaptionEvent(new FieldControlEvent(this, CaptionOrientation.ORIENTATION_ROW, column, row,
+                        blockNumber));
+            }
+            return;
+        }
+
         int blockNumber = 1;
         boolean insideBlock = false;
         boolean blockCorrect = false;
 
-        /*
-         * check row for uncovered blocks
-         */
         for (int i = 0; i < nonogram.width(); i++) {
 
             if (nonogram.getFieldValue(i, row)) {
@@ -339,13 +322,32 @@ public abstract class GameMode {
             // fire event
             eventHelper.fireCrossOutCaptionEvent(new FieldControlEvent(this, CaptionOrientation.ORIENTATION_ROW, column, row, blockNumber));
         }
+    }
+
+    /**
+     * Checks and updates captions for a given column of the board. If the game board reports the
+     * column as finished, all its blocks are crossed out without looking at single fields.
+     * Otherwise every block of the column is compared with the nonogram pattern.
+     *
+     * @param row
+     *            row of changed field
+     * @param column
+     *            column to check
+     */
+    private void checkColumnCaptionsAgainstPattern(final int row, final int column) {
+
+        if (gameBoard.isColumnFinished(column)) {
+            for (int blockNumber = 1; blockNumber <= nonogram.getColumnNumbersCount(column); blockNumber++) {
+                eventHelper.fireCrossOutCaptionEvent(new FieldControlEvent(this, CaptionOrientation.ORIENTATION_COLUMN, column, row,
+                        blockNumber));
+            }
+            return;
+        }
+
+        int blockNumber = 1;
+        boolean insideBlock = false;
+        boolean blockCorrect = false;
 
-        /*
-         * check column for uncovered blocks
-         */
-        blockNumber = 1;
-        insideBlock = false;
-        blockCorrect = false;
         for (int i = 0; i < nonogram.height(); i++) {
 
             if (nonogram.getFieldValue(column, i)) {
@@ -0,0 +1,107 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.net;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.freenono.event.GameEvent;
+
+/**
+ * Contains consecutive game events of a coop game that are sent as one message via NonoWeb. Every
+ * sender numbers its events consecutively, so a batch only stores the sequence number of its first
+ * event. The receiver can use these numbers to drop events it has already handled.
+ *
+ * @author Christian Wichmann
+ */
+public final class CoopEventBatch implements Serializable {
+
+    private static final long serialVersionUID = -3841652372749128543L;
+
+    private final long firstSequence;
+    private final GameEvent[] events;
+
+    /**
+     * Initializes a batch of game events.
+     *
+     * @param firstSequence
+     *            sequence number of first event in batch
+     * @param events
+     *            game events in the order they occurred
+     */
+    public CoopEventBatch(final long firstSequence, final GameEvent[] events) {
+
+        if (events == null) {
+            throw new IllegalArgumentException("Argument events should not be null.");
+        }
+
+        this.firstSequence = firstSequence;
+        this.events = events.clone();
+    }
+
+    /**
+     * Returns sequence number of first event in this batch.
+     *
+     * @return sequence number of first event
+     */
+    public long getFirstSequence() {
+
+        return firstSequence;
+    }
+
+    /**
+     * Returns sequence number of last event in this batch.
+     *
+     * @return sequence number of last event
+     */
+    public long getLastSequence() {
+
+        return firstSequence + events.length - 1;
+    }
+
+    /**
+     * Returns all game events of this batch in the order they occurred.
+     *
+     * @return game events of batch
+     */
+    public List<GameEvent> getEvents() {
+
+        return Collections.unmodifiableList(Arrays.asList(events));
+    }
+
+    /**
+     * Returns all game events of this batch that follow a given sequence number. Events with lower
+     * or equal sequence numbers have already been handled by the receiver.
+     *
+     * @param lastHandledSequence
+     *            sequence number of last event already handled by receiver
+     * @return game events that have not been handled yet
+     */
+    public List<GameEvent> getEventsAfter(final long lastHandledSequence) {
+
+        if (lastHandledSequence < firstSequence) {
+            return getEvents();
+        }
+        if (lastHandledSequence >= getLastSequence()) {
+            return Collections.emptyList();
+        }
+        return getEvents().subList((int) (lastHandledSequence - firstSequence + 1), events.length);
+    }
+}
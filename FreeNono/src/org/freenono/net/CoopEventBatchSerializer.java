@@ -0,0 +1,82 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.net;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.util.List;
+
+import org.freenono.event.GameEvent;
+import org.freenono.event.GameEventCodec;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Serializes batches of coop game events for Hazelcast. A batch is written as the sequence number
+ * of its first event and the number of events followed by all events in the compact format of
+ * {@link GameEventCodec}.
+ *
+ * @author Christian Wichmann
+ */
+class CoopEventBatchSerializer implements StreamSerializer<CoopEventBatch> {
+
+    /**
+     * Type ID of this serializer inside Hazelcast cluster. It has to be the same on all members.
+     */
+    public static final int TYPE_ID = 101;
+
+    @Override
+    public int getTypeId() {
+
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(final ObjectDataOutput out, final CoopEventBatch batch) throws IOException {
+
+        final List<GameEvent> events = batch.getEvents();
+        out.writeLong(batch.getFirstSequence());
+        out.writeShort(events.size());
+        for (final GameEvent event : events) {
+            GameEventCodec.write(out, event);
+        }
+    }
+
+    @Override
+    public CoopEventBatch read(final ObjectDataInput in) throws IOException {
+
+        final long firstSequence = in.readLong();
+        final int count = in.readUnsignedShort();
+        if (count == 0) {
+            throw new InvalidObjectException("Batch of coop events is empty.");
+        }
+
+        final GameEvent[] events = new GameEvent[count];
+        for (int i = 0; i < count; i++) {
+            // events received from NonoWeb have this serializer as their source
+            events[i] = GameEventCodec.read(in, this);
+        }
+        return new CoopEventBatch(firstSequence, events);
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
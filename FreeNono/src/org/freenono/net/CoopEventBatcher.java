@@ -0,0 +1,212 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.net;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.event.GameEvent;
+
+/**
+ * Coalesces game events of a coop game into batches. The first event after a batch was sent starts
+ * a short time window, all events occurring in this window are sent together as one message. This
+ * reduces the number of messages when players change many fields quickly, while the delay stays too
+ * short to be noticed.
+ * <p>
+ * Batches are only published by the single scheduler thread and in the order in which they were
+ * created. The lock of the batcher is never held while publishing, so that adding events on the
+ * event dispatch thread does not wait for the network.
+ *
+ * @author Christian Wichmann
+ */
+class CoopEventBatcher {
+
+    /**
+     * Default time window in milliseconds in which events are collected.
+     */
+    public static final long DEFAULT_WINDOW = 15;
+
+    /**
+     * Maximum number of events in one batch. When this number is reached, the batch is sent
+     * immediately.
+     */
+    public static final int MAXIMUM_BATCH_SIZE = 256;
+
+    private static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+
+            final Thread t = new Thread(r, "Coop event batcher");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Publishes batches of events, e.g. to the topic of a coop game.
+     *
+     * @author Christian Wichmann
+     */
+    interface BatchPublisher {
+
+        /**
+         * Publishes a batch of events.
+         *
+         * @param batch
+         *            batch to be published
+         */
+        void publish(CoopEventBatch batch);
+    }
+
+    private final BatchPublisher publisher;
+    private final long window;
+
+    private final List<GameEvent> pendingEvents = new ArrayList<GameEvent>();
+    private final Queue<CoopEventBatch> outgoingBatches = new ArrayDeque<CoopEventBatch>();
+    private long nextSequence = 0;
+    private boolean flushScheduled = false;
+    private boolean closed = false;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+
+            synchronized (CoopEventBatcher.this) {
+                flushScheduled = false;
+                queuePendingEvents();
+            }
+            publishOutgoingBatches();
+        }
+    };
+
+    private final Runnable publishTask = new Runnable() {
+        @Override
+        public void run() {
+
+            publishOutgoingBatches();
+        }
+    };
+
+    /**
+     * Initializes a batcher that publishes its batches with the given publisher.
+     *
+     * @param publisher
+     *            publisher for batches
+     * @param window
+     *            time window in milliseconds in which events are collected
+     */
+    public CoopEventBatcher(final BatchPublisher publisher, final long window) {
+
+        if (publisher == null) {
+            throw new IllegalArgumentException("Argument publisher should not be null.");
+        }
+
+        this.publisher = publisher;
+        this.window = window;
+    }
+
+    /**
+     * Adds an event to the current batch. If no batch is pending, the time window for a new batch
+     * starts with this event.
+     *
+     * @param event
+     *            event to be sent
+     */
+    public final synchronized void add(final GameEvent event) {
+
+        if (closed) {
+            return;
+        }
+
+        pendingEvents.add(event);
+
+        if (pendingEvents.size() >= MAXIMUM_BATCH_SIZE) {
+            queuePendingEvents();
+            scheduler.execute(publishTask);
+
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(flushTask, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends all pending events as one batch. The batch is published asynchronously by the scheduler
+     * thread.
+     */
+    public final void flush() {
+
+        synchronized (this) {
+            flushScheduled = false;
+            queuePendingEvents();
+        }
+        scheduler.execute(publishTask);
+    }
+
+    /**
+     * Moves all pending events into a new batch and queues it for publishing. Must be called while
+     * holding the lock of this batcher.
+     */
+    private void queuePendingEvents() {
+
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+
+        final CoopEventBatch batch = new CoopEventBatch(nextSequence, pendingEvents.toArray(new GameEvent[pendingEvents.size()]));
+        nextSequence += pendingEvents.size();
+        pendingEvents.clear();
+
+        outgoingBatches.add(batch);
+    }
+
+    /**
+     * Publishes all queued batches in the order in which they were created. Must only be called by
+     * the scheduler thread, so that batches are never published concurrently.
+     */
+    private void publishOutgoingBatches() {
+
+        while (true) {
+            final CoopEventBatch batch;
+            synchronized (this) {
+                batch = outgoingBatches.poll();
+            }
+            if (batch == null) {
+                return;
+            }
+            publisher.publish(batch);
+        }
+    }
+
+    /**
+     * Sends all pending events and ignores all further events.
+     */
+    public final void close() {
+
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+    }
+}
@@ -18,6 +18,8 @@
 package org.freenono.net;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.freenono.event.FieldControlEvent;
@@ -48,6 +50,10 @@ import com.hazelcast.core.MessageListener;
  * a new instance has to be generated!
  * <p>
  * The both sides of a coop game are called the initiating instance and the joining instance.
+ * <p>
+ * Events are not sent one by one. They are collected for a short time and sent in batches with
+ * consecutive sequence numbers. The receiver handles the events of a batch in order and skips
+ * events it has already handled.
  *
  * @author Christian Wichmann
  */
@@ -57,45 +63,65 @@ public class CoopHandler {
 
     private NonoWebConnection connection = null;
     private GameEventHelper eventHelper = null;
-    private MessageListener<GameEvent> messageListener;
+    private MessageListener<CoopEventBatch> messageListener;
     private GameListener bridgingEventHelper;
     private CoopGame coopGame;
+    private CoopEventBatcher eventBatcher;
+
+    /**
+     * Stores for every sending member the sequence number of the last event that was handled.
+     */
+    private final Map<String, Long> lastHandledSequences = new ConcurrentHashMap<>();
 
     /**
      * Handles messages sent from other NonoWeb instances via Hazelcast and responds accordingly.
      *
      * @author Christian Wichmann
      */
-    private final class GameEventMessageListener implements MessageListener<GameEvent> {
+    private final class GameEventMessageListener implements MessageListener<CoopEventBatch> {
         @Override
-        public void onMessage(final Message<GameEvent> gameEvent) {
+        public void onMessage(final Message<CoopEventBatch> message) {
 
-            final String realPlayerName = connection.getRealPlayerName(gameEvent.getPublishingMember().toString());
+            final String memberName = message.getPublishingMember().toString();
+            final String realPlayerName = connection.getRealPlayerName(memberName);
             final boolean isNotOwnEvent = realPlayerName.equals(connection.getOwnRealPlayerName());
 
-            if (gameEvent.getMessageObject() instanceof FieldControlEvent) {
-                handleFieldControlEvent(gameEvent, isNotOwnEvent);
-            }
+            final CoopEventBatch batch = message.getMessageObject();
+            final Long lastHandled = lastHandledSequences.get(memberName);
+            final long lastHandledSequence = lastHandled == null ? -1 : lastHandled;
 
-            if (gameEvent.getMessageObject() instanceof StateChangeEvent) {
-                handleStateChangeEvent(gameEvent, isNotOwnEvent);
+            if (batch.getFirstSequence() > lastHandledSequence + 1) {
+                logger.warn("Missing coop events " + (lastHandledSequence + 1) + " to " + (batch.getFirstSequence() - 1) + " from "
+                        + realPlayerName + ".");
             }
 
-            if (gameEvent.getMessageObject() instanceof ProgramControlEvent) {
-                handleProgramControlEvent(gameEvent);
+            for (final GameEvent gameEvent : batch.getEventsAfter(lastHandledSequence)) {
+
+                if (gameEvent instanceof FieldControlEvent) {
+                    handleFieldControlEvent((FieldControlEvent) gameEvent, isNotOwnEvent);
+                }
+
+                if (gameEvent instanceof StateChangeEvent) {
+                    handleStateChangeEvent((StateChangeEvent) gameEvent, isNotOwnEvent);
+                }
+
+                if (gameEvent instanceof ProgramControlEvent) {
+                    handleProgramControlEvent((ProgramControlEvent) gameEvent);
+                }
             }
+
+            lastHandledSequences.put(memberName, Math.max(lastHandledSequence, batch.getLastSequence()));
         }
 
         /**
          * Handles a field control event send via NonoWeb.
          *
-         * @param gameEvent
+         * @param event
          *            game event to be handled
          * @param isNotOwnEvent
          *            whether this is actually a event sent by somebody else
          */
-        private void handleFieldControlEvent(final Message<GameEvent> gameEvent, final boolean isNotOwnEvent) {
-            final FieldControlEvent event = (FieldControlEvent) gameEvent.getMessageObject();
+        private void handleFieldControlEvent(final FieldControlEvent event, final boolean isNotOwnEvent) {
             if (isNotOwnEvent) {
                 switch (event.getFieldControlType()) {
                 case CROSS_OUT_CAPTION:
@@ -140,13 +166,12 @@ public class CoopHandler {
     /**
      * Handles a state change event send via NonoWeb.
      *
-     * @param gameEvent
+     * @param event
      *            game event to be handled
      * @param isNotOwnEvent
      *            whether this is actually a event sent by somebody else
      */
-    private void handleStateChangeEvent(final Message<GameEvent> gameEvent, final boolean isNotOwnEvent) {
-        final StateChangeEvent event = (StateChangeEvent) gameEvent.getMessageObject();
+    private void handleStateChangeEvent(final StateChangeEvent event, final boolean isNotOwnEvent) {
         switch (event.getStateChangeType()) {
         case SET_FAIL_COUNT:
             if (isNotOwnEvent) {
@@ -182,11 +207,10 @@ public class CoopHandler {
     /**
      * Handles a program control event send via NonoWeb.
      *
-     * @param gameEvent
+     * @param event
      *            game event to be handled
      */
-    private void handleProgramControlEvent(final Message<GameEvent> gameEvent) {
-        final ProgramControlEvent event = (ProgramControlEvent) gameEvent.getMessageObject();
+    private void handleProgramControlEvent(final ProgramControlEvent event) {
         switch (event.getPct()) {
         case NONOGRAM_CHOSEN:
             break;
@@ -281,6 +305,7 @@ public class CoopHandler {
         this.eventHelper = eventHelper;
         this.coopGame = coopGame;
 
+        createEventBatcher();
         registerGameListener();
         registerRemoteListener();
     }
@@ -324,6 +349,7 @@ public class CoopHandler {
         this.eventHelper = eventHelper;
         this.coopGame = coopGame;
 
+        createEventBatcher();
         registerGameListener();
         registerRemoteListener();
 
@@ -334,6 +360,20 @@ public class CoopHandler {
      * Common methods.
      */
 
+    /**
+     * Creates the batcher that collects local events and sends them to the other instances.
+     */
+    private void createEventBatcher() {
+
+        eventBatcher = new CoopEventBatcher(new CoopEventBatcher.BatchPublisher() {
+            @Override
+            public void publish(final CoopEventBatch batch) {
+
+                connection.sendCoopGameEvents(coopGame.getCoopGameId(), batch);
+            }
+        }, CoopEventBatcher.DEFAULT_WINDOW);
+    }
+
     /**
      * Registers listener for the game event handler of the local instance.
      */
@@ -345,7 +385,7 @@ public class CoopHandler {
             public void wrongFieldOccupied(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -353,7 +393,7 @@ public class CoopHandler {
             public void timerElapsed(final StateChangeEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -361,7 +401,7 @@ public class CoopHandler {
             public void stateChanging(final StateChangeEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -369,7 +409,7 @@ public class CoopHandler {
             public void stateChanged(final StateChangeEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -377,7 +417,7 @@ public class CoopHandler {
             public void setTime(final StateChangeEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -385,7 +425,7 @@ public class CoopHandler {
             public void setFailCount(final StateChangeEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -411,7 +451,7 @@ public class CoopHandler {
 
                 logger.debug(connection.getOwnRealPlayerName() + ": Getting local event!");
                 if (coopGame.getCoopGameType() == CoopGameType.JOINING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -419,7 +459,7 @@ public class CoopHandler {
             public void markField(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.JOINING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -427,7 +467,7 @@ public class CoopHandler {
             public void fieldUnoccupied(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -435,7 +475,7 @@ public class CoopHandler {
             public void fieldUnmarked(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -443,7 +483,7 @@ public class CoopHandler {
             public void fieldOccupied(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -451,7 +491,7 @@ public class CoopHandler {
             public void fieldMarked(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -459,7 +499,7 @@ public class CoopHandler {
             public void crossOutCaption(final FieldControlEvent e) {
 
                 if (coopGame.getCoopGameType() == CoopGameType.INITIATING) {
-                    connection.sendCoopGameEvent(coopGame.getCoopGameId(), e);
+                    eventBatcher.add(e);
                 }
             }
 
@@ -497,6 +537,9 @@ public class CoopHandler {
         if (eventHelper != null) {
             eventHelper.removeGameListener(bridgingEventHelper);
         }
+        if (eventBatcher != null) {
+            eventBatcher.close();
+        }
         if (messageListener != null && coopGame != null) {
             connection.removeCoopGameListener(coopGame.getCoopGameId(), messageListener);
         }
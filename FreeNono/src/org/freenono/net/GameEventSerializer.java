@@ -0,0 +1,64 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.net;
+
+import java.io.IOException;
+
+import org.freenono.event.GameEvent;
+import org.freenono.event.GameEventCodec;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Serializes single game events for Hazelcast with the compact format of {@link GameEventCodec}
+ * instead of Java serialization.
+ *
+ * @author Christian Wichmann
+ */
+class GameEventSerializer implements StreamSerializer<GameEvent> {
+
+    /**
+     * Type ID of this serializer inside Hazelcast cluster. It has to be the same on all members.
+     */
+    public static final int TYPE_ID = 100;
+
+    @Override
+    public int getTypeId() {
+
+        return TYPE_ID;
+    }
+
+    @Override
+    public void write(final ObjectDataOutput out, final GameEvent event) throws IOException {
+
+        GameEventCodec.write(out, event);
+    }
+
+    @Override
+    public GameEvent read(final ObjectDataInput in) throws IOException {
+
+        // events received from NonoWeb have this serializer as their source
+        return GameEventCodec.read(in, this);
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
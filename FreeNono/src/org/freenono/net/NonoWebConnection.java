@@ -35,6 +35,8 @@ import org.freenono.model.data.Nonogram;
 import org.freenono.net.CoopGame.CoopGameType;
 
 import com.hazelcast.config.Config;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
@@ -75,7 +77,7 @@ class NonoWebConnection {
     /**
      * Maps listeners to their registration IDs that are necessary to remove the listeners later.
      */
-    private final Map<MessageListener<GameEvent>, String> registrationIdForCoopGameListener;
+    private final Map<MessageListener<CoopEventBatch>, String> registrationIdForCoopGameListener;
 
     /**
      * Contains for every member name in the cluster a corresponding player name that was chosen by
@@ -108,6 +110,7 @@ class NonoWebConnection {
 
         // connect to Hazelcast cluster
         final Config cfg = new Config();
+        configureSerialization(cfg.getSerializationConfig());
         hz = Hazelcast.newHazelcastInstance(cfg);
 
         // set up data structures for different network services
@@ -119,6 +122,21 @@ class NonoWebConnection {
         nonogramPatternMap = hz.getMap(NONOGRAM_PATTERN_MAP);
     }
 
+    /**
+     * Registers the compact serializers for game events and batches of coop events. Every member
+     * of the cluster has to use the same serializers.
+     *
+     * @param serializationConfig
+     *            serialization configuration of Hazelcast instance
+     */
+    static void configureSerialization(final SerializationConfig serializationConfig) {
+
+        serializationConfig.addSerializerConfig(new SerializerConfig().setImplementation(new GameEventSerializer()).setTypeClass(
+                GameEvent.class));
+        serializationConfig.addSerializerConfig(new SerializerConfig().setImplementation(new CoopEventBatchSerializer())
+                .setTypeClass(CoopEventBatch.class));
+    }
+
     /*
      * Methods concerning the chat system.
      */
@@ -361,7 +379,7 @@ class NonoWebConnection {
      * @param messageListener
      *            message listener to be added
      */
-    public void addCoopGameListener(final String coopGameId, final MessageListener<GameEvent> messageListener) {
+    public void addCoopGameListener(final String coopGameId, final MessageListener<CoopEventBatch> messageListener) {
 
         if (coopGameId == null) {
             throw new IllegalArgumentException("Argument coopGameId should not be null.");
@@ -372,7 +390,7 @@ class NonoWebConnection {
 
         // TODO Save all game IDs ever used and keep track of the Topic!
 
-        final ITopic<GameEvent> game = hz.getTopic(coopGameId);
+        final ITopic<CoopEventBatch> game = hz.getTopic(coopGameId);
         final String id = game.addMessageListener(messageListener);
         registrationIdForCoopGameListener.put(messageListener, id);
 
@@ -387,7 +405,7 @@ class NonoWebConnection {
      * @param messageListener
      *            message listener to be removed
      */
-    public void removeCoopGameListener(final String coopGameId, final MessageListener<GameEvent> messageListener) {
+    public void removeCoopGameListener(final String coopGameId, final MessageListener<CoopEventBatch> messageListener) {
 
         if (coopGameId == null) {
             throw new IllegalArgumentException("Argument coopGameId should not be null.");
@@ -396,30 +414,31 @@ class NonoWebConnection {
             throw new IllegalArgumentException("Argument messageListener should not be null.");
         }
 
-        final ITopic<GameEvent> game = hz.getTopic(coopGameId);
+        final ITopic<CoopEventBatch> game = hz.getTopic(coopGameId);
         final String id = registrationIdForCoopGameListener.get(messageListener);
         game.removeMessageListener(id);
     }
 
     /**
-     * Sends a game event for a given coop game ID via NonoWeb.
+     * Sends a batch of game events for a given coop game ID via NonoWeb. All events of the batch
+     * are transferred in one message.
      *
      * @param coopGameId
-     *            coop game ID to which the event should be send
-     * @param gameEvent
-     *            game event to be sent
+     *            coop game ID to which the events should be send
+     * @param batch
+     *            batch of game events to be sent
      */
-    public void sendCoopGameEvent(final String coopGameId, final GameEvent gameEvent) {
+    public void sendCoopGameEvents(final String coopGameId, final CoopEventBatch batch) {
 
         if (coopGameId == null) {
             throw new IllegalArgumentException("Argument coopGameId should not be null.");
         }
-        if (gameEvent == null) {
-            throw new IllegalArgumentException("Argument gameEvent should not be null.");
+        if (batch == null) {
+            throw new IllegalArgumentException("Argument batch should not be null.");
         }
 
-        final ITopic<GameEvent> game = hz.getTopic(coopGameId);
-        game.publish(gameEvent);
+        final ITopic<CoopEventBatch> game = hz.getTopic(coopGameId);
+        game.publish(batch);
     }
 
     /*
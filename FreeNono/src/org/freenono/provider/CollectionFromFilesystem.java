@@ -25,26 +25,35 @@ import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.WatchEvent;
-import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.event.EventListenerList;
 
 import org.apache.log4j.Logger;
 import org.freenono.model.data.Course;
 import org.freenono.provider.CollectionListener.CollectionEvent;
+import org.freenono.provider.CollectionListener.CollectionEvent.CourseChange;
 import org.freenono.serializer.data.CourseFormatException;
 import org.freenono.serializer.data.CourseSerializer;
 import org.freenono.serializer.data.NonogramFormatException;
@@ -61,12 +70,30 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
 
     private static Logger logger = Logger.getLogger(CollectionFromFilesystem.class);
 
+    /**
+     * Time in milliseconds after the last file system event for a course before this course is
+     * reloaded.
+     */
+    private static final long DEBOUNCE_DELAY = 500;
+
     // private String rootPath = null;
     private Path collectionDirectory = null;
     private String providerName = null;
     private boolean concurrently = false;
-    private final CourseSerializer xmlCourseSerializer = new XMLCourseSerializer();
-    private final CourseSerializer zipCourseSerializer = new ZipCourseSerializer();
+    private final ThreadLocal<CourseSerializer> xmlCourseSerializer = new ThreadLocal<CourseSerializer>() {
+        @Override
+        protected CourseSerializer initialValue() {
+            return new XMLCourseSerializer();
+        }
+    };
+    private final CourseSerializer zipCourseSerializer = new ZipCourseSerializer(true);
+    private final ThreadLocal<CourseSerializer> eagerZipCourseSerializer = new ThreadLocal<CourseSerializer>() {
+        @Override
+        protected CourseSerializer initialValue() {
+            return new ZipCourseSerializer();
+        }
+    };
+    private CourseCache courseCache = null;
     private List<Course> courseList = null;
     private List<CourseProvider> courseProviderList = null;
 
@@ -97,6 +124,17 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
         collectionDirectory = Paths.get(rootPath);
     }
 
+    /**
+     * Sets a cache to store parsed courses in. Must be called before <code>startLoading()</code>.
+     *
+     * @param courseCache
+     *            cache for parsed courses or <code>null</code> if no cache should be used
+     */
+    public final void setCourseCache(final CourseCache courseCache) {
+
+        this.courseCache = courseCache;
+    }
+
     /**
      * Starts loading courses of this collection.
      *
@@ -154,7 +192,10 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
     }
 
     /**
-     * Loads one course from this collection and stores it in <code>courseList</code>.
+     * Loads all courses from this collection in parallel and stores them in
+     * <code>courseList</code>. Every course is loaded by a task on a thread pool bounded by the
+     * number of available processors. Listeners are informed in the calling thread every time a
+     * course has been loaded. A course whose task failed is skipped.
      *
      * @param dir
      *            directory where course files can be found
@@ -170,43 +211,99 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
             throw new FileNotFoundException("Specified directory not found");
         }
 
-        final String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
         final List<Course> lst = Collections.synchronizedList(new ArrayList<Course>());
 
-        synchronized (lst) {
-            final File[] listOfFiles = dir.listFiles();
-            if (listOfFiles == null) {
-                // just stop loading when there are no files
-                courseList = lst;
-                return;
+        final File[] listOfFiles = dir.listFiles();
+        if (listOfFiles == null) {
+            // just stop loading when there are no files
+            courseList = lst;
+            return;
+        }
+
+        // count courses
+        final List<File> courseFiles = new ArrayList<File>();
+        for (final File file : listOfFiles) {
+            if (isCourseFile(file)) {
+                courseFiles.add(file);
             }
+        }
+        numberOfCourses = courseFiles.size();
+        alreadyLoadedCourses = 0;
+        fireCollectionLoadingEvent();
 
-            // count courses
-            numberOfCourses = 0;
-            alreadyLoadedCourses = 0;
-            for (final File file : listOfFiles) {
-                if (!file.getName().startsWith(".") && (file.isDirectory() || file.getName().endsWith(ext))) {
-                    numberOfCourses++;
-                }
+        if (courseFiles.isEmpty()) {
+            courseList = lst;
+            return;
+        }
+
+        final int numberOfThreads = Math.min(Runtime.getRuntime().availableProcessors(), courseFiles.size());
+        final ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads);
+        final CompletionService<Course> completionService = new ExecutorCompletionService<Course>(pool);
+        final List<Future<Course>> futures = new ArrayList<Future<Course>>();
+
+        try {
+            for (final File file : courseFiles) {
+                futures.add(completionService.submit(new Callable<Course>() {
+                    @Override
+                    public Course call() {
+                        return loadSingleCourse(file);
+                    }
+                }));
             }
-            fireCollectionLoadingEvent();
 
-            for (final File file : listOfFiles) {
-                final Course c = loadSingleCourse(file);
+            // inform listeners in order of completion
+            for (int i = 0; i < futures.size(); i++) {
+                completionService.take();
+                alreadyLoadedCourses++;
+                fireCollectionLoadingEvent();
+            }
+
+            // store courses in order of their files
+            for (int i = 0; i < futures.size(); i++) {
+                Course c = null;
+                try {
+                    c = futures.get(i).get();
+                } catch (final ExecutionException e) {
+                    logger.error("loading course \"" + courseFiles.get(i) + "\" failed: " + e.getCause());
+                }
                 if (c != null) {
                     lst.add(c);
-                    logger.debug("loaded course \"" + file + "\" successfully");
+                    logger.debug("loaded course \"" + courseFiles.get(i) + "\" successfully");
                 } else {
-                    logger.warn("unable to load file \"" + file + "\"");
+                    logger.warn("unable to load file \"" + courseFiles.get(i) + "\"");
                 }
             }
+
+        } catch (final InterruptedException e) {
+            logger.warn("Loading of collection was interrupted.");
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
         }
 
         courseList = lst;
     }
 
     /**
-     * Loads a single course from a given file.
+     * Checks whether a given file can be loaded as course. Courses are either directories or
+     * nonopack files, hidden files are ignored.
+     *
+     * @param file
+     *            file to be checked
+     * @return true, if file can be loaded as course
+     */
+    private boolean isCourseFile(final File file) {
+
+        final String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
+        return !file.getName().startsWith(".") && (file.isDirectory() || file.getName().endsWith(ext));
+    }
+
+    /**
+     * Loads a single course from a given file. This method can be called from multiple threads
+     * concurrently, because every thread uses its own serializer for directories and the zip
+     * serializer loads courses lazily. If a course cache is set, unchanged courses are taken from
+     * the cache. All other courses are decoded completely in a single pass over their files, stored
+     * in the cache and then taken lazily from it.
      *
      * @param file
      *            file containing nonogram course to be loaded
@@ -214,19 +311,29 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
      */
     private Course loadSingleCourse(final File file) {
 
-        final String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
         Course c = null;
         try {
-            if (!file.getName().startsWith(".")) {
+            if (isCourseFile(file)) {
+                if (courseCache != null) {
+                    c = courseCache.load(file);
+                    if (c != null) {
+                        return c;
+                    }
+                }
+
                 if (file.isDirectory()) {
-                    c = xmlCourseSerializer.load(file);
-                    alreadyLoadedCourses++;
-                    fireCollectionLoadingEvent();
+                    c = xmlCourseSerializer.get().load(file);
+                } else if (courseCache != null) {
+                    c = eagerZipCourseSerializer.get().load(file);
                 } else {
-                    if (file.getName().endsWith(ext)) {
-                        c = zipCourseSerializer.load(file);
-                        alreadyLoadedCourses++;
-                        fireCollectionLoadingEvent();
+                    c = zipCourseSerializer.load(file);
+                }
+
+                if (courseCache != null) {
+                    courseCache.store(file, c);
+                    final Course cached = courseCache.load(file);
+                    if (cached != null) {
+                        c = cached;
                     }
                 }
             }
@@ -275,7 +382,9 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
     }
 
     /**
-     * Watches the collection and all its files/directories and reacts accordingly.
+     * Watches the collection and all its files/directories and reacts accordingly. Events are
+     * collected per course and only after no further event for a course has occurred for
+     * <code>DEBOUNCE_DELAY</code> milliseconds, this single course is reloaded or removed.
      *
      * @param collectionDirectory
      *            root directory of collection
@@ -288,106 +397,210 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
      */
     private void watchCollection(final Path collectionDirectory, final WatchService watcher) throws InterruptedException, IOException {
 
+        // paths of changed courses and the time when they should be reloaded
+        final Map<Path, Long> pendingCourses = new LinkedHashMap<Path, Long>();
+
         // start the infinite polling loop
         while (true) {
-            // wait for key to be signaled
-            WatchKey key;
-            key = watcher.take();
+            // wait for key to be signaled or for the next pending course to be due
+            final WatchKey key;
+            if (pendingCourses.isEmpty()) {
+                key = watcher.take();
+            } else {
+                final long delay = Collections.min(pendingCourses.values()) - System.currentTimeMillis();
+                key = watcher.poll(Math.max(delay, 0), TimeUnit.MILLISECONDS);
+            }
 
-            for (final WatchEvent<?> watchEvent : key.pollEvents()) {
+            if (key != null) {
+                for (final WatchEvent<?> watchEvent : key.pollEvents()) {
 
-                // get the type of the event
-                final Kind<?> kind = watchEvent.kind();
+                    // overflow event can occur when events are lost
+                    if (watchEvent.kind() == OVERFLOW) {
+                        logger.warn("Events for collection directory were lost, reloading all courses.");
+                        scheduleAllCourses(watcher, pendingCourses);
+                        continue;
+                    }
 
-                // overflow event can occur when events are lost
-                if (kind == OVERFLOW) {
-                    continue;
-                }
+                    // get the filename of the event and resolve it against the directory
+                    final WatchEvent<Path> ev = castWatchEvent(watchEvent);
+                    final Path directoryWithChange = (Path) key.watchable();
+                    final Path changedPath = directoryWithChange.resolve(ev.context());
+                    logger.debug("Watched path: " + changedPath + " (" + watchEvent.kind() + ")");
 
-                // filter all repeating events out
-                if (watchEvent.count() > 1) {
-                    continue;
-                }
+                    final Path coursePath = findCoursePath(changedPath, directoryWithChange);
+                    if (coursePath == null) {
+                        continue;
+                    }
 
-                // get the filename of the event
-                final WatchEvent<Path> ev = castWatchEvent(watchEvent);
-                final Path changedFilename = ev.context();
-                logger.debug("Watched file/dir: " + changedFilename);
-
-                // resolve the filename against the directory
-                final Path directoryWithChange = (Path) key.watchable();
-                final Path changedPath = directoryWithChange.resolve(changedFilename);
-                logger.debug("Watched path: " + changedPath);
-
-                // check if file/directory that was added/modified/deleted
-                // was REALLY a nonogram course
-                final String courseName;
-                if (Files.isDirectory(changedPath) && directoryWithChange.equals(collectionDirectory)) {
-                    // change relates to new directory inside the
-                    // collections root directory
-                    courseName = changedFilename.toString();
-
-                    if (kind == ENTRY_CREATE || kind == ENTRY_MODIFY) {
-                        logger.debug("Course added/modified: " + courseName);
-                        // add new course directory to watcher service
+                    // add new course directory to watcher service
+                    if (watchEvent.kind() == ENTRY_CREATE && coursePath.equals(changedPath) && Files.isDirectory(changedPath)) {
                         changedPath.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
-                        // TODO load new/changed course
-                        loadCollection();
-                        fireCollectionChangedEvent();
-
-                    } else if (kind == ENTRY_DELETE) {
-                        logger.debug("Course deleted: " + courseName);
-                        // cancel watch on the deleted directory
-                        // key.cancel();
-                        deleteCourseFromList(courseName);
-                        fireCollectionChangedEvent();
-                    }
-                } else if (!Files.isDirectory(changedPath) && !directoryWithChange.equals(collectionDirectory)) {
-                    // change relates to a new nonogram in a course
-                    // directory inside the collections root directory
-                    courseName = collectionDirectory.relativize(directoryWithChange).toString();
-
-                    if (kind == ENTRY_CREATE || kind == ENTRY_MODIFY || kind == ENTRY_DELETE) {
-                        logger.debug("Course modified: " + courseName);
-                        // TODO load new/changed course
-                        loadCollection();
-                        fireCollectionChangedEvent();
                     }
 
-                } else if (changedFilename.toString().toLowerCase().endsWith(".nonopack")
-                        && directoryWithChange.equals(collectionDirectory)) {
-                    // change relates to new nonopack file inside the
-                    // collections root directory
-                    courseName = changedFilename.toString().replace(".nonopack", "");
-
-                    if (kind == ENTRY_CREATE || kind == ENTRY_MODIFY) {
-                        logger.debug("Course added/modified: " + courseName);
-                        // TODO load new/changed course
-                        loadCollection();
-                        fireCollectionChangedEvent();
-
-                    } else if (kind == ENTRY_DELETE) {
-                        logger.debug("Course deleted: " + courseName);
-                        deleteCourseFromList(courseName);
-                        fireCollectionChangedEvent();
-                    }
+                    // coalesce all events for this course and postpone its reload
+                    pendingCourses.remove(coursePath);
+                    pendingCourses.put(coursePath, System.currentTimeMillis() + DEBOUNCE_DELAY);
+                }
 
-                } else {
+                /*
+                 * Reset the key to receive further watch events. If the key is no longer valid, the
+                 * directory is inaccessible, e.g. because a course directory was deleted.
+                 */
+                key.reset();
+            }
+
+            // reload all courses whose last event is long enough ago
+            final long now = System.currentTimeMillis();
+            for (final Iterator<Map.Entry<Path, Long>> it = pendingCourses.entrySet().iterator(); it.hasNext();) {
+                final Map.Entry<Path, Long> entry = it.next();
+                if (entry.getValue() <= now) {
+                    it.remove();
+                    reloadCourse(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Schedules all courses in the collection directory and all currently known courses for
+     * reloading. Known courses that no longer exist are removed when they are reloaded. All course
+     * directories are registered again, in case their creation was missed.
+     *
+     * @param watcher
+     *            watch service to register course directories with
+     * @param pendingCourses
+     *            paths of changed courses and the time when they should be reloaded
+     */
+    private void scheduleAllCourses(final WatchService watcher, final Map<Path, Long> pendingCourses) {
+
+        final long reloadTime = System.currentTimeMillis() + DEBOUNCE_DELAY;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(collectionDirectory)) {
+            for (final Path entry : stream) {
+                final Path coursePath = findCoursePath(entry, collectionDirectory);
+                if (coursePath == null) {
                     continue;
                 }
+                if (Files.isDirectory(entry)) {
+                    try {
+                        entry.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                    } catch (final IOException e) {
+                        logger.warn("Could not watch course directory " + entry + ".");
+                    }
+                }
+                pendingCourses.remove(coursePath);
+                pendingCourses.put(coursePath, reloadTime);
             }
+        } catch (IOException | DirectoryIteratorException e) {
+            logger.error("Could not read collection directory after events were lost.");
+        }
 
-            /*
-             * Reset the key to receive further watch events. If the key is no longer valid, the
-             * directory is inaccessible so exit the loop.
-             */
-            final boolean valid = key.reset();
-            if (!valid) {
-                continue;
+        final String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
+        for (final String courseName : getCourseNames()) {
+            final Path directoryPath = collectionDirectory.resolve(courseName);
+            final Path zipPath = collectionDirectory.resolve(courseName + ext);
+            if (!Files.exists(directoryPath) && !Files.exists(zipPath)) {
+                pendingCourses.put(directoryPath, reloadTime);
             }
         }
     }
 
+    /**
+     * Gets the names of all courses currently in the internal course list of this collection.
+     *
+     * @return names of all known courses
+     */
+    private synchronized List<String> getCourseNames() {
+
+        final List<String> names = new ArrayList<String>();
+        if (courseList != null) {
+            for (final Course c : courseList) {
+                names.add(c.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Finds the course that is affected by a change of a file or directory. Changes directly in
+     * the collection directory concern course directories or nonopack files, changes inside a
+     * course directory concern this directory.
+     *
+     * @param changedPath
+     *            path of changed file or directory
+     * @param directoryWithChange
+     *            directory in which the change occurred
+     * @return path of the affected course or <code>null</code> if no course is affected
+     */
+    private Path findCoursePath(final Path changedPath, final Path directoryWithChange) {
+
+        if (!directoryWithChange.equals(collectionDirectory)) {
+            // change relates to a nonogram in a course directory
+            return directoryWithChange;
+        }
+
+        final String fileName = changedPath.getFileName().toString();
+        if (fileName.startsWith(".")) {
+            return null;
+        }
+        if (fileName.toLowerCase().endsWith("." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION) || Files.isDirectory(changedPath)
+                || findCourse(getCourseName(changedPath)) != null) {
+            // change relates to a nonopack file, a course directory or a deleted course
+            return changedPath;
+        }
+        return null;
+    }
+
+    /**
+     * Gets name of the course stored at the given path. This is the name of a course directory or
+     * the name of a nonopack file without extension.
+     *
+     * @param coursePath
+     *            path of course
+     * @return name of course
+     */
+    private String getCourseName(final Path coursePath) {
+
+        final String fileName = coursePath.getFileName().toString();
+        final String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
+        if (fileName.toLowerCase().endsWith(ext)) {
+            return fileName.substring(0, fileName.length() - ext.length());
+        }
+        return fileName;
+    }
+
+    /**
+     * Loads a single course again after it has changed or removes it from collection if it no
+     * longer exists. All listeners are informed about the added, changed or removed course.
+     *
+     * @param coursePath
+     *            path of course directory or nonopack file
+     */
+    private void reloadCourse(final Path coursePath) {
+
+        final String courseName = getCourseName(coursePath);
+        final boolean known = findCourse(courseName) != null;
+
+        if (!Files.exists(coursePath)) {
+            if (known) {
+                logger.debug("Course deleted: " + courseName);
+                replaceCourseInList(courseName, null);
+                fireCollectionChangedEvent(courseName, CourseChange.REMOVED);
+            }
+            return;
+        }
+
+        final Course c = loadSingleCourse(coursePath.toFile());
+        if (c == null) {
+            logger.warn("unable to reload course \"" + coursePath + "\"");
+            return;
+        }
+
+        logger.debug("Course " + (known ? "modified: " : "added: ") + courseName);
+        replaceCourseInList(courseName, c);
+        fireCollectionChangedEvent(courseName, known ? CourseChange.CHANGED : CourseChange.ADDED);
+    }
+
     /**
      * Registers all directories that contain nonograms from this collection. The nonograms could be
      * either ZIP files or separate directories.
@@ -414,26 +627,61 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
     }
 
     /**
-     * Deletes a course defined by its name from the internal course provider list of this
-     * collection.
+     * Finds a course by its name in the internal course list of this collection.
      *
      * @param courseName
-     *            name of the course to be deleted
+     *            name of the course
+     * @return course with given name or <code>null</code> if no such course exists
      */
-    private synchronized void deleteCourseFromList(final String courseName) {
+    private synchronized Course findCourse(final String courseName) {
 
-        CourseProvider toBeDeleted = null;
-        for (final CourseProvider course : courseProviderList) {
-            if (course.getCourseName().equals(courseName)) {
-                toBeDeleted = course;
-            } else {
-                logger.debug("Still in collection: " + course.getCourseName());
+        if (courseList != null) {
+            for (final Course c : courseList) {
+                if (c.getName().equals(courseName)) {
+                    return c;
+                }
             }
         }
+        return null;
+    }
 
+    /**
+     * Replaces a course defined by its name in the internal course lists of this collection. If
+     * no course with this name exists, the new course is added.
+     *
+     * @param courseName
+     *            name of the course to be replaced
+     * @param course
+     *            new course or <code>null</code> if course should only be deleted
+     */
+    private synchronized void replaceCourseInList(final String courseName, final Course course) {
+
+        if (courseList == null || courseProviderList == null) {
+            // collection has not been loaded completely yet
+            return;
+        }
+
+        final Course oldCourse = findCourse(courseName);
+        if (oldCourse != null) {
+            courseList.remove(oldCourse);
+        }
+
+        CourseProvider toBeDeleted = null;
+        for (final CourseProvider cp : courseProviderList) {
+            if (cp.getCourseName().equals(courseName)) {
+                toBeDeleted = cp;
+            }
+        }
         if (toBeDeleted != null) {
             courseProviderList.remove(toBeDeleted);
         }
+
+        if (course != null) {
+            courseList.add(course);
+            courseProviderList.add(new CourseFromFilesystem(course));
+            Collections.sort(courseProviderList, CourseProvider.NAME_ASCENDING_ORDER);
+        }
+        numberOfCourses = courseList.size();
     }
 
     /**
@@ -599,22 +847,21 @@ public class CollectionFromFilesystem implements CollectionProvider, Iterable<Co
     }
 
     /**
-     * Notifies all listeners that this collection has changed, either a course changed, was added
-     * or removed.
+     * Notifies all listeners that a single course of this collection has been added, changed or
+     * removed.
+     *
+     * @param courseName
+     *            name of the course
+     * @param courseChange
+     *            kind of change of the course
      */
-    private void fireCollectionChangedEvent() {
+    private void fireCollectionChangedEvent(final String courseName, final CourseChange courseChange) {
 
-        // Guaranteed to return a non-null array
+        final CollectionEvent event = new CollectionEvent(this, numberOfCourses, courseName, courseChange);
         final Object[] listeners = listenerList.getListenerList();
-        // Process the listeners last to first, notifying
-        // those that are interested in this event
         for (int i = listeners.length - 2; i >= 0; i -= 2) {
             if (listeners[i] == CollectionListener.class) {
-                // Lazily create the event:
-                if (collectionEvent == null) {
-                    collectionEvent = new CollectionEvent(this, alreadyLoadedCourses, numberOfCourses, true);
-                }
-                ((CollectionListener) listeners[i + 1]).collectionChanged(collectionEvent);
+                ((CollectionListener) listeners[i + 1]).collectionChanged(event);
             }
         }
     }
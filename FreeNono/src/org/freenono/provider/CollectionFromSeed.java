@@ -22,7 +22,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
-import org.freenono.provider.NonogramFromSeed.RandomTypes;
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
 import org.freenono.ui.common.Tools;
 
 /**
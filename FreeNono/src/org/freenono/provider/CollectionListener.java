@@ -46,9 +46,31 @@ public interface CollectionListener extends EventListener {
 
         private static final long serialVersionUID = -7490618052412941904L;
 
+        /**
+         * Defines how a single course of a collection has changed.
+         */
+        public enum CourseChange {
+            /**
+             * Course was added to the collection.
+             */
+            ADDED,
+
+            /**
+             * Course was loaded again because its file has been modified.
+             */
+            CHANGED,
+
+            /**
+             * Course was removed from the collection.
+             */
+            REMOVED
+        }
+
         private int coursesAlreadyLoaded = 0;
         private int coursesInCollection = 0;
-        private final boolean collectionChanged = false;
+        private boolean collectionChanged = false;
+        private String courseName = null;
+        private CourseChange courseChange = null;
 
         /**
          * Initializes a new <code>CollectionEvent</code>.
@@ -69,6 +91,28 @@ public interface CollectionListener extends EventListener {
 
             this.coursesAlreadyLoaded = coursesLoadedComplete;
             this.coursesInCollection = coursesInCollection;
+            this.collectionChanged = courseChanged;
+        }
+
+        /**
+         * Initializes a new <code>CollectionEvent</code> for a change of a single course.
+         *
+         * @param source
+         *            source of this event
+         * @param coursesInCollection
+         *            number of courses in this collection after the change
+         * @param courseName
+         *            name of the course that was added, changed or removed
+         * @param courseChange
+         *            kind of change of the course
+         */
+        public CollectionEvent(final Object source, final int coursesInCollection, final String courseName,
+                final CourseChange courseChange) {
+
+            this(source, coursesInCollection, coursesInCollection, true);
+
+            this.courseName = courseName;
+            this.courseChange = courseChange;
         }
 
         /**
@@ -100,6 +144,27 @@ public interface CollectionListener extends EventListener {
 
             return collectionChanged;
         }
+
+        /**
+         * Returns name of the course that has been added, changed or removed.
+         *
+         * @return name of changed course or <code>null</code> if event concerns the whole
+         *         collection
+         */
+        public final String getCourseName() {
+
+            return courseName;
+        }
+
+        /**
+         * Returns how the course named by this event has changed.
+         *
+         * @return kind of change or <code>null</code> if event concerns the whole collection
+         */
+        public final CourseChange getCourseChange() {
+
+            return courseChange;
+        }
     }
 
     /**
@@ -5,6 +5,7 @@ import java.util.List;
 import org.freenono.controller.HighscoreManager;
 import org.freenono.controller.Score;
 import org.freenono.controller.SimpleStatistics;
+import org.freenono.model.data.Nonogram;
 
 /**
  * Provides tool methods for handling nonogram collections and courses.
@@ -32,7 +33,11 @@ public final class CollectionTools {
         int unsolvedNonogramsInCourse = 0;
 
         for (final NonogramProvider np : cp.getNonogramProvider()) {
-            final String hash = np.fetchNonogram().getHash();
+            final Nonogram n = np.fetchNonogram();
+            if (n == null) {
+                continue;
+            }
+            final String hash = n.getHash();
             final String won = (String) SimpleStatistics.getInstance().getValue("won_" + hash);
             if ("0".equals(won)) {
                 unsolvedNonogramsInCourse++;
@@ -82,7 +87,11 @@ public final class CollectionTools {
              * played. This time is returned by the method. Algorithm based on the assumption that
              * scores are returned by HighscoreManager sorted by time!
              */
-            final String hash = np.fetchNonogram().getHash();
+            final Nonogram n = np.fetchNonogram();
+            if (n == null) {
+                continue;
+            }
+            final String hash = n.getHash();
             final List<Score> list = hm.getHighscoreListForNonogram(hash);
             if (!list.isEmpty()) {
                 final long currentScore = list.get(0).getTime();
@@ -0,0 +1,477 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.provider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.Course;
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.freenono.model.data.NonogramInfo;
+import org.freenono.model.data.NonogramLoader;
+
+/**
+ * Caches parsed courses on disk in a compact binary format, so that unchanged courses do not have
+ * to be parsed again at the next start. Every course is stored in its own file which is named
+ * after the path of the course. The file contains the path, size and modification time of the
+ * course it was created from and is only used as long as all three still match. Cache files of
+ * courses that were removed or changed are deleted by {@link #prune()}.
+ * <p>
+ * Cache files are memory-mapped when read. The resulting courses are loaded lazily, every nonogram
+ * is decoded directly from the mapped file when it is requested. Besides information about the
+ * nonogram, each entry contains its hash and its pattern bit-packed row by row like it is stored in
+ * {@link Nonogram}.
+ *
+ * @author Christian Wichmann
+ */
+public class CourseCache {
+
+    private static Logger logger = Logger.getLogger(CourseCache.class);
+
+    private static final int MAGIC_NUMBER = 0x464e4343;
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_FILE_EXTENSION = ".cache";
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int MAXIMUM_PATH_LENGTH = 1 << 16;
+
+    private final Path cacheDirectory;
+
+    /**
+     * Decodes nonograms of a course from a memory-mapped cache file. The position of every
+     * nonogram info is the offset of the nonograms entry in the file.
+     *
+     * @author Christian Wichmann
+     */
+    private static class CacheNonogramLoader implements NonogramLoader {
+
+        private final ByteBuffer buffer;
+
+        /**
+         * Initializes a loader for nonograms in the given buffer.
+         *
+         * @param buffer
+         *            memory-mapped cache file
+         */
+        public CacheNonogramLoader(final ByteBuffer buffer) {
+
+            this.buffer = buffer;
+        }
+
+        @Override
+        public Nonogram loadNonogram(final NonogramInfo info) {
+
+            // use a view of the buffer, so that nonograms can be decoded concurrently
+            final ByteBuffer view = buffer.duplicate();
+            view.position(info.getPosition());
+
+            try {
+                final NonogramInfo header = readInfo(view, info.getSource(), info.getPosition());
+                final String hash = readString(view);
+
+                final Nonogram n = new Nonogram(header.getName(), header.getDifficulty(), header.width(), header.height());
+                n.setDescription(header.getDescription());
+                n.setAuthor(header.getAuthor());
+                n.setLevel(header.getLevel());
+                n.setDuration(header.getDuration());
+
+                final long[] row = new long[n.getWordsPerRow()];
+                for (int y = 0; y < n.height(); y++) {
+                    for (int w = 0; w < row.length; w++) {
+                        row[w] = view.getLong();
+                    }
+                    n.setRowBits(y, row);
+                }
+                n.setHash(hash);
+                return n;
+
+            } catch (final BufferUnderflowException | IllegalArgumentException e) {
+                logger.warn("Cache entry for nonogram " + info.getName() + " is corrupt.");
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Initializes a cache that stores its files in the given directory.
+     *
+     * @param cacheDirectory
+     *            directory for cache files
+     */
+    public CourseCache(final String cacheDirectory) {
+
+        if (cacheDirectory == null) {
+            throw new NullPointerException("Parameter cacheDirectory is null");
+        }
+
+        this.cacheDirectory = Paths.get(cacheDirectory);
+    }
+
+    /**
+     * Loads a course from cache if a valid cache file exists for it. Corrupt cache files are deleted,
+     * so that the course is parsed from its source and stored again.
+     *
+     * @param courseFile
+     *            directory or nonopack file of the course
+     * @return course from cache or <code>null</code> if course is not cached or has changed
+     */
+    public final Course load(final File courseFile) {
+
+        final Path cacheFile = getCacheFile(courseFile);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // check whether cache file is still valid for this course
+            if (buffer.getInt() != MAGIC_NUMBER || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            if (!readString(buffer).equals(courseFile.getAbsolutePath()) || buffer.getLong() != getCourseSize(courseFile)
+                    || buffer.getLong() != getCourseModificationTime(courseFile)) {
+                logger.debug("Cache file for course " + courseFile + " is outdated.");
+                return null;
+            }
+
+            final String courseName = readString(buffer);
+            final int count = buffer.getInt();
+            final List<NonogramInfo> infos = new ArrayList<NonogramInfo>(count);
+            for (int i = 0; i < count; i++) {
+                final NonogramInfo info = readInfo(buffer, courseName, buffer.position());
+                infos.add(info);
+
+                // skip hash and pattern of nonogram
+                readString(buffer);
+                final int wordsPerRow = (info.width() + Long.SIZE - 1) / Long.SIZE;
+                buffer.position(buffer.position() + info.height() * wordsPerRow * (Long.SIZE / Byte.SIZE));
+            }
+
+            logger.debug("Loaded course " + courseName + " from cache.");
+            return new Course(courseName, infos, new CacheNonogramLoader(buffer));
+
+        } catch (final IOException e) {
+            logger.warn("Unable to read cache file for course " + courseFile);
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            logger.warn("Cache file for course " + courseFile + " is corrupt.");
+            try {
+                Files.deleteIfExists(cacheFile);
+            } catch (final IOException e1) {
+                logger.warn("Unable to delete corrupt cache file " + cacheFile);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stores a course in the cache. All nonograms of the course have to be decoded for this, so the
+     * course should not be loaded lazily. Otherwise every nonogram is decoded from its source on its
+     * own.
+     *
+     * @param courseFile
+     *            directory or nonopack file the course was loaded from
+     * @param course
+     *            course to be stored
+     */
+    public final void store(final File courseFile, final Course course) {
+
+        final Path cacheFile = getCacheFile(courseFile);
+        Path tempFile = null;
+
+        try {
+            Files.createDirectories(cacheDirectory);
+            tempFile = Files.createTempFile(cacheDirectory, "course", CACHE_FILE_EXTENSION);
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile.toFile())))) {
+
+                out.writeInt(MAGIC_NUMBER);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, courseFile.getAbsolutePath());
+                out.writeLong(getCourseSize(courseFile));
+                out.writeLong(getCourseModificationTime(courseFile));
+
+                final Nonogram[] nonograms = course.getNonograms();
+                writeString(out, course.getName());
+                out.writeInt(nonograms.length);
+                for (final Nonogram n : nonograms) {
+                    writeString(out, n.getName());
+                    writeString(out, n.getDescription());
+                    writeString(out, n.getAuthor());
+                    out.writeByte(n.getDifficulty().ordinal());
+                    out.writeInt(n.getLevel());
+                    out.writeLong(n.getDuration());
+                    out.writeInt(n.width());
+                    out.writeInt(n.height());
+                    writeString(out, n.getHash());
+                    for (int y = 0; y < n.height(); y++) {
+                        for (int w = 0; w < n.getWordsPerRow(); w++) {
+                            out.writeLong(n.getRowWord(y, w));
+                        }
+                    }
+                }
+            }
+
+            // replace old cache file only after new one was written completely
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            logger.debug("Stored course " + course.getName() + " in cache.");
+
+        } catch (final IOException e) {
+            logger.warn("Unable to store course " + course.getName() + " in cache.");
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (final IOException e1) {
+                    logger.warn("Unable to delete temporary cache file.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all cache files that no longer match a course, because the course was removed or
+     * changed since it was cached. Files that are no valid cache files, e.g. left over temporary
+     * files, are deleted as well. This method should be called before any course is loaded or
+     * stored.
+     *
+     * @return number of deleted cache files
+     */
+    public final int prune() {
+
+        if (!Files.isDirectory(cacheDirectory)) {
+            return 0;
+        }
+
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory, "*" + CACHE_FILE_EXTENSION)) {
+            for (final Path cacheFile : stream) {
+                if (!isValidCacheFile(cacheFile)) {
+                    try {
+                        Files.delete(cacheFile);
+                        deleted++;
+                    } catch (final IOException e) {
+                        logger.warn("Unable to delete outdated cache file " + cacheFile);
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            logger.warn("Unable to prune course cache.");
+        }
+
+        logger.debug("Deleted " + deleted + " outdated files from course cache.");
+        return deleted;
+    }
+
+    /**
+     * Checks whether a cache file still matches the course it was created from. Only the header of
+     * the file is read, so that it is not mapped and can be deleted afterwards on every platform.
+     *
+     * @param cacheFile
+     *            cache file to be checked
+     * @return true, if cache file is valid for an existing and unchanged course
+     */
+    private boolean isValidCacheFile(final Path cacheFile) {
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+
+            if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION) {
+                return false;
+            }
+
+            final int length = in.readInt();
+            if (length < 0 || length > MAXIMUM_PATH_LENGTH) {
+                return false;
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            final File courseFile = new File(new String(bytes, CHARSET));
+
+            return cacheFile.equals(getCacheFile(courseFile)) && courseFile.exists()
+                    && in.readLong() == getCourseSize(courseFile) && in.readLong() == getCourseModificationTime(courseFile);
+
+        } catch (final IOException e) {
+            // also thrown for incomplete files
+            return false;
+        }
+    }
+
+    /**
+     * Reads information about a nonogram from the current position of a buffer. Invalid values
+     * cause an <code>IllegalArgumentException</code>.
+     *
+     * @param buffer
+     *            buffer to read from
+     * @param source
+     *            source to be stored in information
+     * @param position
+     *            position to be stored in information
+     * @return information about nonogram
+     */
+    private static NonogramInfo readInfo(final ByteBuffer buffer, final String source, final int position) {
+
+        final String name = readString(buffer);
+        final String description = readString(buffer);
+        final String author = readString(buffer);
+        final int ordinal = buffer.get();
+        if (ordinal < 0 || ordinal >= DifficultyLevel.values().length) {
+            throw new IllegalArgumentException("Invalid difficulty " + ordinal);
+        }
+        final DifficultyLevel difficulty = DifficultyLevel.values()[ordinal];
+        final int level = buffer.getInt();
+        final long duration = buffer.getLong();
+        final int width = buffer.getInt();
+        final int height = buffer.getInt();
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid size " + width + "x" + height);
+        }
+
+        final NonogramInfo info = new NonogramInfo(source, position, name, difficulty, width, height);
+        info.setDescription(description);
+        info.setAuthor(author);
+        info.setLevel(level);
+        info.setDuration(duration);
+        return info;
+    }
+
+    /**
+     * Reads a string that was written by <code>writeString()</code> from a buffer.
+     *
+     * @param buffer
+     *            buffer to read from
+     * @return string read from buffer
+     * @throws BufferUnderflowException
+     *             if the length of the string is invalid
+     */
+    private static String readString(final ByteBuffer buffer) {
+
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, CHARSET);
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 encoded bytes.
+     *
+     * @param out
+     *            stream to write to
+     * @param s
+     *            string to write, <code>null</code> is written as empty string
+     * @throws IOException
+     *             if string could not be written
+     */
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+
+        final byte[] bytes = s == null ? new byte[0] : s.getBytes(CHARSET);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Gets the cache file for a course. Its name is derived from the absolute path of the course.
+     *
+     * @param courseFile
+     *            directory or nonopack file of course
+     * @return path of cache file
+     */
+    private Path getCacheFile(final File courseFile) {
+
+        try {
+            final MessageDigest md = MessageDigest.getInstance("MD5");
+            final byte[] digest = md.digest(courseFile.getAbsolutePath().getBytes(CHARSET));
+            final StringBuilder sb = new StringBuilder();
+            for (final byte b : digest) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+            return cacheDirectory.resolve(sb.toString() + CACHE_FILE_EXTENSION);
+
+        } catch (final NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException("Hash MD5 not available on this system.");
+        }
+    }
+
+    /**
+     * Gets size of a course. For directories this is the sum of the sizes of all files in it.
+     *
+     * @param courseFile
+     *            directory or nonopack file of course
+     * @return size of course in bytes
+     */
+    private static long getCourseSize(final File courseFile) {
+
+        if (!courseFile.isDirectory()) {
+            return courseFile.length();
+        }
+
+        long size = 0;
+        final File[] files = courseFile.listFiles();
+        if (files != null) {
+            for (final File f : files) {
+                size += f.length();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets modification time of a course. For directories this is the latest modification time of
+     * the directory itself and all files in it.
+     *
+     * @param courseFile
+     *            directory or nonopack file of course
+     * @return modification time of course
+     */
+    private static long getCourseModificationTime(final File courseFile) {
+
+        long modified = courseFile.lastModified();
+        if (courseFile.isDirectory()) {
+            final File[] files = courseFile.listFiles();
+            if (files != null) {
+                for (final File f : files) {
+                    modified = Math.max(modified, f.lastModified());
+                }
+            }
+        }
+        return modified;
+    }
+}
@@ -23,7 +23,6 @@ import java.util.List;
 
 import org.apache.log4j.Logger;
 import org.freenono.model.data.Course;
-import org.freenono.model.data.Nonogram;
 
 /**
  * Provides a course from the file system.
@@ -33,9 +32,6 @@ import org.freenono.model.data.Nonogram;
 public class CourseFromFilesystem implements CourseProvider {
 
     /*
-     * TODO change this function to only fetch the course from file system when
-     * fetchCourse() is explicitly called.
-     * 
      * TODO make this class iterable to iterate over nonograms in course.
      */
 
@@ -65,9 +61,9 @@ public class CourseFromFilesystem implements CourseProvider {
 
         if (course != null) {
 
-            for (Nonogram n : course.getNonograms()) {
+            for (int i = 0; i < course.getNonogramCount(); i++) {
 
-                nonograms.add(n.getName());
+                nonograms.add(course.getNonogramInfo(i).getName());
             }
         }
         return nonograms;
@@ -86,9 +82,9 @@ public class CourseFromFilesystem implements CourseProvider {
 
             NonogramProvider np = null;
 
-            for (Nonogram n : course.getNonograms()) {
+            for (int i = 0; i < course.getNonogramCount(); i++) {
 
-                np = new NonogramFromFilesystem(n, this);
+                np = new NonogramFromFilesystem(course, i, this);
                 nonogramProvider.add(np);
             }
         }
@@ -24,11 +24,11 @@ import java.util.Collections;
 import java.util.List;
 
 import org.apache.log4j.Logger;
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
 import org.freenono.model.Seed;
 import org.freenono.model.Seeds;
 import org.freenono.model.data.Course;
 import org.freenono.model.data.Nonogram;
-import org.freenono.provider.NonogramFromSeed.RandomTypes;
 import org.freenono.serializer.XMLSeedsSerializer;
 import org.freenono.ui.Messages;
 
@@ -64,19 +64,24 @@ public class CourseFromServer implements CourseProvider {
 
         logger.debug("Preparing all NonogramProviders.");
 
+        nonogramList = new ArrayList<String>();
         nonogramProviderList = new ArrayList<NonogramProvider>();
 
-        // create nonogramProvider
-        List<String> nonogramList = null;
+        // create nonogramProvider for every nonogram while list is read
         try {
-            nonogramList = serverProviderHelper.getNonogramList(courseName);
+            serverProviderHelper.getNonogramList(courseName,
+                    new ServerProviderHelper.EntryHandler() {
+                        @Override
+                        public void entryRead(final String name) {
+
+                            nonogramList.add(name);
+                            nonogramProviderList.add(new NonogramFromServer(
+                                    name, courseName, serverProviderHelper));
+                        }
+                    });
         } catch (ResourceException e) {
             logger.error("Server under given URL not responding.");
         }
-        for (String n : nonogramList) {
-            nonogramProviderList.add(new NonogramFromServer(n, courseName,
-                    serverProviderHelper));
-        }
     }
 
     @Override
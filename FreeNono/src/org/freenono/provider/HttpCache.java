@@ -0,0 +1,459 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.provider;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+
+import org.apache.log4j.Logger;
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.representation.Representation;
+import org.restlet.resource.ClientResource;
+import org.restlet.resource.ResourceException;
+
+/**
+ * Caches responses of a NonoServer on disk, so that course lists and nonograms do not have to be
+ * downloaded again at every start. Every response is stored in its own file which is named after
+ * the URL it was requested from, so entries of different servers do not interfere.
+ * <p>
+ * Cached responses are revalidated with the server by conditional requests using their ETag and
+ * modification date. If the server is not reachable, the cached response is used even if it may be
+ * outdated. The size of the cache is bounded by evicting the least recently used files.
+ *
+ * @author Christian Wichmann
+ */
+public class HttpCache {
+
+    private static Logger logger = Logger.getLogger(HttpCache.class);
+
+    private static final int MAGIC_NUMBER = 0x464e4843;
+    private static final int FORMAT_VERSION = 1;
+    private static final String CACHE_FILE_EXTENSION = ".http";
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path cacheDirectory;
+    private final long maximumSize;
+
+    /**
+     * Response stored in the cache together with the information needed to revalidate it.
+     *
+     * @author Christian Wichmann
+     */
+    static final class Entry {
+
+        private final String url;
+        private final Tag tag;
+        private final Date modificationDate;
+        private final byte[] payload;
+
+        /**
+         * Initializes a cache entry.
+         *
+         * @param url
+         *            URL the response was requested from
+         * @param tag
+         *            ETag of response or <code>null</code> if server sent none
+         * @param modificationDate
+         *            modification date of response or <code>null</code> if server sent none
+         * @param payload
+         *            body of response
+         */
+        Entry(final String url, final Tag tag, final Date modificationDate, final byte[] payload) {
+
+            this.url = url;
+            this.tag = tag;
+            this.modificationDate = modificationDate;
+            this.payload = payload;
+        }
+
+        /**
+         * Gets the URL the response was requested from.
+         *
+         * @return URL of response
+         */
+        String getUrl() {
+
+            return url;
+        }
+
+        /**
+         * Gets the ETag of response.
+         *
+         * @return ETag or <code>null</code> if server sent none
+         */
+        Tag getTag() {
+
+            return tag;
+        }
+
+        /**
+         * Gets the modification date of response.
+         *
+         * @return modification date or <code>null</code> if server sent none
+         */
+        Date getModificationDate() {
+
+            return modificationDate;
+        }
+
+        /**
+         * Gets the body of response.
+         *
+         * @return body of response
+         */
+        byte[] getPayload() {
+
+            return payload;
+        }
+    }
+
+    /**
+     * Initializes a cache that stores its files in the given directory.
+     *
+     * @param cacheDirectory
+     *            directory for cache files
+     * @param maximumSize
+     *            maximum size of all cache files in bytes
+     */
+    public HttpCache(final String cacheDirectory, final long maximumSize) {
+
+        if (cacheDirectory == null) {
+            throw new NullPointerException("Parameter cacheDirectory is null");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Parameter maximumSize must be positive");
+        }
+
+        this.cacheDirectory = Paths.get(cacheDirectory);
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets the body of a resource. If the resource is cached, the server is asked whether it has
+     * changed and the cached body is used if not. When the server can not be reached, a cached body
+     * is returned even if it could be outdated.
+     *
+     * @param reference
+     *            absolute reference to resource
+     * @return body of resource or <code>null</code> if it is neither available from server nor
+     *         cached
+     */
+    public final byte[] get(final Reference reference) {
+
+        final String url = reference.toString();
+        final Entry cached = load(url);
+
+        final ClientResource resource = new ClientResource(reference);
+        // fall back to cache immediately instead of retrying unreachable servers
+        resource.setRetryOnError(false);
+        if (cached != null) {
+            if (cached.getTag() != null) {
+                resource.getConditions().setNoneMatch(Collections.singletonList(cached.getTag()));
+            }
+            if (cached.getModificationDate() != null) {
+                resource.getConditions().setModifiedSince(cached.getModificationDate());
+            }
+        }
+
+        try {
+            final Representation representation = resource.get(MediaType.TEXT_XML);
+
+            if (cached != null && Status.REDIRECTION_NOT_MODIFIED.equals(resource.getStatus())) {
+                logger.debug("Cached response for " + url + " is still valid.");
+                return cached.getPayload();
+            }
+            if (representation == null || !representation.isAvailable()) {
+                return null;
+            }
+
+            final byte[] payload = readFully(representation.getStream());
+            store(new Entry(url, representation.getTag(), representation.getModificationDate(), payload));
+            return payload;
+
+        } catch (final ResourceException e) {
+
+            if (e.getStatus().isClientError()) {
+                // resource does not exist anymore on server
+                remove(url);
+                return null;
+            }
+            return getStale(cached, url);
+
+        } catch (final IOException e) {
+
+            return getStale(cached, url);
+
+        } finally {
+            resource.release();
+        }
+    }
+
+    /**
+     * Returns a cached body after the server could not be asked for a current one.
+     *
+     * @param cached
+     *            cached entry or <code>null</code> if none is cached
+     * @param url
+     *            URL of resource
+     * @return cached body or <code>null</code>
+     */
+    private byte[] getStale(final Entry cached, final String url) {
+
+        if (cached == null) {
+            logger.error("Server under given URL not responding.");
+            return null;
+        }
+
+        logger.info("Server not responding, using cached response for " + url + ".");
+        return cached.getPayload();
+    }
+
+    /**
+     * Loads an entry from cache and marks it as recently used. Corrupt cache files are treated as
+     * if the resource was not cached.
+     *
+     * @param url
+     *            URL of resource
+     * @return cached entry or <code>null</code> if resource is not cached
+     */
+    final Entry load(final String url) {
+
+        final Path cacheFile = getCacheFile(url);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        try {
+            if (Files.size(cacheFile) > maximumSize) {
+                logger.warn("Cache file for " + url + " is larger than the whole cache.");
+                return null;
+            }
+        } catch (final IOException e) {
+            logger.warn("Unable to read cache file for " + url + ".");
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(cacheFile)))) {
+
+            if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(url)) {
+                return null;
+            }
+
+            Tag tag = null;
+            final String tagName = in.readUTF();
+            final boolean weak = in.readBoolean();
+            if (!tagName.isEmpty()) {
+                tag = new Tag(tagName, weak);
+            }
+
+            final long modified = in.readLong();
+            final int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                logger.warn("Cache file for " + url + " has an invalid payload length.");
+                return null;
+            }
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+
+            if (!cacheFile.toFile().setLastModified(System.currentTimeMillis())) {
+                logger.debug("Unable to mark cache file for " + url + " as used.");
+            }
+
+            return new Entry(url, tag, modified < 0 ? null : new Date(modified), payload);
+
+        } catch (final IOException e) {
+            logger.warn("Cache file for " + url + " is corrupt.");
+        }
+        return null;
+    }
+
+    /**
+     * Stores an entry in the cache and evicts least recently used entries if the cache has grown
+     * too large.
+     *
+     * @param entry
+     *            entry to be stored
+     */
+    final void store(final Entry entry) {
+
+        final Path cacheFile = getCacheFile(entry.getUrl());
+        Path tempFile = null;
+
+        try {
+            Files.createDirectories(cacheDirectory);
+            tempFile = Files.createTempFile(cacheDirectory, "response", ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile.toFile())))) {
+
+                out.writeInt(MAGIC_NUMBER);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(entry.getUrl());
+                out.writeUTF(entry.getTag() == null ? "" : entry.getTag().getName());
+                out.writeBoolean(entry.getTag() != null && entry.getTag().isWeak());
+                out.writeLong(entry.getModificationDate() == null ? -1 : entry.getModificationDate().getTime());
+                out.writeInt(entry.getPayload().length);
+                out.write(entry.getPayload());
+            }
+
+            // replace old cache file only after new one was written completely
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (final IOException e) {
+            logger.warn("Unable to store response for " + entry.getUrl() + " in cache.");
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (final IOException e1) {
+                    logger.warn("Unable to delete temporary cache file.");
+                }
+            }
+            return;
+        }
+
+        evict();
+    }
+
+    /**
+     * Removes an entry from the cache.
+     *
+     * @param url
+     *            URL of resource
+     */
+    final void remove(final String url) {
+
+        try {
+            Files.deleteIfExists(getCacheFile(url));
+        } catch (final IOException e) {
+            logger.warn("Unable to delete cache file for " + url + ".");
+        }
+    }
+
+    /**
+     * Deletes least recently used cache files until all files together fit into the maximum size
+     * of the cache.
+     */
+    private void evict() {
+
+        final File[] files = cacheDirectory.toFile().listFiles();
+        if (files == null) {
+            return;
+        }
+
+        long size = 0;
+        for (final File f : files) {
+            size += f.length();
+        }
+        if (size <= maximumSize) {
+            return;
+        }
+
+        // remember modification times, they could change while sorting
+        final long[] lastUsed = new long[files.length];
+        final Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastUsed[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+
+                return Long.compare(lastUsed[o1], lastUsed[o2]);
+            }
+        });
+
+        for (int i = 0; i < order.length && size > maximumSize; i++) {
+            final File f = files[order[i]];
+            if (!f.getName().endsWith(CACHE_FILE_EXTENSION)) {
+                continue;
+            }
+            final long length = f.length();
+            if (f.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    /**
+     * Gets the cache file for a URL. Its name is derived from the whole URL including server
+     * address, path and query.
+     *
+     * @param url
+     *            URL of resource
+     * @return path of cache file
+     */
+    private Path getCacheFile(final String url) {
+
+        try {
+            final MessageDigest md = MessageDigest.getInstance("MD5");
+            final byte[] digest = md.digest(url.getBytes(CHARSET));
+            final StringBuilder sb = new StringBuilder();
+            for (final byte b : digest) {
+                sb.append(String.format("%02x", b & 0xFF));
+            }
+            return cacheDirectory.resolve(sb.toString() + CACHE_FILE_EXTENSION);
+
+        } catch (final NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException("Hash MD5 not available on this system.");
+        }
+    }
+
+    /**
+     * Reads a stream completely and closes it.
+     *
+     * @param is
+     *            stream to read
+     * @return all bytes from stream
+     * @throws IOException
+     *             if stream could not be read
+     */
+    private static byte[] readFully(final InputStream is) throws IOException {
+
+        try (InputStream in = is) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -17,22 +17,23 @@
  *****************************************************************************/
 package org.freenono.provider;
 
+import org.freenono.model.data.Course;
 import org.freenono.model.data.DifficultyLevel;
 import org.freenono.model.data.Nonogram;
+import org.freenono.model.data.NonogramInfo;
 
 /**
- * Provides a nonogram from the file system.
+ * Provides a nonogram from the file system. All information about the nonogram is taken from the
+ * course, so that the pattern of a lazily loaded course is only decoded when
+ * <code>fetchNonogram()</code> is called.
  *
  * @author Christian Wichmann
  */
 public class NonogramFromFilesystem implements NonogramProvider {
 
-    /*
-     * TODO change class so that the nonogram is only loaded from filesystem, if this function is
-     * called!
-     */
-
-    private Nonogram nonogram = null;
+    private Course nonogramCourse = null;
+    private int index = 0;
+    private NonogramInfo info = null;
     private NonogramProvider nextNonogram = null;
     private NonogramProvider previousNonogram = null;
     private CourseFromFilesystem course = null;
@@ -40,54 +41,59 @@ public class NonogramFromFilesystem implements NonogramProvider {
     /**
      * Initializes a provider for a nonogram from filesystem.
      *
-     * @param n
-     *            Nonogram hold by this provider.
+     * @param nonogramCourse
+     *            Course from which the nonogram is fetched.
+     * @param index
+     *            Index of the nonogram in its course.
      * @param c
-     *            Course which contains this nonogram.
+     *            Course provider which contains this nonogram.
      */
-    public NonogramFromFilesystem(final Nonogram n, final CourseFromFilesystem c) {
+    public NonogramFromFilesystem(final Course nonogramCourse, final int index, final CourseFromFilesystem c) {
 
-        nonogram = n;
+        this.nonogramCourse = nonogramCourse;
+        this.index = index;
+        info = nonogramCourse.getNonogramInfo(index);
         course = c;
     }
 
+    /**
+     * {@inheritDoc} The nonogram of a lazily loaded course can not be loaded if its entry in the
+     * course file is corrupt.
+     */
     @Override
     public final Nonogram fetchNonogram() {
 
-        return nonogram;
+        return nonogramCourse.getNonogram(index);
     }
 
     @Override
     public final String getName() {
 
-        // TODO change this function to not read nonogram. Instead use filename
-        // directly to get name of nonogram.
-
-        return fetchNonogram().getName();
+        return info.getName();
     }
 
     @Override
     public final String getDescription() {
 
-        return fetchNonogram().getDescription();
+        return info.getDescription();
     }
 
     @Override
     public final DifficultyLevel getDifficulty() {
 
-        return fetchNonogram().getDifficulty();
+        return info.getDifficulty();
     }
 
     @Override
     public final String getAuthor() {
 
-        return fetchNonogram().getAuthor();
+        return info.getAuthor();
     }
 
     @Override
     public final long getDuration() {
 
-        return fetchNonogram().getDuration();
+        return info.getDuration();
     }
 
     @Override
@@ -100,13 +106,13 @@ public class NonogramFromFilesystem implements NonogramProvider {
     @Override
     public final int width() {
 
-        return fetchNonogram().width();
+        return info.width();
     }
 
     @Override
     public final int height() {
 
-        return fetchNonogram().height();
+        return info.height();
     }
 
     @Override
@@ -17,20 +17,14 @@
  *****************************************************************************/
 package org.freenono.provider;
 
-import java.awt.Graphics;
-import java.awt.image.BufferedImage;
-import java.io.UnsupportedEncodingException;
-import java.math.BigInteger;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.Random;
-
-import org.apache.log4j.Logger;
+import org.freenono.generator.SeedNonogramGenerator;
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
 import org.freenono.model.data.DifficultyLevel;
 import org.freenono.model.data.Nonogram;
 
 /**
- * Provides a random nonogram based on a given seed.
+ * Provides a random nonogram based on a given seed. The nonogram itself is generated by
+ * <code>SeedNonogramGenerator</code>.
  * <p>
  * The public field <code>GENERATE_NEW_NONOGRAM_HASH</code> gives a string by which a special entry
  * can be identified. This nonogram provider allows to create a new nonogram pattern based on a
@@ -40,23 +34,6 @@ import org.freenono.model.data.Nonogram;
  */
 public class NonogramFromSeed implements NonogramProvider {
 
-    private static Logger logger = Logger.getLogger(NonogramFromSeed.class);
-
-    private static final int MIN_HEIGHT = 10;
-    private static final int MAX_HEIGHT = 35;
-    private static final int MIN_WIDTH = 10;
-    private static final int MAX_WIDTH = 35;
-    private int height = MIN_HEIGHT;
-    private int width = MIN_WIDTH;
-
-    /* Constants for creating nonograms consisting of random circles. */
-    private static final double CIRCLE_PER_FIELDS_RATIO = 2.8 / 100;
-    private static final int MAXIMUM_RADIUS = 13;
-    private static final int MINIMUM_RADIUS = 3;
-
-    private Random rng = null;
-    private static int ranNonoCounter = 1;
-
     private Nonogram currentNonogram = null;
     private NonogramProvider nextNonogram = null;
     private NonogramProvider previousNonogram = null;
@@ -64,44 +41,6 @@ public class NonogramFromSeed implements NonogramProvider {
     private String seed = "";
     private RandomTypes randomTypeForCourse = RandomTypes.DEFAULT;
 
-    /**
-     * Types of randomly generated nonograms.
-     *
-     * @author Martin Wichmann
-     */
-    public enum RandomTypes {
-
-        /**
-         * Randomly chosen type of randomly generated nonograms. :-)
-         */
-        RANDOM,
-
-        /**
-         * Random nonograms where exactly one half of the pattern is set.
-         */
-        HALFNHALF,
-
-        /**
-         * Completely random distribution on the pattern.
-         */
-        FULLRANDOM,
-
-        /**
-         * Random paths through the pattern.
-         */
-        RANDOMWAYS,
-
-        /**
-         * Random nonogram patterns consisting of circles.
-         */
-        CIRCLES,
-
-        /**
-         * Default method for generating new nonogram patterns.
-         */
-        DEFAULT
-    }
-
     /**
      * Initializes a new nonogram from a given seed. No parameter of this constructor should be
      * null. If the given seed is an <b>empty</b> string, this <code>NonogramProvider</code>
@@ -201,325 +140,17 @@ public class NonogramFromSeed implements NonogramProvider {
     }
 
     /**
-     * Generates a new <code>Nonogram</code> by calculating a hash from the given text. The width
-     * and height of the new nonogram is calculated by modulo the hashed value and the seed value
-     * for the random number generator results from the first 64 bit of the hash.
+     * Generates a new <code>Nonogram</code> from the seed by the shared seed generator, so that
+     * the same nonogram is generated as by NonoServer for this seed.
      * <p>
      * The newly generated random nonogram is saved in <code>currentNonogram</code>.
      */
     private void generateNonogramBySeed() {
 
-        // get the text input by the user...
-        byte[] bytesOfMessage = null;
-        try {
-            bytesOfMessage = seed.getBytes("UTF-8");
-        } catch (final UnsupportedEncodingException e1) {
-            logger.warn("Seed input by user is not correctly encoded. UTF-8 expected! Using default seed.");
-            // set default seed - I HOPE THIS WORKS!
-            bytesOfMessage = new byte[] {'4', '2'};
-        }
-
-        // ...digest byte array to hash...
-        MessageDigest md = null;
-        final String hashFunction = "MD5";
-        try {
-            md = MessageDigest.getInstance(hashFunction);
-        } catch (final NoSuchAlgorithmException e) {
-            logger.error("Hash function " + hashFunction + " not available on this system.");
-            // FIXME Is this the right exception to throw or should be create our own?
-            throw new UnsupportedOperationException();
-        }
-        final byte[] thedigest = md.digest(bytesOfMessage);
-        final BigInteger bigintdigest = new BigInteger(thedigest);
-
-        // ...generate long from byte array to use...
-        final long seedValue = bigintdigest.longValue();
-        rng = new Random(seedValue);
-
-        // ..in the constructing of a new Nonogram!
-        height = (rng.nextInt() % (MAX_HEIGHT - MIN_HEIGHT)) + MIN_HEIGHT;
-        width = (rng.nextInt() % (MAX_WIDTH - MIN_WIDTH)) + MIN_WIDTH;
-
-        currentNonogram = createRandomNonogram(randomTypeForCourse);
-    }
-
-    /**
-     * Creates a random nonogram.
-     *
-     * @param type
-     *            type of the random nonogram. Type 0 uses a random type
-     * @return generated nonogram or null if no nonogram could be generated
-     */
-    private Nonogram createRandomNonogram(final RandomTypes type) {
-
-        RandomTypes randomType = type;
-
-        if (height < MIN_HEIGHT) {
-            height = MIN_HEIGHT;
-        }
-
-        if (width < MIN_WIDTH) {
-            width = MIN_WIDTH;
-        }
-
-        if (randomType == RandomTypes.RANDOM) {
+        currentNonogram = SeedNonogramGenerator.generate(seed, randomTypeForCourse);
 
-            final int tmp = RandomTypes.values().length;
-
-            do {
-
-                randomType = RandomTypes.values()[rng.nextInt(tmp)];
-
-            } while (randomType == RandomTypes.RANDOM);
-        }
-
-        Nonogram n = null;
-
-        /*
-         * Build and generate a new random nonogram by the given method.
-         */
-        switch (randomType) {
-        case HALFNHALF:
-            n = halfnhalf();
-            break;
-        case FULLRANDOM:
-            n = fullRandomNono();
-            break;
-        case RANDOMWAYS:
-            n = randomWays();
-            break;
-        case CIRCLES:
-            n = randomCircles();
-            break;
-        default:
-            n = fullRandomNono();
-            break;
-        }
-
-        n.setDescription(getDescription());
-        n.setAuthor(System.getProperty("user.name"));
         // TODO Use game-wide player name as author!
-
-        ranNonoCounter++;
-
-        return n;
-    }
-
-    /**
-     * Generates random nonogram with one half marked.
-     *
-     * @return Nonogram, if generated, else null
-     */
-    private Nonogram halfnhalf() {
-
-        final String name = "random " + ranNonoCounter;
-        final DifficultyLevel difficulty = getDifficulty();
-
-        final boolean[][] field = new boolean[height][width];
-
-        final int options = rng.nextInt(4);
-
-        if (width == 1 || height == 1) {
-            for (int i = 0; i < width; i++) {
-                for (int j = 0; j < height; j++) {
-                    field[j][i] = true;
-                }
-            }
-        } else {
-            switch (options) {
-            case 0:
-                for (int i = 0; i < Math.floor((width / 2)); i++) {
-                    for (int j = 0; j < height; j++) {
-                        field[j][i] = true;
-                    }
-                }
-                break;
-            case 1:
-                for (int i = (int) Math.floor((width / 2)); i < width; i++) {
-                    for (int j = 0; j < height; j++) {
-                        field[j][i] = true;
-                    }
-                }
-                break;
-            case 2:
-                for (int i = 0; i < width; i++) {
-                    for (int j = 0; j < (int) Math.floor((height / 2)); j++) {
-                        field[j][i] = true;
-                    }
-                }
-                break;
-            case 3:
-                for (int i = 0; i < width; i++) {
-                    for (int j = (int) Math.floor((height / 2)); j < height; j++) {
-                        field[j][i] = true;
-                    }
-                }
-                break;
-            default:
-                break;
-            }
-
-        }
-
-        Nonogram ret = null;
-        try {
-            ret = new Nonogram(name, difficulty, field);
-
-        } catch (final NullPointerException e) {
-            logger.debug("Could not generate random nonogram (halfnhalf).");
-        }
-
-        return ret;
-    }
-
-    /**
-     * Generates a fully random nonogram.
-     *
-     * @return Randomly generated nonogram.
-     */
-    private Nonogram fullRandomNono() {
-
-        final String name = getName();
-        final DifficultyLevel difficulty = getDifficulty();
-
-        final boolean[][] field = new boolean[height][width];
-
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                field[j][i] = (rng.nextInt(2) == 0) ? true : false;
-            }
-        }
-
-        // One field should at least be true, so the nonogram isn't empty
-        field[rng.nextInt(height)][rng.nextInt(width)] = true;
-
-        Nonogram ret = null;
-        try {
-            ret = new Nonogram(name, difficulty, field);
-
-        } catch (final NullPointerException e) {
-            logger.debug("Could not generate random nonogram (fullRandomNono).");
-        }
-
-        return ret;
-    }
-
-    /**
-     * Generates a nonogram consisting of random circles.
-     *
-     * @return randomly generated nonogram
-     */
-    private Nonogram randomCircles() {
-
-        final String name = getName();
-        final DifficultyLevel difficulty = getDifficulty();
-
-        final boolean[][] field = new boolean[height][width];
-
-        // generate some circles in an Image
-        final BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
-        final Graphics g = canvas.getGraphics();
-        final int numberOfCircles = (int) (width * height * CIRCLE_PER_FIELDS_RATIO);
-        for (int i = 0; i < numberOfCircles; i++) {
-            final int x = rng.nextInt(width);
-            final int y = rng.nextInt(height);
-            final int diameter = rng.nextInt(MAXIMUM_RADIUS + 1 - MINIMUM_RADIUS) + MINIMUM_RADIUS;
-            g.drawOval(x - diameter / 2, y - diameter / 2, diameter, diameter);
-        }
-
-        // copy data from Image to boolean field array
-        for (int i = 0; i < width; i++) {
-            for (int j = 0; j < height; j++) {
-                field[j][i] = (canvas.getRGB(i, j) > -8388608 ? true : false);
-            }
-        }
-
-        Nonogram ret = null;
-        try {
-            ret = new Nonogram(name, difficulty, field);
-
-        } catch (final NullPointerException e) {
-            logger.debug("Could not generate random nonogram (randomCircles).");
-        }
-
-        return ret;
-    }
-
-    /**
-     * Generates a nonogram which is based on random ways through it.
-     *
-     * @return Randomly generated nonogram.
-     */
-    private Nonogram randomWays() {
-
-        final String name = getName();
-        final DifficultyLevel difficulty = getDifficulty();
-
-        final boolean[][] field = new boolean[height][width];
-
-        final int endCounter = (int) Math.ceil((height * width) / 5.);
-        // int endCounter = 5;
-        int counter = 0;
-        int hMark = rng.nextInt(height);
-        int wMark = rng.nextInt(width);
-
-        while (counter <= endCounter) {
-            if (!(field[hMark][wMark])) {
-                field[hMark][wMark] = true;
-                counter++;
-            }
-
-            final int decisionCoin = rng.nextInt(5);
-
-            switch (decisionCoin) {
-            case 0: // left
-                wMark = mod((wMark - 1), width);
-                break;
-            case 1: // right
-                wMark = (wMark + 1) % width;
-                break;
-            case 2: // up
-                hMark = mod((hMark - 1), height);
-                break;
-            case 3: // down
-                hMark = (hMark + 1) % height;
-                break;
-            case 4: // new start
-                hMark = rng.nextInt(height);
-                wMark = rng.nextInt(width);
-                break;
-            default:
-                break;
-            }
-        }
-
-        Nonogram ret = null;
-        try {
-            ret = new Nonogram(name, difficulty, field);
-
-        } catch (final NullPointerException e) {
-            logger.debug("Could not generate random nonogram (randomWays).");
-        }
-
-        return ret;
-    }
-
-    /**
-     * Calculates the modulo function.
-     *
-     * @param x
-     *            Parameter x.
-     * @param y
-     *            Parameter y.
-     * @return Result from modulo operation.
-     */
-    private int mod(final int x, final int y) {
-
-        int result = x % y;
-        if (result < 0) {
-            result += y;
-        }
-        return result;
+        currentNonogram.setAuthor(System.getProperty("user.name"));
     }
 
     @Override
@@ -60,8 +60,10 @@ public interface NonogramProvider {
             } else if (n2 == null) {
                 return 1;
             } else {
-                final int level1 = n1.fetchNonogram().getLevel();
-                final int level2 = n2.fetchNonogram().getLevel();
+                final Nonogram nonogram1 = n1.fetchNonogram();
+                final Nonogram nonogram2 = n2.fetchNonogram();
+                final int level1 = nonogram1 == null ? 0 : nonogram1.getLevel();
+                final int level2 = nonogram2 == null ? 0 : nonogram2.getLevel();
                 return Integer.valueOf(level1).compareTo(Integer.valueOf(level2));
             }
         }
@@ -70,7 +72,8 @@ public interface NonogramProvider {
     /**
      * Fetches nonogram from whatever source it comes from.
      *
-     * @return Nonogram of this provider.
+     * @return Nonogram of this provider or <code>null</code> if it could not be loaded from its
+     *         source.
      */
     Nonogram fetchNonogram();
 
@@ -17,30 +17,46 @@
  *****************************************************************************/
 package org.freenono.provider;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.log4j.Logger;
 import org.freenono.model.data.Nonogram;
 import org.freenono.serializer.data.NonogramFormatException;
 import org.freenono.serializer.data.XMLNonogramSerializer;
-import org.restlet.data.MediaType;
+import org.freenono.ui.common.Tools;
 import org.restlet.data.Reference;
-import org.restlet.resource.ClientResource;
-import org.restlet.resource.ResourceException;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * Helper class for getting nonograms from a NonoServer.
+ * <p>
+ * When the first nonogram of a course is requested, all nonograms of this
+ * course are loaded with a single request and later calls of
+ * {@link #getNonogram(String, String)} are answered from this batch. Courses
+ * can also be prefetched in the background by calling
+ * {@link #prefetchCourse(String)}. Only the batches of the most recently used
+ * courses are kept. If a server does not support batch requests, every
+ * nonogram is loaded by its own request as before.
+ * <p>
+ * All responses are stored in an on-disk {@link HttpCache}, so that unchanged
+ * resources are not downloaded again and cached resources are available
+ * while the server is not reachable.
  *
  * @author Christian Wichmann
  */
@@ -48,8 +64,51 @@ public class ServerProviderHelper {
 
     private static Logger logger = Logger.getLogger(ServerProviderHelper.class);
 
+    /**
+     * Gives path to cache responses of NonoServers.
+     */
+    public static final String DEFAULT_HTTP_CACHE_PATH = System.getProperty("user.home") + Tools.FILE_SEPARATOR + ".FreeNono"
+            + Tools.FILE_SEPARATOR + "cache" + Tools.FILE_SEPARATOR + "server";
+
+    private static final long DEFAULT_HTTP_CACHE_SIZE = 16 * 1024 * 1024;
+
+    private static final int PREFETCH_THREADS = 2;
+
+    private static final int MAX_PREFETCHED_COURSES = 8;
+
+    /**
+     * Parser factories are not thread-safe, so every thread gets its own one.
+     */
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            return XMLInputFactory.newInstance();
+        }
+    };
+
+    private static ExecutorService prefetchExecutor = Executors.newFixedThreadPool(PREFETCH_THREADS,
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+
+                    final Thread t = new Thread(r, "NonoServer prefetch");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
     private String nonoServer = null;
-    private ClientResource resource = null;
+    private final HttpCache httpCache;
+
+    private final Map<String, Future<Map<String, Nonogram>>> prefetchedCourses =
+            new LinkedHashMap<String, Future<Map<String, Nonogram>>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 2841936473264516587L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Future<Map<String, Nonogram>>> eldest) {
+                    return size() > MAX_PREFETCHED_COURSES;
+                }
+            };
 
     /**
      * Initializes a helper instance.
@@ -59,7 +118,21 @@ public class ServerProviderHelper {
      */
     public ServerProviderHelper(final String nonoServer) {
 
+        this(nonoServer, new HttpCache(DEFAULT_HTTP_CACHE_PATH, DEFAULT_HTTP_CACHE_SIZE));
+    }
+
+    /**
+     * Initializes a helper instance that caches responses in the given cache.
+     *
+     * @param nonoServer
+     *            String object locating the NonoServer
+     * @param httpCache
+     *            cache for responses of server
+     */
+    public ServerProviderHelper(final String nonoServer, final HttpCache httpCache) {
+
         this.nonoServer = nonoServer;
+        this.httpCache = httpCache;
 
         connectServer();
     }
@@ -72,6 +145,24 @@ public class ServerProviderHelper {
         // TODO Save root reference for nonogram server: rootReference = new Reference(nonoServer);
     }
 
+    /**
+     * Handles names of entries, e.g. courses or nonograms, while they are read
+     * from the response of a NonoServer.
+     *
+     * @author Christian Wichmann
+     */
+    public interface EntryHandler {
+
+        /**
+         * Invoked for every entry in the order in which they are read from
+         * the response.
+         *
+         * @param name
+         *            name of entry
+         */
+        void entryRead(String name);
+    }
+
     /**
      * Returns a list of all course names.
      *
@@ -81,53 +172,30 @@ public class ServerProviderHelper {
 
         final List<String> result = new ArrayList<String>();
 
-        resource = new ClientResource(nonoServer);
-
-        InputStream is = null;
-        try {
-            is = resource.getChild("courseList").get(MediaType.TEXT_XML).getStream();
-        } catch (final ResourceException e1) {
-            logger.error("Server under given URL not responding.");
-
-        } catch (final IOException e1) {
-            logger.error("Server under given URL not responding.");
-        }
-
-        DocumentBuilder parser = null;
-        try {
-            parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-
-        } catch (final ParserConfigurationException e) {
-            logger.error("An error occurred when parsing the response of the server.");
-        }
-        Document doc = null;
-        try {
-            doc = parser.parse(is);
-
-        } catch (final SAXException e) {
-            logger.error("An error occurred when parsing the response of the server.");
+        getCourseList(new EntryHandler() {
+            @Override
+            public void entryRead(final String name) {
 
-        } catch (final IOException e) {
-            logger.error("Server under given URL not responding.");
-        }
-
-        // TODO validate this xml format
-
-        if (doc != null) {
+                result.add(name);
+            }
+        });
 
-            final Element root = doc.getDocumentElement();
+        return result;
+    }
 
-            if (root != null) {
-                final NodeList courseList = root.getElementsByTagName("Course");
+    /**
+     * Reads names of all courses on a NonoServer and passes every name to the
+     * given handler as soon as it is read.
+     *
+     * @param handler
+     *            handler for course names
+     */
+    public final void getCourseList(final EntryHandler handler) {
 
-                for (int i = 0; i < courseList.getLength(); i++) {
-                    final Element course = (Element) courseList.item(i);
-                    result.add(course.getAttribute("name"));
-                }
-            }
+        final byte[] response = httpCache.get(resolve(new Reference("courseList")));
+        if (response != null) {
+            readEntries(response, null, "Course", handler);
         }
-
-        return result;
     }
 
     /**
@@ -141,65 +209,97 @@ public class ServerProviderHelper {
 
         final List<String> result = new ArrayList<String>();
 
-        // building relative reference to course
-        final Reference nonogramReference = new Reference(Reference.encode(course));
-
-        resource = new ClientResource(nonoServer);
+        getNonogramList(course, new EntryHandler() {
+            @Override
+            public void entryRead(final String name) {
 
-        InputStream is = null;
-        try {
-            is = resource.getChild(nonogramReference).get(MediaType.TEXT_XML).getStream();
-        } catch (final ResourceException e1) {
+                result.add(name);
+            }
+        });
 
-            logger.error("Server under given URL not responding.");
+        return result;
+    }
 
-        } catch (final IOException e1) {
+    /**
+     * Reads names of all nonograms in a course on a NonoServer and passes
+     * every name to the given handler as soon as it is read.
+     *
+     * @param course
+     *            course from which all nonograms should be read
+     * @param handler
+     *            handler for nonogram names
+     */
+    public final void getNonogramList(final String course, final EntryHandler handler) {
 
-            logger.error("Server under given URL not responding.");
-        }
+        // building relative reference to course
+        final Reference nonogramReference = new Reference(Reference.encode(course));
 
-        DocumentBuilder parser = null;
-        try {
-            parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        } catch (final ParserConfigurationException e) {
-            logger.error("An error occurred when parsing the response of the server.");
+        final byte[] response = httpCache.get(resolve(nonogramReference));
+        if (response != null) {
+            readEntries(response, "Nonograms", "Nonogram", handler);
         }
-        Document doc = null;
-        try {
-            doc = parser.parse(is);
-
-        } catch (final SAXException e) {
-
-            logger.error("An error occurred when parsing the response of the server.");
-
-        } catch (final IOException e) {
+    }
 
-            logger.error("Server under given URL not responding.");
-        }
+    /**
+     * Reads the name attribute of all elements with a given name from a
+     * response with a streaming parser.
+     *
+     * @param response
+     *            response of server
+     * @param parentElement
+     *            name of element that has to enclose the entries or
+     *            <code>null</code> if entries can be anywhere in response
+     * @param entryElement
+     *            name of elements that describe entries
+     * @param handler
+     *            handler for names of entries
+     */
+    private void readEntries(final byte[] response, final String parentElement, final String entryElement,
+            final EntryHandler handler) {
 
         // TODO validate this xml format
 
-        if (doc != null) {
-
-            final Element root = doc.getDocumentElement();
-            final Element nonograms = (Element) root.getElementsByTagName("Nonograms").item(0);
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.get().createXMLStreamReader(new ByteArrayInputStream(response));
+
+            int depth = parentElement == null ? 1 : 0;
+            while (reader.hasNext()) {
+                final int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    final String elementName = reader.getLocalName();
+                    if (elementName.equals(parentElement)) {
+                        depth++;
+                    } else if (depth > 0 && elementName.equals(entryElement)) {
+                        handler.entryRead(reader.getAttributeValue(null, "name"));
+                    }
+
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals(parentElement)) {
+                    depth--;
+                }
+            }
 
-            if (nonograms != null) {
+        } catch (final XMLStreamException e) {
 
-                final NodeList nonogramList = nonograms.getElementsByTagName("Nonogram");
+            logger.error("An error occurred when parsing the response of the server.");
 
-                for (int i = 0; i < nonogramList.getLength(); i++) {
-                    final Element nonogram = (Element) nonogramList.item(i);
-                    result.add(nonogram.getAttribute("name"));
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final XMLStreamException e) {
+                    logger.warn("Could not close parser for response of the server.");
                 }
             }
         }
-
-        return result;
     }
 
     /**
-     * Gets a nonogram from a course on a NonoServer.
+     * Gets a nonogram from a course on a NonoServer. The nonogram is taken from
+     * the batch of all nonograms of the course, which is loaded when the course
+     * is accessed for the first time. If it is not part of this batch, it is
+     * requested from the server on its own.
      *
      * @param course
      *            course from which to get nonogram
@@ -209,32 +309,103 @@ public class ServerProviderHelper {
      */
     public final Nonogram getNonogram(final String course, final String nonogram) {
 
-        Nonogram[] result = null;
+        final Future<Map<String, Nonogram>> prefetched = prefetchCourse(course);
+
+        try {
+            final Nonogram result = prefetched.get().get(nonogram);
+            if (result != null) {
+                return result;
+            }
+
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } catch (final ExecutionException e) {
+            logger.error("Could not prefetch nonograms of course " + course + ".");
+        }
 
         // building relative reference to nonogram
         final Reference nonogramReference = new Reference(Reference.encode(course)).addSegment(nonogram);
 
-        resource = new ClientResource(nonoServer);
+        final Map<String, Nonogram> result = loadNonograms(course, nonogramReference);
 
-        InputStream is = null;
-        try {
-            is = resource.getChild(nonogramReference).get(MediaType.TEXT_XML).getStream();
-        } catch (final ResourceException e1) {
+        return result.isEmpty() ? null : result.values().iterator().next();
+    }
 
-            logger.error("Server under given URL not responding.");
+    /**
+     * Gets nonograms from a course on a NonoServer with a single request. If
+     * no names are given, all nonograms of the course are returned.
+     *
+     * @param course
+     *            course from which to get nonograms
+     * @param nonograms
+     *            names of nonograms that should be get from server
+     * @return map of nonograms by their names, empty map if server does not
+     *         support batch requests or is not responding
+     */
+    public final Map<String, Nonogram> getNonograms(final String course, final String... nonograms) {
 
-        } catch (final IOException e1) {
+        // building relative reference to all nonograms of course
+        final Reference nonogramsReference = new Reference(Reference.encode(course));
+        nonogramsReference.addQueryParameter("nonograms", null);
+        for (final String nonogram : nonograms) {
+            nonogramsReference.addQueryParameter("name", nonogram);
+        }
 
-            logger.error("Server under given URL not responding.");
+        return loadNonograms(course, nonogramsReference);
+    }
+
+    /**
+     * Starts loading all nonograms of a course in the background, if they are
+     * not already loaded or being loaded. Later calls of
+     * {@link #getNonogram(String, String)} wait for this batch instead of
+     * requesting every nonogram on its own.
+     *
+     * @param course
+     *            course that should be prefetched
+     * @return batch of all nonograms of the course
+     */
+    public final Future<Map<String, Nonogram>> prefetchCourse(final String course) {
+
+        synchronized (prefetchedCourses) {
+            Future<Map<String, Nonogram>> future = prefetchedCourses.get(course);
+            if (future == null) {
+                future = prefetchExecutor.submit(new Callable<Map<String, Nonogram>>() {
+                    @Override
+                    public Map<String, Nonogram> call() {
+
+                        return getNonograms(course);
+                    }
+                });
+                prefetchedCourses.put(course, future);
+            }
+            return future;
         }
+    }
 
-        final XMLNonogramSerializer ns = new XMLNonogramSerializer();
-        try {
-            result = ns.load(is);
+    /**
+     * Requests nonograms from server and sets their origin path.
+     *
+     * @param course
+     *            course from which nonograms are requested
+     * @param reference
+     *            reference relative to server address
+     * @return map of nonograms by their names, empty if no nonograms could be
+     *         loaded
+     */
+    private Map<String, Nonogram> loadNonograms(final String course, final Reference reference) {
 
-        } catch (final NullPointerException e) {
+        final Map<String, Nonogram> result = new ConcurrentHashMap<String, Nonogram>();
+
+        final byte[] response = httpCache.get(resolve(reference));
+        if (response == null) {
+            return result;
+        }
 
-            logger.error("Null pointer encountered during nonogram serializing.");
+        Nonogram[] nonograms = null;
+        final XMLNonogramSerializer ns = new XMLNonogramSerializer();
+        try {
+            nonograms = ns.load(new ByteArrayInputStream(response));
 
         } catch (final NonogramFormatException e) {
 
@@ -242,15 +413,34 @@ public class ServerProviderHelper {
 
         } catch (final IOException e) {
 
-            logger.error("Server under given URL not responding.");
+            logger.error("Could not read nonograms from response of the server.");
         }
 
-        if (result[0] != null) {
+        if (nonograms == null) {
+            return result;
+        }
 
-            result[0].setOriginPath(resource.getReference().addSegment(course).addSegment(nonogram).toUrl());
+        for (final Nonogram n : nonograms) {
+            if (n != null) {
+                n.setOriginPath(new Reference(nonoServer).addSegment(course).addSegment(n.getName()).toUrl());
+                result.put(n.getName(), n);
+            }
         }
 
-        return result[0];
+        return result;
+    }
+
+    /**
+     * Resolves a reference relative to the address of NonoServer.
+     *
+     * @param relativeReference
+     *            reference relative to server address
+     * @return absolute reference
+     */
+    private Reference resolve(final Reference relativeReference) {
+
+        final String base = nonoServer.endsWith("/") ? nonoServer : nonoServer + "/";
+        return new Reference(new Reference(base), relativeReference).getTargetRef();
     }
 
     /**
@@ -272,6 +462,9 @@ public class ServerProviderHelper {
     public final void setNonoServer(final String nonoServer) {
 
         this.nonoServer = nonoServer;
+        synchronized (prefetchedCourses) {
+            prefetchedCourses.clear();
+        }
     }
 
 }
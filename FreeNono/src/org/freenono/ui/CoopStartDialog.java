@@ -41,6 +41,7 @@ import javax.swing.ListSelectionModel;
 
 import org.apache.log4j.Logger;
 import org.freenono.controller.Settings;
+import org.freenono.model.data.Nonogram;
 import org.freenono.net.CoopGame;
 import org.freenono.net.CoopGame.CoopGameType;
 import org.freenono.net.CoopHandler;
@@ -365,7 +366,12 @@ public class CoopStartDialog extends FreeNonoDialog {
                 cp = new CoopGame(CoopGameType.JOINING, tmp.getCoopGameId(), tmp.getPattern());
 
             } else if (chooseNewGame.isSelected()) {
-                cp = new CoopGame(CoopGameType.INITIATING, chosenNonogram.fetchNonogram());
+                final Nonogram pattern = chosenNonogram.fetchNonogram();
+                if (pattern != null) {
+                    cp = new CoopGame(CoopGameType.INITIATING, pattern);
+                } else {
+                    logger.error("Chosen nonogram " + chosenNonogram + " could not be loaded.");
+                }
 
             } else {
                 assert false : "Either new coop game is initiated or a game is joined.";
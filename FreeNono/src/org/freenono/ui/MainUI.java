@@ -1755,6 +1755,18 @@ public class MainUI extends JFrame {
 			stopButton.setEnabled(false);
 			restartButton.setEnabled(false);
 
+		} else if (newlyChosenNonogram != null && newlyChosenNonogram.fetchNonogram() == null) {
+
+			/*
+			 * If the chosen nonogram could not be loaded, e.g. because its
+			 * course file is corrupt, continue the last game.
+			 */
+
+			logger.error("Chosen nonogram " + newlyChosenNonogram + " could not be loaded.");
+			if (resumeAfter && lastChosenNonogram != null) {
+				performPause();
+			}
+
 		} else if (newlyChosenNonogram != null) {
 
 			/*
@@ -2262,6 +2274,11 @@ public class MainUI extends JFrame {
 	 */
 	private void performStartFromDialog(final NonogramProvider nextNonogramToPlay) {
 
+		if (nextNonogramToPlay.fetchNonogram() == null) {
+			logger.error("Next nonogram " + nextNonogramToPlay + " could not be loaded.");
+			return;
+		}
+
 		pauseButton.setEnabled(true);
 		stopButton.setEnabled(true);
 		restartButton.setEnabled(true);
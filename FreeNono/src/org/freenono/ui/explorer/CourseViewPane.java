@@ -23,6 +23,7 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -36,11 +37,11 @@ import javax.swing.JViewport;
 import javax.swing.SwingUtilities;
 
 import org.apache.log4j.Logger;
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
 import org.freenono.provider.CollectionTools;
 import org.freenono.provider.CourseFromSeed;
 import org.freenono.provider.CourseProvider;
 import org.freenono.provider.NonogramFromSeed;
-import org.freenono.provider.NonogramFromSeed.RandomTypes;
 import org.freenono.provider.NonogramProvider;
 import org.freenono.ui.MainUI;
 import org.freenono.ui.Messages;
@@ -244,10 +245,6 @@ public class CourseViewPane extends JPanel {
         scrollPane.setViewportView(buildButtonPane());
         scrollPane.setOpaque(false);
 
-        /*
-         * TODO Make viewport (button pane) a scroll-savy component and dynamically change the
-         * scroll pane's client's size (use getPreferredScrollableViewportSize?)
-         */
         scrollPane.getViewport().setOpaque(false);
         scrollPane.getVerticalScrollBar().setUnitIncrement(32);
         scrollPane.getViewport().setScrollMode(JViewport.BLIT_SCROLL_MODE);
@@ -257,7 +254,8 @@ public class CourseViewPane extends JPanel {
     }
 
     /**
-     * Builds the button panel with NonogramButtons for all nonograms in the course.
+     * Builds the button panel with NonogramButtons for all nonograms in the course. Buttons are
+     * only created for the visible part of the course by the NonogramButtonGrid.
      *
      * @return Panel with all NonogramButtons.
      */
@@ -265,99 +263,65 @@ public class CourseViewPane extends JPanel {
 
         logger.debug("Build course view for course " + courseProvider.getCourseName() + ".");
 
-        int buttonCount = 0;
-
-        buttonPane = new JPanel();
-        buttonPane.setOpaque(false);
-
-        buttonPane.setLayout(new GridBagLayout());
-        final GridBagConstraints c = new GridBagConstraints();
-        c.anchor = GridBagConstraints.NORTHWEST;
-        c.fill = GridBagConstraints.BOTH;
-        c.gridheight = 1;
-        c.gridwidth = 1;
-        c.weightx = 0;
-        c.weighty = 0;
+        final List<NonogramProvider> nonograms = new ArrayList<NonogramProvider>();
+        NonogramProvider newNonogram = null;
 
         final List<String> nonogramList = courseProvider.getNonogramList();
 
         if (nonogramList != null) {
-            for (final NonogramProvider np : courseProvider.getNonogramProvider()) {
-                // create new nonogram button and define what should happen when
-                // its clicked...
-                final NonogramButton nb = new NonogramButton(np);
-                nb.addActionListener(new ActionListener() {
-                    @Override
-                    public void actionPerformed(final ActionEvent e) {
-                        final NonogramButton nb = ((NonogramButton) e.getSource());
-                        if (e.getSource() instanceof NonogramButton) {
-                            chosenNonogram = nb.getNonogramProvider();
-
-                            // call main user interface to switch from nonogram
-                            // explorer to game board
-                            SwingUtilities.invokeLater(new Runnable() {
-                                @Override
-                                public void run() {
-                                    ((MainUI) getTopLevelAncestor()).finishStart();
-                                }
-                            });
-                        }
-                    }
-                });
-
-                // ...and add it to the grid
-                c.gridx = buttonCount % buttonColumns;
-                c.gridy = buttonCount / buttonColumns;
-                buttonPane.add(nb, c);
-                buttonCount++;
-            }
+            nonograms.addAll(courseProvider.getNonogramProvider());
 
             if (courseProvider instanceof CourseFromSeed) {
                 /*
-                 * For all courses of random nonograms, ask user for seed and generate necessary
-                 * random nonogram pattern.
+                 * For all courses of random nonograms, add a button to ask user for seed and
+                 * generate necessary random nonogram pattern.
                  */
+                newNonogram = new NonogramFromSeed("", RandomTypes.RANDOM, (CourseFromSeed) courseProvider);
+                nonograms.add(newNonogram);
+            }
+        }
 
-                // create nonogram button for generating new random nonograms...
-                final CourseFromSeed cfs = (CourseFromSeed) courseProvider;
-                final NonogramButton nb = new NonogramButton(new NonogramFromSeed("", RandomTypes.RANDOM, cfs));
-                nb.addActionListener(new ActionListener() {
-                    @Override
-                    public void actionPerformed(final ActionEvent e) {
-                        final AskUserForSeed aufs =
-                                new AskUserForSeed(Messages.getString("NonogramChooserUI.SeedLabel"), "", colorModel.getBottomColor(),
-                                        colorModel.getTopColor());
-
-                        // generate nonogram from seed and set it as
-                        // chosenNonogram if OK button was clicked
-                        if (aufs.okButtonWasClicked()) {
-                            final String seed = aufs.getUserInput();
-                            if (seed != null && !seed.isEmpty()) {
-                                chosenNonogram = cfs.generateSeededNonogram(seed);
-                            }
+        // define what should happen when a nonogram button is clicked...
+        final NonogramProvider newNonogramButton = newNonogram;
+        final ActionListener buttonListener = new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+
+                if (!(e.getSource() instanceof NonogramButton)) {
+                    return;
+                }
+                final NonogramProvider np = ((NonogramButton) e.getSource()).getNonogramProvider();
+
+                if (np == newNonogramButton) {
+                    final AskUserForSeed aufs =
+                            new AskUserForSeed(Messages.getString("NonogramChooserUI.SeedLabel"), "", colorModel.getBottomColor(),
+                                    colorModel.getTopColor());
+
+                    // generate nonogram from seed and set it as
+                    // chosenNonogram if OK button was clicked
+                    if (aufs.okButtonWasClicked()) {
+                        final String seed = aufs.getUserInput();
+                        if (seed != null && !seed.isEmpty()) {
+                            chosenNonogram = ((CourseFromSeed) courseProvider).generateSeededNonogram(seed);
                         }
+                    }
+                } else {
+                    chosenNonogram = np;
+                }
 
-                        // call main user interface to switch from nonogram
-                        // explorer to game board
-                        // TODO Check if inbokeLater() is necessary.
-                        SwingUtilities.invokeLater(new Runnable() {
-                            @Override
-                            public void run() {
-                                ((MainUI) getTopLevelAncestor()).finishStart();
-                            }
-                        });
+                // call main user interface to switch from nonogram
+                // explorer to game board
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        ((MainUI) getTopLevelAncestor()).finishStart();
                     }
                 });
-
-                // ...and add it to the grid
-                c.gridx = buttonCount % buttonColumns;
-                c.gridy = buttonCount / buttonColumns;
-                buttonPane.add(nb, c);
-                buttonCount++;
             }
-        }
+        };
 
-        buttonPane.validate();
+        buttonPane = new NonogramButtonGrid(nonograms, buttonColumns, buttonListener);
+        buttonPane.setOpaque(false);
 
         return buttonPane;
     }
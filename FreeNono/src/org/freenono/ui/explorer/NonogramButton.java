@@ -18,23 +18,28 @@
 package org.freenono.ui.explorer;
 
 import java.awt.Dimension;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.concurrent.Future;
 
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
 
-import org.freenono.controller.Manager;
 import org.freenono.controller.SimpleStatistics;
 import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
 import org.freenono.model.game_modes.GameTime;
 import org.freenono.provider.NonogramFromSeed;
 import org.freenono.provider.NonogramProvider;
 import org.freenono.ui.Messages;
 
 /**
- * Shows a button with a preview of the nonogram if user has finished it already.
+ * Shows a button with a preview of the nonogram if user has finished it already. The preview is
+ * loaded in background by the {@link ThumbnailLoader}, until then a placeholder is shown. Color and
+ * tooltip are set when the nonogram has been fetched in background as well, because fetching it
+ * may block, e.g. for nonograms from a server.
+ * <p>
+ * A button can be bound to another nonogram later, so that buttons can be reused when scrolling
+ * through large courses. Loading the thumbnail of the previously bound nonogram is cancelled
+ * if it has not started yet.
  *
  * @author Christian Wichmann
  */
@@ -42,7 +47,17 @@ public class NonogramButton extends JButton {
 
     private static final long serialVersionUID = 6516455428864083473L;
 
-    private final NonogramProvider nonogram;
+    /**
+     * Width and height of all nonogram buttons.
+     */
+    static final int BUTTON_SIZE = 90;
+
+    private static final ImageIcon EMPTY_ICON = new ImageIcon(NonogramButton.class.getResource("/resources/icon/courseViewEmpty.png"));
+    private static final ImageIcon NEW_NONOGRAM_ICON = new ImageIcon(
+            NonogramButton.class.getResource("/resources/icon/courseViewNewNonogram.png"));
+
+    private NonogramProvider nonogram;
+    private Future<?> thumbnailTask = null;
 
     /**
      * Initializes a new button to represent a nonogram.
@@ -52,40 +67,62 @@ public class NonogramButton extends JButton {
      */
     public NonogramButton(final NonogramProvider n) {
 
-        if (n == null) {
-            throw new NullPointerException("Nonogram provider should not be null.");
-        }
-
-        this.nonogram = n;
-
         initialize();
+
+        setNonogramProvider(n);
     }
 
     /**
-     * Set size and background color for this button.
+     * Set size of this button.
      */
     private void initialize() {
 
-        final int size = 90;
-
-        setPreferredSize(new Dimension(size, size));
+        setPreferredSize(new Dimension(BUTTON_SIZE, BUTTON_SIZE));
         setFocusable(true);
         setBorderPainted(false);
+    }
+
+    /**
+     * Binds this button to a nonogram. Until the nonogram has been fetched in background, the
+     * button shows a placeholder icon and color.
+     *
+     * @param n
+     *            NonogramProvider providing the nonogram for this button.
+     */
+    public final void setNonogramProvider(final NonogramProvider n) {
+
+        if (n == null) {
+            throw new NullPointerException("Nonogram provider should not be null.");
+        }
+
+        // thumbnail of previously bound nonogram is no longer needed
+        if (thumbnailTask != null) {
+            thumbnailTask.cancel(false);
+            thumbnailTask = null;
+        }
 
-        setButtonColor();
+        this.nonogram = n;
 
-        final boolean nonogramSolved = setThumbnailIcon();
+        setButtonColor(DifficultyLevel.UNDEFINED);
 
-        setTooltipInformation(nonogramSolved);
+        if (isNewNonogramButton()) {
+            setIcon(NEW_NONOGRAM_ICON);
+            setToolTipText("<html>" + Messages.getString("NonogramChooserUI.GenerateNewRandomNonogram") + "</html>");
+        } else {
+            setIcon(EMPTY_ICON);
+            setToolTipText(null);
+            loadThumbnailIcon();
+        }
     }
 
     /**
      * Sets button color according to difficulty of nonogram. Colors are declared by
      * <code>NonogramButton</code> as static fields.
+     *
+     * @param difficultyOfNonogram
+     *            difficulty of nonogram
      */
-    private void setButtonColor() {
-
-        final DifficultyLevel difficultyOfNonogram = nonogram.getDifficulty();
+    private void setButtonColor(final DifficultyLevel difficultyOfNonogram) {
 
         if (difficultyOfNonogram == DifficultyLevel.EASIEST) {
             setBackground(NonogramExplorer.EASIEST_COLOR);
@@ -108,63 +145,79 @@ public class NonogramButton extends JButton {
     }
 
     /**
-     * Sets thumbnail for this button from file. Thumbnail is only be set, if nonogram was
-     * previously ever solved and an image file exists.
+     * Checks whether this button generates a new random nonogram instead of representing an
+     * existing one.
      *
-     * @return true, if thumbnail exists, nonogram was previously solved
+     * @return true, if button generates a new random nonogram
      */
-    private boolean setThumbnailIcon() {
+    private boolean isNewNonogramButton() {
 
-        boolean nonogramSolved = false;
+        return nonogram instanceof NonogramFromSeed && "".equals(nonogram.getName());
+    }
 
-        final Path thumb = Paths.get(Manager.DEFAULT_THUMBNAILS_PATH, nonogram.fetchNonogram().getHash());
+    /**
+     * Loads thumbnail for this button from file in background. Thumbnail is only set, if nonogram
+     * was previously ever solved and an image file exists. Afterwards color and tooltip are set
+     * from the nonogram that was fetched in background.
+     */
+    private void loadThumbnailIcon() {
 
-        if (Files.exists(thumb)) {
-            setIcon(new ImageIcon(thumb.toString()));
-            nonogramSolved = true;
+        final NonogramProvider boundNonogram = nonogram;
 
-        } else if (nonogram instanceof NonogramFromSeed && "".equals(nonogram.getName())) {
-            setIcon(new ImageIcon(getClass().getResource("/resources/icon/courseViewNewNonogram.png")));
+        thumbnailTask = ThumbnailLoader.getInstance().loadThumbnail(boundNonogram, new ThumbnailLoader.ThumbnailListener() {
 
-        } else {
-            setIcon(new ImageIcon(getClass().getResource("/resources/icon/courseViewEmpty.png")));
-        }
+            @Override
+            public void thumbnailLoaded(final Nonogram fetchedNonogram, final ImageIcon thumbnail) {
 
-        return nonogramSolved;
+                // ignore thumbnail if button was bound to another nonogram meanwhile
+                if (boundNonogram != nonogram) {
+                    return;
+                }
+                if (thumbnail != null) {
+                    setIcon(thumbnail);
+                }
+                setButtonColor(fetchedNonogram.getDifficulty());
+                setTooltipInformation(fetchedNonogram, thumbnail != null);
+            }
+        });
     }
 
     /**
      * Sets tooltip information for this button. Nonogram name is only shown when it was previously
      * solved.
      *
+     * @param fetchedNonogram
+     *            nonogram of this button that has already been fetched
      * @param nonogramSolved
      *            If nonogram was previously solved
      */
-    private void setTooltipInformation(final boolean nonogramSolved) {
+    private void setTooltipInformation(final Nonogram fetchedNonogram, final boolean nonogramSolved) {
 
         final StringBuilder sb = new StringBuilder("<html>");
 
-        if (nonogram instanceof NonogramFromSeed && "".equals(nonogram.getName())) {
-            sb.append(Messages.getString("NonogramChooserUI.GenerateNewRandomNonogram"));
+        if (nonogramSolved) {
+            sb.append(Messages.getString("NonogramButton.Name"));
+            sb.append(fetchedNonogram.getName());
+            sb.append("<br>");
+        }
+
+        final String[] tooltipText =
+                {Messages.getString("NonogramButton.Author"), fetchedNonogram.getAuthor(), "<br>",
+                        Messages.getString("NonogramButton.Duration"), new GameTime(fetchedNonogram.getDuration()).toString()};
 
-        } else {
-            if (nonogramSolved) {
-                sb.append(Messages.getString("NonogramButton.Name"));
-                sb.append(nonogram.getName());
-                sb.append("<br>");
-            }
+        for (final String string : tooltipText) {
+            sb.append(string);
+        }
 
-            // get statistical values that have been stored
-            final String played = (String) SimpleStatistics.getInstance().getValue("played_" + nonogram.fetchNonogram().getHash());
-            final String won = (String) SimpleStatistics.getInstance().getValue("won_" + nonogram.fetchNonogram().getHash());
-            final String[] tooltipText =
-                    {Messages.getString("NonogramButton.Author"), nonogram.getAuthor(), "<br>",
-                            Messages.getString("NonogramButton.Duration"), new GameTime(nonogram.getDuration()).toString(), "<br>",
-                            Messages.getString("NonogramButton.Played"), played, "<br>", Messages.getString("NonogramButton.Solved"), won};
+        // get statistical values that have been stored
+        final String hash = fetchedNonogram.getHash();
+        final String played = (String) SimpleStatistics.getInstance().getValue("played_" + hash);
+        final String won = (String) SimpleStatistics.getInstance().getValue("won_" + hash);
+        final String[] statisticsText =
+                {"<br>", Messages.getString("NonogramButton.Played"), played, "<br>", Messages.getString("NonogramButton.Solved"), won};
 
-            for (final String string : tooltipText) {
-                sb.append(string);
-            }
+        for (final String string : statisticsText) {
+            sb.append(string);
         }
 
         sb.append("</html>");
@@ -0,0 +1,251 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.ui.explorer;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.event.ActionListener;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+import org.freenono.provider.NonogramProvider;
+
+/**
+ * Shows a grid of NonogramButtons for a list of nonograms. Buttons are only created for the rows
+ * that are visible in the enclosing viewport and some rows above and below. When scrolling, buttons
+ * of rows that are no longer visible are bound to the nonograms of the newly visible rows, so that
+ * the number of buttons depends on the size of the viewport and not on the size of the course.
+ *
+ * @author Christian Wichmann
+ */
+final class NonogramButtonGrid extends JPanel implements Scrollable {
+
+    private static final long serialVersionUID = -1797001390914580520L;
+
+    private static final int OVERSCAN_ROWS = 1;
+
+    private final List<NonogramProvider> nonograms;
+    private final int columns;
+    private final int rows;
+    private final Dimension cellSize;
+    private final ActionListener buttonListener;
+
+    private final Map<Integer, NonogramButton> boundButtons = new HashMap<Integer, NonogramButton>();
+    private final Deque<NonogramButton> unusedButtons = new ArrayDeque<NonogramButton>();
+
+    private final ChangeListener viewportListener = new ChangeListener() {
+        @Override
+        public void stateChanged(final ChangeEvent e) {
+            updateButtons();
+        }
+    };
+
+    /**
+     * Initializes a new grid for the given nonograms.
+     *
+     * @param nonograms
+     *            nonograms that should be shown in the grid
+     * @param columns
+     *            number of columns of the grid
+     * @param buttonListener
+     *            action listener that is added to all buttons
+     */
+    NonogramButtonGrid(final List<NonogramProvider> nonograms, final int columns, final ActionListener buttonListener) {
+
+        super(null);
+
+        this.nonograms = nonograms;
+        this.columns = Math.max(1, columns);
+        this.rows = (nonograms.size() + this.columns - 1) / this.columns;
+        this.buttonListener = buttonListener;
+
+        this.cellSize = new Dimension(NonogramButton.BUTTON_SIZE, NonogramButton.BUTTON_SIZE);
+    }
+
+    /**
+     * Creates a new button or reuses a button that is not used anymore and binds it to a nonogram.
+     *
+     * @param nonogram
+     *            nonogram the button should be bound to
+     * @return button for the nonogram
+     */
+    private NonogramButton createButton(final NonogramProvider nonogram) {
+
+        NonogramButton button = unusedButtons.poll();
+        if (button == null) {
+            button = new NonogramButton(nonogram);
+            button.addActionListener(buttonListener);
+        } else {
+            button.setNonogramProvider(nonogram);
+        }
+        return button;
+    }
+
+    @Override
+    public void addNotify() {
+
+        super.addNotify();
+
+        if (getParent() instanceof JViewport) {
+            ((JViewport) getParent()).addChangeListener(viewportListener);
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+
+        if (getParent() instanceof JViewport) {
+            ((JViewport) getParent()).removeChangeListener(viewportListener);
+        }
+
+        super.removeNotify();
+    }
+
+    @Override
+    public void doLayout() {
+
+        updateButtons();
+    }
+
+    /**
+     * Adds buttons for all rows in the visible area and the overscan rows and removes all other
+     * buttons. Removed buttons are kept to be bound to other nonograms later.
+     */
+    private void updateButtons() {
+
+        if (nonograms.isEmpty()) {
+            return;
+        }
+
+        final Rectangle visible = getVisibleRect();
+        final int offsetY = getOffsetY();
+        final int firstRow = Math.max(0, (visible.y - offsetY) / cellSize.height - OVERSCAN_ROWS);
+        final int lastRow = Math.min(rows - 1, (visible.y + visible.height - offsetY) / cellSize.height + OVERSCAN_ROWS);
+        final int firstIndex = firstRow * columns;
+        final int lastIndex = Math.min(nonograms.size() - 1, (lastRow + 1) * columns - 1);
+
+        // remove buttons outside of visible rows
+        final Iterator<Map.Entry<Integer, NonogramButton>> it = boundButtons.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<Integer, NonogramButton> entry = it.next();
+            if (entry.getKey() < firstIndex || entry.getKey() > lastIndex) {
+                remove(entry.getValue());
+                unusedButtons.push(entry.getValue());
+                it.remove();
+            }
+        }
+
+        // add and place buttons for visible rows
+        final int offsetX = getOffsetX();
+        for (int i = firstIndex; i <= lastIndex; i++) {
+            NonogramButton button = boundButtons.get(i);
+            if (button == null) {
+                button = createButton(nonograms.get(i));
+                boundButtons.put(i, button);
+                add(button);
+            }
+            button.setBounds(offsetX + (i % columns) * cellSize.width, offsetY + (i / columns) * cellSize.height, cellSize.width,
+                    cellSize.height);
+        }
+
+        repaint();
+    }
+
+    /**
+     * Gets the horizontal offset of the grid, so that it is centered in this panel.
+     *
+     * @return horizontal offset
+     */
+    private int getOffsetX() {
+
+        return Math.max(0, (getWidth() - columns * cellSize.width) / 2);
+    }
+
+    /**
+     * Gets the vertical offset of the grid, so that it is centered in this panel.
+     *
+     * @return vertical offset
+     */
+    private int getOffsetY() {
+
+        return Math.max(0, (getHeight() - rows * cellSize.height) / 2);
+    }
+
+    /**
+     * Gets the number of buttons that currently exist for this grid.
+     *
+     * @return number of buttons
+     */
+    int getButtonCount() {
+
+        return boundButtons.size() + unusedButtons.size();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+
+        return new Dimension(columns * cellSize.width, rows * cellSize.height);
+    }
+
+    /*
+     * Methods implementing Scrollable interface
+     */
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+
+        return orientation == SwingConstants.VERTICAL ? cellSize.height / 2 : cellSize.width / 2;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(final Rectangle visibleRect, final int orientation, final int direction) {
+
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+
+        // use whole width of viewport and center grid in it
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+
+        // fill viewport when grid is smaller, so that it can be centered
+        return getParent() instanceof JViewport && getParent().getHeight() > getPreferredSize().height;
+    }
+}
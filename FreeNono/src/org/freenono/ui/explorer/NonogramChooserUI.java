@@ -343,6 +343,7 @@ public class NonogramChooserUI extends JPanel {
                             }
                         }
                     }
+                    ThumbnailLoader.getInstance().clear();
                 }
             }
         });
@@ -485,6 +485,7 @@ public class NonogramExplorer extends JPanel {
                             }
                         }
                     }
+                    ThumbnailLoader.getInstance().clear();
                 }
 
                 updateCourseData();
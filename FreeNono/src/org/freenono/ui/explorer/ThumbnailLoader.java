@@ -0,0 +1,294 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.ui.explorer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+
+import org.apache.log4j.Logger;
+import org.freenono.controller.Manager;
+import org.freenono.model.data.Nonogram;
+import org.freenono.provider.NonogramProvider;
+
+/**
+ * Loads the thumbnails of solved nonograms in background threads so that course views can be shown
+ * immediately with placeholder icons. Decoded thumbnails are kept in memory and shared by all
+ * course views. The memory used by them is bounded by evicting the least recently used thumbnails.
+ * A thumbnail in memory is only used as long as its file has not been modified or removed.
+ *
+ * @author Christian Wichmann
+ */
+final class ThumbnailLoader {
+
+    private static Logger logger = Logger.getLogger(ThumbnailLoader.class);
+
+    private static final int LOADER_THREADS = 2;
+    private static final long DEFAULT_MAXIMUM_SIZE = 8 * 1024 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private static ThumbnailLoader instance = null;
+
+    private static ExecutorService loaderExecutor = Executors.newFixedThreadPool(LOADER_THREADS, new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+
+            final Thread t = new Thread(r, "Thumbnail loader");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final Path thumbnailDirectory;
+    private final long maximumSize;
+
+    private final Map<String, CachedThumbnail> thumbnails = new LinkedHashMap<String, CachedThumbnail>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * Decoded thumbnail together with the modification time of its file.
+     *
+     * @author Christian Wichmann
+     */
+    private static final class CachedThumbnail {
+
+        private final ImageIcon thumbnail;
+        private final FileTime lastModified;
+
+        /**
+         * Initializes a decoded thumbnail.
+         *
+         * @param thumbnail
+         *            decoded thumbnail
+         * @param lastModified
+         *            modification time of thumbnail file when it was decoded
+         */
+        CachedThumbnail(final ImageIcon thumbnail, final FileTime lastModified) {
+
+            this.thumbnail = thumbnail;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Is informed on the event dispatch thread when the thumbnail of a nonogram has been loaded.
+     *
+     * @author Christian Wichmann
+     */
+    interface ThumbnailListener {
+
+        /**
+         * Thumbnail of a nonogram has been loaded. The nonogram has already been fetched from its
+         * provider, so its data can be used on the event dispatch thread without blocking.
+         *
+         * @param nonogram
+         *            fetched nonogram
+         * @param thumbnail
+         *            thumbnail of the nonogram or null if it was never solved
+         */
+        void thumbnailLoaded(Nonogram nonogram, ImageIcon thumbnail);
+    }
+
+    /**
+     * Initializes a thumbnail loader for thumbnails stored in a given directory.
+     *
+     * @param thumbnailDirectory
+     *            directory containing thumbnail files named by the hash of their nonogram
+     * @param maximumSize
+     *            maximum number of bytes used by decoded thumbnails in memory
+     */
+    ThumbnailLoader(final Path thumbnailDirectory, final long maximumSize) {
+
+        this.thumbnailDirectory = thumbnailDirectory;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets the thumbnail loader for the default thumbnail directory that is shared by all course
+     * views.
+     *
+     * @return thumbnail loader
+     */
+    static synchronized ThumbnailLoader getInstance() {
+
+        if (instance == null) {
+            instance = new ThumbnailLoader(Paths.get(Manager.DEFAULT_THUMBNAILS_PATH), DEFAULT_MAXIMUM_SIZE);
+        }
+        return instance;
+    }
+
+    /**
+     * Loads the thumbnail for a nonogram in a background thread. The nonogram is fetched from its
+     * provider in the background as well, because this may take some time for generated or
+     * downloaded nonograms.
+     *
+     * @param provider
+     *            provider of the nonogram
+     * @param listener
+     *            listener that is informed on the event dispatch thread when loading is finished
+     * @return future of the loading task, that can be cancelled if the thumbnail is no longer
+     *         needed
+     */
+    Future<?> loadThumbnail(final NonogramProvider provider, final ThumbnailListener listener) {
+
+        return loaderExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+
+                final Nonogram nonogram = provider.fetchNonogram();
+                if (nonogram == null) {
+                    logger.warn("Could not fetch nonogram " + provider.getName() + " to load its thumbnail.");
+                    return;
+                }
+
+                final ImageIcon thumbnail = getThumbnail(nonogram.getHash());
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.thumbnailLoaded(nonogram, thumbnail);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Gets the thumbnail for a nonogram from memory or decodes it from its file. A thumbnail in
+     * memory is decoded again if its file has been modified since. This method blocks while
+     * decoding and should not be called on the event dispatch thread.
+     *
+     * @param hash
+     *            hash of the nonogram
+     * @return thumbnail of the nonogram or null if no thumbnail file exists
+     */
+    ImageIcon getThumbnail(final String hash) {
+
+        final Path file = thumbnailDirectory.resolve(hash);
+        final FileTime lastModified;
+        try {
+            lastModified = Files.getLastModifiedTime(file);
+        } catch (final IOException e) {
+            // no thumbnail file exists, so nonogram was never solved
+            remove(hash);
+            return null;
+        }
+
+        synchronized (this) {
+            final CachedThumbnail cached = thumbnails.get(hash);
+            if (cached != null && cached.lastModified.equals(lastModified)) {
+                return cached.thumbnail;
+            }
+        }
+
+        final BufferedImage image;
+        try {
+            image = ImageIO.read(file.toFile());
+        } catch (final IOException e) {
+            logger.warn("Could not read thumbnail " + file + ": " + e.getMessage());
+            return null;
+        }
+        if (image == null) {
+            logger.warn("Unknown image format of thumbnail " + file + ".");
+            return null;
+        }
+
+        final ImageIcon thumbnail = new ImageIcon(image);
+        synchronized (this) {
+            final CachedThumbnail old = thumbnails.put(hash, new CachedThumbnail(thumbnail, lastModified));
+            if (old != null) {
+                size -= getSize(old.thumbnail);
+            }
+            size += getSize(thumbnail);
+            evict();
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Removes the thumbnail of a nonogram from memory.
+     *
+     * @param hash
+     *            hash of the nonogram
+     */
+    private synchronized void remove(final String hash) {
+
+        final CachedThumbnail old = thumbnails.remove(hash);
+        if (old != null) {
+            size -= getSize(old.thumbnail);
+        }
+    }
+
+    /**
+     * Removes least recently used thumbnails until the decoded thumbnails fit into the maximum
+     * size. The most recently used thumbnail is always kept.
+     */
+    private void evict() {
+
+        final Iterator<CachedThumbnail> it = thumbnails.values().iterator();
+        while (size > maximumSize && thumbnails.size() > 1) {
+            size -= getSize(it.next().thumbnail);
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes all thumbnails from memory, e.g. after their files have been deleted.
+     */
+    synchronized void clear() {
+
+        thumbnails.clear();
+        size = 0;
+    }
+
+    /**
+     * Gets the number of thumbnails that are currently held in memory.
+     *
+     * @return number of thumbnails in memory
+     */
+    synchronized int getCachedCount() {
+
+        return thumbnails.size();
+    }
+
+    /**
+     * Estimates the number of bytes a decoded thumbnail occupies in memory.
+     *
+     * @param thumbnail
+     *            thumbnail
+     * @return number of bytes
+     */
+    private static long getSize(final ImageIcon thumbnail) {
+
+        return (long) thumbnail.getIconWidth() * thumbnail.getIconHeight() * BYTES_PER_PIXEL;
+    }
+}
@@ -0,0 +1,67 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.restlet.data.MediaType;
+import org.restlet.representation.StreamRepresentation;
+
+/**
+ * Representation of an already encoded byte payload. In contrast to a string
+ * representation the payload is not encoded again on every request and it can
+ * be written any number of times.
+ * 
+ * @author Christian Wichmann
+ */
+class ByteArrayRepresentation extends StreamRepresentation {
+
+	private final byte[] payload;
+
+	/**
+	 * Creates a new representation for a byte payload. The payload must not be
+	 * changed afterwards.
+	 * 
+	 * @param payload
+	 *            encoded payload
+	 * @param mediaType
+	 *            media type of payload
+	 */
+	public ByteArrayRepresentation(byte[] payload, MediaType mediaType) {
+
+		super(mediaType);
+		this.payload = payload;
+		setSize(payload.length);
+		setTransient(false);
+	}
+
+	@Override
+	public InputStream getStream() throws IOException {
+
+		return new ByteArrayInputStream(payload);
+	}
+
+	@Override
+	public void write(OutputStream outputStream) throws IOException {
+
+		outputStream.write(payload);
+	}
+}
@@ -0,0 +1,304 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Immutable index of all courses served by NonoServer. Courses are found by
+ * their name and nonograms by the name of their course and either their own
+ * name or their hash. All lookups are done in constant time.
+ * <p>
+ * Because an index never changes after it was built, it can be read by any
+ * number of threads without synchronization. Changes to the courses are made
+ * by building a new index and swapping it in NonoServer.
+ * <p>
+ * Courses in the index must not be changed after the index was built.
+ * Therefore methods that add or remove nonograms create new course objects
+ * for all changed courses. When a single course is replaced, only the
+ * nonograms of this course are indexed again.
+ * 
+ * @author Christian Wichmann
+ */
+public final class CourseIndex {
+
+	private final List<Course> courses;
+	private final Map<String, Course> coursesByName;
+	private final Map<String, Map<String, Nonogram>> nonogramsByName;
+	private final Map<String, Map<String, Nonogram>> nonogramsByHash;
+
+	/**
+	 * Builds a new index for the given courses. If more than one course or
+	 * nonogram has the same name, the last one in the list is found.
+	 * 
+	 * @param courseList
+	 *            list of courses to index
+	 */
+	public CourseIndex(List<Course> courseList) {
+
+		List<Course> lst = new ArrayList<Course>(courseList);
+		Map<String, Course> byName = new HashMap<String, Course>(
+				capacity(lst.size()));
+		Map<String, Map<String, Nonogram>> nonogramNames = new HashMap<String, Map<String, Nonogram>>(
+				capacity(lst.size()));
+		Map<String, Map<String, Nonogram>> nonogramHashes = new HashMap<String, Map<String, Nonogram>>(
+				capacity(lst.size()));
+
+		for (Course c : lst) {
+			indexCourse(c, byName, nonogramNames, nonogramHashes);
+		}
+
+		this.courses = Collections.unmodifiableList(lst);
+		this.coursesByName = Collections.unmodifiableMap(byName);
+		this.nonogramsByName = Collections.unmodifiableMap(nonogramNames);
+		this.nonogramsByHash = Collections.unmodifiableMap(nonogramHashes);
+	}
+
+	/**
+	 * Builds a new index from an existing one by replacing or removing a
+	 * single course. The nonograms of all other courses are not indexed again.
+	 * 
+	 * @param base
+	 *            index to copy
+	 * @param courseName
+	 *            name of course to replace or remove
+	 * @param course
+	 *            new course or null if course should be removed
+	 */
+	private CourseIndex(CourseIndex base, String courseName, Course course) {
+
+		List<Course> lst = new ArrayList<Course>(base.courses);
+		Map<String, Course> byName = new HashMap<String, Course>(
+				base.coursesByName);
+		Map<String, Map<String, Nonogram>> nonogramNames = new HashMap<String, Map<String, Nonogram>>(
+				base.nonogramsByName);
+		Map<String, Map<String, Nonogram>> nonogramHashes = new HashMap<String, Map<String, Nonogram>>(
+				base.nonogramsByHash);
+
+		Course oldCourse = base.getCourse(courseName);
+		if (oldCourse != null) {
+			int position = lst.lastIndexOf(oldCourse);
+			if (course == null) {
+				lst.remove(position);
+			} else {
+				lst.set(position, course);
+			}
+		} else if (course != null) {
+			lst.add(course);
+		}
+
+		byName.remove(courseName);
+		nonogramNames.remove(courseName);
+		nonogramHashes.remove(courseName);
+		if (course != null) {
+			indexCourse(course, byName, nonogramNames, nonogramHashes);
+		}
+
+		this.courses = Collections.unmodifiableList(lst);
+		this.coursesByName = Collections.unmodifiableMap(byName);
+		this.nonogramsByName = Collections.unmodifiableMap(nonogramNames);
+		this.nonogramsByHash = Collections.unmodifiableMap(nonogramHashes);
+	}
+
+	/**
+	 * Adds a course and all its nonograms to the given maps.
+	 * 
+	 * @param c
+	 *            course to index
+	 * @param byName
+	 *            map of courses by name
+	 * @param nonogramNames
+	 *            map of nonograms by name for every course
+	 * @param nonogramHashes
+	 *            map of nonograms by hash for every course
+	 */
+	private static void indexCourse(Course c, Map<String, Course> byName,
+			Map<String, Map<String, Nonogram>> nonogramNames,
+			Map<String, Map<String, Nonogram>> nonogramHashes) {
+
+		Nonogram[] nonograms = c.getNonograms();
+		Map<String, Nonogram> names = new HashMap<String, Nonogram>(
+				capacity(nonograms.length));
+		Map<String, Nonogram> hashes = new HashMap<String, Nonogram>(
+				capacity(nonograms.length));
+
+		for (Nonogram n : nonograms) {
+			names.put(n.getName(), n);
+			hashes.put(n.getHash(), n);
+		}
+
+		byName.put(c.getName(), c);
+		nonogramNames.put(c.getName(), Collections.unmodifiableMap(names));
+		nonogramHashes.put(c.getName(), Collections.unmodifiableMap(hashes));
+	}
+
+	/**
+	 * Returns all courses in the order they were given when building this
+	 * index.
+	 * 
+	 * @return unmodifiable list of all courses
+	 */
+	public List<Course> getCourses() {
+
+		return courses;
+	}
+
+	/**
+	 * Finds a course by its name.
+	 * 
+	 * @param courseName
+	 *            name of course
+	 * @return course or null if no course with this name exists
+	 */
+	public Course getCourse(String courseName) {
+
+		return coursesByName.get(courseName);
+	}
+
+	/**
+	 * Finds a nonogram in a course by its name or, if no nonogram has this
+	 * name, by its hash.
+	 * 
+	 * @param courseName
+	 *            name of course
+	 * @param nonogramNameOrHash
+	 *            name or hash of nonogram
+	 * @return nonogram or null if course or nonogram do not exist
+	 */
+	public Nonogram getNonogram(String courseName, String nonogramNameOrHash) {
+
+		Map<String, Nonogram> names = nonogramsByName.get(courseName);
+		if (names == null) {
+			return null;
+		}
+
+		Nonogram n = names.get(nonogramNameOrHash);
+		if (n == null) {
+			n = nonogramsByHash.get(courseName).get(nonogramNameOrHash);
+		}
+		return n;
+	}
+
+	/**
+	 * Builds a new index in which a course is replaced by the given one. If no
+	 * course with the same name exists, the course is added.
+	 * 
+	 * @param course
+	 *            new or changed course
+	 * @return new index with given course
+	 */
+	public CourseIndex withCourse(Course course) {
+
+		return new CourseIndex(this, course.getName(), course);
+	}
+
+	/**
+	 * Builds a new index without the given course.
+	 * 
+	 * @param courseName
+	 *            name of course to remove
+	 * @return new index without course or this index if course does not exist
+	 */
+	public CourseIndex withoutCourse(String courseName) {
+
+		if (getCourse(courseName) == null) {
+			return this;
+		}
+		return new CourseIndex(this, courseName, null);
+	}
+
+	/**
+	 * Builds a new index containing an additional nonogram. If the course does
+	 * not yet exist, it is created. A nonogram with the same name in the
+	 * course is replaced.
+	 * 
+	 * @param courseName
+	 *            name of course to add nonogram to
+	 * @param nonogram
+	 *            nonogram to add
+	 * @return new index with added nonogram
+	 */
+	public CourseIndex withNonogram(String courseName, Nonogram nonogram) {
+
+		List<Nonogram> nonograms = new ArrayList<Nonogram>();
+		Course oldCourse = getCourse(courseName);
+
+		if (oldCourse != null) {
+			for (Nonogram n : oldCourse.getNonograms()) {
+				if (!n.getName().equals(nonogram.getName())) {
+					nonograms.add(n);
+				}
+			}
+		}
+		nonograms.add(nonogram);
+
+		return new CourseIndex(this, courseName, new Course(courseName,
+				nonograms));
+	}
+
+	/**
+	 * Builds a new index without the given nonogram.
+	 * 
+	 * @param courseName
+	 *            name of course to remove nonogram from
+	 * @param nonogramName
+	 *            name of nonogram to remove
+	 * @return new index without nonogram or this index if course or nonogram
+	 *         do not exist
+	 */
+	public CourseIndex withoutNonogram(String courseName, String nonogramName) {
+
+		Course oldCourse = getCourse(courseName);
+		if (oldCourse == null
+				|| !nonogramsByName.get(courseName).containsKey(nonogramName)) {
+			return this;
+		}
+
+		List<Nonogram> nonograms = new ArrayList<Nonogram>(
+				Arrays.asList(oldCourse.getNonograms()));
+		for (int i = nonograms.size() - 1; i >= 0; i--) {
+			if (nonograms.get(i).getName().equals(nonogramName)) {
+				nonograms.remove(i);
+			}
+		}
+
+		return new CourseIndex(this, courseName, new Course(courseName,
+				nonograms));
+	}
+
+	/**
+	 * Calculates initial capacity of a hash map so that it must not be resized
+	 * for the given number of entries.
+	 * 
+	 * @param entries
+	 *            number of entries
+	 * @return initial capacity of hash map
+	 */
+	private static int capacity(int entries) {
+
+		return entries * 4 / 3 + 1;
+	}
+}
@@ -17,14 +17,16 @@
  *****************************************************************************/
 package org.freenono.nonoserver;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.log4j.Logger;
 import org.freenono.model.data.Course;
+import org.freenono.nonoserver.ResponseCache.CachedResponse;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.MediaType;
 import org.restlet.data.Status;
-import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.Delete;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
@@ -38,30 +40,53 @@ import org.restlet.resource.ServerResource;
  */
 public class CourseListResource extends ServerResource {
 	
-	//private static Logger logger = Logger.getLogger(CourseListResource.class);
+	private static Logger logger = Logger.getLogger(CourseListResource.class);
 
-	private List<Course> courseList = NonoServer.courseList;
+	private static final String CACHE_KEY = "courseList";
+
+	@Override
+	protected void doInit() {
+
+		// conditional requests are answered by the response cache
+		setConditional(false);
+	}
 
 	@Get
 	public void handleGet(Request request, Response response) {
-		
-		StringBuilder stringBuilder = new StringBuilder();
-
-		stringBuilder.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
-		stringBuilder.append("<FreeNono>");
-		for (Course c: courseList) {
-			stringBuilder.append("<Course name=\"");
-			stringBuilder.append(c.getName());
-			stringBuilder.append("\" path =\"");
-			stringBuilder.append(c.getName());
-			stringBuilder.append("\" />");
+
+		CourseIndex courseIndex = NonoServer.getCourseIndex();
+		ResponseCache responseCache = NonoServer.getResponseCache();
+
+		CachedResponse cachedResponse = responseCache.get(courseIndex,
+				CACHE_KEY);
+
+		if (cachedResponse == null) {
+
+			StringBuilder stringBuilder = new StringBuilder();
+
+			stringBuilder.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+			stringBuilder.append("<FreeNono>");
+			for (Course c: courseIndex.getCourses()) {
+				stringBuilder.append("<Course name=\"");
+				stringBuilder.append(c.getName());
+				stringBuilder.append("\" path =\"");
+				stringBuilder.append(c.getName());
+				stringBuilder.append("\" />");
+			}
+			stringBuilder.append("</FreeNono>");
+
+			try {
+				cachedResponse = responseCache.put(courseIndex, CACHE_KEY,
+						stringBuilder.toString().getBytes(
+								StandardCharsets.UTF_8), MediaType.TEXT_XML);
+			} catch (IOException e) {
+				logger.error("Could not encode course list.");
+				getResponse().setStatus(Status.SERVER_ERROR_INTERNAL);
+				return;
+			}
 		}
-		stringBuilder.append("</FreeNono>");
 
-		getResponse().setEntity(new StringRepresentation(stringBuilder
-				.toString(), MediaType.TEXT_XML));
-		getResponse().setStatus(Status.SUCCESS_OK);
-				
+		cachedResponse.writeTo(getRequest(), getResponse());
 	}
 
 	@Post
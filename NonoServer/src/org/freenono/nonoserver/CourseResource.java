@@ -0,0 +1,129 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
+import org.freenono.nonoserver.ResponseCache.CachedResponse;
+import org.freenono.serializer.data.XMLNonogramSerializer;
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.resource.Get;
+import org.restlet.resource.ServerResource;
+
+/**
+ * Returns all nonograms of a course in a single response, so that clients
+ * can load a whole course in one round trip. A subset of nonograms can be
+ * requested by giving their names or hashes as query parameters, e.g.
+ * "/{course}?nonograms&name=Test1&name=Test2". Unknown names are ignored.
+ * <p>
+ * Responses for whole courses are cached, responses for subsets are built
+ * for every request.
+ * 
+ * @author Christian Wichmann
+ */
+public class CourseResource extends ServerResource {
+
+	private static Logger logger = Logger.getLogger(CourseResource.class);
+
+	private static final String CACHE_KEY_PREFIX = "course/";
+	private static final String NAME_PARAMETER = "name";
+
+	/**
+	 * Query parameter that selects this resource for a course.
+	 */
+	public static final String BATCH_PARAMETER = "nonograms";
+
+	@Override
+	protected void doInit() {
+
+		// conditional requests are answered by the response cache
+		setConditional(false);
+	}
+
+	@Get
+	public void handleGet() {
+
+		String courseName = Reference.decode((String) getRequest()
+				.getAttributes().get("course"));
+
+		CourseIndex courseIndex = NonoServer.getCourseIndex();
+		Course pickedCourse = courseIndex.getCourse(courseName);
+
+		if (pickedCourse == null) {
+			getResponse().setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+			return;
+		}
+
+		String[] requestedNames = getQuery().getValuesArray(NAME_PARAMETER);
+		boolean wholeCourse = requestedNames.length == 0;
+
+		ResponseCache responseCache = NonoServer.getResponseCache();
+		String cacheKey = CACHE_KEY_PREFIX + courseName;
+		CachedResponse cachedResponse = wholeCourse ? responseCache.get(
+				courseIndex, cacheKey) : null;
+
+		if (cachedResponse == null) {
+
+			Nonogram[] nonograms;
+			if (wholeCourse) {
+				nonograms = pickedCourse.getNonograms();
+			} else {
+				List<Nonogram> subset = new ArrayList<Nonogram>();
+				for (String name : requestedNames) {
+					Nonogram n = courseIndex.getNonogram(courseName, name);
+					if (n != null) {
+						subset.add(n);
+					}
+				}
+				nonograms = subset.toArray(new Nonogram[subset.size()]);
+			}
+
+			if (nonograms.length == 0) {
+				getResponse().setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+				return;
+			}
+
+			XMLNonogramSerializer ns = new XMLNonogramSerializer();
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			try {
+				ns.save(baos, nonograms);
+				if (wholeCourse) {
+					cachedResponse = responseCache.put(courseIndex, cacheKey,
+							baos.toByteArray(), MediaType.TEXT_XML);
+				} else {
+					cachedResponse = ResponseCache.encode(baos.toByteArray(),
+							MediaType.TEXT_XML);
+				}
+			} catch (IOException e) {
+				logger.error("Could not write serialized nonograms to output stream.");
+				getResponse().setStatus(Status.SERVER_ERROR_INTERNAL);
+				return;
+			}
+		}
+
+		cachedResponse.writeTo(getRequest(), getResponse());
+	}
+}
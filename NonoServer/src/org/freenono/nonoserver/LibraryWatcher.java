@@ -0,0 +1,390 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.Course;
+import org.freenono.serializer.data.ZipCourseSerializer;
+
+/**
+ * Watches the nonogram directory of NonoServer and reloads courses when they
+ * are added, changed or removed. Only the changed course is parsed again.
+ * Afterwards it is published by atomically replacing the course index, so
+ * that resources never block and never see a partially loaded library.
+ * <p>
+ * All events for a course are collected until no further event has occurred
+ * for <code>DEBOUNCE_DELAY</code> milliseconds, so that a course that is
+ * still being copied is not loaded too early. If events were lost, all
+ * courses are reloaded.
+ * 
+ * @author Christian Wichmann
+ */
+class LibraryWatcher implements Runnable {
+
+	private static Logger logger = Logger.getLogger(LibraryWatcher.class);
+
+	private static final long DEBOUNCE_DELAY = 500;
+
+	private final NonoServer server;
+	private final Path libraryDirectory;
+	private Thread thread = null;
+	private WatchService watcher = null;
+
+	/**
+	 * Initializes a watcher for the nonogram directory.
+	 * 
+	 * @param server
+	 *            server to load courses with
+	 * @param libraryDirectory
+	 *            directory containing all courses
+	 */
+	public LibraryWatcher(NonoServer server, Path libraryDirectory) {
+
+		this.server = server;
+		this.libraryDirectory = libraryDirectory.toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Starts watching in a background thread. If the nonogram directory does
+	 * not exist, nothing is watched.
+	 */
+	public synchronized void start() {
+
+		if (!Files.isDirectory(libraryDirectory)) {
+			logger.warn("Nonogram directory " + libraryDirectory
+					+ " does not exist and can not be watched.");
+			return;
+		}
+
+		try {
+			watcher = libraryDirectory.getFileSystem().newWatchService();
+			registerLibraryDirectory();
+		} catch (IOException e) {
+			logger.error("Could not watch nonogram directory "
+					+ libraryDirectory + ".");
+			return;
+		}
+
+		thread = new Thread(this, "NonoServer library watcher");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the nonogram directory.
+	 */
+	public synchronized void stop() {
+
+		if (thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				logger.warn("Could not close watch service.");
+			}
+			watcher = null;
+		}
+	}
+
+	@Override
+	public void run() {
+
+		WatchService ws;
+		synchronized (this) {
+			ws = watcher;
+		}
+
+		try {
+			watchLibrary(ws);
+		} catch (InterruptedException e) {
+			logger.debug("Watching of nonogram directory was stopped.");
+		} catch (ClosedWatchServiceException e) {
+			logger.debug("Watching of nonogram directory was stopped.");
+		}
+	}
+
+	/**
+	 * Watches the nonogram directory and reloads courses after they have
+	 * changed. Errors while handling a single event are logged and do not
+	 * stop watching.
+	 * 
+	 * @param ws
+	 *            watch service the directories are registered with
+	 * @throws InterruptedException
+	 *             if watching is interrupted
+	 */
+	private void watchLibrary(WatchService ws) throws InterruptedException {
+
+		// paths of changed courses and the time when they should be reloaded
+		Map<Path, Long> pendingCourses = new LinkedHashMap<Path, Long>();
+
+		while (!Thread.currentThread().isInterrupted()) {
+
+			// wait for key to be signaled or for the next pending course
+			WatchKey key;
+			if (pendingCourses.isEmpty()) {
+				key = ws.take();
+			} else {
+				long delay = Collections.min(pendingCourses.values())
+						- System.currentTimeMillis();
+				key = ws.poll(Math.max(delay, 0), TimeUnit.MILLISECONDS);
+			}
+
+			if (key != null) {
+				for (WatchEvent<?> watchEvent : key.pollEvents()) {
+
+					// overflow event can occur when events are lost
+					if (watchEvent.kind() == OVERFLOW) {
+						logger.warn("Events for nonogram directory were lost, "
+								+ "reloading all courses.");
+						scheduleAllCourses(ws, pendingCourses);
+						continue;
+					}
+
+					Path directoryWithChange = (Path) key.watchable();
+					Path changedPath = directoryWithChange
+							.resolve((Path) watchEvent.context());
+
+					Path coursePath = findCoursePath(changedPath,
+							directoryWithChange);
+					if (coursePath == null) {
+						continue;
+					}
+
+					// add new course directory to watch service
+					if (watchEvent.kind() == ENTRY_CREATE
+							&& coursePath.equals(changedPath)
+							&& Files.isDirectory(changedPath)) {
+						registerCourseDirectory(ws, changedPath);
+					}
+
+					// coalesce all events for this course and postpone reload
+					pendingCourses.remove(coursePath);
+					pendingCourses.put(coursePath, System.currentTimeMillis()
+							+ DEBOUNCE_DELAY);
+				}
+
+				key.reset();
+			}
+
+			// reload all courses whose last event is long enough ago
+			long now = System.currentTimeMillis();
+			for (Iterator<Map.Entry<Path, Long>> it = pendingCourses
+					.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<Path, Long> entry = it.next();
+				if (entry.getValue() <= now) {
+					it.remove();
+					reloadCourse(entry.getKey());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Schedules all courses in the nonogram directory and all courses of the
+	 * current index for reloading. Courses of the index that no longer exist
+	 * are removed when they are reloaded. All course directories are
+	 * registered again, in case their creation was missed.
+	 * 
+	 * @param ws
+	 *            watch service the directories are registered with
+	 * @param pendingCourses
+	 *            paths of changed courses and the time when they should be
+	 *            reloaded
+	 */
+	private void scheduleAllCourses(WatchService ws,
+			Map<Path, Long> pendingCourses) {
+
+		long reloadTime = System.currentTimeMillis() + DEBOUNCE_DELAY;
+
+		try {
+			DirectoryStream<Path> stream = Files
+					.newDirectoryStream(libraryDirectory);
+			try {
+				for (Path entry : stream) {
+					Path coursePath = findCoursePath(entry, libraryDirectory);
+					if (coursePath == null) {
+						continue;
+					}
+					if (Files.isDirectory(entry)) {
+						registerCourseDirectory(ws, entry);
+					}
+					pendingCourses.remove(coursePath);
+					pendingCourses.put(coursePath, reloadTime);
+				}
+			} finally {
+				stream.close();
+			}
+		} catch (IOException | DirectoryIteratorException e) {
+			logger.error("Could not read nonogram directory after events "
+					+ "were lost.");
+		}
+
+		String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
+		for (Course c : NonoServer.getCourseIndex().getCourses()) {
+			Path directoryPath = libraryDirectory.resolve(c.getName());
+			Path zipPath = libraryDirectory.resolve(c.getName() + ext);
+			if (!Files.exists(directoryPath) && !Files.exists(zipPath)) {
+				pendingCourses.put(directoryPath, reloadTime);
+			}
+		}
+	}
+
+	/**
+	 * Registers a course directory with the watch service. Errors are only
+	 * logged, e.g. when the directory was removed right after it was created.
+	 * 
+	 * @param ws
+	 *            watch service the directory is registered with
+	 * @param directory
+	 *            course directory to be registered
+	 */
+	private void registerCourseDirectory(WatchService ws, Path directory) {
+
+		try {
+			directory.register(ws, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+		} catch (IOException e) {
+			logger.warn("Could not watch course directory " + directory
+					+ ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Registers the nonogram directory and all course directories in it.
+	 * 
+	 * @throws IOException
+	 *             if a directory could not be registered
+	 */
+	private void registerLibraryDirectory() throws IOException {
+
+		libraryDirectory.register(watcher, ENTRY_CREATE, ENTRY_DELETE,
+				ENTRY_MODIFY);
+
+		DirectoryStream<Path> stream = Files
+				.newDirectoryStream(libraryDirectory);
+		try {
+			for (Path entry : stream) {
+				if (Files.isDirectory(entry)) {
+					entry.register(watcher, ENTRY_CREATE, ENTRY_DELETE,
+							ENTRY_MODIFY);
+				}
+			}
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * Finds the course that is affected by a change. Changes directly in the
+	 * nonogram directory concern course directories or nonopack files, changes
+	 * inside a course directory concern this directory.
+	 * 
+	 * @param changedPath
+	 *            path of changed file or directory
+	 * @param directoryWithChange
+	 *            directory in which the change occurred
+	 * @return path of affected course or null if no course is affected
+	 */
+	private Path findCoursePath(Path changedPath, Path directoryWithChange) {
+
+		if (!directoryWithChange.equals(libraryDirectory)) {
+			return directoryWithChange;
+		}
+
+		String fileName = changedPath.getFileName().toString();
+		if (fileName.startsWith(".")) {
+			return null;
+		}
+		if (fileName.endsWith("." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION)
+				|| Files.isDirectory(changedPath)
+				|| NonoServer.getCourseIndex().getCourse(fileName) != null) {
+			return changedPath;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the name of the course stored at the given path. This is the name
+	 * of a course directory or the name of a nonopack file without extension.
+	 * 
+	 * @param coursePath
+	 *            path of course
+	 * @return name of course
+	 */
+	private static String getCourseName(Path coursePath) {
+
+		String fileName = coursePath.getFileName().toString();
+		String ext = "." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION;
+		if (fileName.endsWith(ext)) {
+			return fileName.substring(0, fileName.length() - ext.length());
+		}
+		return fileName;
+	}
+
+	/**
+	 * Loads a single course again and publishes it or removes it if it no
+	 * longer exists. If a changed course could not be loaded, the old version
+	 * is still served.
+	 * 
+	 * @param coursePath
+	 *            path of course directory or nonopack file
+	 */
+	private void reloadCourse(Path coursePath) {
+
+		String courseName = getCourseName(coursePath);
+
+		if (!Files.exists(coursePath)) {
+			if (NonoServer.removeCourse(courseName)) {
+				logger.info("Course removed: " + courseName);
+			}
+			return;
+		}
+
+		Course c = server.loadCourse(coursePath.toFile());
+		if (c == null) {
+			logger.warn("unable to reload course \"" + coursePath + "\"");
+			return;
+		}
+
+		NonoServer.replaceCourse(c);
+		logger.info("Course reloaded: " + courseName);
+	}
+}
@@ -0,0 +1,60 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.routing.Filter;
+
+/**
+ * Measures how long the resource behind a route needs to handle a request and
+ * records it in the request metrics of the server.
+ * 
+ * @author Christian Wichmann
+ */
+class MetricsFilter extends Filter {
+
+	private final String route;
+
+	/**
+	 * Creates a filter for a route.
+	 * 
+	 * @param context
+	 *            context of application
+	 * @param route
+	 *            path template of route, used as its name in metrics
+	 */
+	public MetricsFilter(Context context, String route) {
+
+		super(context);
+		this.route = route;
+	}
+
+	@Override
+	protected int doHandle(Request request, Response response) {
+
+		long start = System.nanoTime();
+		try {
+			return super.doHandle(request, response);
+		} finally {
+			NonoServer.getRequestMetrics().record(route,
+					System.nanoTime() - start, response.getStatus().isError());
+		}
+	}
+}
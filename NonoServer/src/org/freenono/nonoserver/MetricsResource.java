@@ -0,0 +1,43 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import org.restlet.data.CacheDirective;
+import org.restlet.data.MediaType;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Get;
+import org.restlet.resource.ServerResource;
+
+/**
+ * Returns request counters and latency histograms of all routes as plain
+ * text.
+ * 
+ * @author Christian Wichmann
+ */
+public class MetricsResource extends ServerResource {
+
+	@Get
+	public Representation handleGet() {
+
+		getResponse().getCacheDirectives().add(CacheDirective.noCache());
+
+		return new StringRepresentation(NonoServer.getRequestMetrics()
+				.format(), MediaType.TEXT_PLAIN);
+	}
+}
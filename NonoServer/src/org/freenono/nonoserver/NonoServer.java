@@ -22,9 +22,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.log4j.Logger;
 import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
 import org.freenono.serializer.data.CourseFormatException;
 import org.freenono.serializer.data.CourseSerializer;
 import org.freenono.serializer.data.NonogramFormatException;
@@ -37,6 +39,8 @@ import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.data.MediaType;
 import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Finder;
+import org.restlet.resource.ServerResource;
 import org.restlet.routing.Router;
 
 /**
@@ -47,11 +51,17 @@ public class NonoServer extends Application {
 
 	private static Logger logger = Logger.getLogger(NonoServer.class);
 
-	static List<Course> courseList = null;
+	private static final AtomicReference<CourseIndex> courseIndex = new AtomicReference<CourseIndex>(
+			new CourseIndex(new ArrayList<Course>()));
+	private static final ResponseCache responseCache = new ResponseCache(
+			courseIndex);
+	private static final SeedNonogramCache seedNonogramCache = new SeedNonogramCache();
+	private static final RequestMetrics requestMetrics = new RequestMetrics();
 
 	public final static String DEFAULT_NONOGRAM_PATH = "./nonograms";
 	private CourseSerializer xmlCourseSerializer = new XMLCourseSerializer();
 	private CourseSerializer zipCourseSerializer = new ZipCourseSerializer();
+	private LibraryWatcher libraryWatcher = null;
 
 	// private CourseListResource courseListResource = null;
 	// private NonogramListResource nonogramListResource = null;
@@ -83,62 +93,287 @@ public class NonoServer extends Application {
 
 		for (File file : dir.listFiles()) {
 
-			try {
+			if (isCourseFile(file)) {
 
-				Course c = null;
+				Course c = loadCourse(file);
 
-				if (!file.getName().startsWith(".")) {
+				if (c != null) {
 
-					if (file.isDirectory()) {
+					lst.add(c);
+					logger.debug("loaded course \"" + file
+							+ "\" successfully");
 
-						c = xmlCourseSerializer.load(file);
+				} else {
 
-					} else {
+					logger.info("unable to load file \"" + file + "\"");
 
-						if (file.getName()
-								.endsWith(
-										"."
-												+ ZipCourseSerializer.DEFAULT_FILE_EXTENSION)) {
-							c = zipCourseSerializer.load(file);
-						}
-
-					}
+				}
+			}
+		}
 
-					if (c != null) {
+		courseIndex.set(new CourseIndex(lst));
+	}
 
-						lst.add(c);
-						logger.debug("loaded course \"" + file
-								+ "\" successfully");
+	/**
+	 * Checks whether a file in the nonogram directory contains a course. Only
+	 * directories and nonopack files that are not hidden contain courses.
+	 * 
+	 * @param file
+	 *            file in nonogram directory
+	 * @return true, if file contains a course
+	 */
+	static boolean isCourseFile(File file) {
 
-					} else {
+		if (file.getName().startsWith(".")) {
+			return false;
+		}
+		return file.isDirectory()
+				|| file.getName().endsWith(
+						"." + ZipCourseSerializer.DEFAULT_FILE_EXTENSION);
+	}
 
-						logger.info("unable to load file \"" + file + "\"");
+	/**
+	 * Loads a single course from a directory or a nonopack file. This method
+	 * is used while starting the server and by the library watcher, but never
+	 * concurrently.
+	 * 
+	 * @param file
+	 *            directory or nonopack file containing course
+	 * @return loaded course or null if course could not be loaded
+	 */
+	Course loadCourse(File file) {
 
-					}
-				}
+		try {
 
-			} catch (NullPointerException e) {
-				logger.warn("loading course \"" + file
-						+ "\" caused a NullPointerException");
-			} catch (IOException e) {
-				logger.warn("loading course \"" + file
-						+ "\" caused a IOException");
-			} catch (NonogramFormatException e) {
-				logger.warn("loading course \"" + file
-						+ "\" caused a NonogramFormatException");
-			} catch (CourseFormatException e) {
-				logger.warn("loading course \"" + file
-						+ "\" caused a CourseFormatException");
+			if (file.isDirectory()) {
+				return xmlCourseSerializer.load(file);
+			} else {
+				return zipCourseSerializer.load(file);
 			}
+
+		} catch (NullPointerException e) {
+			logger.warn("loading course \"" + file
+					+ "\" caused a NullPointerException");
+		} catch (IOException e) {
+			logger.warn("loading course \"" + file + "\" caused a IOException");
+		} catch (NonogramFormatException e) {
+			logger.warn("loading course \"" + file
+					+ "\" caused a NonogramFormatException");
+		} catch (CourseFormatException e) {
+			logger.warn("loading course \"" + file
+					+ "\" caused a CourseFormatException");
+		}
+		return null;
+	}
+
+	/**
+	 * Starts the library watcher after the application itself was started.
+	 */
+	@Override
+	public synchronized void start() throws Exception {
+
+		super.start();
+
+		if (libraryWatcher == null) {
+			libraryWatcher = new LibraryWatcher(this, new File(
+					DEFAULT_NONOGRAM_PATH).toPath());
+			libraryWatcher.start();
 		}
+	}
+
+	/**
+	 * Stops the library watcher before the application itself is stopped.
+	 */
+	@Override
+	public synchronized void stop() throws Exception {
+
+		if (libraryWatcher != null) {
+			libraryWatcher.stop();
+			libraryWatcher = null;
+		}
+
+		super.stop();
+	}
+
+	/**
+	 * Returns the current index of all courses. The index is immutable, so it
+	 * can be used by all resources without synchronization. It is replaced as
+	 * a whole when courses change.
+	 * 
+	 * @return current index of all courses
+	 */
+	static CourseIndex getCourseIndex() {
+
+		return courseIndex.get();
+	}
+
+	/**
+	 * Returns the cache for pre-encoded responses of all resources. Cached
+	 * responses are only valid for the course index they were built from.
+	 * 
+	 * @return response cache
+	 */
+	static ResponseCache getResponseCache() {
+
+		return responseCache;
+	}
+
+	/**
+	 * Returns request counters and latency histograms of all routes.
+	 * 
+	 * @return request metrics
+	 */
+	static RequestMetrics getRequestMetrics() {
 
-		NonoServer.courseList = lst;
+		return requestMetrics;
+	}
+
+	/**
+	 * Returns the cache for nonograms generated from seeds.
+	 * 
+	 * @return cache for nonograms generated from seeds
+	 */
+	static SeedNonogramCache getSeedNonogramCache() {
+
+		return seedNonogramCache;
+	}
+
+	/**
+	 * Replaces a course by atomically replacing the current index. If no
+	 * course with the same name exists, the course is added. All resources see
+	 * either the old or the new course but never a partially loaded one.
+	 * 
+	 * @param course
+	 *            new or changed course
+	 */
+	static void replaceCourse(Course course) {
+
+		CourseIndex current;
+		CourseIndex updated;
+		do {
+			current = courseIndex.get();
+			updated = current.withCourse(course);
+		} while (!courseIndex.compareAndSet(current, updated));
+	}
+
+	/**
+	 * Removes a course by atomically replacing the current index.
+	 * 
+	 * @param courseName
+	 *            name of course
+	 * @return true, if course was found and removed
+	 */
+	static boolean removeCourse(String courseName) {
+
+		CourseIndex current;
+		CourseIndex updated;
+		do {
+			current = courseIndex.get();
+			updated = current.withoutCourse(courseName);
+			if (updated == current) {
+				return false;
+			}
+		} while (!courseIndex.compareAndSet(current, updated));
+
+		return true;
+	}
+
+	/**
+	 * Adds a nonogram to a course by atomically replacing the current index.
+	 * If the course does not exist, it is created.
+	 * 
+	 * @param courseName
+	 *            name of course
+	 * @param nonogram
+	 *            nonogram to add
+	 */
+	static void addNonogram(String courseName, Nonogram nonogram) {
+
+		CourseIndex current;
+		CourseIndex updated;
+		do {
+			current = courseIndex.get();
+			updated = current.withNonogram(courseName, nonogram);
+		} while (!courseIndex.compareAndSet(current, updated));
+	}
+
+	/**
+	 * Removes a nonogram from a course by atomically replacing the current
+	 * index.
+	 * 
+	 * @param courseName
+	 *            name of course
+	 * @param nonogramName
+	 *            name of nonogram
+	 * @return true, if nonogram was found and removed
+	 */
+	static boolean removeNonogram(String courseName, String nonogramName) {
+
+		CourseIndex current;
+		CourseIndex updated;
+		do {
+			current = courseIndex.get();
+			updated = current.withoutNonogram(courseName, nonogramName);
+			if (updated == current) {
+				return false;
+			}
+		} while (!courseIndex.compareAndSet(current, updated));
+
+		return true;
 	}
 
 	public NonoServer(Context parentContext) {
 		super(parentContext);
 	}
 
+	/**
+	 * Attaches a resource to a router, so that all requests handled by it are
+	 * recorded in the request metrics.
+	 * 
+	 * @param router
+	 *            router to attach resource to
+	 * @param pathTemplate
+	 *            path template of route
+	 * @param targetClass
+	 *            resource handling requests for route
+	 */
+	private void attachMeasured(Router router, String pathTemplate,
+			Class<? extends ServerResource> targetClass) {
+
+		MetricsFilter filter = new MetricsFilter(getContext(), pathTemplate);
+		filter.setNext(targetClass);
+		router.attach(pathTemplate, filter);
+	}
+
+	/**
+	 * Attaches the route for courses with metrics collection. Requests with
+	 * the query parameter "nonograms" are answered by {@link CourseResource}
+	 * with all nonograms of the course, all other requests by
+	 * {@link NonogramListResource}. A query is used instead of a path segment,
+	 * so that no nonogram name is shadowed by the batch request.
+	 * 
+	 * @param router
+	 *            router to attach the route to
+	 * @param pathTemplate
+	 *            URI template of the route
+	 */
+	private void attachCourse(Router router, String pathTemplate) {
+
+		MetricsFilter filter = new MetricsFilter(getContext(), pathTemplate);
+		filter.setNext(new Finder(getContext(), NonogramListResource.class) {
+			@Override
+			public ServerResource find(Request request, Response response) {
+
+				if (request.getResourceRef().getQueryAsForm()
+						.getFirst(CourseResource.BATCH_PARAMETER) != null) {
+					return create(CourseResource.class, request, response);
+				}
+				return super.find(request, response);
+			}
+		});
+		router.attach(pathTemplate, filter);
+	}
+
 	/**
 	 * The Restlet instance that will call the correct resource depending up on
 	 * URL mapped to it.
@@ -166,12 +401,15 @@ public class NonoServer extends Application {
 		// NonogramListResource(courseList);
 		// NonogramResource nonogramResource = new NonogramResource(courseList);
 
-		router.attach("/courseList", CourseListResource.class);
-		router.attach("/{course}/nonogramList", NonogramListResource.class);
-		router.attach("/{course}", NonogramListResource.class);
-		router.attach("/seed", RandomNonogramResource.class);
-		router.attach("/seed/{seed}", RandomNonogramResource.class);
-		router.attach("/{course}/{nonogram}", NonogramResource.class);
+		// seed routes have to be attached before course routes matching them
+		router.attach("/metrics", MetricsResource.class);
+		attachMeasured(router, "/courseList", CourseListResource.class);
+		attachMeasured(router, "/seed", RandomNonogramResource.class);
+		attachMeasured(router, "/seed/{seed}", RandomNonogramResource.class);
+		attachMeasured(router, "/{course}/nonogramList",
+				NonogramListResource.class);
+		attachCourse(router, "/{course}");
+		attachMeasured(router, "/{course}/{nonogram}", NonogramResource.class);
 
 		Restlet helppage = new Restlet() {
 			@Override
@@ -189,12 +427,16 @@ public class NonoServer extends Application {
 						.append("<ol><li>/courseList --> returns a list of all available courses.</li>");
 				stringBuilder
 						.append("<li>/{course}/ --> returns a list of all nonograms for the given course.</li>");
+				stringBuilder
+						.append("<li>/{course}?nonograms --> returns all nonograms of a course at once.</li>");
 				stringBuilder
 						.append("<li>/{course}/{nonogram} --> returns the given nonogram from a course.</li>");
 				stringBuilder
 						.append("<li>/{course}/random --> returns a randomly chosen nonogram in each course.</li>");
 				stringBuilder
 						.append("<li>/seed/{seed} --> returns a randomly generated nonogram by seed.</li>");
+				stringBuilder
+						.append("<li>/metrics --> returns request counters and latencies of all routes.</li>");
 				stringBuilder.append("<li>/ --> returns this help page.</li>");
 				stringBuilder.append("</ol>");
 				stringBuilder.append("</td>");
@@ -17,16 +17,18 @@
  *****************************************************************************/
 package org.freenono.nonoserver;
 
-import java.util.List;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.log4j.Logger;
 import org.freenono.model.data.Course;
 import org.freenono.model.data.Nonogram;
+import org.freenono.nonoserver.ResponseCache.CachedResponse;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
-import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.Delete;
 import org.restlet.resource.Get;
 import org.restlet.resource.Post;
@@ -40,9 +42,16 @@ import org.restlet.resource.ServerResource;
  */
 public class NonogramListResource extends ServerResource {
 
-	//private static Logger logger = Logger.getLogger(NonogramListResource.class);
+	private static Logger logger = Logger.getLogger(NonogramListResource.class);
 
-	private List<Course> courseList = NonoServer.courseList;
+	private static final String CACHE_KEY_PREFIX = "nonogramList/";
+
+	@Override
+	protected void doInit() {
+
+		// conditional requests are answered by the response cache
+		setConditional(false);
+	}
 
 	@Get
 	public void handleGet(Request request, Response response) {
@@ -51,35 +60,46 @@ public class NonogramListResource extends ServerResource {
 				.getAttributes().get("course"));
 
 		String result = null;
-		Course pickedCourse = null;
 
 		// find course the user is searching for
-		for (Course c : courseList) {
-			if (c.getName().equals(courseName)) {
-				
-				pickedCourse = c;
-			}
-		}
+		CourseIndex courseIndex = NonoServer.getCourseIndex();
+		Course pickedCourse = courseIndex.getCourse(courseName);
 
 		if (pickedCourse != null) {
 
-			// build response
-			StringBuilder stringBuilder = new StringBuilder();
-			stringBuilder
-					.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
-			stringBuilder.append("<FreeNono>");
-			stringBuilder.append("<Nonograms>");
-			for (Nonogram n : pickedCourse.getNonograms()) {
-				stringBuilder.append("<Nonogram name=\"" + n.getName()
-						+ "\" />");
+			ResponseCache responseCache = NonoServer.getResponseCache();
+			String cacheKey = CACHE_KEY_PREFIX + courseName;
+			CachedResponse cachedResponse = responseCache.get(courseIndex,
+					cacheKey);
+
+			if (cachedResponse == null) {
+
+				// build response
+				StringBuilder stringBuilder = new StringBuilder();
+				stringBuilder
+						.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+				stringBuilder.append("<FreeNono>");
+				stringBuilder.append("<Nonograms>");
+				for (Nonogram n : pickedCourse.getNonograms()) {
+					stringBuilder.append("<Nonogram name=\"" + n.getName()
+							+ "\" />");
+				}
+				stringBuilder.append("</Nonograms>");
+				stringBuilder.append("</FreeNono>");
+
+				try {
+					cachedResponse = responseCache.put(courseIndex, cacheKey,
+							stringBuilder.toString().getBytes(
+									StandardCharsets.UTF_8),
+							MediaType.TEXT_XML);
+				} catch (IOException e) {
+					logger.error("Could not encode nonogram list.");
+					getResponse().setStatus(Status.SERVER_ERROR_INTERNAL);
+					return;
+				}
 			}
-			stringBuilder.append("</Nonograms>");
-			stringBuilder.append("</FreeNono>");
 
-			getResponse().setEntity(
-					new StringRepresentation(stringBuilder.toString(),
-							MediaType.TEXT_XML));
-			getResponse().setStatus(Status.SUCCESS_OK);
+			cachedResponse.writeTo(getRequest(), getResponse());
 		} else {
 			
 			result = "<html><body>Course \"" + courseName
@@ -20,12 +20,10 @@ package org.freenono.nonoserver;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.apache.log4j.Logger;
-import org.freenono.model.data.Course;
 import org.freenono.model.data.Nonogram;
+import org.freenono.nonoserver.ResponseCache.CachedResponse;
 import org.freenono.serializer.data.NonogramFormatException;
 import org.freenono.serializer.data.XMLNonogramSerializer;
 import org.restlet.data.MediaType;
@@ -42,54 +40,55 @@ public class NonogramResource extends ServerResource {
 
 	private static Logger logger = Logger.getLogger(NonogramResource.class);
 
-	private List<Course> courseList = NonoServer.courseList;
+	private static final String CACHE_KEY_PREFIX = "nonogram/";
+
+	@Override
+	protected void doInit() {
+
+		// conditional requests are answered by the response cache
+		setConditional(false);
+	}
 
 	@Get
 	public void handleGet() {
 
-		String result = null;
 		String courseName = Reference.decode((String) getRequest()
 				.getAttributes().get("course"));
 		String nonogramName = Reference.decode((String) getRequest()
 				.getAttributes().get("nonogram"));
 
-		Course pickedCourse = null;
-		Nonogram pickedNonogram = null;
+		// find nonogram the user is looking for by its name or hash
+		CourseIndex courseIndex = NonoServer.getCourseIndex();
+		Nonogram pickedNonogram = courseIndex.getNonogram(courseName,
+				nonogramName);
 
-		// find course the user is looking for
-		for (Course c : courseList) {
-			if (c.getName().equals(courseName))
-				pickedCourse = c;
-		}
+		// if entered nanogram in course exists...
+		if (pickedNonogram != null) {
 
-		// if entered course exists...
-		if (pickedCourse != null) {
-			// ...find nonogram the user is looking for
-			for (Nonogram n : pickedCourse.getNonograms()) {
-				if (n.getName().equals(nonogramName))
-					pickedNonogram = n;
-			}
+			ResponseCache responseCache = NonoServer.getResponseCache();
+			String cacheKey = CACHE_KEY_PREFIX + courseName + "/"
+					+ pickedNonogram.getHash();
+			CachedResponse cachedResponse = responseCache.get(courseIndex,
+					cacheKey);
 
-			// if entered nanogram in course exists...
-			if (pickedNonogram != null) {
+			if (cachedResponse == null) {
 				// ...serialize picked nonogram
 				XMLNonogramSerializer ns = new XMLNonogramSerializer();
 				ByteArrayOutputStream baos = new ByteArrayOutputStream();
 				try {
 					ns.save(baos, pickedNonogram);
-				} catch (NullPointerException e) {
-					logger.error("Null pointer encountered during nonogram serializing.");
+					cachedResponse = responseCache.put(courseIndex, cacheKey,
+							baos.toByteArray(), MediaType.TEXT_XML);
 				} catch (IOException e) {
 					logger.error("Could not write serialized nonogram to output stream.");
+					getResponse().setStatus(Status.SERVER_ERROR_INTERNAL);
+					return;
 				}
-
-				result = baos.toString();
-
-				getResponse().setEntity(result, MediaType.TEXT_XML);
-				getResponse().setStatus(Status.SUCCESS_OK);
-			} else {
-				getResponse().setStatus(Status.CLIENT_ERROR_NOT_FOUND);
 			}
+
+			cachedResponse.writeTo(getRequest(), getResponse());
+		} else {
+			getResponse().setStatus(Status.CLIENT_ERROR_NOT_FOUND);
 		}
 	}
 
@@ -101,7 +100,6 @@ public class NonogramResource extends ServerResource {
 	@Put
 	public void handlePut(Representation nonogramStream) {
 
-		Course pickedCourse = null;
 		Nonogram result[] = null;
 
 		String courseName = Reference.decode((String) getRequest()
@@ -125,24 +123,8 @@ public class NonogramResource extends ServerResource {
 
 			logger.debug("Adding new nonogram to server repo.");
 
-			// find course the user is looking for
-			for (Course c : courseList) {
-				if (c.getName().equals(courseName))
-					pickedCourse = c;
-			}
-
-			// if course does not yet exists...
-			if (pickedCourse == null) {
-
-				// ...create course and add nonogram
-				List<Nonogram> newList = new ArrayList<Nonogram>();
-				newList.add(result[0]);
-				courseList.add(new Course(courseName, newList));
-			} else {
-
-				// ...or simply add nonogram to existing course
-				pickedCourse.addNonogram(result[0]);
-			}
+			// add nonogram to course or create course if it does not yet exist
+			NonoServer.addNonogram(courseName, result[0]);
 
 			// save new nonogram to file
 			try {
@@ -166,26 +148,11 @@ public class NonogramResource extends ServerResource {
 		String nonogramName = Reference.decode((String) getRequest()
 				.getAttributes().get("nonogram"));
 
-		Course pickedCourse = null;
-		Nonogram pickedNonogram = null;
-
-		// find course the user is looking for
-		for (Course c : courseList) {
-			if (c.getName().equals(courseName))
-				pickedCourse = c;
-		}
-
-		// if entered course exists...
-		if (pickedCourse != null) {
-			// ...find nonogram the user is looking for
-			for (Nonogram n : pickedCourse.getNonograms()) {
-				if (n.getName().equals(nonogramName))
-					pickedNonogram = n;
-			}
-		}
-
 		// delete nonogram from course
-		pickedCourse.removeNonogram(pickedNonogram);
+		if (!NonoServer.removeNonogram(courseName, nonogramName)) {
+			getResponse().setStatus(Status.CLIENT_ERROR_NOT_FOUND);
+			return;
+		}
 
 		// delete nonogram from file system
 		File nonogramFile = new File(new File(new File(
@@ -17,9 +17,21 @@
  *****************************************************************************/
 package org.freenono.nonoserver;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.apache.log4j.Logger;
+import org.freenono.generator.SeedNonogramGenerator;
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
+import org.freenono.model.data.Nonogram;
+import org.freenono.nonoserver.ResponseCache.CachedResponse;
+import org.freenono.serializer.data.XMLNonogramSerializer;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
 import org.restlet.data.Status;
 import org.restlet.resource.Delete;
 import org.restlet.resource.Get;
@@ -27,16 +39,88 @@ import org.restlet.resource.Post;
 import org.restlet.resource.Put;
 import org.restlet.resource.ServerResource;
 
+/**
+ * Returns a nonogram generated from a seed. The same seed always results in
+ * the same nonogram as generated by FreeNono itself. The type of the random
+ * nonogram can be chosen by the query parameter "type", e.g.
+ * "/seed/FreeNono?type=CIRCLES".
+ * <p>
+ * Nonograms for given seeds are cached, so that popular seeds are generated
+ * only once. Their encoded responses are cached as well. If no seed is given,
+ * a nonogram for a new random seed is generated and not cached.
+ * 
+ * @author Christian Wichmann
+ */
 public class RandomNonogramResource extends ServerResource {
 
+	private static Logger logger = Logger
+			.getLogger(RandomNonogramResource.class);
+
+	private static final String CACHE_KEY_PREFIX = "seed/";
+
+	@Override
+	protected void doInit() {
+
+		// conditional requests are answered by the response cache
+		setConditional(false);
+	}
+
 	@Get
 	public void handleGet(Request request, Response response) {
 
 		String seed = (String) getRequest().getAttributes().get("seed");
-		getResponse().setEntity("Random nonogram with seed: " + seed,
-				MediaType.TEXT_PLAIN);
-		getResponse().setStatus(Status.SUCCESS_OK);
+		String typeName = getQuery().getFirstValue("type",
+				RandomTypes.DEFAULT.name());
+
+		RandomTypes type;
+		try {
+			type = RandomTypes.valueOf(typeName.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			getResponse().setEntity("Unknown type of random nonogram: "
+					+ typeName, MediaType.TEXT_PLAIN);
+			getResponse().setStatus(Status.CLIENT_ERROR_BAD_REQUEST);
+			return;
+		}
+
+		CourseIndex courseIndex = NonoServer.getCourseIndex();
+		ResponseCache responseCache = NonoServer.getResponseCache();
+		String cacheKey = null;
+		CachedResponse cachedResponse = null;
+
+		Nonogram nonogram;
+		if (seed == null) {
+			nonogram = SeedNonogramGenerator.generate(UUID.randomUUID()
+					.toString(), type);
+		} else {
+			String decodedSeed = Reference.decode(seed);
+			cacheKey = CACHE_KEY_PREFIX + type.name() + ":" + decodedSeed;
+			cachedResponse = responseCache.get(courseIndex, cacheKey);
+			if (cachedResponse != null) {
+				cachedResponse.writeTo(getRequest(), getResponse());
+				return;
+			}
+			nonogram = NonoServer.getSeedNonogramCache().get(decodedSeed,
+					type);
+		}
+
+		XMLNonogramSerializer ns = new XMLNonogramSerializer();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try {
+			ns.save(baos, nonogram);
+			if (cacheKey != null) {
+				cachedResponse = responseCache.put(courseIndex, cacheKey,
+						baos.toByteArray(), MediaType.TEXT_XML);
+			} else {
+				cachedResponse = ResponseCache.encode(baos.toByteArray(),
+						MediaType.TEXT_XML);
+			}
+		} catch (IOException e) {
+			logger.error("Could not write serialized nonogram to output stream.");
+			getResponse().setStatus(Status.SERVER_ERROR_INTERNAL);
+			return;
+		}
 
+		cachedResponse.writeTo(getRequest(), getResponse());
 	}
 
 	@Post
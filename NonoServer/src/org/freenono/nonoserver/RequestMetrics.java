@@ -0,0 +1,200 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts requests and their latencies for every route of the server. The
+ * latencies are collected in histograms with fixed buckets, so recording a
+ * request needs no locking and constant memory.
+ * <p>
+ * All values can be written in the text format used by Prometheus, so that
+ * they can be read by monitoring tools as well as by humans.
+ * 
+ * @author Christian Wichmann
+ */
+public final class RequestMetrics {
+
+	/**
+	 * Upper bounds of histogram buckets in milliseconds. A last bucket
+	 * without upper bound is added implicitly.
+	 */
+	private static final double[] BUCKET_BOUNDS = { 0.5, 1, 2, 5, 10, 25,
+			50, 100, 250, 500, 1000, 2500, 5000 };
+
+	private static final double NANOSECONDS_PER_MILLISECOND = 1000000.0;
+
+	private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<String, RouteMetrics>();
+
+	/**
+	 * Counters and latency histogram of a single route.
+	 */
+	private static final class RouteMetrics {
+
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final AtomicLong latencySum = new AtomicLong();
+		private final AtomicLongArray buckets = new AtomicLongArray(
+				BUCKET_BOUNDS.length + 1);
+
+		private void record(long latency, boolean error) {
+
+			requests.incrementAndGet();
+			if (error) {
+				errors.incrementAndGet();
+			}
+			latencySum.addAndGet(latency);
+
+			double milliseconds = latency / NANOSECONDS_PER_MILLISECOND;
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length
+					&& milliseconds > BUCKET_BOUNDS[bucket]) {
+				bucket++;
+			}
+			buckets.incrementAndGet(bucket);
+		}
+	}
+
+	/**
+	 * Records a handled request.
+	 * 
+	 * @param route
+	 *            path template of route that handled request
+	 * @param latency
+	 *            time needed to handle request in nanoseconds
+	 * @param error
+	 *            true, if request was answered with an error status
+	 */
+	public void record(String route, long latency, boolean error) {
+
+		RouteMetrics metrics = routes.get(route);
+		if (metrics == null) {
+			RouteMetrics newMetrics = new RouteMetrics();
+			metrics = routes.putIfAbsent(route, newMetrics);
+			if (metrics == null) {
+				metrics = newMetrics;
+			}
+		}
+		metrics.record(latency, error);
+	}
+
+	/**
+	 * Gets number of requests handled by a route.
+	 * 
+	 * @param route
+	 *            path template of route
+	 * @return number of requests
+	 */
+	public long getRequests(String route) {
+
+		RouteMetrics metrics = routes.get(route);
+		return metrics == null ? 0 : metrics.requests.get();
+	}
+
+	/**
+	 * Writes all counters and histograms in the Prometheus text format.
+	 * Histogram buckets are cumulative like Prometheus expects them.
+	 * 
+	 * @return metrics of all routes as text
+	 */
+	public String format() {
+
+		List<String> routeNames = new ArrayList<String>(routes.keySet());
+		Collections.sort(routeNames);
+
+		StringBuilder stringBuilder = new StringBuilder();
+
+		stringBuilder
+				.append("# HELP nonoserver_requests_total Handled requests per route.\n");
+		stringBuilder.append("# TYPE nonoserver_requests_total counter\n");
+		for (String route : routeNames) {
+			appendSample(stringBuilder, "nonoserver_requests_total", route,
+					null, routes.get(route).requests.get());
+		}
+
+		stringBuilder
+				.append("# HELP nonoserver_request_errors_total Requests per route answered with an error status.\n");
+		stringBuilder
+				.append("# TYPE nonoserver_request_errors_total counter\n");
+		for (String route : routeNames) {
+			appendSample(stringBuilder, "nonoserver_request_errors_total",
+					route, null, routes.get(route).errors.get());
+		}
+
+		stringBuilder
+				.append("# HELP nonoserver_request_duration_milliseconds Latency of requests per route.\n");
+		stringBuilder
+				.append("# TYPE nonoserver_request_duration_milliseconds histogram\n");
+		for (String route : routeNames) {
+			RouteMetrics metrics = routes.get(route);
+
+			long cumulated = 0;
+			for (int i = 0; i <= BUCKET_BOUNDS.length; i++) {
+				cumulated += metrics.buckets.get(i);
+				String bound = i < BUCKET_BOUNDS.length ? formatNumber(BUCKET_BOUNDS[i])
+						: "+Inf";
+				appendSample(stringBuilder,
+						"nonoserver_request_duration_milliseconds_bucket",
+						route, bound, cumulated);
+			}
+			stringBuilder
+					.append("nonoserver_request_duration_milliseconds_sum{route=\"");
+			stringBuilder.append(route);
+			stringBuilder.append("\"} ");
+			stringBuilder.append(formatNumber(metrics.latencySum.get()
+					/ NANOSECONDS_PER_MILLISECOND));
+			stringBuilder.append('\n');
+			appendSample(stringBuilder,
+					"nonoserver_request_duration_milliseconds_count", route,
+					null, cumulated);
+		}
+
+		return stringBuilder.toString();
+	}
+
+	private static void appendSample(StringBuilder stringBuilder,
+			String name, String route, String bound, long value) {
+
+		stringBuilder.append(name);
+		stringBuilder.append("{route=\"");
+		stringBuilder.append(route);
+		if (bound != null) {
+			stringBuilder.append("\",le=\"");
+			stringBuilder.append(bound);
+		}
+		stringBuilder.append("\"} ");
+		stringBuilder.append(value);
+		stringBuilder.append('\n');
+	}
+
+	private static String formatNumber(double value) {
+
+		if (value == Math.rint(value)) {
+			return String.valueOf((long) value);
+		}
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+}
@@ -0,0 +1,368 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
+import org.restlet.data.MediaType;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.Representation;
+
+/**
+ * Cache for responses of NonoServer resources. For every resource the encoded
+ * payload is stored once as plain bytes and once compressed with gzip
+ * together with a strong entity tag and a modification date. Conditional
+ * requests are answered with "304 Not Modified" if the client already has the
+ * current payload.
+ * <p>
+ * All cached responses belong to the course index they were built from. When
+ * the index in NonoServer is replaced, all cached responses are dropped.
+ * Requests that still use a replaced index are answered without caching, so
+ * that they can not bring back responses of an old index.
+ * 
+ * @author Christian Wichmann
+ */
+public final class ResponseCache {
+
+	private static Logger logger = Logger.getLogger(ResponseCache.class);
+
+	/**
+	 * Default maximum number of cached responses.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 50000;
+
+	private static final String GZIP_TAG_SUFFIX = "-gzip";
+	private static final long MILLISECONDS_PER_SECOND = 1000L;
+
+	private final int maxEntries;
+	private final AtomicReference<CourseIndex> currentIndex;
+	private final AtomicReference<Generation> generation = new AtomicReference<Generation>();
+
+	/**
+	 * Cached responses for one course index.
+	 */
+	private static final class Generation {
+
+		private final CourseIndex courseIndex;
+		private final Date lastModified;
+		private final Map<String, CachedResponse> responses;
+
+		private Generation(CourseIndex courseIndex, final int maxEntries) {
+
+			this.courseIndex = courseIndex;
+
+			// HTTP dates only have a precision of seconds
+			long now = System.currentTimeMillis();
+			this.lastModified = new Date(now - now % MILLISECONDS_PER_SECOND);
+
+			this.responses = new LinkedHashMap<String, CachedResponse>(16,
+					0.75f, true) {
+
+				private static final long serialVersionUID = -2453787093611045962L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<String, CachedResponse> eldest) {
+					return size() > maxEntries;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Pre-encoded response for a single resource.
+	 */
+	public static final class CachedResponse {
+
+		private final byte[] plain;
+		private final byte[] gzip;
+		private final MediaType mediaType;
+		private final Tag plainTag;
+		private final Tag gzipTag;
+		private final Date lastModified;
+
+		private CachedResponse(byte[] plain, MediaType mediaType,
+				Date lastModified) throws IOException {
+
+			this.plain = plain;
+			this.gzip = compress(plain);
+			this.mediaType = mediaType;
+			this.lastModified = lastModified;
+
+			String hash = hash(plain);
+			this.plainTag = new Tag(hash, false);
+			this.gzipTag = new Tag(hash + GZIP_TAG_SUFFIX, false);
+		}
+
+		/**
+		 * Sets this response on the given response object. If the conditions
+		 * of the request are not met, only the according status is set.
+		 * Otherwise the payload is compressed with gzip when the client
+		 * accepts it.
+		 * 
+		 * @param request
+		 *            request to answer
+		 * @param response
+		 *            response to fill
+		 */
+		public void writeTo(Request request, Response response) {
+
+			boolean useGzip = acceptsGzip(request);
+			Tag tag = useGzip ? gzipTag : plainTag;
+
+			// payload differs depending on accepted encodings of client
+			response.getDimensions().add(Dimension.ENCODING);
+
+			Status status = request.getConditions().getStatus(
+					request.getMethod(), true, tag, lastModified);
+
+			if (status != null) {
+				response.setStatus(status);
+				if (Status.REDIRECTION_NOT_MODIFIED.equals(status)) {
+					Representation empty = new EmptyRepresentation();
+					empty.setTag(tag);
+					empty.setModificationDate(lastModified);
+					response.setEntity(empty);
+				}
+				return;
+			}
+
+			ByteArrayRepresentation representation = new ByteArrayRepresentation(
+					useGzip ? gzip : plain, mediaType);
+			representation.setCharacterSet(CharacterSet.UTF_8);
+			if (useGzip) {
+				representation.getEncodings().add(Encoding.GZIP);
+			}
+			representation.setTag(tag);
+			representation.setModificationDate(lastModified);
+
+			response.setEntity(representation);
+			response.setStatus(Status.SUCCESS_OK);
+		}
+
+		/**
+		 * Returns the uncompressed payload of this response.
+		 * 
+		 * @return uncompressed payload
+		 */
+		public byte[] getPayload() {
+
+			return plain.clone();
+		}
+	}
+
+	/**
+	 * Creates a new response cache with default size.
+	 * 
+	 * @param currentIndex
+	 *            reference to the current course index
+	 */
+	public ResponseCache(AtomicReference<CourseIndex> currentIndex) {
+
+		this(currentIndex, DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a new response cache.
+	 * 
+	 * @param currentIndex
+	 *            reference to the current course index
+	 * @param maxEntries
+	 *            maximum number of cached responses for one course index
+	 */
+	public ResponseCache(AtomicReference<CourseIndex> currentIndex,
+			int maxEntries) {
+
+		this.currentIndex = currentIndex;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Gets a cached response for a resource.
+	 * 
+	 * @param courseIndex
+	 *            course index the resource was built from
+	 * @param key
+	 *            key identifying the resource
+	 * @return cached response or null if response is not cached
+	 */
+	public CachedResponse get(CourseIndex courseIndex, String key) {
+
+		Generation current = getGeneration(courseIndex);
+		synchronized (current.responses) {
+			return current.responses.get(key);
+		}
+	}
+
+	/**
+	 * Encodes a payload and stores it in the cache.
+	 * 
+	 * @param courseIndex
+	 *            course index the payload was built from
+	 * @param key
+	 *            key identifying the resource
+	 * @param payload
+	 *            uncompressed payload, it must not be changed afterwards
+	 * @param mediaType
+	 *            media type of payload
+	 * @return cached response
+	 * @throws IOException
+	 *             if payload could not be compressed
+	 */
+	public CachedResponse put(CourseIndex courseIndex, String key,
+			byte[] payload, MediaType mediaType) throws IOException {
+
+		Generation current = getGeneration(courseIndex);
+		CachedResponse response = new CachedResponse(payload, mediaType,
+				current.lastModified);
+		synchronized (current.responses) {
+			current.responses.put(key, response);
+		}
+		return response;
+	}
+
+	/**
+	 * Encodes a payload without storing it in the cache. This is used for
+	 * responses that are not worth caching but should be answered the same
+	 * way as cached ones.
+	 * 
+	 * @param payload
+	 *            uncompressed payload, it must not be changed afterwards
+	 * @param mediaType
+	 *            media type of payload
+	 * @return encoded response
+	 * @throws IOException
+	 *             if payload could not be compressed
+	 */
+	public static CachedResponse encode(byte[] payload, MediaType mediaType)
+			throws IOException {
+
+		long now = System.currentTimeMillis();
+		return new CachedResponse(payload, mediaType, new Date(now - now
+				% MILLISECONDS_PER_SECOND));
+	}
+
+	/**
+	 * Gets the generation of cached responses for a course index. If the
+	 * course index was replaced, a new empty generation is started. A new
+	 * generation is only installed while its course index is still the
+	 * current one, otherwise a detached generation is returned that is
+	 * dropped after the request.
+	 * 
+	 * @param courseIndex
+	 *            course index of the request
+	 * @return generation for course index
+	 */
+	private Generation getGeneration(CourseIndex courseIndex) {
+
+		Generation current = generation.get();
+		while (current == null || current.courseIndex != courseIndex) {
+			Generation next = new Generation(courseIndex, maxEntries);
+			if (currentIndex.get() != courseIndex) {
+				// request was started before the course index was replaced
+				return next;
+			}
+			if (generation.compareAndSet(current, next)) {
+				logger.debug("Course index changed, dropped all cached responses.");
+				return next;
+			}
+			current = generation.get();
+		}
+		return current;
+	}
+
+	/**
+	 * Checks whether a client accepts gzip compressed responses.
+	 * 
+	 * @param request
+	 *            request of client
+	 * @return true, if client accepts gzip
+	 */
+	private static boolean acceptsGzip(Request request) {
+
+		for (Preference<Encoding> p : request.getClientInfo()
+				.getAcceptedEncodings()) {
+			if (Encoding.GZIP.equals(p.getMetadata()) && p.getQuality() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Compresses a payload with gzip.
+	 * 
+	 * @param payload
+	 *            payload to compress
+	 * @return compressed payload
+	 * @throws IOException
+	 *             if payload could not be compressed
+	 */
+	private static byte[] compress(byte[] payload) throws IOException {
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(
+				payload.length / 2 + 32);
+		GZIPOutputStream gzip = new GZIPOutputStream(baos);
+		try {
+			gzip.write(payload);
+		} finally {
+			gzip.close();
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Calculates a hash of a payload to be used as entity tag.
+	 * 
+	 * @param payload
+	 *            payload to hash
+	 * @return hash as hex string
+	 */
+	private static String hash(byte[] payload) {
+
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(payload);
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(String.format("%02x", b & 0xFF));
+			}
+			return sb.toString();
+
+		} catch (NoSuchAlgorithmException e) {
+			throw new UnsupportedOperationException(
+					"MD5 digest not available", e);
+		}
+	}
+}
@@ -0,0 +1,130 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.freenono.generator.SeedNonogramGenerator;
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Bounded cache of nonograms generated from seeds. The least recently used
+ * nonogram is dropped when the cache is full. Concurrent requests for the same
+ * seed wait for a single generation, so that each seed is only generated once
+ * as long as it stays in the cache.
+ * <p>
+ * Cached nonograms are shared between all requests and must not be changed.
+ * 
+ * @author Christian Wichmann
+ */
+public final class SeedNonogramCache {
+
+	/**
+	 * Default maximum number of cached nonograms.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+	private final Map<String, FutureTask<Nonogram>> nonograms;
+
+	/**
+	 * Creates a new cache with default size.
+	 */
+	public SeedNonogramCache() {
+
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * 
+	 * @param maxEntries
+	 *            maximum number of cached nonograms
+	 */
+	public SeedNonogramCache(final int maxEntries) {
+
+		nonograms = new LinkedHashMap<String, FutureTask<Nonogram>>(16, 0.75f,
+				true) {
+
+			private static final long serialVersionUID = 5283047616318125405L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, FutureTask<Nonogram>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Gets the nonogram for a seed. If it is not yet cached, it is generated.
+	 * 
+	 * @param seed
+	 *            seed of nonogram
+	 * @param type
+	 *            type of random nonogram
+	 * @return nonogram generated from seed
+	 */
+	public Nonogram get(final String seed, final RandomTypes type) {
+
+		String key = type.name() + ":" + seed;
+		FutureTask<Nonogram> task;
+		boolean generate = false;
+
+		synchronized (nonograms) {
+			task = nonograms.get(key);
+			if (task == null) {
+				task = new FutureTask<Nonogram>(new Callable<Nonogram>() {
+					@Override
+					public Nonogram call() {
+						return SeedNonogramGenerator.generate(seed, type);
+					}
+				});
+				nonograms.put(key, task);
+				generate = true;
+			}
+		}
+
+		// generate outside of lock so that other seeds are not blocked
+		if (generate) {
+			task.run();
+		}
+
+		try {
+			return task.get();
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while waiting for nonogram generation.", e);
+
+		} catch (ExecutionException e) {
+			synchronized (nonograms) {
+				if (nonograms.get(key) == task) {
+					nonograms.remove(key);
+				}
+			}
+			throw new IllegalStateException("Could not generate nonogram.",
+					e.getCause());
+		}
+	}
+}
@@ -0,0 +1,280 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver.loadtest;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.nonoserver.NonoServer;
+import org.freenono.nonoserver.loadtest.RequestMix.RequestType;
+import org.restlet.Component;
+import org.restlet.data.Protocol;
+
+/**
+ * Generates load on a NonoServer and reports throughput and latency
+ * percentiles for every type of request. The server can either be started
+ * locally in the same process or be given by its address.
+ * <p>
+ * Options are given as "--name=value":
+ * <ul>
+ * <li>--server: address of server, default "http://localhost:6666"</li>
+ * <li>--start: start a NonoServer on the port of the given address, it
+ * serves the courses in "./nonograms"</li>
+ * <li>--concurrency: number of concurrent clients, default 16</li>
+ * <li>--duration: measured time in seconds, default 30</li>
+ * <li>--warmup: time in seconds before measuring starts, default 5</li>
+ * <li>--mix: relative frequency of requests, default
+ * "courseList:5,course:15,nonogram:65,seed:15"</li>
+ * <li>--seeds: number of different seeds requested, default 1000</li>
+ * </ul>
+ * The server itself counts requests per route, its histograms can be read
+ * from "/metrics" after the test.
+ * 
+ * @author Christian Wichmann
+ */
+public final class LoadTest {
+
+	private static final String DEFAULT_SERVER = "http://localhost:6666";
+	private static final int DEFAULT_CONCURRENCY = 16;
+	private static final int DEFAULT_DURATION = 30;
+	private static final int DEFAULT_WARMUP = 5;
+	private static final String DEFAULT_MIX = "courseList:5,course:15,nonogram:65,seed:15";
+	private static final int DEFAULT_SEEDS = 1000;
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+	private static final double NANOSECONDS_PER_MILLISECOND = 1000000.0;
+
+	private LoadTest() {
+	}
+
+	/**
+	 * Runs a load test.
+	 * 
+	 * @param args
+	 *            options of load test
+	 * @throws Exception
+	 *             if server could not be started or reached
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Map<String, String> options = parseOptions(args);
+
+		String server = getOption(options, "server", DEFAULT_SERVER);
+		if (server.endsWith("/")) {
+			server = server.substring(0, server.length() - 1);
+		}
+		int concurrency = Integer.parseInt(getOption(options, "concurrency",
+				String.valueOf(DEFAULT_CONCURRENCY)));
+		int duration = Integer.parseInt(getOption(options, "duration",
+				String.valueOf(DEFAULT_DURATION)));
+		int warmup = Integer.parseInt(getOption(options, "warmup",
+				String.valueOf(DEFAULT_WARMUP)));
+		int seeds = Integer.parseInt(getOption(options, "seeds",
+				String.valueOf(DEFAULT_SEEDS)));
+		Map<RequestType, Integer> weights = parseMix(getOption(options,
+				"mix", DEFAULT_MIX));
+
+		Component component = null;
+		if (options.containsKey("start")) {
+			component = new Component();
+			component.getServers().add(Protocol.HTTP,
+					new URL(server).getPort());
+			component.getDefaultHost().attach("", new NonoServer());
+			component.start();
+		}
+
+		try {
+			RequestMix requestMix = new RequestMix(server, weights, seeds);
+
+			System.out.println(String.format(Locale.ROOT,
+					"Testing %s with %d clients for %d s after %d s warmup, %d courses.",
+					server, concurrency, duration, warmup,
+					requestMix.getCourseCount()));
+
+			long start = System.nanoTime();
+			long warmupEnd = start + TimeUnit.SECONDS.toNanos(warmup);
+			long end = warmupEnd + TimeUnit.SECONDS.toNanos(duration);
+
+			List<LoadWorker> workers = new ArrayList<LoadWorker>();
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < concurrency; i++) {
+				LoadWorker worker = new LoadWorker(requestMix, i, warmupEnd,
+						end);
+				Thread thread = new Thread(worker, "LoadWorker " + i);
+				workers.add(worker);
+				threads.add(thread);
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+
+			report(workers, duration);
+
+		} finally {
+			if (component != null) {
+				component.stop();
+			}
+		}
+	}
+
+	/**
+	 * Prints number of requests, throughput and latency percentiles for every
+	 * type of request and for all requests together.
+	 */
+	private static void report(List<LoadWorker> workers, int duration) {
+
+		StringBuilder header = new StringBuilder(String.format(Locale.ROOT,
+				"%-12s %10s %10s", "request", "count", "req/s"));
+		for (double p : PERCENTILES) {
+			header.append(String.format(Locale.ROOT, " %10s", "p"
+					+ formatPercentile(p) + " ms"));
+		}
+		header.append(String.format(Locale.ROOT, " %10s", "max ms"));
+		System.out.println(header);
+
+		List<long[]> all = new ArrayList<long[]>();
+		for (RequestType type : RequestType.values()) {
+			List<long[]> parts = new ArrayList<long[]>();
+			for (LoadWorker worker : workers) {
+				parts.add(worker.getLatencies(type));
+			}
+			long[] latencies = merge(parts);
+			all.add(latencies);
+			if (latencies.length > 0) {
+				System.out.println(formatLine(type.getName(), latencies,
+						duration));
+			}
+		}
+		System.out.println(formatLine("all", merge(all), duration));
+
+		int errors = 0;
+		for (LoadWorker worker : workers) {
+			errors += worker.getErrors();
+		}
+		System.out.println("errors: " + errors);
+	}
+
+	private static String formatLine(String name, long[] latencies,
+			int duration) {
+
+		Arrays.sort(latencies);
+
+		StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+				"%-12s %10d %10.1f", name, latencies.length,
+				(double) latencies.length / duration));
+		for (double p : PERCENTILES) {
+			line.append(String.format(Locale.ROOT, " %10.2f",
+					percentile(latencies, p) / NANOSECONDS_PER_MILLISECOND));
+		}
+		line.append(String.format(Locale.ROOT, " %10.2f",
+				percentile(latencies, 100) / NANOSECONDS_PER_MILLISECOND));
+		return line.toString();
+	}
+
+	/**
+	 * Gets a percentile of sorted latencies by the nearest rank method.
+	 */
+	private static long percentile(long[] sortedLatencies, double percentile) {
+
+		if (sortedLatencies.length == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percentile / 100 * sortedLatencies.length);
+		return sortedLatencies[Math.max(rank, 1) - 1];
+	}
+
+	private static String formatPercentile(double percentile) {
+
+		if (percentile == Math.rint(percentile)) {
+			return String.valueOf((long) percentile);
+		}
+		return String.valueOf(percentile);
+	}
+
+	private static long[] merge(List<long[]> parts) {
+
+		int length = 0;
+		for (long[] part : parts) {
+			length += part.length;
+		}
+		long[] result = new long[length];
+		int position = 0;
+		for (long[] part : parts) {
+			System.arraycopy(part, 0, result, position, part.length);
+			position += part.length;
+		}
+		return result;
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+
+		Map<String, String> options = new HashMap<String, String>();
+		for (String arg : args) {
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unknown argument: " + arg);
+			}
+			int separator = arg.indexOf('=');
+			if (separator < 0) {
+				options.put(arg.substring(2), "");
+			} else {
+				options.put(arg.substring(2, separator),
+						arg.substring(separator + 1));
+			}
+		}
+		return options;
+	}
+
+	private static String getOption(Map<String, String> options, String name,
+			String defaultValue) {
+
+		String value = options.get(name);
+		return value == null || value.isEmpty() ? defaultValue : value;
+	}
+
+	/**
+	 * Parses a request mix like "courseList:5,nonogram:95".
+	 */
+	private static Map<RequestType, Integer> parseMix(String mix) {
+
+		Map<RequestType, Integer> weights = new EnumMap<RequestType, Integer>(
+				RequestType.class);
+		for (String entry : mix.split(",")) {
+			String[] parts = entry.trim().split(":");
+			RequestType type = null;
+			for (RequestType t : RequestType.values()) {
+				if (t.getName().equals(parts[0])) {
+					type = t;
+				}
+			}
+			if (type == null || parts.length != 2) {
+				throw new IllegalArgumentException("Invalid request mix: "
+						+ entry);
+			}
+			weights.put(type, Integer.parseInt(parts[1]));
+		}
+		return weights;
+	}
+}
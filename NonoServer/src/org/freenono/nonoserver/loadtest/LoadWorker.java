@@ -0,0 +1,161 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Sends requests to a NonoServer in a loop and records the latency of every
+ * request. Each worker runs in its own thread and keeps its own records, so
+ * workers do not contend with each other while measuring.
+ * 
+ * @author Christian Wichmann
+ */
+class LoadWorker implements Runnable {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final RequestMix requestMix;
+	private final Random random;
+	private final long warmupEnd;
+	private final long end;
+
+	private final long[][] latencies = new long[RequestMix.RequestType
+			.values().length][INITIAL_CAPACITY];
+	private final int[] counts = new int[RequestMix.RequestType.values().length];
+	private int errors = 0;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/**
+	 * Creates a worker.
+	 * 
+	 * @param requestMix
+	 *            mix of requests to send
+	 * @param seed
+	 *            seed for choosing requests
+	 * @param warmupEnd
+	 *            time in nanoseconds until which latencies are not recorded
+	 * @param end
+	 *            time in nanoseconds when worker stops
+	 */
+	public LoadWorker(RequestMix requestMix, long seed, long warmupEnd,
+			long end) {
+
+		this.requestMix = requestMix;
+		this.random = new Random(seed);
+		this.warmupEnd = warmupEnd;
+		this.end = end;
+	}
+
+	@Override
+	public void run() {
+
+		long now = System.nanoTime();
+		while (now < end) {
+
+			RequestMix.RequestType type = requestMix.nextType(random);
+			URL url = requestMix.nextUrl(type, random);
+
+			boolean success = request(url);
+			long finished = System.nanoTime();
+
+			if (now >= warmupEnd) {
+				if (success) {
+					record(type, finished - now);
+				} else {
+					errors++;
+				}
+			}
+			now = finished;
+		}
+	}
+
+	/**
+	 * Sends a single request and reads the whole response, so that the
+	 * connection can be reused for the next request.
+	 * 
+	 * @param url
+	 *            URL to request
+	 * @return true, if server answered with status 200
+	 */
+	private boolean request(URL url) {
+
+		HttpURLConnection connection = null;
+		try {
+			connection = (HttpURLConnection) url.openConnection();
+			int status = connection.getResponseCode();
+
+			InputStream is = status < HttpURLConnection.HTTP_BAD_REQUEST ? connection
+					.getInputStream() : connection.getErrorStream();
+			if (is != null) {
+				try {
+					while (is.read(buffer) != -1) {
+						// discard response
+					}
+				} finally {
+					is.close();
+				}
+			}
+			return status == HttpURLConnection.HTTP_OK;
+
+		} catch (IOException e) {
+			if (connection != null) {
+				connection.disconnect();
+			}
+			return false;
+		}
+	}
+
+	private void record(RequestMix.RequestType type, long latency) {
+
+		int i = type.ordinal();
+		if (counts[i] == latencies[i].length) {
+			latencies[i] = Arrays.copyOf(latencies[i], counts[i] * 2);
+		}
+		latencies[i][counts[i]++] = latency;
+	}
+
+	/**
+	 * Gets latencies of all successful requests of a type after warmup.
+	 * 
+	 * @param type
+	 *            type of request
+	 * @return latencies in nanoseconds
+	 */
+	public long[] getLatencies(RequestMix.RequestType type) {
+
+		return Arrays.copyOf(latencies[type.ordinal()], counts[type.ordinal()]);
+	}
+
+	/**
+	 * Gets number of failed requests after warmup.
+	 * 
+	 * @return number of failed requests
+	 */
+	public int getErrors() {
+
+		return errors;
+	}
+}
@@ -0,0 +1,254 @@
+/*****************************************************************************
+ * NonoServer - A FreeNono server
+ * Copyright (c) 2013 by FreeNono Development Team
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>. 
+ *****************************************************************************/
+package org.freenono.nonoserver.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Describes which requests are sent during a load test and how often each
+ * type of request is chosen. Courses and nonograms are read from the server
+ * before the test starts, so that only existing resources are requested.
+ * 
+ * @author Christian Wichmann
+ */
+class RequestMix {
+
+	/**
+	 * Types of requests that clients send to a NonoServer.
+	 */
+	public enum RequestType {
+
+		/**
+		 * Request for the list of all courses.
+		 */
+		COURSE_LIST("courseList"),
+
+		/**
+		 * Request for the list of nonograms in a course.
+		 */
+		COURSE("course"),
+
+		/**
+		 * Request for a single nonogram.
+		 */
+		NONOGRAM("nonogram"),
+
+		/**
+		 * Request for a nonogram generated from a seed.
+		 */
+		SEED("seed");
+
+		private final String name;
+
+		private RequestType(String name) {
+
+			this.name = name;
+		}
+
+		/**
+		 * Gets the name of this type as it is used on the command line.
+		 * 
+		 * @return name of type
+		 */
+		public String getName() {
+
+			return name;
+		}
+	}
+
+	private final String server;
+	private final int seeds;
+	private final Map<RequestType, Integer> weights;
+	private final int totalWeight;
+
+	private final List<String> courses = new ArrayList<String>();
+	private final List<List<String>> nonograms = new ArrayList<List<String>>();
+
+	/**
+	 * Creates a request mix and reads all courses and nonograms from server.
+	 * 
+	 * @param server
+	 *            address of server without trailing slash
+	 * @param weights
+	 *            relative frequency of every type of request
+	 * @param seeds
+	 *            number of different seeds to request, smaller numbers lead
+	 *            to more cache hits on the server
+	 * @throws IOException
+	 *             if courses could not be read from server or server has no
+	 *             nonograms
+	 */
+	public RequestMix(String server, Map<RequestType, Integer> weights,
+			int seeds) throws IOException {
+
+		this.server = server;
+		this.seeds = seeds;
+		this.weights = new EnumMap<RequestType, Integer>(weights);
+
+		int sum = 0;
+		for (int weight : weights.values()) {
+			sum += weight;
+		}
+		this.totalWeight = sum;
+
+		if (totalWeight <= 0) {
+			throw new IllegalArgumentException("No requests in mix.");
+		}
+
+		for (String course : readNames("/courseList", "Course")) {
+			List<String> names = readNames("/" + encode(course), "Nonogram");
+			if (!names.isEmpty()) {
+				courses.add(course);
+				nonograms.add(names);
+			}
+		}
+
+		if (courses.isEmpty()
+				&& (weight(RequestType.COURSE) > 0 || weight(RequestType.NONOGRAM) > 0)) {
+			throw new IOException("Server has no nonograms to request.");
+		}
+	}
+
+	private int weight(RequestType type) {
+
+		Integer weight = weights.get(type);
+		return weight == null ? 0 : weight;
+	}
+
+	/**
+	 * Chooses the type of the next request according to the weights.
+	 * 
+	 * @param random
+	 *            random generator of calling thread
+	 * @return type of request
+	 */
+	public RequestType nextType(Random random) {
+
+		int r = random.nextInt(totalWeight);
+		for (RequestType type : RequestType.values()) {
+			r -= weight(type);
+			if (r < 0) {
+				return type;
+			}
+		}
+		throw new IllegalStateException("Weights of request mix are invalid.");
+	}
+
+	/**
+	 * Chooses the URL for the next request of a type.
+	 * 
+	 * @param type
+	 *            type of request
+	 * @param random
+	 *            random generator of calling thread
+	 * @return URL to request
+	 */
+	public URL nextUrl(RequestType type, Random random) {
+
+		String path;
+		switch (type) {
+		case COURSE_LIST:
+			path = "/courseList";
+			break;
+		case COURSE:
+			path = "/" + encode(courses.get(random.nextInt(courses.size())));
+			break;
+		case NONOGRAM:
+			int course = random.nextInt(courses.size());
+			List<String> names = nonograms.get(course);
+			path = "/" + encode(courses.get(course)) + "/"
+					+ encode(names.get(random.nextInt(names.size())));
+			break;
+		case SEED:
+			path = "/seed/seed" + random.nextInt(seeds);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown request type.");
+		}
+
+		try {
+			return new URL(server + path);
+		} catch (MalformedURLException e) {
+			throw new IllegalArgumentException("Invalid server address.", e);
+		}
+	}
+
+	/**
+	 * Gets number of courses with nonograms on server.
+	 * 
+	 * @return number of courses
+	 */
+	public int getCourseCount() {
+
+		return courses.size();
+	}
+
+	/**
+	 * Reads the name attributes of all elements with the given name from a
+	 * resource.
+	 */
+	private List<String> readNames(String path, String elementName)
+			throws IOException {
+
+		List<String> names = new ArrayList<String>();
+
+		InputStream is = new URL(server + path).openStream();
+		try {
+			XMLStreamReader reader = XMLInputFactory.newInstance()
+					.createXMLStreamReader(is);
+			while (reader.hasNext()) {
+				if (reader.next() == XMLStreamConstants.START_ELEMENT
+						&& reader.getLocalName().equals(elementName)) {
+					names.add(reader.getAttributeValue(null, "name"));
+				}
+			}
+			reader.close();
+
+		} catch (XMLStreamException e) {
+			throw new IOException("Could not parse response of server.", e);
+
+		} finally {
+			is.close();
+		}
+
+		return names;
+	}
+
+	private static String encode(String segment) {
+
+		try {
+			return URLEncoder.encode(segment, "UTF-8").replace("+", "%20");
+		} catch (IOException e) {
+			throw new IllegalStateException("UTF-8 not supported.", e);
+		}
+	}
+}
@@ -0,0 +1,173 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.controller;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.freenono.controller.achievements.Achievement;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the journal that writes changes of statistical data behind.
+ *
+ * @author Christian Wichmann
+ */
+public class StatisticsJournalTest {
+
+	private static final String TEST_HASH = "267e850308ef27f0a9c1857792d2faac";
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	/**
+	 * Handler that sums up all replayed records.
+	 */
+	private static class SummingHandler implements
+			StatisticsJournal.RecordHandler {
+
+		private int played = 0;
+		private int won = 0;
+		private int lost = 0;
+		private int marked = 0;
+		private final Map<Achievement, Boolean> achievements = new EnumMap<Achievement, Boolean>(
+				Achievement.class);
+
+		@Override
+		public void nonogramChanged(String hash, int played, int won, int lost) {
+			assertEquals(TEST_HASH, hash);
+			this.played += played;
+			this.won += won;
+			this.lost += lost;
+		}
+
+		@Override
+		public void fieldsChanged(int correctlyOccupied, int wronglyOccupied,
+				int marked) {
+			this.marked += marked;
+		}
+
+		@Override
+		public void achievementChanged(Achievement achievement,
+				boolean accomplished) {
+			achievements.put(achievement, accomplished);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.controller.StatisticsJournal#replay(int, org.freenono.controller.StatisticsJournal.RecordHandler)}
+	 * with an incomplete last record.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public final void testReplay() throws Exception {
+
+		File statisticsFile = new File(tempFolder.getRoot(), "statistics.xml");
+		StatisticsJournal journal = new StatisticsJournal(statisticsFile);
+		assertEquals(0, journal.replay(0, new SummingHandler()));
+
+		journal.append(StatisticsJournal.nonogramRecord(TEST_HASH, 2, 1, 1));
+		journal.append(StatisticsJournal.fieldsRecord(0, 0, 5)
+				+ StatisticsJournal.achievementRecord(
+						Achievement.UNMARKED, true));
+		journal.rotate();
+		journal.append(StatisticsJournal.nonogramRecord(TEST_HASH, 1, 0, 1));
+
+		// simulate crash while writing the last record, that was cut off
+		// after the first digit of "10" and would still be parsable
+		String record = StatisticsJournal.nonogramRecord(TEST_HASH, 12, 0, 10);
+		FileOutputStream out = new FileOutputStream(new File(
+				tempFolder.getRoot(), "statistics.xml.2.journal"), true);
+		out.write(record.substring(0, record.length() - 2).getBytes("UTF-8"));
+		out.close();
+
+		SummingHandler handler = new SummingHandler();
+		assertEquals(4,
+				new StatisticsJournal(statisticsFile).replay(0, handler));
+		assertEquals(3, handler.played);
+		assertEquals(1, handler.won);
+		assertEquals(2, handler.lost);
+		assertEquals(5, handler.marked);
+		assertEquals(Boolean.TRUE, handler.achievements.get(Achievement.UNMARKED));
+
+		// generations already contained in statistics file are not replayed
+		handler = new SummingHandler();
+		assertEquals(1,
+				new StatisticsJournal(statisticsFile).replay(1, handler));
+		assertEquals(1, handler.played);
+		assertFalse(new File(tempFolder.getRoot(), "statistics.xml.1.journal")
+				.exists());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.controller.StatisticsDataStore#flush()} and
+	 * {@link org.freenono.controller.StatisticsDataStore#saveStatisticsToFile()}
+	 * on a journaled data store.
+	 */
+	@Test
+	public final void testJournaledDataStore() {
+
+		String path = new File(tempFolder.getRoot(), "statistics.xml")
+				.getAbsolutePath();
+
+		StatisticsDataStore store = StatisticsDataStore.openJournaled(path);
+		store.incrementTimesPlayedForNonogram(TEST_HASH);
+		store.incrementTimesPlayedForNonogram(TEST_HASH);
+		store.incrementTimesWonForNonogram(TEST_HASH);
+		store.incrementFieldsMarked();
+		store.flush();
+
+		// changes are only in journal, but not yet in statistics file
+		assertFalse(new File(path).exists());
+		StatisticsDataStore replayed = StatisticsDataStore.openJournaled(path);
+		assertEquals(2, replayed.getTimesPlayedForNonogram(TEST_HASH));
+		assertEquals(1, replayed.getTimesWonForNonogram(TEST_HASH));
+		assertEquals(1, replayed.getFieldsMarked());
+
+		// changes after flush are contained in compacted statistics file
+		store.incrementTimesLostForNonogram(TEST_HASH);
+		store.saveStatisticsToFile();
+		assertTrue(new File(path).exists());
+		assertEquals(1, tempFolder.getRoot().list().length);
+
+		StatisticsDataStore compacted = StatisticsDataStore.openJournaled(path);
+		assertEquals(2, compacted.getTimesPlayedForNonogram(TEST_HASH));
+		assertEquals(1, compacted.getTimesWonForNonogram(TEST_HASH));
+		assertEquals(1, compacted.getTimesLostForNonogram(TEST_HASH));
+		assertEquals(1, compacted.getFieldsMarked());
+
+		// further changes are journaled in a new generation
+		compacted.incrementFieldsMarked();
+		compacted.flush();
+		assertEquals(2, StatisticsDataStore.openJournaled(path)
+				.getFieldsMarked());
+
+		store.closeJournal();
+		replayed.closeJournal();
+		compacted.closeJournal();
+	}
+}
@@ -0,0 +1,96 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.generator;
+
+import static org.junit.Assert.*;
+
+import org.freenono.generator.SeedNonogramGenerator.RandomTypes;
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.junit.Test;
+
+/**
+ * Tests the generation of random nonograms from seeds.
+ *
+ * @author Christian Wichmann
+ */
+public class SeedNonogramGeneratorTest {
+
+	private static final String[] SEEDS = { "a", "FreeNono", "2026-10-17",
+			"üñîçødé" };
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.generator.SeedNonogramGenerator#generate(String, RandomTypes)}
+	 * generating the same nonogram for the same seed.
+	 */
+	@Test
+	public final void testDeterministic() {
+
+		for (RandomTypes type : RandomTypes.values()) {
+			for (String seed : SEEDS) {
+				Nonogram n1 = SeedNonogramGenerator.generate(seed, type);
+				Nonogram n2 = SeedNonogramGenerator.generate(seed, type);
+
+				assertEquals("wrong name", seed, n1.getName());
+				assertEquals(DifficultyLevel.UNDEFINED, n1.getDifficulty());
+				assertEquals("different nonograms for same seed",
+						n1.getHash(), n2.getHash());
+				assertTrue("nonogram too small", n1.width() >= 10
+						&& n1.height() >= 10);
+				assertTrue("nonogram too large", n1.width() < 35
+						&& n1.height() < 35);
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.generator.SeedNonogramGenerator#generate(String, RandomTypes)}
+	 * generating the same sizes as earlier versions, so that client and
+	 * server agree on nonograms for seeds.
+	 */
+	@Test
+	public final void testKnownSeeds() {
+
+		Nonogram n = SeedNonogramGenerator.generate("a",
+				RandomTypes.FULLRANDOM);
+		assertEquals(18, n.width());
+		assertEquals(10, n.height());
+		assertTrue(n.getOccupiedFieldCount() > 0);
+
+		n = SeedNonogramGenerator.generate("FreeNono", RandomTypes.RANDOMWAYS);
+		assertEquals(20, n.width());
+		assertEquals(10, n.height());
+		assertTrue(n.getOccupiedFieldCount() >= 20 * 10 / 5);
+
+		n = SeedNonogramGenerator.generate("FreeNono", RandomTypes.HALFNHALF);
+		assertEquals(20 * 10 / 2, n.getOccupiedFieldCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.generator.SeedNonogramGenerator#generate(String, RandomTypes)}
+	 * with invalid parameters.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public final void testNullSeed() {
+
+		SeedNonogramGenerator.generate(null, RandomTypes.DEFAULT);
+	}
+}
@@ -0,0 +1,121 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.model;
+
+import static org.junit.Assert.*;
+
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the incremental solved-state tracking of class GameBoard.
+ *
+ * @author Christian Wichmann
+ */
+public class GameBoardTest {
+
+	private static final boolean[][] CROSS = { { false, true, false },
+			{ true, true, true }, { false, true, false } };
+
+	private GameBoard board;
+
+	/**
+	 * Creates a new game board for every test.
+	 */
+	@Before
+	public void setUp() {
+
+		board = new GameBoard(new Nonogram("Cross", DifficultyLevel.EASY,
+				CROSS));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.model.GameBoard#isSolvedThroughOccupied()}.
+	 */
+	@Test
+	public final void testSolvedThroughOccupied() {
+
+		assertFalse(board.isSolvedThroughOccupied());
+		assertEquals(1, board.getMissingFieldsInRow(0));
+		assertEquals(3, board.getMissingFieldsInRow(1));
+
+		// occupying a wrong field must not change anything
+		assertFalse(board.occupy(0, 0));
+		assertEquals(1, board.getMissingFieldsInRow(0));
+
+		board.occupy(1, 0);
+		board.occupy(1, 0);
+		assertTrue(board.isRowFinished(0));
+		assertFalse(board.isColumnFinished(1));
+		assertEquals(2, board.getMissingFieldsInColumn(1));
+
+		board.occupy(0, 1);
+		board.occupy(1, 1);
+		board.occupy(2, 1);
+		assertFalse(board.isSolvedThroughOccupied());
+		board.occupy(1, 2);
+		assertTrue(board.isSolvedThroughOccupied());
+		assertTrue(board.isColumnFinished(1));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.model.GameBoard#isSolvedThroughMarked()}.
+	 */
+	@Test
+	public final void testSolvedThroughMarked() {
+
+		assertFalse(board.isSolvedThroughMarked());
+
+		board.mark(0, 0);
+		board.mark(2, 0);
+		board.mark(0, 2);
+		assertFalse(board.isSolvedThroughMarked());
+
+		// marking a field of the pattern makes the board wrong again
+		board.mark(1, 1);
+		board.mark(2, 2);
+		assertFalse(board.isSolvedThroughMarked());
+		board.mark(1, 1);
+		assertTrue(board.isSolvedThroughMarked());
+		assertFalse(board.isSolvedThroughOccupied());
+
+		// unmarking a free field of the pattern
+		board.mark(2, 2);
+		assertFalse(board.isSolvedThroughMarked());
+	}
+
+	/**
+	 * Test method for {@link org.freenono.model.GameBoard#solveGame()}.
+	 */
+	@Test
+	public final void testSolveGame() {
+
+		board.mark(1, 1);
+		board.solveGame();
+		assertTrue(board.isSolvedThroughOccupied());
+		assertFalse(board.isSolvedThroughMarked());
+		for (int i = 0; i < 3; i++) {
+			assertTrue(board.isRowFinished(i));
+			assertTrue(board.isColumnFinished(i));
+		}
+	}
+}
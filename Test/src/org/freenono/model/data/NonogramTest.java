@@ -0,0 +1,162 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.model.data;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Tests the bit-packed field storage of class Nonogram.
+ *
+ * @author Christian Wichmann
+ */
+public class NonogramTest {
+
+	private static final int WIDTH = 100;
+	private static final int HEIGHT = 70;
+
+	private static boolean[][] field;
+	private static Nonogram nonogram;
+
+	/**
+	 * Sets up a random nonogram that spans more than one word per line.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+
+		Random rnd = new Random(42);
+		field = new boolean[HEIGHT][WIDTH];
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				field[y][x] = rnd.nextBoolean();
+			}
+		}
+		nonogram = new Nonogram("Random", DifficultyLevel.HARD, field);
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.model.data.Nonogram#getFieldValue(int, int)}.
+	 */
+	@Test
+	public final void testGetFieldValue() {
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals("wrong field value", field[y][x],
+						nonogram.getFieldValue(x, y));
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.model.data.Nonogram#getRowWord(int, int)} and
+	 * {@link org.freenono.model.data.Nonogram#getColumnWord(int, int)}.
+	 */
+	@Test
+	public final void testRowAndColumnWords() {
+
+		assertEquals("wrong number of words per row", 2,
+				nonogram.getWordsPerRow());
+		assertEquals("wrong number of words per column", 2,
+				nonogram.getWordsPerColumn());
+
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				long rowWord = nonogram.getRowWord(y, x / 64);
+				long columnWord = nonogram.getColumnWord(x, y / 64);
+				assertEquals("wrong bit in row", field[y][x],
+						(rowWord & (1L << (x % 64))) != 0);
+				assertEquals("wrong bit in column", field[y][x],
+						(columnWord & (1L << (y % 64))) != 0);
+			}
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.model.data.Nonogram#setFieldValue(boolean, int, int)}
+	 * and {@link org.freenono.model.data.Nonogram#setRowBits(int, long[])}.
+	 */
+	@Test
+	public final void testSetters() {
+
+		Nonogram n = new Nonogram("Empty", DifficultyLevel.EASY,
+				new boolean[HEIGHT][WIDTH]);
+		assertEquals(0, n.getOccupiedFieldCount());
+
+		n.setFieldValue(true, 65, 66);
+		assertTrue(n.getFieldValue(65, 66));
+		assertEquals(1L << 1, n.getRowWord(66, 1));
+		assertEquals(1L << 2, n.getColumnWord(65, 1));
+
+		for (int y = 0; y < HEIGHT; y++) {
+			n.setRowBits(y, nonogram.getRowBits(y));
+		}
+		for (int x = 0; x < WIDTH; x++) {
+			assertArrayEquals("wrong column after setting rows",
+					nonogram.getColumnBits(x), n.getColumnBits(x));
+		}
+		assertEquals(nonogram.getOccupiedFieldCount(),
+				n.getOccupiedFieldCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.model.data.Nonogram#getLineNumbers(int)} and
+	 * {@link org.freenono.model.data.Nonogram#getColumnNumbers(int)} with runs
+	 * crossing word boundaries.
+	 */
+	@Test
+	public final void testCaptions() {
+
+		boolean[][] f = new boolean[1][130];
+		for (int x = 60; x < 70; x++) {
+			f[0][x] = true;
+		}
+		for (int x = 120; x < 130; x++) {
+			f[0][x] = true;
+		}
+		Nonogram n = new Nonogram("Line", DifficultyLevel.EASY, f);
+
+		assertArrayEquals(new int[] { 10, 10 }, n.getLineNumbers(0));
+		assertArrayEquals(new int[] { 0 }, n.getColumnNumbers(0));
+		assertArrayEquals(new int[] { 1 }, n.getColumnNumbers(60));
+	}
+
+	/**
+	 * Test method for {@link org.freenono.model.data.Nonogram#getHash()}.
+	 */
+	@Test
+	public final void testGetHash() {
+
+		Nonogram copy = new Nonogram("Random", DifficultyLevel.HARD, field);
+		assertEquals(nonogram.getHash(), copy.getHash());
+
+		Nonogram changed = new Nonogram("Random", DifficultyLevel.HARD,
+				new boolean[HEIGHT][WIDTH]);
+		assertFalse(nonogram.getHash().equals(changed.getHash()));
+	}
+}
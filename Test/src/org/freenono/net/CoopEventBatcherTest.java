@@ -0,0 +1,201 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.net;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.freenono.event.FieldControlEvent;
+import org.freenono.event.FieldControlEvent.FieldControlType;
+import org.freenono.event.GameEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests batching of coop game events.
+ *
+ * @author Christian Wichmann
+ */
+public class CoopEventBatcherTest {
+
+	private static final long WINDOW = 20;
+	private static final long TIMEOUT = 2000;
+
+	private final List<CoopEventBatch> published = new CopyOnWriteArrayList<CoopEventBatch>();
+	private CoopEventBatcher batcher = null;
+
+	@Before
+	public void setUp() throws Exception {
+
+		published.clear();
+		batcher = new CoopEventBatcher(new CoopEventBatcher.BatchPublisher() {
+			@Override
+			public void publish(CoopEventBatch batch) {
+				published.add(batch);
+			}
+		}, WINDOW);
+	}
+
+	private GameEvent createEvent(int column) {
+
+		return new FieldControlEvent(this, FieldControlType.OCCUPY_FIELD,
+				column, 0);
+	}
+
+	private void waitForBatches(int count) throws InterruptedException {
+
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (published.size() < count && System.currentTimeMillis() < end) {
+			Thread.sleep(5);
+		}
+		assertEquals("wrong number of batches", count, published.size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.net.CoopEventBatcher#add(GameEvent)} coalescing
+	 * events within the time window.
+	 */
+	@Test
+	public void testCoalescing() throws Exception {
+
+		for (int i = 0; i < 3; i++) {
+			batcher.add(createEvent(i));
+		}
+		waitForBatches(1);
+
+		CoopEventBatch batch = published.get(0);
+		assertEquals(0, batch.getFirstSequence());
+		assertEquals(2, batch.getLastSequence());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i, ((FieldControlEvent) batch.getEvents().get(i))
+					.getFieldColumn());
+		}
+
+		batcher.add(createEvent(3));
+		waitForBatches(2);
+		assertEquals("sequence numbers are not consecutive", 3,
+				published.get(1).getFirstSequence());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.net.CoopEventBatcher#add(GameEvent)} with more
+	 * events than fit into one batch.
+	 */
+	@Test
+	public void testMaximumBatchSize() throws Exception {
+
+		for (int i = 0; i < CoopEventBatcher.MAXIMUM_BATCH_SIZE + 1; i++) {
+			batcher.add(createEvent(i));
+		}
+		waitForBatches(2);
+		assertEquals(CoopEventBatcher.MAXIMUM_BATCH_SIZE, published.get(0)
+				.getEvents().size());
+		assertEquals("batches were published out of order",
+				CoopEventBatcher.MAXIMUM_BATCH_SIZE, published.get(1)
+						.getFirstSequence());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.net.CoopEventBatcher#add(GameEvent)} while a batch
+	 * is being published.
+	 */
+	@Test
+	public void testAddDuringSlowPublish() throws Exception {
+
+		final CountDownLatch publishing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		batcher = new CoopEventBatcher(new CoopEventBatcher.BatchPublisher() {
+			@Override
+			public void publish(CoopEventBatch batch) {
+				publishing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				published.add(batch);
+			}
+		}, WINDOW);
+
+		for (int i = 0; i < CoopEventBatcher.MAXIMUM_BATCH_SIZE; i++) {
+			batcher.add(createEvent(i));
+		}
+		assertTrue("full batch was not published",
+				publishing.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+		// adding events must not wait for the publisher
+		Thread adder = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < CoopEventBatcher.MAXIMUM_BATCH_SIZE; i++) {
+					batcher.add(createEvent(i));
+				}
+			}
+		});
+		adder.start();
+		adder.join(TIMEOUT);
+		boolean waited = adder.isAlive();
+		release.countDown();
+		assertFalse("adding events waited for the publisher", waited);
+
+		waitForBatches(2);
+		assertEquals(CoopEventBatcher.MAXIMUM_BATCH_SIZE, published.get(1)
+				.getFirstSequence());
+	}
+
+	/**
+	 * Test method for {@link org.freenono.net.CoopEventBatcher#close()}.
+	 */
+	@Test
+	public void testClose() throws Exception {
+
+		batcher.add(createEvent(0));
+		batcher.close();
+		waitForBatches(1);
+
+		batcher.add(createEvent(1));
+		batcher.flush();
+		Thread.sleep(2 * WINDOW);
+		assertEquals("events were sent after closing", 1, published.size());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.net.CoopEventBatch#getEventsAfter(long)}.
+	 */
+	@Test
+	public void testEventsAfter() {
+
+		CoopEventBatch batch = new CoopEventBatch(5, new GameEvent[] {
+				createEvent(0), createEvent(1), createEvent(2) });
+
+		assertEquals(3, batch.getEventsAfter(-1).size());
+		assertEquals(3, batch.getEventsAfter(4).size());
+		assertEquals(1, batch.getEventsAfter(6).size());
+		assertEquals(2, ((FieldControlEvent) batch.getEventsAfter(6).get(0))
+				.getFieldColumn());
+		assertTrue(batch.getEventsAfter(7).isEmpty());
+	}
+}
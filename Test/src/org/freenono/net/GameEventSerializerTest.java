@@ -0,0 +1,192 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.net;
+
+import static org.junit.Assert.*;
+
+import org.freenono.event.FieldControlEvent;
+import org.freenono.event.FieldControlEvent.FieldControlType;
+import org.freenono.event.GameAdapter;
+import org.freenono.event.GameEvent;
+import org.freenono.event.GameEventHelper;
+import org.freenono.event.GameListener;
+import org.freenono.event.ProgramControlEvent;
+import org.freenono.event.ProgramControlEvent.ProgramControlType;
+import org.freenono.event.StateChangeEvent;
+import org.freenono.event.StateChangeEvent.StateChangeType;
+import org.freenono.model.CaptionOrientation;
+import org.freenono.model.GameState;
+import org.freenono.model.game_modes.GameTime;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.nio.serialization.SerializationService;
+import com.hazelcast.nio.serialization.SerializationServiceBuilder;
+
+/**
+ * Tests the compact serialization of game events for NonoWeb.
+ *
+ * @author Christian Wichmann
+ */
+public class GameEventSerializerTest {
+
+	private static SerializationService compactService;
+	private static SerializationService javaService;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+
+		SerializationConfig config = new SerializationConfig();
+		NonoWebConnection.configureSerialization(config);
+		compactService = new SerializationServiceBuilder().setConfig(config)
+				.build();
+		javaService = new SerializationServiceBuilder().build();
+	}
+
+	/**
+	 * Fires an event through a game event helper, so that its type is set
+	 * like in a running game.
+	 */
+	private static <T extends GameEvent> T fire(final T event) {
+
+		GameEventHelper eventHelper = new GameEventHelper();
+		GameListener listener = new GameAdapter();
+		eventHelper.addGameListener(listener);
+		if (event instanceof FieldControlEvent) {
+			FieldControlEvent e = (FieldControlEvent) event;
+			if (e.getOrientation() != null) {
+				eventHelper.fireCrossOutCaptionEvent(e);
+			} else {
+				eventHelper.fireOccupyFieldEvent(e);
+			}
+		} else if (event instanceof StateChangeEvent) {
+			eventHelper.fireSetTimeEvent((StateChangeEvent) event);
+		}
+		eventHelper.removeGameListener(listener);
+		return event;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T roundTrip(Object object) {
+
+		return (T) compactService.toObject(compactService.toData(object));
+	}
+
+	/**
+	 * Tests round trip of field control events.
+	 */
+	@Test
+	public void testFieldControlEvent() {
+
+		FieldControlEvent event = fire(new FieldControlEvent(this, 12, 300));
+		FieldControlEvent result = roundTrip(event);
+
+		assertEquals(FieldControlType.OCCUPY_FIELD,
+				result.getFieldControlType());
+		assertEquals(12, result.getFieldColumn());
+		assertEquals(300, result.getFieldRow());
+		assertNull(result.getOrientation());
+
+		event = fire(new FieldControlEvent(this,
+				CaptionOrientation.ORIENTATION_ROW, 3, -1, 2));
+		result = roundTrip(event);
+
+		assertEquals(FieldControlType.CROSS_OUT_CAPTION,
+				result.getFieldControlType());
+		assertEquals(CaptionOrientation.ORIENTATION_ROW,
+				result.getOrientation());
+		assertEquals(3, result.getFieldColumn());
+		assertEquals(-1, result.getFieldRow());
+		assertEquals(2, result.getCaption());
+	}
+
+	/**
+	 * Tests round trip of state change events.
+	 */
+	@Test
+	public void testStateChangeEvent() {
+
+		StateChangeEvent event = fire(new StateChangeEvent(this, new GameTime(
+				1, 2, 3)));
+		StateChangeEvent result = roundTrip(event);
+
+		assertEquals(StateChangeType.SET_TIME, result.getStateChangeType());
+		assertEquals(new GameTime(1, 2, 3), result.getGameTime());
+		assertEquals(GameState.NONE, result.getOldState());
+
+		event = new StateChangeEvent(this, GameState.RUNNING,
+				GameState.SOLVED, 4711);
+		result = roundTrip(event);
+
+		assertNull(result.getStateChangeType());
+		assertEquals(GameState.RUNNING, result.getOldState());
+		assertEquals(GameState.SOLVED, result.getNewState());
+		assertEquals(4711, result.getGameScore());
+	}
+
+	/**
+	 * Tests round trip of program control events.
+	 */
+	@Test
+	public void testProgramControlEvent() {
+
+		ProgramControlEvent result = roundTrip(new ProgramControlEvent(this,
+				ProgramControlType.PAUSE_GAME));
+
+		assertEquals(ProgramControlType.PAUSE_GAME, result.getPct());
+		assertNull(result.getPattern());
+	}
+
+	/**
+	 * Tests round trip of batches and compares their size with Java
+	 * serialization.
+	 */
+	@Test
+	public void testCoopEventBatch() {
+
+		GameEvent[] events = new GameEvent[20];
+		for (int i = 0; i < events.length; i++) {
+			events[i] = fire(new FieldControlEvent(this, i, i * 2));
+		}
+		CoopEventBatch batch = new CoopEventBatch(1000, events);
+
+		CoopEventBatch result = roundTrip(batch);
+		assertEquals(1000, result.getFirstSequence());
+		assertEquals(events.length, result.getEvents().size());
+		for (int i = 0; i < events.length; i++) {
+			FieldControlEvent e = (FieldControlEvent) result.getEvents().get(i);
+			assertEquals(FieldControlType.OCCUPY_FIELD, e.getFieldControlType());
+			assertEquals(i, e.getFieldColumn());
+			assertEquals(i * 2, e.getFieldRow());
+		}
+
+		int compactSize = compactService.toData(batch).bufferSize();
+		int javaSize = javaService.toData(batch).bufferSize();
+		assertTrue("batch of " + events.length + " events needs "
+				+ compactSize + " bytes", compactSize <= 10 + 4 * events.length);
+		assertTrue("compact format is not smaller than Java serialization",
+				compactSize * 10 < javaSize);
+
+		int compactEventSize = compactService.toData(events[5]).bufferSize();
+		int javaEventSize = javaService.toData(events[5]).bufferSize();
+		assertEquals("single event needs wrong number of bytes", 4,
+				compactEventSize);
+		assertTrue(compactEventSize * 10 < javaEventSize);
+	}
+}
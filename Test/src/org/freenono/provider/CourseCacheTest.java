@@ -0,0 +1,197 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.provider;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
+import org.freenono.serializer.CourseTestHelper;
+import org.freenono.serializer.data.XMLCourseSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the binary on-disk cache for parsed courses.
+ *
+ * @author Christian Wichmann
+ */
+public class CourseCacheTest {
+
+	private static final File multi01Dir = new File("data" + File.separator
+			+ "course" + File.separator + "Multi01");
+
+	private Path cacheDir = null;
+	private Path courseDir = null;
+	private CourseCache cache = null;
+
+	@Before
+	public void setUp() throws Exception {
+
+		cacheDir = Files.createTempDirectory("coursecache");
+		courseDir = Files.createTempDirectory("course").resolve("Multi01");
+		Files.createDirectory(courseDir);
+		for (File f : multi01Dir.listFiles()) {
+			Files.copy(f.toPath(), courseDir.resolve(f.getName()));
+		}
+		cache = new CourseCache(cacheDir.toString());
+	}
+
+	@After
+	public void tearDown() throws Exception {
+
+		deleteRecursively(cacheDir.toFile());
+		deleteRecursively(courseDir.getParent().toFile());
+	}
+
+	private void deleteRecursively(File file) {
+
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				deleteRecursively(f);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.provider.CourseCache#store(File, Course)} and
+	 * {@link org.freenono.provider.CourseCache#load(File)}.
+	 */
+	@Test
+	public void testStoreAndLoad() throws Exception {
+
+		Course course = new XMLCourseSerializer().load(courseDir.toFile());
+
+		assertNull("course should not be cached yet",
+				cache.load(courseDir.toFile()));
+		cache.store(courseDir.toFile(), course);
+
+		Course cached = cache.load(courseDir.toFile());
+		assertNotNull("course should be cached", cached);
+		assertTrue("cached course should be lazy", cached.isLazy());
+		CourseTestHelper.compareCourse(course, cached, true);
+
+		for (int i = 0; i < course.getNonogramCount(); i++) {
+			assertEquals(course.getNonogram(i).getHash(), cached
+					.getNonogram(i).getHash());
+			assertArrayEquals(course.getNonogram(i).getLineNumbers(0), cached
+					.getNonogram(i).getLineNumbers(0));
+		}
+	}
+
+	/**
+	 * Test method for {@link org.freenono.provider.CourseCache#load(File)}
+	 * with a course that changed after it was cached.
+	 */
+	@Test
+	public void testChangedCourse() throws Exception {
+
+		Course course = new XMLCourseSerializer().load(courseDir.toFile());
+		cache.store(courseDir.toFile(), course);
+
+		File nonogramFile = courseDir.toFile().listFiles()[0];
+		Files.write(nonogramFile.toPath(), new byte[] { ' ' },
+				StandardOpenOption.APPEND);
+
+		assertNull("changed course should not be loaded from cache",
+				cache.load(courseDir.toFile()));
+	}
+
+	/**
+	 * Test method for {@link org.freenono.provider.CourseCache#prune()}.
+	 */
+	@Test
+	public void testPrune() throws Exception {
+
+		Course course = new XMLCourseSerializer().load(courseDir.toFile());
+		cache.store(courseDir.toFile(), course);
+
+		// cache file of a course that was removed afterwards
+		Path removedDir = courseDir.resolveSibling("Removed");
+		Files.createDirectory(removedDir);
+		cache.store(removedDir.toFile(), course);
+		Files.delete(removedDir);
+
+		// left over temporary file
+		Files.write(cacheDir.resolve("course123.cache"), new byte[] { 1, 2 });
+
+		assertEquals(3, cacheDir.toFile().list().length);
+		assertEquals(2, cache.prune());
+		assertEquals(1, cacheDir.toFile().list().length);
+		assertNotNull("valid cache file should be kept",
+				cache.load(courseDir.toFile()));
+
+		// cache file of a changed course
+		File nonogramFile = courseDir.toFile().listFiles()[0];
+		Files.write(nonogramFile.toPath(), new byte[] { ' ' },
+				StandardOpenOption.APPEND);
+		assertEquals(1, cache.prune());
+		assertEquals(0, cacheDir.toFile().list().length);
+	}
+
+	/**
+	 * Test method for {@link org.freenono.provider.CourseCache#load(File)}
+	 * with a cache file that contains an invalid difficulty.
+	 */
+	@Test
+	public void testCorruptCacheFile() throws Exception {
+
+		Course course = new XMLCourseSerializer().load(courseDir.toFile());
+		cache.store(courseDir.toFile(), course);
+
+		// overwrite difficulty of first nonogram with an invalid value
+		Charset utf8 = Charset.forName("UTF-8");
+		Nonogram first = course.getNonograms()[0];
+		long offset = 4 + 4
+				+ stringLength(courseDir.toFile().getAbsolutePath(), utf8)
+				+ 8 + 8 + stringLength(course.getName(), utf8) + 4
+				+ stringLength(first.getName(), utf8)
+				+ stringLength(first.getDescription(), utf8)
+				+ stringLength(first.getAuthor(), utf8);
+		File cacheFile = cacheDir.toFile().listFiles()[0];
+		RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw");
+		try {
+			raf.seek(offset);
+			assertEquals(first.getDifficulty().ordinal(), raf.readByte());
+			raf.seek(offset);
+			raf.writeByte(100);
+		} finally {
+			raf.close();
+		}
+
+		assertNull("corrupt cache file should not be loaded",
+				cache.load(courseDir.toFile()));
+		assertFalse("corrupt cache file should be deleted", cacheFile.exists());
+	}
+
+	private int stringLength(String s, Charset charset) {
+
+		return 4 + (s == null ? 0 : s.getBytes(charset).length);
+	}
+}
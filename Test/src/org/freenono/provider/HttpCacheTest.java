@@ -0,0 +1,242 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.provider;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests the on-disk cache for responses of a NonoServer.
+ *
+ * @author Christian Wichmann
+ */
+public class HttpCacheTest {
+
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final String UNREACHABLE_SERVER = "http://127.0.0.1:1/";
+	private static final long MAXIMUM_SIZE = 4096;
+
+	private Path cacheDir = null;
+	private HttpCache cache = null;
+
+	@Before
+	public void setUp() throws Exception {
+
+		cacheDir = Files.createTempDirectory("httpcache");
+		cache = new HttpCache(cacheDir.toString(), MAXIMUM_SIZE);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+
+		File[] files = cacheDir.toFile().listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		cacheDir.toFile().delete();
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.provider.HttpCache#store(HttpCache.Entry)} and
+	 * {@link org.freenono.provider.HttpCache#load(String)}.
+	 */
+	@Test
+	public void testStoreAndLoad() {
+
+		String url = UNREACHABLE_SERVER + "courseList";
+		Date modified = new Date(1000000000000L);
+		cache.store(new HttpCache.Entry(url, new Tag("abc", false), modified,
+				"payload".getBytes(CHARSET)));
+
+		HttpCache.Entry entry = cache.load(url);
+		assertNotNull("entry was not cached", entry);
+		assertEquals(url, entry.getUrl());
+		assertEquals("abc", entry.getTag().getName());
+		assertFalse(entry.getTag().isWeak());
+		assertEquals(modified, entry.getModificationDate());
+		assertArrayEquals("payload".getBytes(CHARSET), entry.getPayload());
+
+		cache.store(new HttpCache.Entry(url + "2", null, null, new byte[0]));
+		entry = cache.load(url + "2");
+		assertNull(entry.getTag());
+		assertNull(entry.getModificationDate());
+
+		assertNull("unknown url was found", cache.load(url + "3"));
+	}
+
+	/**
+	 * Test method for {@link org.freenono.provider.HttpCache#get(Reference)}
+	 * with a server that is not reachable.
+	 */
+	@Test
+	public void testGetStaleEntry() {
+
+		String url = UNREACHABLE_SERVER + "Mixed01";
+		assertNull(cache.get(new Reference(url)));
+
+		cache.store(new HttpCache.Entry(url, new Tag("abc", false), null,
+				"stale".getBytes(CHARSET)));
+		assertArrayEquals("stale entry was not used",
+				"stale".getBytes(CHARSET), cache.get(new Reference(url)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.provider.HttpCache#store(HttpCache.Entry)} evicting
+	 * least recently used entries.
+	 */
+	@Test
+	public void testEviction() throws Exception {
+
+		// three entries fit into the cache, but four do not
+		byte[] payload = new byte[(int) MAXIMUM_SIZE / 4];
+		String first = UNREACHABLE_SERVER + "first";
+		String second = UNREACHABLE_SERVER + "second";
+		String third = UNREACHABLE_SERVER + "third";
+
+		cache.store(new HttpCache.Entry(first, null, null, payload));
+		cache.store(new HttpCache.Entry(second, null, null, payload));
+		cache.store(new HttpCache.Entry(third, null, null, payload));
+		setLastUsed(0L);
+
+		// use first and third entry, so that second one is least recently used
+		assertNotNull(cache.load(first));
+		assertNotNull(cache.load(third));
+
+		cache.store(new HttpCache.Entry(UNREACHABLE_SERVER + "fourth", null,
+				null, payload));
+		assertNull("least recently used entry was not evicted",
+				cache.load(second));
+		assertNotNull(cache.load(first));
+		assertNotNull(cache.load(third));
+	}
+
+	/**
+	 * Test method for {@link org.freenono.provider.HttpCache#get(Reference)}
+	 * with a server that answers the revalidation with "304 Not Modified".
+	 */
+	@Test
+	public void testGetNotModified() throws Exception {
+
+		final byte[] body = "fresh".getBytes(CHARSET);
+		final AtomicInteger notModified = new AtomicInteger();
+
+		HttpServer server = HttpServer.create(new InetSocketAddress(
+				"127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+
+				if ("\"abc\"".equals(exchange.getRequestHeaders().getFirst(
+						"If-None-Match"))) {
+					notModified.incrementAndGet();
+					exchange.getResponseHeaders().set("ETag", "\"abc\"");
+					exchange.sendResponseHeaders(304, -1);
+				} else {
+					exchange.getResponseHeaders().set("ETag", "\"abc\"");
+					exchange.getResponseHeaders().set("Content-Type",
+							"text/xml");
+					exchange.sendResponseHeaders(200, body.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(body);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+
+		try {
+			Reference reference = new Reference("http://127.0.0.1:"
+					+ server.getAddress().getPort() + "/courseList");
+
+			assertArrayEquals(body, cache.get(reference));
+			assertEquals(0, notModified.get());
+			assertNotNull("response was not cached",
+					cache.load(reference.toString()));
+
+			assertArrayEquals("cached body was not used", body,
+					cache.get(reference));
+			assertEquals("entry was not revalidated", 1, notModified.get());
+
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	/**
+	 * Test method for {@link org.freenono.provider.HttpCache#load(String)}
+	 * with corrupt payload lengths.
+	 */
+	@Test
+	public void testCorruptLength() throws Exception {
+
+		String url = UNREACHABLE_SERVER + "corrupt";
+		cache.store(new HttpCache.Entry(url, null, null,
+				"payload".getBytes(CHARSET)));
+
+		// position of payload length after magic number, version, url, tag
+		// and modification date
+		File cacheFile = cacheDir.toFile().listFiles()[0];
+		long lengthPosition = 4 + 4 + 2 + url.length() + 2 + 1 + 8;
+
+		for (int length : new int[] { -1, Integer.MAX_VALUE, 8 }) {
+			RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw");
+			raf.seek(lengthPosition);
+			raf.writeInt(length);
+			raf.close();
+			assertNull("corrupt entry was used", cache.load(url));
+		}
+
+		RandomAccessFile raf = new RandomAccessFile(cacheFile, "rw");
+		raf.seek(lengthPosition);
+		raf.writeInt(7);
+		raf.close();
+		assertNotNull(cache.load(url));
+	}
+
+	private void setLastUsed(long time) {
+
+		for (File f : cacheDir.toFile().listFiles()) {
+			f.setLastModified(time);
+		}
+	}
+}
@@ -0,0 +1,213 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.serializer;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.freenono.model.data.Course;
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.freenono.serializer.data.BinaryNonogramSerializer;
+import org.freenono.serializer.data.NonogramFormatException;
+import org.freenono.serializer.data.StAXNonogramSerializer;
+import org.freenono.serializer.data.ZipCourseSerializer;
+import org.freenono.serializer.data.ZipCourseSerializer.EntryFormat;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the serializer for the compact binary nonogram format and compares it
+ * with the serializer for the xml based file format.
+ * 
+ * @author Christian Wichmann
+ */
+public class BinaryNonogramSerializerTest {
+
+	private static final File rootDir = new File("data" + File.separator
+			+ "nonogram" + File.separator + "xml");
+
+	private static final File xMultiDim01File = new File(rootDir,
+			"MultiDim01.nonogram");
+
+	private static final File multi01File = new File("data" + File.separator
+			+ "course" + File.separator + "Multi01.nonopack");
+
+	private BinaryNonogramSerializer binNS = null;
+
+	@Before
+	public void setUp() throws Exception {
+
+		binNS = new BinaryNonogramSerializer();
+	}
+
+	private static Nonogram[] createRandomNonograms(int count, int width,
+			int height, long seed) {
+
+		Random rnd = new Random(seed);
+		Nonogram[] nonograms = new Nonogram[count];
+		for (int i = 0; i < count; i++) {
+			boolean[][] field = new boolean[height][width];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					field[y][x] = rnd.nextBoolean();
+				}
+			}
+			nonograms[i] = new Nonogram("Random " + i,
+					DifficultyLevel.values()[i
+							% DifficultyLevel.values().length], field);
+			nonograms[i].setDescription("Zufällige Beschreibung " + i);
+			nonograms[i].setAuthor("作者");
+			nonograms[i].setLevel(i);
+			nonograms[i].setDuration(rnd.nextInt(100000));
+		}
+		return nonograms;
+	}
+
+	private Nonogram[] roundTrip(Nonogram... n) throws Exception {
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		binNS.save(bos, n);
+		return binNS.load(new ByteArrayInputStream(bos.toByteArray()));
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+
+		int[][] sizes = { { 1, 1 }, { 3, 5 }, { 8, 8 }, { 63, 65 },
+				{ 65, 63 }, { 100, 70 } };
+		for (int[] size : sizes) {
+			Nonogram[] n = createRandomNonograms(3, size[0], size[1],
+					size[0] * 31 + size[1]);
+			Nonogram[] loaded = roundTrip(n);
+
+			NonogramTestHelper.compareNonogramList(n, loaded, true);
+			for (int i = 0; i < n.length; i++) {
+				assertEquals("different author", n[i].getAuthor(),
+						loaded[i].getAuthor());
+				assertEquals("different level", n[i].getLevel(),
+						loaded[i].getLevel());
+				assertEquals("different duration", n[i].getDuration(),
+						loaded[i].getDuration());
+				assertEquals("different hash", n[i].getHash(),
+						loaded[i].getHash());
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTripFromXml() throws Exception {
+
+		Nonogram[] n = new StAXNonogramSerializer().load(xMultiDim01File);
+		Nonogram[] loaded = roundTrip(n);
+
+		NonogramTestHelper.checkNonogram(loaded[0], "Test1", "",
+				DifficultyLevel.UNDEFINED, 3, 5,
+				NonogramTestHelper.cross03Field);
+		NonogramTestHelper.checkNonogram(loaded[1], "Test2", "",
+				DifficultyLevel.UNDEFINED, 5, 3,
+				NonogramTestHelper.cross04Field);
+	}
+
+	@Test
+	public void testInvalidData() throws Exception {
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		binNS.save(bos, createRandomNonograms(1, 10, 10, 1));
+		byte[] data = bos.toByteArray();
+
+		byte[] wrongMagic = Arrays.copyOf(data, data.length);
+		wrongMagic[0] = 'X';
+		assertFormatException(wrongMagic);
+
+		byte[] newerVersion = Arrays.copyOf(data, data.length);
+		newerVersion[3] = (byte) (BinaryNonogramSerializer.FORMAT_VERSION + 1);
+		assertFormatException(newerVersion);
+
+		assertFormatException(Arrays.copyOf(data, data.length - 1));
+
+		// header of a nonogram much larger than allowed without any field data
+		int side = BinaryNonogramSerializer.MAXIMUM_SIDE_LENGTH + 1;
+		byte[] tooLarge = { 'F', 'N', 'B',
+				(byte) BinaryNonogramSerializer.FORMAT_VERSION, 1, 0, 0, 0, 0,
+				0, 0, (byte) (side & 0x7f | 0x80), (byte) (side >>> 7),
+				(byte) (side & 0x7f | 0x80), (byte) (side >>> 7) };
+		assertFormatException(tooLarge);
+	}
+
+	private void assertFormatException(byte[] data) throws Exception {
+
+		try {
+			binNS.load(new ByteArrayInputStream(data));
+			fail("expected NonogramFormatException wasn't thrown");
+		} catch (NonogramFormatException e) {
+			assertTrue(true);
+		}
+	}
+
+	@Test
+	public void testZipCourse() throws Exception {
+
+		Course course = new ZipCourseSerializer().load(multi01File);
+		File dir = Files.createTempDirectory("binarycourse").toFile();
+		File courseFile = new File(dir, course.getName() + ".nonopack");
+
+		try {
+			ZipCourseSerializer zipCS = new ZipCourseSerializer();
+			zipCS.setEntryFormat(EntryFormat.BINARY);
+			zipCS.save(dir, course);
+
+			CourseTestHelper.compareCourse(course,
+					new ZipCourseSerializer().load(courseFile), true);
+			CourseTestHelper.compareCourse(course,
+					new ZipCourseSerializer(true).load(courseFile), true);
+
+		} finally {
+			courseFile.delete();
+			dir.delete();
+		}
+	}
+
+	/**
+	 * Compares size of the binary format with the xml format written by the
+	 * StAX serializer. Loading throughput of both formats is measured by
+	 * NonogramSerializerBenchmark in the Benchmark module.
+	 */
+	@Test
+	public void testSizeComparedToStAX() throws Exception {
+
+		final int count = 500;
+		Nonogram[] n = createRandomNonograms(count, 30, 30, 42);
+
+		ByteArrayOutputStream xmlData = new ByteArrayOutputStream();
+		new StAXNonogramSerializer().save(xmlData, n);
+		ByteArrayOutputStream binData = new ByteArrayOutputStream();
+		binNS.save(binData, n);
+
+		assertEquals(count, binNS.load(new ByteArrayInputStream(binData
+				.toByteArray())).length);
+		assertTrue("binary format should be much smaller",
+				binData.size() * 10 < xmlData.size());
+	}
+}
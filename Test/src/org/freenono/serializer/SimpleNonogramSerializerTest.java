@@ -146,5 +146,27 @@ public class SimpleNonogramSerializerTest {
 		}
 	}
 
+	@Test
+	public void testSaveMultipleNonograms() throws Exception {
+
+		Nonogram[] n = simpleNS.load(sMultiDim01File);
+		File f = File.createTempFile("SimpleNonogramSerializerTest", ".nono");
+		try {
+			simpleNS.save(f, n);
+			Nonogram[] saved = simpleNS.load(f);
+
+			assertTrue(saved.length == 2);
+
+			NonogramTestHelper.checkNonogram(saved[0], "Test1", "",
+					DifficultyLevel.UNDEFINED, 3, 5,
+					NonogramTestHelper.cross03Field);
+			NonogramTestHelper.checkNonogram(saved[1], "Test2", "",
+					DifficultyLevel.UNDEFINED, 5, 3,
+					NonogramTestHelper.cross04Field);
+		} finally {
+			f.delete();
+		}
+	}
+
 	// TODO test error cases
 }
@@ -21,14 +21,20 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.freenono.model.data.DifficultyLevel;
 import org.freenono.model.data.Course;
+import org.freenono.model.data.Nonogram;
 import org.freenono.serializer.data.CourseFormatException;
 import org.freenono.serializer.data.NonogramFormatException;
 import org.freenono.serializer.data.ZipCourseSerializer;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Tests the serializer to save nonogram courses into a nonopack file.
@@ -52,6 +58,9 @@ public class ZipCourseSerializerTest {
 
 	private ZipCourseSerializer zipCS = null;
 
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
 	@Before
 	public void setUp() throws Exception {
 
@@ -133,5 +142,81 @@ public class ZipCourseSerializerTest {
 
 	}
 
+	@Test
+	public void testLazyCourse() throws Exception {
+
+		Course eager = zipCS.load(mixed01File);
+		Course lazy = new ZipCourseSerializer(true).load(mixed01File);
+
+		assertTrue("course should be lazy", lazy.isLazy());
+		CourseTestHelper.checkCourse(lazy, "Mixed01", 2);
+		CourseTestHelper.compareCourse(eager, lazy, true);
+
+		for (int i = 0; i < lazy.getNonogramCount(); i++) {
+			Nonogram n = eager.getNonogram(i);
+			assertEquals(n.getName(), lazy.getNonogramInfo(i).getName());
+			assertEquals(n.width(), lazy.getNonogramInfo(i).width());
+			assertEquals(n.height(), lazy.getNonogramInfo(i).height());
+			assertEquals(n.getHash(), lazy.getNonogram(i).getHash());
+		}
+		assertEquals(eager.getMaximumDifficulty(), lazy.getMaximumDifficulty());
+	}
+
+	@Test
+	public void testLazyCourseCache() throws Exception {
+
+		Course lazy = new ZipCourseSerializer(true).load(multi01File);
+
+		Nonogram first = lazy.getNonogram(0);
+		assertSame("nonogram should be cached", first, lazy.getNonogram(0));
+
+		Nonogram second = lazy.getNonogram(1);
+		assertSame("nonogram should be cached", second, lazy.getNonogram(1));
+		assertSame("nonogram should stay cached", first, lazy.getNonogram(0));
+	}
+
+	@Test
+	public void testLazyCourseAfterRemoval() throws Exception {
+
+		File courseFile = new File(tempFolder.getRoot(), "Changed.nonopack");
+		zipCS.save(tempFolder.getRoot(), createSingleCourse(true));
+
+		Course lazy = new ZipCourseSerializer(true).load(courseFile);
+		assertTrue("course file should be deleted", courseFile.delete());
+
+		Nonogram n = lazy.getNonogram(0);
+		assertNotNull("nonogram should be decoded without its file", n);
+		assertTrue(n.getFieldValue(0, 0));
+	}
+
+	@Test
+	public void testLazyCourseCacheAfterModification() throws Exception {
+
+		File courseFile = new File(tempFolder.getRoot(), "Changed.nonopack");
+		zipCS.save(tempFolder.getRoot(), createSingleCourse(false));
+
+		ZipCourseSerializer lazyCS = new ZipCourseSerializer(true);
+		Nonogram before = lazyCS.load(courseFile).getNonogram(0);
+
+		zipCS.save(tempFolder.getRoot(), createSingleCourse(true));
+		courseFile.setLastModified(courseFile.lastModified() + 2000);
+
+		Nonogram after = lazyCS.load(courseFile).getNonogram(0);
+		assertFalse("nonogram of modified file should not be cached", before
+				.getHash().equals(after.getHash()));
+		assertTrue(after.getFieldValue(0, 0));
+	}
+
+	private Course createSingleCourse(final boolean firstField) {
+
+		boolean[][] field = new boolean[5][5];
+		field[0][0] = firstField;
+		field[4][4] = true;
+
+		List<Nonogram> nonograms = new ArrayList<Nonogram>();
+		nonograms.add(new Nonogram("Changed", DifficultyLevel.EASY, field));
+		return new Course("Changed", nonograms);
+	}
+
 	// TODO test error cases
 }
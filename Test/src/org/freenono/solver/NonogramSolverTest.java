@@ -0,0 +1,141 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.solver;
+
+import static org.junit.Assert.*;
+
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.freenono.solver.SolverResult.Uniqueness;
+import org.junit.Test;
+
+/**
+ * Tests class NonogramSolver.
+ *
+ * @author Christian Wichmann
+ */
+public class NonogramSolverTest {
+
+	private static final boolean[][] CROSS = { { false, true, false },
+			{ true, true, true }, { false, true, false } };
+
+	private static final boolean[][] DIAGONAL = { { true, false },
+			{ false, true } };
+
+	/**
+	 * Tests a nonogram that can be solved line by line.
+	 */
+	@Test
+	public final void testUniqueSolution() {
+
+		SolverResult result = new NonogramSolver(new Nonogram("Cross",
+				DifficultyLevel.EASY, CROSS)).solve();
+
+		assertEquals(Uniqueness.UNIQUE, result.getUniqueness());
+		assertTrue(result.isLineSolvable());
+		assertEquals(0, result.getGuesses());
+		assertArrayEquals(CROSS, result.getSolution());
+		assertTrue(result.getDifficultyScore() > 0);
+	}
+
+	/**
+	 * Tests a nonogram with two solutions.
+	 */
+	@Test
+	public final void testAmbiguousSolution() {
+
+		SolverResult result = new NonogramSolver(new Nonogram("Diagonal",
+				DifficultyLevel.EASY, DIAGONAL)).solve();
+
+		assertEquals(Uniqueness.AMBIGUOUS, result.getUniqueness());
+		assertFalse(result.isLineSolvable());
+		assertEquals(DifficultyLevel.UNDEFINED, result.getDifficultyLevel());
+	}
+
+	/**
+	 * Tests a nonogram that can not be solved line by line, but by finding a
+	 * contradiction for one value of a cell.
+	 */
+	@Test
+	public final void testContradiction() {
+
+		boolean[][] field = { { false, true, false, true, true },
+				{ false, true, false, true, true },
+				{ false, false, false, false, true },
+				{ true, false, false, false, false },
+				{ true, false, true, true, false } };
+		SolverResult result = new NonogramSolver(new Nonogram("Probe",
+				DifficultyLevel.EASY, field)).solve();
+
+		assertEquals(Uniqueness.UNIQUE, result.getUniqueness());
+		assertFalse(result.isLineSolvable());
+		assertTrue(result.getContradictions() > 0);
+		assertEquals(0, result.getGuesses());
+		assertArrayEquals(field, result.getSolution());
+	}
+
+	/**
+	 * Tests captions that can not be fulfilled.
+	 */
+	@Test
+	public final void testUnsolvable() {
+
+		int[][] rows = { { 2 }, { 0 } };
+		int[][] columns = { { 2 }, { 0 } };
+		SolverResult result = new NonogramSolver(rows, columns).solve();
+
+		assertEquals(Uniqueness.UNSOLVABLE, result.getUniqueness());
+		assertNull(result.getSolution());
+	}
+
+	/**
+	 * Tests that the solver gives up after the maximum number of guesses.
+	 */
+	@Test
+	public final void testMaximumGuesses() {
+
+		// empty rows and columns with one occupied field each: many solutions
+		int[][] clues = { { 1 }, { 1 }, { 1 }, { 1 }, { 1 }, { 1 } };
+		NonogramSolver solver = new NonogramSolver(clues, clues);
+		solver.setMaximumGuesses(0);
+
+		assertEquals(Uniqueness.UNDECIDED, solver.solve().getUniqueness());
+	}
+
+	/**
+	 * Tests a large nonogram that needs several sweeps over all lines.
+	 */
+	@Test
+	public final void testLargeNonogram() {
+
+		final int size = 50;
+		boolean[][] field = new boolean[size][size];
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				field[y][x] = Math.sin(x * 0.3) + Math.cos(y * 0.25) > 0.2;
+			}
+		}
+
+		SolverResult result = new NonogramSolver(new Nonogram("Waves",
+				DifficultyLevel.EASY, field)).solve();
+
+		assertEquals(Uniqueness.UNIQUE, result.getUniqueness());
+		assertArrayEquals(field, result.getSolution());
+		assertTrue(result.getSweeps() > 1);
+	}
+}
@@ -0,0 +1,148 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.ui.explorer;
+
+import static org.junit.Assert.*;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the in-memory cache of the thumbnail loader.
+ *
+ * @author Christian Wichmann
+ */
+public class ThumbnailLoaderTest {
+
+	private static final int THUMBNAIL_SIZE = 32;
+	private static final long MAXIMUM_SIZE = 3 * THUMBNAIL_SIZE
+			* THUMBNAIL_SIZE * 4;
+
+	private Path thumbDir = null;
+	private ThumbnailLoader loader = null;
+
+	@Before
+	public void setUp() throws Exception {
+
+		thumbDir = Files.createTempDirectory("thumbnails");
+		loader = new ThumbnailLoader(thumbDir, MAXIMUM_SIZE);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+
+		File[] files = thumbDir.toFile().listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		thumbDir.toFile().delete();
+	}
+
+	private void writeThumbnail(String hash) throws Exception {
+
+		BufferedImage image = new BufferedImage(THUMBNAIL_SIZE,
+				THUMBNAIL_SIZE, BufferedImage.TYPE_INT_RGB);
+		ImageIO.write(image, "png", thumbDir.resolve(hash).toFile());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.ui.explorer.ThumbnailLoader#getThumbnail(String)}.
+	 */
+	@Test
+	public void testGetThumbnail() throws Exception {
+
+		assertNull("thumbnail of unsolved nonogram",
+				loader.getThumbnail("unsolved"));
+
+		writeThumbnail("solved");
+		ImageIcon thumbnail = loader.getThumbnail("solved");
+		assertNotNull(thumbnail);
+		assertEquals(THUMBNAIL_SIZE, thumbnail.getIconWidth());
+
+		// second call is served from memory while file is unchanged
+		assertSame(thumbnail, loader.getThumbnail("solved"));
+
+		loader.clear();
+		assertNotSame(thumbnail, loader.getThumbnail("solved"));
+
+		Files.delete(thumbDir.resolve("solved"));
+		assertNull(loader.getThumbnail("solved"));
+		assertEquals(0, loader.getCachedCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.ui.explorer.ThumbnailLoader#getThumbnail(String)}
+	 * after the thumbnail file has been written again.
+	 */
+	@Test
+	public void testModifiedThumbnail() throws Exception {
+
+		writeThumbnail("solved");
+		Path file = thumbDir.resolve("solved");
+		Files.setLastModifiedTime(file, FileTime.fromMillis(1000000));
+		ImageIcon thumbnail = loader.getThumbnail("solved");
+		assertSame(thumbnail, loader.getThumbnail("solved"));
+
+		writeThumbnail("solved");
+		Files.setLastModifiedTime(file, FileTime.fromMillis(2000000));
+		ImageIcon modified = loader.getThumbnail("solved");
+		assertNotNull(modified);
+		assertNotSame(thumbnail, modified);
+		assertEquals(1, loader.getCachedCount());
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.freenono.ui.explorer.ThumbnailLoader#getThumbnail(String)}
+	 * evicting least recently used thumbnails.
+	 */
+	@Test
+	public void testEviction() throws Exception {
+
+		for (int i = 0; i < 4; i++) {
+			writeThumbnail("n" + i);
+		}
+
+		ImageIcon first = loader.getThumbnail("n0");
+		loader.getThumbnail("n1");
+		loader.getThumbnail("n2");
+		assertEquals(3, loader.getCachedCount());
+
+		// use first thumbnail again, so that n1 is evicted instead of it
+		assertSame(first, loader.getThumbnail("n0"));
+		ImageIcon second = loader.getThumbnail("n3");
+		assertEquals(3, loader.getCachedCount());
+		assertSame(first, loader.getThumbnail("n0"));
+		assertSame(second, loader.getThumbnail("n3"));
+		assertEquals(3, loader.getCachedCount());
+	}
+}
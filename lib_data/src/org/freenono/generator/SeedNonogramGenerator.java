@@ -0,0 +1,367 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.generator;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+
+/**
+ * Generates random nonograms based on a given seed.
+ * <p>
+ * A hash is calculated from the seed string. Width and height of the new nonogram are derived from
+ * this hash and the random number generator used to build the pattern is seeded with it. Therefore
+ * the same seed and type always result in the same nonogram, independent of where it is
+ * generated. The name of generated nonograms is the seed itself.
+ *
+ * @author Christian Wichmann, Martin Wichmann
+ */
+public final class SeedNonogramGenerator {
+
+    private static Logger logger = Logger.getLogger(SeedNonogramGenerator.class);
+
+    private static final int MIN_HEIGHT = 10;
+    private static final int MAX_HEIGHT = 35;
+    private static final int MIN_WIDTH = 10;
+    private static final int MAX_WIDTH = 35;
+
+    /* Constants for creating nonograms consisting of random circles. */
+    private static final double CIRCLE_PER_FIELDS_RATIO = 2.8 / 100;
+    private static final int MAXIMUM_RADIUS = 13;
+    private static final int MINIMUM_RADIUS = 3;
+    private static final int GRAY_THRESHOLD = -8388608;
+
+    private final String seed;
+    private final Random rng;
+    private int height = MIN_HEIGHT;
+    private int width = MIN_WIDTH;
+
+    /**
+     * Types of randomly generated nonograms.
+     *
+     * @author Martin Wichmann
+     */
+    public enum RandomTypes {
+
+        /**
+         * Randomly chosen type of randomly generated nonograms. :-)
+         */
+        RANDOM,
+
+        /**
+         * Random nonograms where exactly one half of the pattern is set.
+         */
+        HALFNHALF,
+
+        /**
+         * Completely random distribution on the pattern.
+         */
+        FULLRANDOM,
+
+        /**
+         * Random paths through the pattern.
+         */
+        RANDOMWAYS,
+
+        /**
+         * Random nonogram patterns consisting of circles.
+         */
+        CIRCLES,
+
+        /**
+         * Default method for generating new nonogram patterns.
+         */
+        DEFAULT
+    }
+
+    /**
+     * Initializes a generator for a single seed.
+     *
+     * @param seed
+     *            seed to generate nonogram from
+     */
+    private SeedNonogramGenerator(final String seed) {
+
+        this.seed = seed;
+
+        // digest seed to hash and generate long from it...
+        MessageDigest md = null;
+        final String hashFunction = "MD5";
+        try {
+            md = MessageDigest.getInstance(hashFunction);
+        } catch (final NoSuchAlgorithmException e) {
+            logger.error("Hash function " + hashFunction + " not available on this system.");
+            throw new UnsupportedOperationException();
+        }
+        final byte[] thedigest = md.digest(seed.getBytes(StandardCharsets.UTF_8));
+        final long seedValue = new BigInteger(thedigest).longValue();
+
+        // ...to use in the constructing of a new nonogram
+        rng = new Random(seedValue);
+        height = (rng.nextInt() % (MAX_HEIGHT - MIN_HEIGHT)) + MIN_HEIGHT;
+        width = (rng.nextInt() % (MAX_WIDTH - MIN_WIDTH)) + MIN_WIDTH;
+
+        if (height < MIN_HEIGHT) {
+            height = MIN_HEIGHT;
+        }
+        if (width < MIN_WIDTH) {
+            width = MIN_WIDTH;
+        }
+    }
+
+    /**
+     * Generates a new nonogram from a seed.
+     *
+     * @param seed
+     *            seed to generate nonogram from, must not be null
+     * @param type
+     *            type of random nonogram, must not be null
+     * @return generated nonogram
+     */
+    public static Nonogram generate(final String seed, final RandomTypes type) {
+
+        if (seed == null || type == null) {
+            throw new IllegalArgumentException("Seed and random type parameter should not be null!");
+        }
+
+        return new SeedNonogramGenerator(seed).createRandomNonogram(type);
+    }
+
+    /**
+     * Creates a random nonogram.
+     *
+     * @param type
+     *            type of the random nonogram
+     * @return generated nonogram
+     */
+    private Nonogram createRandomNonogram(final RandomTypes type) {
+
+        RandomTypes randomType = type;
+
+        if (randomType == RandomTypes.RANDOM) {
+
+            final int tmp = RandomTypes.values().length;
+
+            do {
+
+                randomType = RandomTypes.values()[rng.nextInt(tmp)];
+
+            } while (randomType == RandomTypes.RANDOM);
+        }
+
+        boolean[][] field = null;
+
+        /*
+         * Build and generate a new random nonogram by the given method.
+         */
+        switch (randomType) {
+        case HALFNHALF:
+            field = halfnhalf();
+            break;
+        case FULLRANDOM:
+            field = fullRandomNono();
+            break;
+        case RANDOMWAYS:
+            field = randomWays();
+            break;
+        case CIRCLES:
+            field = randomCircles();
+            break;
+        default:
+            field = fullRandomNono();
+            break;
+        }
+
+        final Nonogram n = new Nonogram(seed, DifficultyLevel.UNDEFINED, field);
+        n.setDescription("");
+
+        return n;
+    }
+
+    /**
+     * Generates random pattern with one half marked.
+     *
+     * @return generated pattern
+     */
+    private boolean[][] halfnhalf() {
+
+        final boolean[][] field = new boolean[height][width];
+
+        final int options = rng.nextInt(4);
+
+        switch (options) {
+        case 0:
+            for (int i = 0; i < width / 2; i++) {
+                for (int j = 0; j < height; j++) {
+                    field[j][i] = true;
+                }
+            }
+            break;
+        case 1:
+            for (int i = width / 2; i < width; i++) {
+                for (int j = 0; j < height; j++) {
+                    field[j][i] = true;
+                }
+            }
+            break;
+        case 2:
+            for (int i = 0; i < width; i++) {
+                for (int j = 0; j < height / 2; j++) {
+                    field[j][i] = true;
+                }
+            }
+            break;
+        case 3:
+            for (int i = 0; i < width; i++) {
+                for (int j = height / 2; j < height; j++) {
+                    field[j][i] = true;
+                }
+            }
+            break;
+        default:
+            break;
+        }
+
+        return field;
+    }
+
+    /**
+     * Generates a fully random pattern.
+     *
+     * @return generated pattern
+     */
+    private boolean[][] fullRandomNono() {
+
+        final boolean[][] field = new boolean[height][width];
+
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                field[j][i] = rng.nextInt(2) == 0;
+            }
+        }
+
+        // One field should at least be true, so the nonogram isn't empty
+        field[rng.nextInt(height)][rng.nextInt(width)] = true;
+
+        return field;
+    }
+
+    /**
+     * Generates a pattern consisting of random circles.
+     *
+     * @return generated pattern
+     */
+    private boolean[][] randomCircles() {
+
+        final boolean[][] field = new boolean[height][width];
+
+        // generate some circles in an Image
+        final BufferedImage canvas = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics g = canvas.getGraphics();
+        final int numberOfCircles = (int) (width * height * CIRCLE_PER_FIELDS_RATIO);
+        for (int i = 0; i < numberOfCircles; i++) {
+            final int x = rng.nextInt(width);
+            final int y = rng.nextInt(height);
+            final int diameter = rng.nextInt(MAXIMUM_RADIUS + 1 - MINIMUM_RADIUS) + MINIMUM_RADIUS;
+            g.drawOval(x - diameter / 2, y - diameter / 2, diameter, diameter);
+        }
+        g.dispose();
+
+        // copy data from Image to boolean field array
+        for (int i = 0; i < width; i++) {
+            for (int j = 0; j < height; j++) {
+                field[j][i] = canvas.getRGB(i, j) > GRAY_THRESHOLD;
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * Generates a pattern which is based on random ways through it.
+     *
+     * @return generated pattern
+     */
+    private boolean[][] randomWays() {
+
+        final boolean[][] field = new boolean[height][width];
+
+        final int endCounter = (int) Math.ceil((height * width) / 5.);
+        int counter = 0;
+        int hMark = rng.nextInt(height);
+        int wMark = rng.nextInt(width);
+
+        while (counter <= endCounter) {
+            if (!(field[hMark][wMark])) {
+                field[hMark][wMark] = true;
+                counter++;
+            }
+
+            final int decisionCoin = rng.nextInt(5);
+
+            switch (decisionCoin) {
+            case 0: // left
+                wMark = mod((wMark - 1), width);
+                break;
+            case 1: // right
+                wMark = (wMark + 1) % width;
+                break;
+            case 2: // up
+                hMark = mod((hMark - 1), height);
+                break;
+            case 3: // down
+                hMark = (hMark + 1) % height;
+                break;
+            case 4: // new start
+                hMark = rng.nextInt(height);
+                wMark = rng.nextInt(width);
+                break;
+            default:
+                break;
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * Calculates the modulo function.
+     *
+     * @param x
+     *            Parameter x.
+     * @param y
+     *            Parameter y.
+     * @return Result from modulo operation.
+     */
+    private static int mod(final int x, final int y) {
+
+        int result = x % y;
+        if (result < 0) {
+            result += y;
+        }
+        return result;
+    }
+}
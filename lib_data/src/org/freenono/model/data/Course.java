@@ -24,6 +24,11 @@ import java.util.List;
 
 /**
  * Stores a course of Nonograms under a common course name.
+ * <p>
+ * A course can also be created lazily from a list of {@link NonogramInfo} objects. In this case
+ * only the information about all nonograms is held in memory and the pattern of a nonogram is
+ * decoded by a {@link NonogramLoader} when the nonogram itself is requested. Lazily loaded courses
+ * can not be changed.
  *
  * @author Markus Wichmann
  */
@@ -57,6 +62,8 @@ public class Course {
 
     private String name = "";
     private List<Nonogram> nonograms = new ArrayList<Nonogram>();
+    private List<NonogramInfo> nonogramInfos = null;
+    private NonogramLoader loader = null;
 
     /**
      * Constructs a course from a list of nonograms under the given name.
@@ -75,6 +82,39 @@ public class Course {
         setNonograms(nonograms);
     }
 
+    /**
+     * Constructs a lazily loaded course from information about all its nonograms. Nonograms are
+     * only decoded by the given loader when they are requested.
+     *
+     * @param name
+     *            name of the new course
+     * @param nonogramInfos
+     *            list of information about all nonograms in this course
+     * @param loader
+     *            loader to decode single nonograms
+     */
+    public Course(final String name, final List<NonogramInfo> nonogramInfos, final NonogramLoader loader) {
+
+        if (name == null || nonogramInfos == null || loader == null) {
+            throw new NullPointerException("Arguments of constructor should not be null.");
+        }
+        setName(name);
+        this.nonogramInfos = new ArrayList<NonogramInfo>(nonogramInfos);
+        Collections.sort(this.nonogramInfos, NonogramInfo.LEVEL_ASCENDING_ORDER);
+        this.loader = loader;
+        this.nonograms = null;
+    }
+
+    /**
+     * Checks whether nonograms of this course are only decoded when they are requested.
+     *
+     * @return true, if course was loaded lazily
+     */
+    public final boolean isLazy() {
+
+        return loader != null;
+    }
+
     /**
      * Gets name of this course.
      *
@@ -103,6 +143,17 @@ public class Course {
      */
     public final Nonogram[] getNonograms() {
 
+        if (isLazy()) {
+            final List<Nonogram> loaded = new ArrayList<Nonogram>(nonogramInfos.size());
+            for (final NonogramInfo info : nonogramInfos) {
+                final Nonogram n = loader.loadNonogram(info);
+                if (n != null) {
+                    loaded.add(n);
+                }
+            }
+            return loaded.toArray(new Nonogram[0]);
+        }
+
         return nonograms.toArray(new Nonogram[0]);
     }
 
@@ -113,6 +164,10 @@ public class Course {
      */
     public final int getNonogramCount() {
 
+        if (isLazy()) {
+            return nonogramInfos.size();
+        }
+
         assert nonograms != null;
 
         return nonograms.size();
@@ -123,16 +178,39 @@ public class Course {
      *
      * @param index
      *            index of nonogram to get
-     * @return nonogram at index
+     * @return nonogram at index or <code>null</code> if a lazily loaded nonogram could not be
+     *         decoded
      */
     public final Nonogram getNonogram(final int index) {
 
         if (index < 0 || index > getNonogramCount()) {
             throw new IndexOutOfBoundsException("Index not valid for nonogram list.");
         }
+        if (isLazy()) {
+            return loader.loadNonogram(nonogramInfos.get(index));
+        }
         return nonograms.get(index);
     }
 
+    /**
+     * Gets information about a nonogram by index without decoding its pattern. Index must be
+     * between 0 and <code>getNonogramCount()</code>.
+     *
+     * @param index
+     *            index of nonogram to get information about
+     * @return information about nonogram at index
+     */
+    public final NonogramInfo getNonogramInfo(final int index) {
+
+        if (index < 0 || index > getNonogramCount()) {
+            throw new IndexOutOfBoundsException("Index not valid for nonogram list.");
+        }
+        if (isLazy()) {
+            return nonogramInfos.get(index);
+        }
+        return new NonogramInfo(name, index, nonograms.get(index));
+    }
+
     /**
      * Sets internal nonograms list.
      *
@@ -153,6 +231,9 @@ public class Course {
      */
     public final void addNonogram(final Nonogram n) {
 
+        if (isLazy()) {
+            throw new UnsupportedOperationException("Lazily loaded course can not be changed.");
+        }
         nonograms.add(n);
     }
 
@@ -164,6 +245,9 @@ public class Course {
      */
     public final void removeNonogram(final Nonogram n) {
 
+        if (isLazy()) {
+            throw new UnsupportedOperationException("Lazily loaded course can not be changed.");
+        }
         nonograms.remove(n);
     }
 
@@ -182,11 +266,12 @@ public class Course {
 
         DifficultyLevel maximum = DifficultyLevel.UNDEFINED;
 
-        for (final Nonogram n : nonograms) {
+        for (int i = 0; i < getNonogramCount(); i++) {
 
-            if (n.getDifficulty().compareTo(maximum) > 0) {
+            final DifficultyLevel difficulty = getDifficulty(i);
+            if (difficulty.compareTo(maximum) > 0) {
 
-                maximum = n.getDifficulty();
+                maximum = difficulty;
             }
         }
         return maximum;
@@ -201,13 +286,29 @@ public class Course {
 
         DifficultyLevel minimum = DifficultyLevel.HARDEST;
 
-        for (final Nonogram n : nonograms) {
+        for (int i = 0; i < getNonogramCount(); i++) {
 
-            if (n.getDifficulty().compareTo(minimum) < 0) {
+            final DifficultyLevel difficulty = getDifficulty(i);
+            if (difficulty.compareTo(minimum) < 0) {
 
-                minimum = n.getDifficulty();
+                minimum = difficulty;
             }
         }
         return minimum;
     }
+
+    /**
+     * Gets difficulty of nonogram by index without decoding a lazily loaded nonogram.
+     *
+     * @param index
+     *            index of nonogram
+     * @return difficulty of nonogram at index
+     */
+    private DifficultyLevel getDifficulty(final int index) {
+
+        if (isLazy()) {
+            return nonogramInfos.get(index).getDifficulty();
+        }
+        return nonograms.get(index).getDifficulty();
+    }
 }
@@ -22,6 +22,7 @@ import java.net.URL;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -40,7 +41,7 @@ public class Nonogram implements Serializable {
      * TODO make Nonogram immutable?! (Builder pattern or more constructors?)
      */
 
-    private static final long serialVersionUID = -5072283907982515285L;
+    private static final long serialVersionUID = 3871266489134802375L;
 
     private static Logger logger = Logger.getLogger(Nonogram.class);
 
@@ -165,9 +166,22 @@ public class Nonogram implements Serializable {
     private long duration;
     private URL originPath;
 
+    private static final int BITS_PER_WORD = 64;
+    private static final int WORD_SHIFT = 6;
+    private static final int BIT_INDEX_MASK = BITS_PER_WORD - 1;
+
     private int width;
     private int height;
-    private boolean[][] field;
+
+    /*
+     * The pattern is stored bit-packed twice: row by row in rowBits and transposed column by column
+     * in columnBits. Each line occupies a fixed number of long words, bit x of a row is found in word
+     * (x >>> 6) at position (x & 63). Both views are kept in sync by every setter.
+     */
+    private int wordsPerRow;
+    private int wordsPerColumn;
+    private long[] rowBits;
+    private long[] columnBits;
     private List<int[]> lineNumbers;
     private List<int[]> columnNumbers;
 
@@ -214,15 +228,37 @@ public class Nonogram implements Serializable {
             tempWidth = 0;
         }
 
-        // create internal field array and copy received values
+        // create internal bit arrays and copy received values
         setSize(tempWidth, tempHeight);
         for (int i = 0; i < height(); i++) {
             for (int j = 0; j < width(); j++) {
-                this.field[i][j] = field[i][j];
+                if (field[i][j]) {
+                    setBit(j, i);
+                }
             }
         }
     }
 
+    /**
+     * Nonogram constructor that creates an empty field of the given size. The pattern can be set
+     * afterwards row by row with <code>setRowBits()</code>.
+     *
+     * @param name
+     *            Nonogram name.
+     * @param difficulty
+     *            Nonogram difficulty.
+     * @param width
+     *            Nonogram width.
+     * @param height
+     *            Nonogram height.
+     */
+    public Nonogram(final String name, final DifficultyLevel difficulty, final int width, final int height) {
+
+        this(name, difficulty, new boolean[0][]);
+
+        setSize(width, height);
+    }
+
     @Override
     public final String toString() {
 
@@ -425,6 +461,9 @@ public class Nonogram implements Serializable {
     /**
      * Generates a hash to identify a specific nonograms based on its pattern and other given
      * informations. A nonogram with the same pattern and identical information has the same hash!
+     * <p>
+     * The hashed string still contains the pattern as a sequence of "true" and "false" values,
+     * because statistics, highscores and thumbnails are stored under this hash.
      *
      * @return hash of this nonogram
      */
@@ -440,8 +479,13 @@ public class Nonogram implements Serializable {
         strb.append(width);
         strb.append(height);
         for (int i = 0; i < height(); i++) {
-            for (int j = 0; j < width(); j++) {
-                strb.append(field[i][j]);
+            final int rowOffset = i * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                final long word = rowBits[rowOffset + w];
+                final int bitsInWord = Math.min(BITS_PER_WORD, width() - (w << WORD_SHIFT));
+                for (int b = 0; b < bitsInWord; b++) {
+                    strb.append((word & (1L << b)) != 0);
+                }
             }
         }
 
@@ -484,6 +528,19 @@ public class Nonogram implements Serializable {
         return hash;
     }
 
+    /**
+     * Sets a hash that has been generated earlier by <code>getHash()</code> for a nonogram with
+     * exactly the same pattern and information, e.g. when the nonogram is restored from a cache.
+     * This avoids generating the hash again.
+     *
+     * @param hash
+     *            previously generated hash of this nonogram
+     */
+    public final void setHash(final String hash) {
+
+        this.hash = hash;
+    }
+
     /**
      * Set size of nonogram. This creates a new field, so an already loaded nonogram will be lost.
      *
@@ -496,7 +553,22 @@ public class Nonogram implements Serializable {
 
         width = newWidth;
         height = newHeight;
-        field = new boolean[newHeight][newWidth];
+        wordsPerRow = wordCount(newWidth);
+        wordsPerColumn = wordCount(newHeight);
+        rowBits = new long[newHeight * wordsPerRow];
+        columnBits = new long[newWidth * wordsPerColumn];
+    }
+
+    /**
+     * Calculates how many long words are necessary to store the given number of bits.
+     *
+     * @param bits
+     *            number of bits to store
+     * @return number of necessary words
+     */
+    private static int wordCount(final int bits) {
+
+        return (bits + BIT_INDEX_MASK) >>> WORD_SHIFT;
     }
 
     /**
@@ -550,7 +622,7 @@ public class Nonogram implements Serializable {
             throw new IndexOutOfBoundsException("Given coordinates are not valid.");
         }
 
-        return this.field[y][x];
+        return (rowBits[y * wordsPerRow + (x >>> WORD_SHIFT)] & (1L << (x & BIT_INDEX_MASK))) != 0;
     }
 
     /**
@@ -570,7 +642,186 @@ public class Nonogram implements Serializable {
             throw new IndexOutOfBoundsException("Given coordinates are not valid.");
         }
 
-        this.field[y][x] = b;
+        if (b) {
+            setBit(x, y);
+        } else {
+            clearBit(x, y);
+        }
+    }
+
+    /**
+     * Sets a single field in the row and the column view without checking the coordinates.
+     *
+     * @param x
+     *            column of field
+     * @param y
+     *            row of field
+     */
+    private void setBit(final int x, final int y) {
+
+        rowBits[y * wordsPerRow + (x >>> WORD_SHIFT)] |= 1L << (x & BIT_INDEX_MASK);
+        columnBits[x * wordsPerColumn + (y >>> WORD_SHIFT)] |= 1L << (y & BIT_INDEX_MASK);
+    }
+
+    /**
+     * Clears a single field in the row and the column view without checking the coordinates.
+     *
+     * @param x
+     *            column of field
+     * @param y
+     *            row of field
+     */
+    private void clearBit(final int x, final int y) {
+
+        rowBits[y * wordsPerRow + (x >>> WORD_SHIFT)] &= ~(1L << (x & BIT_INDEX_MASK));
+        columnBits[x * wordsPerColumn + (y >>> WORD_SHIFT)] &= ~(1L << (y & BIT_INDEX_MASK));
+    }
+
+    /**
+     * Gets the number of long words that store a single row of this nonogram.
+     *
+     * @return number of words per row
+     * @see Nonogram#getRowWord(int, int)
+     */
+    public final int getWordsPerRow() {
+
+        return wordsPerRow;
+    }
+
+    /**
+     * Gets the number of long words that store a single column of this nonogram.
+     *
+     * @return number of words per column
+     * @see Nonogram#getColumnWord(int, int)
+     */
+    public final int getWordsPerColumn() {
+
+        return wordsPerColumn;
+    }
+
+    /**
+     * Gets one word of a bit-packed row. Bit <code>b</code> of word <code>w</code> holds the field
+     * value at column <code>w * 64 + b</code>. Bits beyond the width of the nonogram are always
+     * zero.
+     *
+     * @param y
+     *            row to get word from
+     * @param word
+     *            index of word inside the row
+     * @return word with bit-packed field values
+     * @throws IndexOutOfBoundsException
+     *             if row or word index is not valid
+     */
+    public final long getRowWord(final int y, final int word) {
+
+        if (y < 0 || y >= height() || word < 0 || word >= wordsPerRow) {
+            throw new IndexOutOfBoundsException("Given row or word index is not valid.");
+        }
+
+        return rowBits[y * wordsPerRow + word];
+    }
+
+    /**
+     * Gets one word of a bit-packed column. Bit <code>b</code> of word <code>w</code> holds the
+     * field value at row <code>w * 64 + b</code>. Bits beyond the height of the nonogram are always
+     * zero.
+     *
+     * @param x
+     *            column to get word from
+     * @param word
+     *            index of word inside the column
+     * @return word with bit-packed field values
+     * @throws IndexOutOfBoundsException
+     *             if column or word index is not valid
+     */
+    public final long getColumnWord(final int x, final int word) {
+
+        if (x < 0 || x >= width() || word < 0 || word >= wordsPerColumn) {
+            throw new IndexOutOfBoundsException("Given column or word index is not valid.");
+        }
+
+        return columnBits[x * wordsPerColumn + word];
+    }
+
+    /**
+     * Gets a copy of all words of a bit-packed row.
+     *
+     * @param y
+     *            row to get words from
+     * @return array with {@link #getWordsPerRow()} words
+     * @throws IndexOutOfBoundsException
+     *             if row is not valid
+     * @see Nonogram#getRowWord(int, int)
+     */
+    public final long[] getRowBits(final int y) {
+
+        if (y < 0 || y >= height()) {
+            throw new IndexOutOfBoundsException("Given row is not valid.");
+        }
+
+        return Arrays.copyOfRange(rowBits, y * wordsPerRow, (y + 1) * wordsPerRow);
+    }
+
+    /**
+     * Gets a copy of all words of a bit-packed column.
+     *
+     * @param x
+     *            column to get words from
+     * @return array with {@link #getWordsPerColumn()} words
+     * @throws IndexOutOfBoundsException
+     *             if column is not valid
+     * @see Nonogram#getColumnWord(int, int)
+     */
+    public final long[] getColumnBits(final int x) {
+
+        if (x < 0 || x >= width()) {
+            throw new IndexOutOfBoundsException("Given column is not valid.");
+        }
+
+        return Arrays.copyOfRange(columnBits, x * wordsPerColumn, (x + 1) * wordsPerColumn);
+    }
+
+    /**
+     * Sets a whole row from bit-packed words. The layout of the words is the same as returned by
+     * {@link #getRowBits(int)}. Bits beyond the width of the nonogram are ignored.
+     *
+     * @param y
+     *            row to be set
+     * @param bits
+     *            words with bit-packed field values
+     * @throws IndexOutOfBoundsException
+     *             if row is not valid or not enough words are given
+     */
+    public final void setRowBits(final int y, final long[] bits) {
+
+        if (y < 0 || y >= height()) {
+            throw new IndexOutOfBoundsException("Given row is not valid.");
+        }
+        if (bits.length < wordsPerRow) {
+            throw new IndexOutOfBoundsException("Not enough words for row given.");
+        }
+
+        for (int x = 0; x < width(); x++) {
+            if ((bits[x >>> WORD_SHIFT] & (1L << (x & BIT_INDEX_MASK))) != 0) {
+                setBit(x, y);
+            } else {
+                clearBit(x, y);
+            }
+        }
+    }
+
+    /**
+     * Counts all occupied fields of this nonogram.
+     *
+     * @return number of occupied fields
+     */
+    public final int getOccupiedFieldCount() {
+
+        int count = 0;
+        for (final long word : rowBits) {
+            count += Long.bitCount(word);
+        }
+        return count;
     }
 
     /**
@@ -786,67 +1037,42 @@ public class Nonogram implements Serializable {
         logger.debug("Calculating column numbers for nonogram.");
 
         // calculate line numbers
-        lineNumbers = new ArrayList<int[]>();
+        lineNumbers = new ArrayList<int[]>(height());
         for (int i = 0; i < height(); i++) {
-            final int[] tmp = calculateNumbers(i, true);
-            lineNumbers.add(tmp);
+            lineNumbers.add(calculateNumbers(rowBits, i * wordsPerRow, width()));
         }
 
         // calculate column numbers
-        columnNumbers = new ArrayList<int[]>();
+        columnNumbers = new ArrayList<int[]>(width());
         for (int i = 0; i < width(); i++) {
-            final int[] tmp = calculateNumbers(i, false);
-            columnNumbers.add(tmp);
+            columnNumbers.add(calculateNumbers(columnBits, i * wordsPerColumn, height()));
         }
 
         captionsCalculated = true;
     }
 
     /**
-     * Calculates numbers for a specific row or column.
-     * @param index
-     *            index of row or column
-     * @param horizontal
-     *            defines whether it is a row or a column
+     * Calculates numbers for a specific row or column from its bit-packed words. Runs of occupied
+     * fields are found word by word by counting trailing zeros and ones instead of visiting every
+     * single field.
+     *
+     * @param bits
+     *            array containing the words of the row or column
+     * @param offset
+     *            index of first word of the row or column
+     * @param length
+     *            number of fields in row or column
      * @return array of numbers for given row or column
      */
-    private int[] calculateNumbers(final int index, final boolean horizontal) {
-        final List<Integer> list = new ArrayList<Integer>();
+    private static int[] calculateNumbers(final long[] bits, final int offset, final int length) {
 
-        // get loop upper bound according to horizontal parameter
-        int loopLimit = 0;
-        if (horizontal) {
-            loopLimit = width();
-        } else {
-            loopLimit = height();
-        }
-
-        int tmp = 0;
-        boolean currentField = false;
-        for (int i = 0; i < loopLimit; i++) {
-
-            // get value of current field according to horizontal parameter
-            currentField = false;
-            if (horizontal) {
-                currentField = field[index][i];
-            } else {
-                currentField = field[i][index];
-            }
-
-            // increase tmp if series continues...
-            if (currentField) {
-                tmp++;
-                // ...or else add tmp to list and reset tmp
-            } else if (tmp > 0) {
-                list.add(tmp);
-                tmp = 0;
-            }
-        }
+        final List<Integer> list = new ArrayList<Integer>();
 
-        // handle the last set of fields, if available
-        if (tmp > 0) {
-            list.add(tmp);
-            tmp = 0;
+        int position = nextBit(bits, offset, length, 0, true);
+        while (position < length) {
+            final int end = nextBit(bits, offset, length, position, false);
+            list.add(end - position);
+            position = nextBit(bits, offset, length, end, true);
         }
 
         // if there haven't been any occupied fields, so add at least a zero
@@ -862,4 +1088,48 @@ public class Nonogram implements Serializable {
 
         return array;
     }
+
+    /**
+     * Finds the next field in a bit-packed row or column that is occupied or free.
+     *
+     * @param bits
+     *            array containing the words of the row or column
+     * @param offset
+     *            index of first word of the row or column
+     * @param length
+     *            number of fields in row or column
+     * @param from
+     *            position to start searching at
+     * @param occupied
+     *            whether to search for an occupied or a free field
+     * @return position of next matching field or <code>length</code> if there is none
+     */
+    private static int nextBit(final long[] bits, final int offset, final int length,
+            final int from, final boolean occupied) {
+
+        if (from >= length) {
+            return length;
+        }
+        int wordIndex = from >>> WORD_SHIFT;
+        final int lastWord = (length - 1) >>> WORD_SHIFT;
+
+        long word = bits[offset + wordIndex];
+        if (!occupied) {
+            word = ~word;
+        }
+        word &= -1L << (from & BIT_INDEX_MASK);
+
+        while (word == 0) {
+            wordIndex++;
+            if (wordIndex > lastWord) {
+                return length;
+            }
+            word = bits[offset + wordIndex];
+            if (!occupied) {
+                word = ~word;
+            }
+        }
+
+        return Math.min(length, (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word));
+    }
 }
@@ -0,0 +1,280 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.model.data;
+
+import java.util.Comparator;
+
+/**
+ * Stores all information about a nonogram except its pattern. Courses that are loaded lazily hold
+ * only a list of these objects and decode the pattern of a nonogram when it is needed. Source and
+ * position identify where the nonogram can be found, e.g. the name of a zip entry and the index of
+ * the nonogram inside this entry.
+ *
+ * @author Christian Wichmann
+ */
+public final class NonogramInfo {
+
+    /**
+     * Compares two nonogram infos by their level in ascending order like
+     * {@link Nonogram#LEVEL_ASCENDING_ORDER}. As parameters <code>Null</code> is <b>not</b> valid
+     * and will result in a <code>NullPointerException</code>.
+     */
+    public static final Comparator<NonogramInfo> LEVEL_ASCENDING_ORDER = new Comparator<NonogramInfo>() {
+
+        @Override
+        public int compare(final NonogramInfo n1, final NonogramInfo n2) {
+
+            // compare levels reasonably even if one of them is zero
+            if (n1.getLevel() != 0 && n2.getLevel() != 0) {
+                return Integer.compare(n1.getLevel(), n2.getLevel());
+            } else if (n1.getLevel() == 0 && n2.getLevel() != 0) {
+                return 1;
+            } else if (n1.getLevel() != 0 && n2.getLevel() == 0) {
+                return -1;
+            } else {
+                // ...or just use the names
+                return n1.getName().compareTo(n2.getName());
+            }
+        }
+    };
+
+    /**
+     * Compares two nonogram infos by their name in ascending order. As parameters
+     * <code>Null</code> is <b>not</b> valid and will result in a <code>NullPointerException</code>.
+     */
+    public static final Comparator<NonogramInfo> NAME_ASCENDING_ORDER = new Comparator<NonogramInfo>() {
+
+        @Override
+        public int compare(final NonogramInfo n1, final NonogramInfo n2) {
+
+            return n1.getName().compareTo(n2.getName());
+        }
+    };
+
+    private final String source;
+    private final int position;
+    private final String name;
+    private final DifficultyLevel difficulty;
+    private final int width;
+    private final int height;
+    private String description = "";
+    private String author = "";
+    private int level = 0;
+    private long duration = 0;
+
+    /**
+     * Initializes information about a nonogram.
+     *
+     * @param source
+     *            name of the source the nonogram can be loaded from
+     * @param position
+     *            index of the nonogram inside its source
+     * @param name
+     *            name of the nonogram
+     * @param difficulty
+     *            difficulty of the nonogram
+     * @param width
+     *            width of the nonogram
+     * @param height
+     *            height of the nonogram
+     */
+    public NonogramInfo(final String source, final int position, final String name, final DifficultyLevel difficulty,
+            final int width, final int height) {
+
+        if (source == null || name == null) {
+            throw new NullPointerException("Arguments of constructor should not be null.");
+        }
+
+        this.source = source;
+        this.position = position;
+        this.name = name;
+        this.difficulty = difficulty;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Initializes information from an already loaded nonogram.
+     *
+     * @param source
+     *            name of the source the nonogram was loaded from
+     * @param position
+     *            index of the nonogram inside its source
+     * @param n
+     *            nonogram to take all information from
+     */
+    public NonogramInfo(final String source, final int position, final Nonogram n) {
+
+        this(source, position, n.getName(), n.getDifficulty(), n.width(), n.height());
+
+        setDescription(n.getDescription());
+        setAuthor(n.getAuthor());
+        setLevel(n.getLevel());
+        setDuration(n.getDuration());
+    }
+
+    /**
+     * Gets name of the source the nonogram can be loaded from.
+     *
+     * @return name of source
+     */
+    public String getSource() {
+
+        return source;
+    }
+
+    /**
+     * Gets index of the nonogram inside its source.
+     *
+     * @return index of nonogram inside source
+     */
+    public int getPosition() {
+
+        return position;
+    }
+
+    /**
+     * Gets name of nonogram.
+     *
+     * @return name of nonogram
+     */
+    public String getName() {
+
+        return name;
+    }
+
+    /**
+     * Gets difficulty of nonogram.
+     *
+     * @return difficulty of nonogram
+     */
+    public DifficultyLevel getDifficulty() {
+
+        return difficulty;
+    }
+
+    /**
+     * Gets width of nonogram.
+     *
+     * @return width of nonogram
+     */
+    public int width() {
+
+        return width;
+    }
+
+    /**
+     * Gets height of nonogram.
+     *
+     * @return height of nonogram
+     */
+    public int height() {
+
+        return height;
+    }
+
+    /**
+     * Gets description of nonogram.
+     *
+     * @return description of nonogram
+     */
+    public String getDescription() {
+
+        return description;
+    }
+
+    /**
+     * Sets description of nonogram.
+     *
+     * @param description
+     *            description of nonogram
+     */
+    public void setDescription(final String description) {
+
+        this.description = description;
+    }
+
+    /**
+     * Gets author of nonogram.
+     *
+     * @return author of nonogram
+     */
+    public String getAuthor() {
+
+        return author;
+    }
+
+    /**
+     * Sets author of nonogram.
+     *
+     * @param author
+     *            author of nonogram
+     */
+    public void setAuthor(final String author) {
+
+        this.author = author;
+    }
+
+    /**
+     * Gets level of nonogram inside its course.
+     *
+     * @return level of nonogram
+     */
+    public int getLevel() {
+
+        return level;
+    }
+
+    /**
+     * Sets level of nonogram inside its course.
+     *
+     * @param level
+     *            level of nonogram
+     */
+    public void setLevel(final int level) {
+
+        this.level = level;
+    }
+
+    /**
+     * Gets duration for nonogram.
+     *
+     * @return duration for nonogram
+     */
+    public long getDuration() {
+
+        return duration;
+    }
+
+    /**
+     * Sets duration for nonogram.
+     *
+     * @param duration
+     *            duration for nonogram
+     */
+    public void setDuration(final long duration) {
+
+        this.duration = duration;
+    }
+
+    @Override
+    public String toString() {
+
+        return name;
+    }
+}
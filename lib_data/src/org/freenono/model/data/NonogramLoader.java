@@ -0,0 +1,35 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.model.data;
+
+/**
+ * Decodes the pattern of a single nonogram of a course that was loaded lazily.
+ *
+ * @author Christian Wichmann
+ */
+public interface NonogramLoader {
+
+    /**
+     * Loads the nonogram described by the given information from its source.
+     *
+     * @param info
+     *            information about the nonogram to load
+     * @return loaded nonogram or <code>null</code> if it could not be loaded
+     */
+    Nonogram loadNonogram(NonogramInfo info);
+}
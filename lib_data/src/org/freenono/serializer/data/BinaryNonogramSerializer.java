@@ -0,0 +1,523 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.serializer.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.DifficultyLevel;
+import org.freenono.model.data.Nonogram;
+import org.freenono.model.data.NonogramInfo;
+
+/**
+ * Serializes nonograms in a compact binary format. The format starts with a magic number and a
+ * version byte followed by the number of nonograms. For every nonogram its information is stored
+ * as variable length integers and length-prefixed UTF-8 strings, followed by the pattern
+ * bit-packed row by row. Each row occupies <code>(width + 7) / 8</code> bytes, field x of a row is
+ * found in byte <code>x / 8</code> at bit <code>x % 8</code>.
+ * <p>
+ * Variable length integers store seven bits per byte starting with the lowest bits, the highest
+ * bit of a byte is set if more bytes follow. Signed values are zigzag encoded before.
+ * <p>
+ * This serializer holds no state, so a single instance can be used by multiple threads.
+ *
+ * @author Christian Wichmann
+ */
+public class BinaryNonogramSerializer implements NonogramSerializer {
+
+    public static final String DEFAULT_FILE_EXTENSION = "nonobin";
+
+    /**
+     * Current version of the binary format.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    /**
+     * Maximum width and height of a nonogram. The field of the largest nonogram needs 256 KB, so a
+     * corrupt header can not cause a huge allocation.
+     */
+    public static final int MAXIMUM_SIDE_LENGTH = 1024;
+
+    private static Logger logger = Logger.getLogger(BinaryNonogramSerializer.class);
+
+    private static final byte[] MAGIC_NUMBER = {'F', 'N', 'B'};
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int VARINT_DATA_BITS = 7;
+    private static final int VARINT_DATA_MASK = 0x7f;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    private static final int MAXIMUM_VARINT_BYTES = 10;
+    private static final int MAXIMUM_STRING_LENGTH = 1 << 20;
+    private static final int BITS_PER_BYTE = 8;
+
+    /* load methods */
+
+    @Override
+    public final Nonogram[] load(final File f) throws IOException, NonogramFormatException {
+
+        // do some parameter checks
+        if (f == null) {
+            throw new NullPointerException("File parameter is null");
+        }
+        if (f.isDirectory()) {
+            throw new IOException("unable to use a directory to load nonograms");
+        }
+        if (!f.exists()) {
+            throw new FileNotFoundException("specified file doesn't exist");
+        }
+
+        try (InputStream is = new FileInputStream(f)) {
+            return load(is);
+        }
+    }
+
+    /**
+     * Loads an array of nonograms in binary format from the given input stream. The stream is not
+     * closed.
+     * @param is
+     *            {@link InputStream} to load data from
+     * @return array of {@link Nonogram} objects
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the stream doesn't contain valid data
+     */
+    public final Nonogram[] load(final InputStream is) throws IOException, NonogramFormatException {
+
+        if (is == null) {
+            throw new NullPointerException("InputStream parameter is null");
+        }
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        try {
+            final int count = readHeader(in);
+            final List<Nonogram> nonograms = new ArrayList<Nonogram>();
+            for (int i = 0; i < count; i++) {
+                nonograms.add(loadNonogram(in));
+            }
+            return nonograms.toArray(new Nonogram[0]);
+
+        } catch (final EOFException e) {
+            throw new NonogramFormatException("unexpected end of binary data");
+        }
+    }
+
+    /**
+     * Reads information about all nonograms from the given input stream. The patterns are skipped
+     * without being decoded.
+     * @param is
+     *            {@link InputStream} to load data from
+     * @param source
+     *            name of the source to be stored in every information object
+     * @return list of information about all nonograms in stream
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the stream doesn't contain valid data
+     */
+    public final List<NonogramInfo> loadInfos(final InputStream is, final String source) throws IOException,
+            NonogramFormatException {
+
+        if (is == null) {
+            throw new NullPointerException("InputStream parameter is null");
+        }
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+        try {
+            final int count = readHeader(in);
+            final List<NonogramInfo> infos = new ArrayList<NonogramInfo>();
+            for (int i = 0; i < count; i++) {
+                final NonogramInfo info = loadNonogramInfo(in, source, i);
+                final int rowBytes = (info.width() + BITS_PER_BYTE - 1) / BITS_PER_BYTE;
+                skipFully(in, (long) rowBytes * info.height());
+                infos.add(info);
+            }
+            return infos;
+
+        } catch (final EOFException e) {
+            throw new NonogramFormatException("unexpected end of binary data");
+        }
+    }
+
+    /**
+     * Skips the given number of bytes in stream.
+     * @param in
+     *            stream to read from
+     * @param count
+     *            number of bytes to skip
+     * @throws IOException
+     *             if the stream ends before all bytes were skipped
+     */
+    private static void skipFully(final DataInputStream in, final long count) throws IOException {
+
+        long remaining = count;
+        while (remaining > 0) {
+            final long skipped = in.skip(remaining);
+            if (skipped > 0) {
+                remaining -= skipped;
+            } else {
+                // skip() may return zero before the end of stream, so read a single byte instead
+                in.readByte();
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Reads and checks magic number and version of the binary format.
+     * @param in
+     *            stream to read from
+     * @return number of nonograms in stream
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the stream doesn't start with a valid header
+     */
+    private int readHeader(final DataInputStream in) throws IOException, NonogramFormatException {
+
+        for (final byte b : MAGIC_NUMBER) {
+            if (in.readByte() != b) {
+                throw new NonogramFormatException("data is not in binary nonogram format");
+            }
+        }
+
+        final int version = in.readUnsignedByte();
+        if (version > FORMAT_VERSION) {
+            logger.warn("Binary nonogram format version " + version + " is not supported.");
+            throw new NonogramFormatException("unsupported version of binary format: " + version);
+        }
+
+        return readVarInt(in);
+    }
+
+    /**
+     * Reads information about the next nonogram from stream.
+     * @param in
+     *            stream to read from
+     * @param source
+     *            name of the source of this nonogram
+     * @param position
+     *            index of nonogram in its source
+     * @return information about nonogram
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the stream doesn't contain valid data
+     */
+    private NonogramInfo loadNonogramInfo(final DataInputStream in, final String source, final int position)
+            throws IOException, NonogramFormatException {
+
+        final String name = readString(in);
+        final String desc = readString(in);
+        final String author = readString(in);
+
+        final int difficulty = readVarInt(in);
+        if (difficulty >= DifficultyLevel.values().length) {
+            throw new NonogramFormatException("invalid difficulty: " + difficulty);
+        }
+        final int level = zigzagDecode(readVarLong(in));
+        final long duration = zigzagDecodeLong(readVarLong(in));
+
+        final int width = readVarInt(in);
+        final int height = readVarInt(in);
+        if (width > MAXIMUM_SIDE_LENGTH || height > MAXIMUM_SIDE_LENGTH) {
+            throw new NonogramFormatException("nonogram is too large: " + width + "x" + height);
+        }
+
+        final NonogramInfo info = new NonogramInfo(source, position, name, DifficultyLevel.values()[difficulty], width, height);
+        info.setDescription(desc);
+        info.setAuthor(author);
+        info.setLevel(level);
+        info.setDuration(duration);
+        return info;
+    }
+
+    /**
+     * Reads the next nonogram including its pattern from stream.
+     * @param in
+     *            stream to read from
+     * @return nonogram
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the stream doesn't contain valid data
+     */
+    private Nonogram loadNonogram(final DataInputStream in) throws IOException, NonogramFormatException {
+
+        final NonogramInfo info = loadNonogramInfo(in, "", 0);
+
+        final Nonogram n = new Nonogram(info.getName(), info.getDifficulty(), info.width(), info.height());
+        n.setDescription(info.getDescription());
+        n.setAuthor(info.getAuthor());
+        n.setLevel(info.getLevel());
+        n.setDuration(info.getDuration());
+
+        final byte[] rowBytes = new byte[(n.width() + BITS_PER_BYTE - 1) / BITS_PER_BYTE];
+        final long[] row = new long[n.getWordsPerRow()];
+        for (int y = 0; y < n.height(); y++) {
+            in.readFully(rowBytes);
+            for (int w = 0; w < row.length; w++) {
+                long word = 0;
+                for (int b = 0; b < Long.SIZE / BITS_PER_BYTE; b++) {
+                    final int index = w * (Long.SIZE / BITS_PER_BYTE) + b;
+                    if (index < rowBytes.length) {
+                        word |= (rowBytes[index] & 0xffL) << (b * BITS_PER_BYTE);
+                    }
+                }
+                row[w] = word;
+            }
+            n.setRowBits(y, row);
+        }
+
+        return n;
+    }
+
+    /* save methods */
+
+    @Override
+    public final void save(final File f, final Nonogram... n) throws IOException {
+
+        // do some parameter checks
+        if (f == null) {
+            throw new NullPointerException("File parameter is null");
+        }
+        if (f.isDirectory()) {
+            throw new IOException("unable to use a directory to save nonograms");
+        }
+        if (f.exists()) {
+            logger.warn("specified output file already exists, it will be overwritten");
+        }
+
+        try (OutputStream os = new FileOutputStream(f)) {
+            save(os, n);
+        }
+    }
+
+    /**
+     * Saves the specified nonograms in binary format to the given output stream. The stream is
+     * flushed but not closed.
+     * @param os
+     *            {@link OutputStream} to write to
+     * @param n
+     *            array of {@link Nonogram}
+     * @throws IOException
+     *             if the data couldn't been written
+     */
+    public final void save(final OutputStream os, final Nonogram... n) throws IOException {
+
+        // do some parameter checks
+        if (os == null) {
+            throw new NullPointerException("OutputStream parameter is null");
+        }
+        if (n == null) {
+            throw new NullPointerException("Nonogram parameter is null");
+        }
+        if (n.length == 0) {
+            throw new NullPointerException("No nonogram was specified as parameter");
+        }
+
+        final BufferedOutputStream out = new BufferedOutputStream(os);
+        out.write(MAGIC_NUMBER);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, n.length);
+
+        for (final Nonogram nonogram : n) {
+            saveNonogram(out, nonogram);
+        }
+        out.flush();
+    }
+
+    /**
+     * Saves one nonogram to the given stream.
+     * @param out
+     *            stream to write to
+     * @param n
+     *            nonogram to save
+     * @throws IOException
+     *             if the data couldn't been written
+     */
+    private void saveNonogram(final OutputStream out, final Nonogram n) throws IOException {
+
+        if (n.width() > MAXIMUM_SIDE_LENGTH || n.height() > MAXIMUM_SIDE_LENGTH) {
+            throw new IOException("nonogram is too large for binary format: " + n.width() + "x" + n.height());
+        }
+
+        writeString(out, n.getName());
+        writeString(out, n.getDescription());
+        writeString(out, n.getAuthor());
+        writeVarLong(out, n.getDifficulty().ordinal());
+        writeVarLong(out, zigzagEncode(n.getLevel()));
+        writeVarLong(out, zigzagEncode(n.getDuration()));
+        writeVarLong(out, n.width());
+        writeVarLong(out, n.height());
+
+        final byte[] rowBytes = new byte[(n.width() + BITS_PER_BYTE - 1) / BITS_PER_BYTE];
+        for (int y = 0; y < n.height(); y++) {
+            for (int i = 0; i < rowBytes.length; i++) {
+                final long word = n.getRowWord(y, i / (Long.SIZE / BITS_PER_BYTE));
+                rowBytes[i] = (byte) (word >>> ((i % (Long.SIZE / BITS_PER_BYTE)) * BITS_PER_BYTE));
+            }
+            out.write(rowBytes);
+        }
+    }
+
+    /* helper methods for variable length integers and strings */
+
+    /**
+     * Writes an unsigned value as variable length integer.
+     * @param out
+     *            stream to write to
+     * @param value
+     *            value to write
+     * @throws IOException
+     *             if the data couldn't been written
+     */
+    private static void writeVarLong(final OutputStream out, final long value) throws IOException {
+
+        long v = value;
+        while ((v & ~VARINT_DATA_MASK) != 0) {
+            out.write((int) (v & VARINT_DATA_MASK) | VARINT_CONTINUATION_BIT);
+            v >>>= VARINT_DATA_BITS;
+        }
+        out.write((int) v);
+    }
+
+    /**
+     * Reads an unsigned variable length integer.
+     * @param in
+     *            stream to read from
+     * @return value read from stream
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the integer is too long
+     */
+    private static long readVarLong(final DataInputStream in) throws IOException, NonogramFormatException {
+
+        long value = 0;
+        for (int i = 0; i < MAXIMUM_VARINT_BYTES; i++) {
+            final int b = in.readUnsignedByte();
+            value |= (long) (b & VARINT_DATA_MASK) << (i * VARINT_DATA_BITS);
+            if ((b & VARINT_CONTINUATION_BIT) == 0) {
+                return value;
+            }
+        }
+        throw new NonogramFormatException("variable length integer is too long");
+    }
+
+    /**
+     * Reads an unsigned variable length integer that has to fit into an int.
+     * @param in
+     *            stream to read from
+     * @return value read from stream
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the value is negative or too large
+     */
+    private static int readVarInt(final DataInputStream in) throws IOException, NonogramFormatException {
+
+        final long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new NonogramFormatException("value out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Maps signed values to unsigned values, so that small negative values get small codes.
+     * @param value
+     *            signed value
+     * @return zigzag encoded value
+     */
+    private static long zigzagEncode(final long value) {
+
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+
+    /**
+     * Decodes a zigzag encoded value.
+     * @param value
+     *            zigzag encoded value
+     * @return signed value
+     */
+    private static long zigzagDecodeLong(final long value) {
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Decodes a zigzag encoded value that has to fit into an int.
+     * @param value
+     *            zigzag encoded value
+     * @return signed value
+     */
+    private static int zigzagDecode(final long value) {
+
+        return (int) zigzagDecodeLong(value);
+    }
+
+    /**
+     * Writes a string as its length followed by its UTF-8 encoded bytes.
+     * @param out
+     *            stream to write to
+     * @param s
+     *            string to write, <code>null</code> is written as empty string
+     * @throws IOException
+     *             if the data couldn't been written
+     */
+    private static void writeString(final OutputStream out, final String s) throws IOException {
+
+        final byte[] bytes = s == null ? new byte[0] : s.getBytes(CHARSET);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string that was written by <code>writeString()</code>.
+     * @param in
+     *            stream to read from
+     * @return string read from stream
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the length of the string is invalid
+     */
+    private static String readString(final DataInputStream in) throws IOException, NonogramFormatException {
+
+        final int length = readVarInt(in);
+        if (length > MAXIMUM_STRING_LENGTH) {
+            throw new NonogramFormatException("string is too long: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, CHARSET);
+    }
+}
@@ -320,8 +320,8 @@ public class SimpleNonogramSerializer implements NonogramSerializer {
             throw new NullPointerException("No nonogram was specified as parameter");
         }
 
-        for (final Nonogram nonogram : n) {
-            try {
+        try {
+            for (final Nonogram nonogram : n) {
 
                 w.write(nonogram.getName());
                 w.write(Tools.NEW_LINE);
@@ -331,21 +331,19 @@ public class SimpleNonogramSerializer implements NonogramSerializer {
                 w.write(Integer.toString(nonogram.height()));
                 w.write(Tools.NEW_LINE);
 
-                for (int i = 0; i < nonogram.height(); i++) {
-                    for (int j = 0; j < nonogram.width(); j++) {
-                        w.write(getFieldChar(nonogram.getFieldValue(i, j)));
+                for (int y = 0; y < nonogram.height(); y++) {
+                    for (int x = 0; x < nonogram.width(); x++) {
+                        w.write(getFieldChar(nonogram.getFieldValue(x, y)));
                     }
                     w.write(Tools.NEW_LINE);
                 }
-                w.flush();
-
-            } catch (final IOException e) {
-                throw new IOException("Unable to write Nonogram output file", e);
-            } finally {
-                if (w != null) {
-                    w.close();
-                }
             }
+            w.flush();
+
+        } catch (final IOException e) {
+            throw new IOException("Unable to write Nonogram output file", e);
+        } finally {
+            w.close();
         }
 
     }
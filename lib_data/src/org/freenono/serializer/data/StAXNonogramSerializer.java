@@ -40,6 +40,7 @@ import javax.xml.stream.XMLStreamWriter;
 import org.apache.log4j.Logger;
 import org.freenono.model.data.DifficultyLevel;
 import org.freenono.model.data.Nonogram;
+import org.freenono.model.data.NonogramInfo;
 
 /**
  * @author Markus Wichmann
@@ -153,6 +154,115 @@ public class StAXNonogramSerializer implements NonogramSerializer {
         return list.toArray(new Nonogram[0]);
     }
 
+    /**
+     * Reads information about all nonograms from the given input stream without decoding their
+     * patterns. Only the attributes of every nonogram element are evaluated, all lines are skipped.
+     * @param is
+     *            {@link InputStream} to load data from
+     * @param source
+     *            name of the source to be stored in every information object
+     * @return list of information about all nonograms in stream
+     * @throws IOException
+     *             if the stream couldn't be read
+     * @throws NonogramFormatException
+     *             if the stream doesn't contain valid data
+     */
+    public final List<NonogramInfo> loadInfos(final InputStream is, final String source) throws IOException,
+            NonogramFormatException {
+
+        // do some parameter checks
+        if (is == null) {
+            throw new NullPointerException("InputStream parameter is null");
+        }
+
+        final List<NonogramInfo> list = new ArrayList<>();
+        try {
+            final XMLStreamReader reader = getInputFactory().createXMLStreamReader(new BufferedInputStream(is));
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "Nonogram".equals(reader.getLocalName())) {
+                    list.add(loadNonogramInfo(reader, source, list.size()));
+                }
+            }
+
+        } catch (final XMLStreamException e) {
+            throw new NonogramFormatException("Unable to read file");
+        } catch (final NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new NonogramFormatException("Unable to read attributes of nonogram");
+        }
+
+        return list;
+    }
+
+    /**
+     * Reads the attributes of the nonogram element at the current position of the given XML
+     * stream.
+     * @param reader
+     *            {@link XMLStreamReader} positioned on a nonogram element
+     * @param source
+     *            name of the source of this nonogram
+     * @param position
+     *            index of nonogram in its source
+     * @return {@link NonogramInfo} object
+     * @throws NonogramFormatException
+     *             if the element doesn't contain a valid size
+     */
+    private NonogramInfo loadNonogramInfo(final XMLStreamReader reader, final String source, final int position)
+            throws NonogramFormatException {
+
+        String name = "";
+        DifficultyLevel diff = DifficultyLevel.UNDEFINED;
+        int width = -1;
+        int height = -1;
+        String desc = "";
+        int duration = 0;
+        String author = "";
+        int level = 0;
+
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String attribValue = reader.getAttributeValue(i);
+            switch (reader.getAttributeLocalName(i)) {
+            case "name":
+                name = attribValue;
+                break;
+            case "desc":
+                desc = attribValue;
+                break;
+            case "author":
+                author = attribValue;
+                break;
+            case "width":
+                width = Integer.parseInt(attribValue);
+                break;
+            case "height":
+                height = Integer.parseInt(attribValue);
+                break;
+            case "difficulty":
+                diff = DifficultyLevel.values()[Integer.parseInt(attribValue)];
+                break;
+            case "level":
+                level = Integer.parseInt(attribValue);
+                break;
+            case "duration":
+                duration = Integer.parseInt(attribValue);
+                break;
+            default:
+                break;
+            }
+        }
+
+        if (width < 0 || height < 0) {
+            LOGGER.warn("missing size of nonogram " + name);
+            throw new NonogramFormatException("nonogram has no valid size");
+        }
+
+        final NonogramInfo info = new NonogramInfo(source, position, name, diff, width, height);
+        info.setDescription(desc);
+        info.setAuthor(author);
+        info.setDuration(duration);
+        info.setLevel(level);
+        return info;
+    }
+
     /**
      * Reads the next Nonogram from the given XML stream.
      * @param reader
@@ -146,7 +146,7 @@ public class XMLCourseSerializer implements CourseSerializer {
 
         final File courseDir = new File(f, c.getName() + Tools.FILE_SEPARATOR);
 
-        if (!courseDir.mkdirs()) {
+        if (!courseDir.isDirectory() && !courseDir.mkdirs()) {
             throw new IOException("Unable to create directories");
         }
 
@@ -17,6 +17,8 @@
  *****************************************************************************/
 package org.freenono.serializer.data;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -26,7 +28,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
@@ -35,10 +39,19 @@ import java.util.zip.ZipOutputStream;
 import org.apache.log4j.Logger;
 import org.freenono.model.data.Course;
 import org.freenono.model.data.Nonogram;
+import org.freenono.model.data.NonogramInfo;
+import org.freenono.model.data.NonogramLoader;
 
 /**
  * Serializes a whole course of nonograms into or from a zip file. A course can be loaded either by
  * file object or through a InputStream.
+ * <p>
+ * In lazy mode courses loaded from a file contain only information about their nonograms. The zip
+ * file is read only once while loading and the content of every entry is kept with the course. The
+ * patterns of the nonograms in an entry are decoded when one of them is requested and kept with the
+ * course as well, so the zip file is never opened again and changes to it do not affect courses that
+ * were loaded before. Every lazily loaded course uses its own nonogram serializers, so in lazy mode
+ * courses can be loaded from multiple threads at once.
  *
  * @author Markus Wichmann, Christian Wichmann
  */
@@ -48,10 +61,142 @@ public class ZipCourseSerializer implements CourseSerializer {
 
     private static Logger logger = Logger.getLogger(ZipCourseSerializer.class);
 
+    private static final int BUFFER_SIZE = 8192;
+
     private final StAXNonogramSerializer xmlNonogramSerializer = new StAXNonogramSerializer();
 
     private final SimpleNonogramSerializer simpleNonogramSerializer = new SimpleNonogramSerializer();
 
+    private final BinaryNonogramSerializer binaryNonogramSerializer = new BinaryNonogramSerializer();
+
+    private final boolean lazy;
+
+    private EntryFormat entryFormat = EntryFormat.XML;
+
+    /**
+     * Defines in which format nonograms are stored as entries of a zip file.
+     */
+    public enum EntryFormat {
+
+        /**
+         * Nonograms are stored as xml files with extension <code>.nonogram</code>.
+         */
+        XML(StAXNonogramSerializer.DEFAULT_FILE_EXTENSION),
+
+        /**
+         * Nonograms are stored in binary format with extension <code>.nonobin</code>.
+         */
+        BINARY(BinaryNonogramSerializer.DEFAULT_FILE_EXTENSION);
+
+        private final String extension;
+
+        /**
+         * Initializes a format with the extension used for zip entries.
+         *
+         * @param extension
+         *            extension of zip entries without leading dot
+         */
+        private EntryFormat(final String extension) {
+
+            this.extension = extension;
+        }
+
+        /**
+         * Gets extension of zip entries in this format.
+         *
+         * @return extension without leading dot
+         */
+        public String getExtension() {
+
+            return extension;
+        }
+    }
+
+    /**
+     * Initializes a serializer that loads all nonograms of a course immediately.
+     */
+    public ZipCourseSerializer() {
+
+        this(false);
+    }
+
+    /**
+     * Initializes a serializer that loads nonograms either immediately or lazily.
+     *
+     * @param lazy
+     *            if nonograms should only be decoded when they are requested
+     */
+    public ZipCourseSerializer(final boolean lazy) {
+
+        this.lazy = lazy;
+    }
+
+    /**
+     * Decodes single nonograms of a lazily loaded course from the content of its zip entries. All
+     * nonograms of an entry are decoded together when the first of them is requested and are kept
+     * until the course is no longer used. Every loader uses its own serializers so that nonograms
+     * can be decoded while other courses are still loading.
+     *
+     * @author Christian Wichmann
+     */
+    private class ZipNonogramLoader implements NonogramLoader {
+
+        private final File file;
+
+        private final Map<String, byte[]> entryData = new HashMap<String, byte[]>();
+
+        private final Map<String, List<Nonogram>> decodedEntries = new HashMap<String, List<Nonogram>>();
+
+        private final StAXNonogramSerializer loaderXmlSerializer = new StAXNonogramSerializer();
+
+        private final SimpleNonogramSerializer loaderSimpleSerializer = new SimpleNonogramSerializer();
+
+        /**
+         * Initializes a loader for nonograms in the given zip file.
+         *
+         * @param file
+         *            zip file containing the course
+         */
+        public ZipNonogramLoader(final File file) {
+
+            this.file = file;
+        }
+
+        @Override
+        public synchronized Nonogram loadNonogram(final NonogramInfo info) {
+
+            List<Nonogram> nonograms = decodedEntries.get(info.getSource());
+
+            if (nonograms == null) {
+                final byte[] data = entryData.get(info.getSource());
+                if (data == null) {
+                    logger.warn("Entry " + info.getSource() + " not found in " + file);
+                    return null;
+                }
+
+                try {
+                    nonograms = loadFileFromZIP(new ZipEntry(info.getSource()), new ByteArrayInputStream(data),
+                            loaderXmlSerializer, loaderSimpleSerializer, binaryNonogramSerializer);
+                } catch (final IOException e) {
+                    logger.warn("Unable to read nonogram " + info.getName() + " from " + file);
+                    return null;
+                } catch (final NonogramFormatException e) {
+                    logger.warn("Nonogram " + info.getName() + " in " + file + " has wrong format");
+                    return null;
+                }
+
+                // content of entry is no longer needed after it was decoded
+                decodedEntries.put(info.getSource(), nonograms);
+                entryData.remove(info.getSource());
+            }
+
+            if (info.getPosition() < nonograms.size()) {
+                return nonograms.get(info.getPosition());
+            }
+            return null;
+        }
+    }
+
     /**
      * Extension of ZipInputStream to prevent xml classes used in XMLNonogramSerializer from closing
      * the stream. The stream includes all files in a given jar file which is read by
@@ -93,6 +238,31 @@ public class ZipCourseSerializer implements CourseSerializer {
         }
     }
 
+    /**
+     * Gets the format in which nonograms are saved as zip entries.
+     *
+     * @return format of zip entries
+     */
+    public final EntryFormat getEntryFormat() {
+
+        return entryFormat;
+    }
+
+    /**
+     * Sets the format in which nonograms are saved as zip entries. Loading always accepts entries in
+     * all formats.
+     *
+     * @param entryFormat
+     *            format of zip entries
+     */
+    public final void setEntryFormat(final EntryFormat entryFormat) {
+
+        if (entryFormat == null) {
+            throw new NullPointerException("Parameter entryFormat is null");
+        }
+        this.entryFormat = entryFormat;
+    }
+
     /* load methods */
 
     @Override
@@ -112,6 +282,10 @@ public class ZipCourseSerializer implements CourseSerializer {
             throw new FileNotFoundException("specified directory doesn't exist");
         }
 
+        if (lazy) {
+            return loadLazily(f);
+        }
+
         Course c;
         String name;
         ZipFile zip = null;
@@ -152,6 +326,91 @@ public class ZipCourseSerializer implements CourseSerializer {
         return c;
     }
 
+    /**
+     * Loads only information about all nonograms of a course from a given zip file. Nonograms are
+     * decoded when they are requested from the course.
+     *
+     * @param f
+     *            zip file to read from
+     * @return lazily loaded course
+     * @throws IOException
+     *             if file could not be opened
+     * @throws CourseFormatException
+     *             if file contains no nonograms
+     * @throws NonogramFormatException
+     *             if nonograms inside file have wrong format
+     */
+    private Course loadLazily(final File f) throws IOException, CourseFormatException, NonogramFormatException {
+
+        String name = f.getName();
+        final int index = name.lastIndexOf('.');
+        if (index >= 0) {
+            name = name.substring(0, index);
+        }
+
+        final List<NonogramInfo> infos = new ArrayList<NonogramInfo>();
+        final ZipNonogramLoader loader = new ZipNonogramLoader(f);
+
+        try (ZipFile zip = new ZipFile(f)) {
+
+            for (final Enumeration<? extends ZipEntry> list = zip.entries(); list.hasMoreElements();) {
+
+                final ZipEntry entry = list.nextElement();
+                final String entryName = entry.getName();
+
+                if (entryName.endsWith("." + StAXNonogramSerializer.DEFAULT_FILE_EXTENSION)) {
+                    final byte[] data = readEntry(zip, entry);
+                    infos.addAll(loader.loaderXmlSerializer.loadInfos(new ByteArrayInputStream(data), entryName));
+                    loader.entryData.put(entryName, data);
+
+                } else if (entryName.endsWith("." + BinaryNonogramSerializer.DEFAULT_FILE_EXTENSION)) {
+                    final byte[] data = readEntry(zip, entry);
+                    infos.addAll(binaryNonogramSerializer.loadInfos(new ByteArrayInputStream(data), entryName));
+                    loader.entryData.put(entryName, data);
+
+                } else if (entryName.endsWith("." + SimpleNonogramSerializer.DEFAULT_FILE_EXTENSION)) {
+                    // simple format has no header, so nonograms have to be loaded completely
+                    final Nonogram[] n = loader.loaderSimpleSerializer.load(zip.getInputStream(entry));
+                    for (int i = 0; i < n.length; i++) {
+                        infos.add(new NonogramInfo(entryName, i, n[i]));
+                    }
+                    loader.decodedEntries.put(entryName, Arrays.asList(n));
+                }
+            }
+        }
+
+        if (infos.isEmpty()) {
+            throw new CourseFormatException("Specified zip file contains no nonograms.");
+        }
+
+        Collections.sort(infos, NonogramInfo.NAME_ASCENDING_ORDER);
+        return new Course(name, infos, loader);
+    }
+
+    /**
+     * Reads the whole content of a zip entry.
+     *
+     * @param zip
+     *            zip file containing the entry
+     * @param entry
+     *            entry to be read
+     * @return content of entry
+     * @throws IOException
+     *             if entry could not be read
+     */
+    private static byte[] readEntry(final ZipFile zip, final ZipEntry entry) throws IOException {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : BUFFER_SIZE);
+        try (InputStream is = zip.getInputStream(entry)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
     /**
      * Loads a whole course from a given input stream.
      * @param is
@@ -200,6 +459,31 @@ public class ZipCourseSerializer implements CourseSerializer {
      */
     private List<Nonogram> loadFileFromZIP(final ZipEntry entry, final InputStream is) throws IOException, NonogramFormatException {
 
+        return loadFileFromZIP(entry, is, xmlNonogramSerializer, simpleNonogramSerializer, binaryNonogramSerializer);
+    }
+
+    /**
+     * Loads a course file from a given zip file with the given serializers.
+     * @param entry
+     *            ZipEntry for file to read
+     * @param is
+     *            input stream from which to read
+     * @param xmlNonogramSerializer
+     *            serializer for nonograms in xml format
+     * @param simpleNonogramSerializer
+     *            serializer for nonograms in simple format
+     * @param binaryNonogramSerializer
+     *            serializer for nonograms in binary format
+     * @return list of nonograms from course file inside a zip file
+     * @throws IOException
+     *             if file could not be opened
+     * @throws NonogramFormatException
+     *             if nonograms inside course have wrong format
+     */
+    private static List<Nonogram> loadFileFromZIP(final ZipEntry entry, final InputStream is,
+            final StAXNonogramSerializer xmlNonogramSerializer, final SimpleNonogramSerializer simpleNonogramSerializer,
+            final BinaryNonogramSerializer binaryNonogramSerializer) throws IOException, NonogramFormatException {
+
         final List<Nonogram> nonograms = new ArrayList<Nonogram>();
         Nonogram[] n = null;
 
@@ -213,6 +497,10 @@ public class ZipCourseSerializer implements CourseSerializer {
             // load nonograms with the simple serializer
             n = simpleNonogramSerializer.load(is);
 
+        } else if (entry.getName().endsWith("." + BinaryNonogramSerializer.DEFAULT_FILE_EXTENSION)) {
+
+            // load nonograms with the binary serializer
+            n = binaryNonogramSerializer.load(is);
         }
 
         if (n != null) {
@@ -261,8 +549,12 @@ public class ZipCourseSerializer implements CourseSerializer {
 
             for (final Nonogram n : c.getNonograms()) {
 
-                zos.putNextEntry(new ZipEntry(n.getName() + ".nonogram"));
-                xmlNonogramSerializer.save(zos, n);
+                zos.putNextEntry(new ZipEntry(n.getName() + "." + entryFormat.getExtension()));
+                if (entryFormat == EntryFormat.BINARY) {
+                    binaryNonogramSerializer.save(zos, n);
+                } else {
+                    xmlNonogramSerializer.save(zos, n);
+                }
                 zos.closeEntry();
             }
         } finally {
@@ -0,0 +1,333 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Solves a single row or column of a nonogram as far as possible without looking at any other
+ * line. For every unknown cell it is checked whether the cell can be occupied or free in at least
+ * one placement of all blocks that is consistent with the already known cells. Both questions are
+ * answered by dynamic programming over prefixes and suffixes of the line in O(n * k) time, where
+ * n is the length of the line and k the number of blocks.
+ * <p>
+ * Results are cached by clue and line state, so that identical lines are only solved once. This
+ * class is not thread-safe, every solver needs its own instance.
+ *
+ * @author Christian Wichmann
+ */
+final class LineSolver {
+
+    /**
+     * Cell state for a cell that is not yet known.
+     */
+    static final byte UNKNOWN = 0;
+
+    /**
+     * Cell state for an occupied cell.
+     */
+    static final byte FILLED = 1;
+
+    /**
+     * Cell state for a free cell.
+     */
+    static final byte EMPTY = 2;
+
+    private static final int MAX_CACHE_ENTRIES = 1 << 16;
+
+    /**
+     * Marker stored in cache for lines that are contradictory.
+     */
+    private static final byte[] CONTRADICTION = new byte[0];
+
+    private final Map<LineKey, byte[]> cache = new HashMap<LineKey, byte[]>();
+
+    private int cacheHits = 0;
+    private int solvedLines = 0;
+
+    /* scratch arrays reused for all lines */
+    private int[] filledCount = new int[0];
+    private int[] emptyCount = new int[0];
+    private int[] fillDelta = new int[0];
+    private boolean[] forward = new boolean[0];
+    private boolean[] backward = new boolean[0];
+
+    /**
+     * Key for the cache of solved lines. It consists of an identifier for the clue of the line and
+     * the current state of all cells.
+     */
+    private static final class LineKey {
+
+        private final int clueId;
+        private final byte[] state;
+        private final int hash;
+
+        /**
+         * Initializes a new key.
+         *
+         * @param clueId
+         *            identifier of clue, identical clues have to use the same identifier
+         * @param state
+         *            current state of cells, will be copied
+         * @param length
+         *            number of cells in line
+         */
+        LineKey(final int clueId, final byte[] state, final int length) {
+
+            this.clueId = clueId;
+            this.state = Arrays.copyOf(state, length);
+            this.hash = 31 * clueId + Arrays.hashCode(this.state);
+        }
+
+        @Override
+        public int hashCode() {
+
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof LineKey)) {
+                return false;
+            }
+            final LineKey other = (LineKey) obj;
+            return hash == other.hash && clueId == other.clueId && Arrays.equals(state, other.state);
+        }
+    }
+
+    /**
+     * Solves a single line. The returned array must not be changed by the caller, because it is
+     * stored in the cache.
+     *
+     * @param clueId
+     *            identifier of clue, identical clues have to use the same identifier
+     * @param clue
+     *            lengths of all blocks in this line, an empty array for a line without blocks
+     * @param line
+     *            current state of all cells in line
+     * @param length
+     *            number of cells in line
+     * @return new state of all cells in line or <code>null</code> if line is contradictory
+     */
+    byte[] solve(final int clueId, final int[] clue, final byte[] line, final int length) {
+
+        final LineKey key = new LineKey(clueId, line, length);
+        final byte[] cached = cache.get(key);
+        if (cached != null) {
+            cacheHits++;
+            return cached == CONTRADICTION ? null : cached;
+        }
+
+        solvedLines++;
+        final byte[] result = solveUncached(clue, key.state, length);
+
+        if (cache.size() >= MAX_CACHE_ENTRIES) {
+            cache.clear();
+        }
+        cache.put(key, result == null ? CONTRADICTION : result);
+
+        return result;
+    }
+
+    /**
+     * Gets how many lines were answered from cache.
+     *
+     * @return number of cache hits
+     */
+    int getCacheHits() {
+
+        return cacheHits;
+    }
+
+    /**
+     * Gets how many lines were actually solved.
+     *
+     * @return number of solved lines
+     */
+    int getSolvedLines() {
+
+        return solvedLines;
+    }
+
+    /**
+     * Solves a single line without using the cache.
+     *
+     * @param clue
+     *            lengths of all blocks in this line
+     * @param line
+     *            current state of all cells in line
+     * @param n
+     *            number of cells in line
+     * @return new state of all cells in line or <code>null</code> if line is contradictory
+     */
+    private byte[] solveUncached(final int[] clue, final byte[] line, final int n) {
+
+        final int k = clue.length;
+        final int stride = n + 1;
+        ensureCapacity(n, k);
+
+        // prefix sums to check ranges for occupied or free cells in constant time
+        filledCount[0] = 0;
+        emptyCount[0] = 0;
+        for (int i = 0; i < n; i++) {
+            filledCount[i + 1] = filledCount[i] + (line[i] == FILLED ? 1 : 0);
+            emptyCount[i + 1] = emptyCount[i] + (line[i] == EMPTY ? 1 : 0);
+        }
+
+        /*
+         * forward[j * stride + i]: the first j blocks can be placed in cells [0, i) so that every
+         * occupied cell in this range is covered.
+         */
+        for (int i = 0; i <= n; i++) {
+            forward[i] = filledCount[i] == 0;
+        }
+        for (int j = 1; j <= k; j++) {
+            final int c = clue[j - 1];
+            final int row = j * stride;
+            forward[row] = false;
+            for (int i = 1; i <= n; i++) {
+                boolean possible = line[i - 1] != FILLED && forward[row + i - 1];
+                final int s = i - c;
+                if (!possible && s >= 0 && emptyCount[i] - emptyCount[s] == 0) {
+                    if (s == 0) {
+                        possible = j == 1;
+                    } else {
+                        possible = line[s - 1] != FILLED && forward[(j - 1) * stride + s - 1];
+                    }
+                }
+                forward[row + i] = possible;
+            }
+        }
+
+        if (!forward[k * stride + n]) {
+            return null;
+        }
+
+        /*
+         * backward[j * stride + i]: the blocks j to k - 1 can be placed in cells [i, n) so that
+         * every occupied cell in this range is covered.
+         */
+        for (int i = 0; i <= n; i++) {
+            backward[k * stride + i] = filledCount[n] - filledCount[i] == 0;
+        }
+        for (int j = k - 1; j >= 0; j--) {
+            final int c = clue[j];
+            final int row = j * stride;
+            backward[row + n] = false;
+            for (int i = n - 1; i >= 0; i--) {
+                boolean possible = line[i] != FILLED && backward[row + i + 1];
+                final int e = i + c;
+                if (!possible && e <= n && emptyCount[e] - emptyCount[i] == 0) {
+                    if (e == n) {
+                        possible = j == k - 1;
+                    } else {
+                        possible = line[e] != FILLED && backward[(j + 1) * stride + e + 1];
+                    }
+                }
+                backward[row + i] = possible;
+            }
+        }
+
+        // find all cells that are covered by at least one valid placement of any block
+        Arrays.fill(fillDelta, 0, n + 1, 0);
+        for (int j = 0; j < k; j++) {
+            final int c = clue[j];
+            for (int s = 0; s + c <= n; s++) {
+                final int e = s + c;
+                if (emptyCount[e] - emptyCount[s] != 0) {
+                    continue;
+                }
+                final boolean leftPossible;
+                if (s == 0) {
+                    leftPossible = j == 0;
+                } else {
+                    leftPossible = line[s - 1] != FILLED && forward[j * stride + s - 1];
+                }
+                if (!leftPossible) {
+                    continue;
+                }
+                final boolean rightPossible;
+                if (e == n) {
+                    rightPossible = j == k - 1;
+                } else {
+                    rightPossible = line[e] != FILLED && backward[(j + 1) * stride + e + 1];
+                }
+                if (rightPossible) {
+                    fillDelta[s]++;
+                    fillDelta[e]--;
+                }
+            }
+        }
+
+        final byte[] result = new byte[n];
+        int covered = 0;
+        for (int i = 0; i < n; i++) {
+            covered += fillDelta[i];
+            if (line[i] != UNKNOWN) {
+                result[i] = line[i];
+                continue;
+            }
+
+            final boolean canFill = covered > 0;
+            boolean canBeEmpty = false;
+            for (int j = 0; j <= k && !canBeEmpty; j++) {
+                canBeEmpty = forward[j * stride + i] && backward[j * stride + i + 1];
+            }
+
+            if (canFill && canBeEmpty) {
+                result[i] = UNKNOWN;
+            } else if (canFill) {
+                result[i] = FILLED;
+            } else if (canBeEmpty) {
+                result[i] = EMPTY;
+            } else {
+                return null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Enlarges the scratch arrays if necessary.
+     *
+     * @param n
+     *            number of cells in line
+     * @param k
+     *            number of blocks in line
+     */
+    private void ensureCapacity(final int n, final int k) {
+
+        if (filledCount.length < n + 1) {
+            filledCount = new int[n + 1];
+            emptyCount = new int[n + 1];
+            fillDelta = new int[n + 1];
+        }
+        final int size = (k + 1) * (n + 1);
+        if (forward.length < size) {
+            forward = new boolean[size];
+            backward = new boolean[size];
+        }
+    }
+}
@@ -0,0 +1,474 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.freenono.model.data.Nonogram;
+import org.freenono.solver.SolverResult.Uniqueness;
+
+/**
+ * Solves nonograms by their captions alone. At first all rows and columns are solved line by line
+ * with the <code>LineSolver</code> until no more cells can be deduced. If the nonogram is not
+ * completely solved afterwards, a cell is guessed and the search continues recursively with both
+ * possible values. The search stops as soon as two solutions are found, so that the solver can
+ * decide whether a nonogram has a unique solution.
+ * <p>
+ * Instances of this class are not thread-safe. To solve nonograms in parallel every thread has to
+ * use its own solver.
+ *
+ * @author Christian Wichmann
+ */
+public class NonogramSolver {
+
+    private static Logger logger = Logger.getLogger(NonogramSolver.class);
+
+    /**
+     * Default limit for the number of guesses before the solver gives up.
+     */
+    public static final int DEFAULT_MAXIMUM_GUESSES = 10000;
+
+    private final int width;
+    private final int height;
+    private final int[][] clues;
+    private final int[] clueIds;
+    private final LineSolver lineSolver = new LineSolver();
+
+    private int maximumGuesses = DEFAULT_MAXIMUM_GUESSES;
+
+    /* state of the current search */
+    private byte[] line;
+    private int[] queue;
+    private boolean[] queued;
+    private int solutionCount;
+    private byte[] firstSolution;
+    private int guesses;
+    private int contradictions;
+    private int rootSweeps;
+    private boolean aborted;
+
+    /**
+     * Initializes a solver for the captions of the given nonogram. Only the captions are used, the
+     * pattern itself is never looked at.
+     *
+     * @param nonogram
+     *            nonogram to be solved
+     */
+    public NonogramSolver(final Nonogram nonogram) {
+
+        this(rowCluesOf(nonogram), columnCluesOf(nonogram));
+    }
+
+    /**
+     * Initializes a solver for the given captions. A caption containing only a zero or no number at
+     * all describes an empty line.
+     *
+     * @param rowClues
+     *            captions for all rows
+     * @param columnClues
+     *            captions for all columns
+     */
+    public NonogramSolver(final int[][] rowClues, final int[][] columnClues) {
+
+        if (rowClues == null || columnClues == null) {
+            throw new NullPointerException("Parameter rowClues or columnClues is null");
+        }
+
+        height = rowClues.length;
+        width = columnClues.length;
+
+        /*
+         * Lines 0 to height - 1 are the rows, lines height to height + width - 1 are the columns.
+         * Identical clues get the same id, so that the line solver can share cached results.
+         */
+        clues = new int[height + width][];
+        clueIds = new int[height + width];
+        final Map<String, Integer> knownClues = new HashMap<String, Integer>();
+        for (int i = 0; i < height + width; i++) {
+            final int[] clue = i < height ? rowClues[i] : columnClues[i - height];
+            clues[i] = stripZeros(clue);
+            final String key = (i < height ? "r" : "c") + Arrays.toString(clues[i]);
+            Integer id = knownClues.get(key);
+            if (id == null) {
+                id = knownClues.size();
+                knownClues.put(key, id);
+            }
+            clueIds[i] = id;
+        }
+    }
+
+    /**
+     * Gets all row captions of a nonogram.
+     *
+     * @param nonogram
+     *            nonogram to get captions from
+     * @return captions for all rows
+     */
+    private static int[][] rowCluesOf(final Nonogram nonogram) {
+
+        final int[][] rowClues = new int[nonogram.height()][];
+        for (int y = 0; y < nonogram.height(); y++) {
+            rowClues[y] = nonogram.getLineNumbers(y);
+        }
+        return rowClues;
+    }
+
+    /**
+     * Gets all column captions of a nonogram.
+     *
+     * @param nonogram
+     *            nonogram to get captions from
+     * @return captions for all columns
+     */
+    private static int[][] columnCluesOf(final Nonogram nonogram) {
+
+        final int[][] columnClues = new int[nonogram.width()][];
+        for (int x = 0; x < nonogram.width(); x++) {
+            columnClues[x] = nonogram.getColumnNumbers(x);
+        }
+        return columnClues;
+    }
+
+    /**
+     * Removes all zeros from a caption.
+     *
+     * @param clue
+     *            caption of a line
+     * @return caption containing only block lengths greater than zero
+     */
+    private static int[] stripZeros(final int[] clue) {
+
+        int count = 0;
+        for (final int c : clue) {
+            if (c > 0) {
+                count++;
+            }
+        }
+        final int[] stripped = new int[count];
+        int i = 0;
+        for (final int c : clue) {
+            if (c > 0) {
+                stripped[i++] = c;
+            }
+        }
+        return stripped;
+    }
+
+    /**
+     * Sets how many cells the solver may guess before it gives up. If this limit is reached the
+     * result is <code>UNDECIDED</code>.
+     *
+     * @param maximumGuesses
+     *            maximum number of guesses
+     */
+    public final void setMaximumGuesses(final int maximumGuesses) {
+
+        this.maximumGuesses = maximumGuesses;
+    }
+
+    /**
+     * Gets how many cells the solver may guess before it gives up.
+     *
+     * @return maximum number of guesses
+     */
+    public final int getMaximumGuesses() {
+
+        return maximumGuesses;
+    }
+
+    /**
+     * Solves the nonogram and checks whether its solution is unique.
+     *
+     * @return result of solving the nonogram
+     */
+    public final SolverResult solve() {
+
+        final long start = System.currentTimeMillis();
+
+        line = new byte[Math.max(width, height)];
+        queue = new int[width + height];
+        queued = new boolean[width + height];
+        solutionCount = 0;
+        firstSolution = null;
+        guesses = 0;
+        contradictions = 0;
+        rootSweeps = 0;
+        aborted = false;
+
+        final int solvedBefore = lineSolver.getSolvedLines();
+        final int hitsBefore = lineSolver.getCacheHits();
+
+        search(new byte[width * height], -1);
+
+        Uniqueness uniqueness;
+        if (solutionCount >= 2) {
+            uniqueness = Uniqueness.AMBIGUOUS;
+        } else if (aborted) {
+            uniqueness = Uniqueness.UNDECIDED;
+        } else if (solutionCount == 1) {
+            uniqueness = Uniqueness.UNIQUE;
+        } else {
+            uniqueness = Uniqueness.UNSOLVABLE;
+        }
+
+        final SolverResult result = new SolverResult(uniqueness, toField(firstSolution), rootSweeps, contradictions,
+                guesses, lineSolver.getSolvedLines() - solvedBefore, lineSolver.getCacheHits() - hitsBefore,
+                System.currentTimeMillis() - start, width * height);
+        logger.debug("Solved nonogram: " + result);
+
+        return result;
+    }
+
+    /**
+     * Searches recursively for solutions starting from the given grid.
+     *
+     * @param grid
+     *            current state of all cells, will be changed
+     * @param guessedCell
+     *            cell that was guessed last or -1 for the first call of the search
+     */
+    private void search(final byte[] grid, final int guessedCell) {
+
+        final int sweeps = propagate(grid, guessedCell);
+        if (guessedCell < 0) {
+            rootSweeps = Math.abs(sweeps);
+        }
+        if (sweeps < 0) {
+            return;
+        }
+
+        // probing is expensive, so it is only done once before the first guess
+        if (guessedCell < 0 && chooseUnknownCell(grid) >= 0 && !probe(grid)) {
+            return;
+        }
+
+        final int cell = chooseUnknownCell(grid);
+        if (cell < 0) {
+            solutionCount++;
+            if (firstSolution == null) {
+                firstSolution = grid.clone();
+            }
+            return;
+        }
+
+        if (guesses >= maximumGuesses) {
+            aborted = true;
+            return;
+        }
+        guesses++;
+
+        final byte[] filled = grid.clone();
+        filled[cell] = LineSolver.FILLED;
+        search(filled, cell);
+        if (solutionCount >= 2 || aborted) {
+            return;
+        }
+
+        grid[cell] = LineSolver.EMPTY;
+        search(grid, cell);
+    }
+
+    /**
+     * Solves lines until no more cells can be deduced. Lines are processed in sweeps: a sweep
+     * solves all lines that were changed in the previous sweep. Because the grid of a guess was
+     * already solved as far as possible before, only the row and column of the guessed cell have to
+     * be solved at first.
+     *
+     * @param grid
+     *            current state of all cells, will be changed
+     * @param guessedCell
+     *            cell that was guessed last or -1 to solve all lines
+     * @return number of sweeps or a negative number of sweeps if a contradiction was found
+     */
+    private int propagate(final byte[] grid, final int guessedCell) {
+
+        int head = 0;
+        int tail = 0;
+        if (guessedCell < 0) {
+            for (int i = 0; i < width + height; i++) {
+                queue[tail++] = i;
+                queued[i] = true;
+            }
+        } else {
+            final int row = guessedCell / width;
+            final int column = height + guessedCell % width;
+            queue[tail++] = row;
+            queue[tail++] = column;
+            queued[row] = true;
+            queued[column] = true;
+        }
+
+        int sweeps = 0;
+        while (head != tail) {
+            sweeps++;
+            final int sweepEnd = tail;
+            while (head != sweepEnd) {
+                final int index = queue[head % queue.length];
+                head++;
+                queued[index] = false;
+
+                final boolean isRow = index < height;
+                final int length = isRow ? width : height;
+                final int first = isRow ? index * width : index - height;
+                final int step = isRow ? 1 : width;
+
+                for (int i = 0, pos = first; i < length; i++, pos += step) {
+                    line[i] = grid[pos];
+                }
+
+                final byte[] solved = lineSolver.solve(clueIds[index], clues[index], line, length);
+                if (solved == null) {
+                    clearQueue(head, tail);
+                    return -sweeps;
+                }
+
+                for (int i = 0, pos = first; i < length; i++, pos += step) {
+                    if (solved[i] != line[i]) {
+                        grid[pos] = solved[i];
+                        // enqueue crossing line
+                        final int crossing = isRow ? height + i : i;
+                        if (!queued[crossing]) {
+                            queued[crossing] = true;
+                            queue[tail % queue.length] = crossing;
+                            tail++;
+                        }
+                    }
+                }
+            }
+        }
+
+        return sweeps;
+    }
+
+    /**
+     * Tries both values for every unknown cell and solves lines afterwards. If one value leads to a
+     * contradiction, the cell must have the other value. This is repeated until no more cells can
+     * be deduced.
+     *
+     * @param grid
+     *            current state of all cells, will be changed
+     * @return false, if grid is contradictory
+     */
+    private boolean probe(final byte[] grid) {
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int cell = 0; cell < grid.length; cell++) {
+                if (grid[cell] != LineSolver.UNKNOWN) {
+                    continue;
+                }
+
+                byte deduced = LineSolver.UNKNOWN;
+                final byte[] trial = grid.clone();
+                trial[cell] = LineSolver.FILLED;
+                if (propagate(trial, cell) < 0) {
+                    deduced = LineSolver.EMPTY;
+                } else {
+                    System.arraycopy(grid, 0, trial, 0, grid.length);
+                    trial[cell] = LineSolver.EMPTY;
+                    if (propagate(trial, cell) < 0) {
+                        deduced = LineSolver.FILLED;
+                    }
+                }
+
+                if (deduced != LineSolver.UNKNOWN) {
+                    contradictions++;
+                    grid[cell] = deduced;
+                    if (propagate(grid, cell) < 0) {
+                        return false;
+                    }
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Resets the queued flags of all lines remaining in queue.
+     *
+     * @param head
+     *            index of first remaining line in queue
+     * @param tail
+     *            index after last remaining line in queue
+     */
+    private void clearQueue(final int head, final int tail) {
+
+        for (int i = head; i != tail; i++) {
+            queued[queue[i % queue.length]] = false;
+        }
+    }
+
+    /**
+     * Chooses a cell to guess. The first unknown cell of the row with the fewest unknown cells is
+     * chosen, because guessing there leads to contradictions most quickly.
+     *
+     * @param grid
+     *            current state of all cells
+     * @return index of unknown cell or -1 if all cells are known
+     */
+    private int chooseUnknownCell(final byte[] grid) {
+
+        int bestCell = -1;
+        int bestUnknown = Integer.MAX_VALUE;
+
+        for (int y = 0; y < height; y++) {
+            int unknown = 0;
+            int firstUnknown = -1;
+            for (int x = 0, pos = y * width; x < width; x++, pos++) {
+                if (grid[pos] == LineSolver.UNKNOWN) {
+                    if (firstUnknown < 0) {
+                        firstUnknown = pos;
+                    }
+                    unknown++;
+                }
+            }
+            if (unknown > 0 && unknown < bestUnknown) {
+                bestUnknown = unknown;
+                bestCell = firstUnknown;
+            }
+        }
+
+        return bestCell;
+    }
+
+    /**
+     * Converts a solved grid into a field as used by <code>Nonogram</code>.
+     *
+     * @param grid
+     *            solved grid or <code>null</code>
+     * @return field indexed by row and column or <code>null</code>
+     */
+    private boolean[][] toField(final byte[] grid) {
+
+        if (grid == null) {
+            return null;
+        }
+        final boolean[][] field = new boolean[height][width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                field[y][x] = grid[y * width + x] == LineSolver.FILLED;
+            }
+        }
+        return field;
+    }
+}
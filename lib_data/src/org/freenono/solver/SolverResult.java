@@ -0,0 +1,282 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+package org.freenono.solver;
+
+import org.freenono.model.data.DifficultyLevel;
+
+/**
+ * Stores the result of solving a nonogram with the <code>NonogramSolver</code>. Besides whether
+ * the nonogram has a unique solution, it contains some numbers about how much work was necessary
+ * to solve it. These numbers are combined into a difficulty score.
+ *
+ * @author Christian Wichmann
+ */
+public final class SolverResult {
+
+    /**
+     * Describes how many solutions were found for a nonogram.
+     *
+     * @author Christian Wichmann
+     */
+    public enum Uniqueness {
+
+        /**
+         * The nonogram has exactly one solution.
+         */
+        UNIQUE,
+
+        /**
+         * The nonogram has more than one solution.
+         */
+        AMBIGUOUS,
+
+        /**
+         * No solution could be found for the nonogram.
+         */
+        UNSOLVABLE,
+
+        /**
+         * The solver stopped before it could decide how many solutions the nonogram has.
+         */
+        UNDECIDED
+    }
+
+    private static final double SIDE_LENGTH_PER_POINT = 10.0;
+    private static final double POINTS_PER_CONTRADICTION = 2.0;
+    private static final double POINTS_PER_GUESS = 10.0;
+
+    private static final double EASIEST_LIMIT = 4.0;
+    private static final double EASY_LIMIT = 8.0;
+    private static final double NORMAL_LIMIT = 15.0;
+    private static final double HARD_LIMIT = 30.0;
+
+    private final Uniqueness uniqueness;
+    private final boolean[][] solution;
+    private final int sweeps;
+    private final int contradictions;
+    private final int guesses;
+    private final int solvedLines;
+    private final int cacheHits;
+    private final long duration;
+    private final int cells;
+
+    /**
+     * Initializes a new result.
+     *
+     * @param uniqueness
+     *            how many solutions were found
+     * @param solution
+     *            first solution that was found or <code>null</code> if there is none
+     * @param sweeps
+     *            number of sweeps over all changed lines before first guess
+     * @param contradictions
+     *            number of cells deduced by trying a value and finding a contradiction
+     * @param guesses
+     *            number of cells that had to be guessed
+     * @param solvedLines
+     *            number of lines solved by line solver
+     * @param cacheHits
+     *            number of lines answered from cache
+     * @param duration
+     *            time for solving in milliseconds
+     * @param cells
+     *            number of cells of the nonogram
+     */
+    SolverResult(final Uniqueness uniqueness, final boolean[][] solution, final int sweeps,
+            final int contradictions, final int guesses, final int solvedLines, final int cacheHits, final long duration, final int cells) {
+
+        this.uniqueness = uniqueness;
+        this.solution = solution;
+        this.sweeps = sweeps;
+        this.contradictions = contradictions;
+        this.guesses = guesses;
+        this.solvedLines = solvedLines;
+        this.cacheHits = cacheHits;
+        this.duration = duration;
+        this.cells = cells;
+    }
+
+    /**
+     * Gets how many solutions were found.
+     *
+     * @return uniqueness of solution
+     */
+    public Uniqueness getUniqueness() {
+
+        return uniqueness;
+    }
+
+    /**
+     * Checks whether the nonogram has exactly one solution.
+     *
+     * @return true, if solution is unique
+     */
+    public boolean isUnique() {
+
+        return uniqueness == Uniqueness.UNIQUE;
+    }
+
+    /**
+     * Checks whether the nonogram could be solved by looking at single lines only, so that no cell
+     * had to be deduced by contradiction or guessed.
+     *
+     * @return true, if nonogram is solvable line by line
+     */
+    public boolean isLineSolvable() {
+
+        return uniqueness == Uniqueness.UNIQUE && contradictions == 0 && guesses == 0;
+    }
+
+    /**
+     * Gets the first solution that was found. The array is indexed by row first and column second
+     * just like the array given to the constructor of <code>Nonogram</code>.
+     *
+     * @return solution or <code>null</code> if none was found
+     */
+    public boolean[][] getSolution() {
+
+        if (solution == null) {
+            return null;
+        }
+        final boolean[][] copy = new boolean[solution.length][];
+        for (int i = 0; i < solution.length; i++) {
+            copy[i] = solution[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Gets how many sweeps over all changed lines were necessary before the solver had to guess or
+     * finished.
+     *
+     * @return number of sweeps
+     */
+    public int getSweeps() {
+
+        return sweeps;
+    }
+
+    /**
+     * Gets how many cells were deduced by trying a value and finding a contradiction when solving
+     * all affected lines.
+     *
+     * @return number of contradictions
+     */
+    public int getContradictions() {
+
+        return contradictions;
+    }
+
+    /**
+     * Gets how many cells had to be guessed.
+     *
+     * @return number of guesses
+     */
+    public int getGuesses() {
+
+        return guesses;
+    }
+
+    /**
+     * Gets how many lines were solved by the line solver.
+     *
+     * @return number of solved lines
+     */
+    public int getSolvedLines() {
+
+        return solvedLines;
+    }
+
+    /**
+     * Gets how many lines were answered from cache instead of being solved again.
+     *
+     * @return number of cache hits
+     */
+    public int getCacheHits() {
+
+        return cacheHits;
+    }
+
+    /**
+     * Gets how long it took to solve the nonogram.
+     *
+     * @return duration in milliseconds
+     */
+    public long getDuration() {
+
+        return duration;
+    }
+
+    /**
+     * Maps a difficulty score to a difficulty level.
+     *
+     * @param score
+     *            difficulty score
+     * @return difficulty level or <code>UNDEFINED</code> if score is zero
+     */
+    private static DifficultyLevel levelForScore(final double score) {
+
+        if (score <= 0) {
+            return DifficultyLevel.UNDEFINED;
+        } else if (score < EASIEST_LIMIT) {
+            return DifficultyLevel.EASIEST;
+        } else if (score < EASY_LIMIT) {
+            return DifficultyLevel.EASY;
+        } else if (score < NORMAL_LIMIT) {
+            return DifficultyLevel.NORMAL;
+        } else if (score < HARD_LIMIT) {
+            return DifficultyLevel.HARD;
+        } else {
+            return DifficultyLevel.HARDEST;
+        }
+    }
+
+    /**
+     * Gets an objective difficulty score for the nonogram. Every sweep over all changed lines counts
+     * one point, every ten cells of the average side length count one point, every cell deduced by
+     * contradiction counts two points and every guess counts ten points. Only nonograms with a
+     * unique solution get a score.
+     *
+     * @return difficulty score or zero if nonogram has no unique solution
+     */
+    public double getDifficultyScore() {
+
+        if (uniqueness != Uniqueness.UNIQUE) {
+            return 0;
+        }
+        return sweeps + Math.sqrt(cells) / SIDE_LENGTH_PER_POINT + contradictions * POINTS_PER_CONTRADICTION
+                + guesses * POINTS_PER_GUESS;
+    }
+
+    /**
+     * Gets a difficulty level derived from the difficulty score.
+     *
+     * @return difficulty level or <code>UNDEFINED</code> if nonogram has no unique solution
+     */
+    public DifficultyLevel getDifficultyLevel() {
+
+        return levelForScore(getDifficultyScore());
+    }
+
+    @Override
+    public String toString() {
+
+        return uniqueness + " (sweeps: " + sweeps + ", contradictions: " + contradictions + ", guesses: " + guesses + ", score: "
+                + String.format("%.1f", getDifficultyScore()) + ")";
+    }
+}
@@ -0,0 +1,29 @@
+/*****************************************************************************
+ * FreeNono - A free implementation of the nonogram game
+ * Copyright (c) 2013 by FreeNono Development Team
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *****************************************************************************/
+
+/**
+ * Provides a solver for nonograms that decides whether a nonogram has a unique solution and rates
+ * how difficult it is to solve. It is currently used by the ValidateNonograms tool to check whole
+ * collections.
+ * <p>
+ * Solving a random 50x50 nonogram takes up to several hundred milliseconds, so the solver should
+ * not be called on the event dispatch thread.
+ *
+ * @author Christian Wichmann
+ */
+package org.freenono.solver;